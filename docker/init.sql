@@ -1,6 +1,7 @@
 -- Script de inicialização do banco de dados Steam Analytics
 -- Criação de extensões necessárias
 CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
 
 -- Usuários
 CREATE TABLE IF NOT EXISTS users (
@@ -15,6 +16,8 @@ CREATE TABLE IF NOT EXISTS users (
     last_login TIMESTAMP WITH TIME ZONE,
     profile_visibility INTEGER DEFAULT 1,
     is_active BOOLEAN DEFAULT true,
+    library_synced_at TIMESTAMP WITH TIME ZONE, -- última sincronização da biblioteca com a Steam
+    library_fingerprint BIGINT, -- hash do último payload sincronizado; nulo após edições fora da sincronização
     version BIGINT DEFAULT 0
 );
 
@@ -60,16 +63,90 @@ CREATE TABLE IF NOT EXISTS friendships (
     CONSTRAINT different_users CHECK (requester_id != addressee_id)
 );
 
+-- Rollup das estatísticas da biblioteca por usuário (mantido pela aplicação)
+CREATE TABLE IF NOT EXISTS user_library_stats (
+    user_id BIGINT PRIMARY KEY REFERENCES users(user_id) ON DELETE CASCADE,
+    total_games BIGINT NOT NULL DEFAULT 0,
+    played_games BIGINT NOT NULL DEFAULT 0,
+    total_playtime BIGINT NOT NULL DEFAULT 0, -- em minutos
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT NOW()
+);
+
+-- Agregado por jogo: donos e tempo de jogo somado (mantido pela aplicação)
+CREATE TABLE IF NOT EXISTS game_stats (
+    game_id BIGINT PRIMARY KEY REFERENCES games(game_id) ON DELETE CASCADE,
+    owner_count BIGINT NOT NULL DEFAULT 0,
+    total_playtime BIGINT NOT NULL DEFAULT 0, -- em minutos
+    recent_playtime BIGINT NOT NULL DEFAULT 0, -- em minutos, últimas 2 semanas
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT NOW()
+);
+
+-- Jogos similares pré-calculados por coocorrência de donos (K vizinhos por jogo, mantidos pela aplicação)
+CREATE TABLE IF NOT EXISTS game_similarity (
+    game_id BIGINT NOT NULL REFERENCES games(game_id) ON DELETE CASCADE,
+    similar_game_id BIGINT NOT NULL REFERENCES games(game_id) ON DELETE CASCADE,
+    common_players INTEGER NOT NULL,
+    score DOUBLE PRECISION NOT NULL,
+    computed_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
+    PRIMARY KEY (game_id, similar_game_id)
+);
+
+-- Sequences com incremento igual ao bloco de IDs do pooled-lo (analytics.ids.block-size)
+ALTER SEQUENCE users_user_id_seq INCREMENT BY 50;
+ALTER SEQUENCE games_game_id_seq INCREMENT BY 50;
+ALTER SEQUENCE user_game_library_id_seq INCREMENT BY 50;
+ALTER SEQUENCE friendships_id_seq INCREMENT BY 50;
+
 -- Índices para otimização
-CREATE INDEX IF NOT EXISTS idx_user_game_library_user_playtime ON user_game_library(user_id, playtime_total DESC);
-CREATE INDEX IF NOT EXISTS idx_user_game_library_game_playtime ON user_game_library(game_id, playtime_total DESC);
+-- Top-N e keyset: a ordem do índice é a do ORDER BY (id desempata), então o LIMIT para no N-ésimo registro
+CREATE INDEX IF NOT EXISTS idx_user_game_library_user_playtime ON user_game_library(user_id, playtime_total DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_user_game_library_game_playtime ON user_game_library(game_id, playtime_total DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_user_game_library_game_user ON user_game_library(game_id, user_id);
+CREATE INDEX IF NOT EXISTS idx_user_game_library_user_recent ON user_game_library(user_id, playtime_2weeks DESC, id DESC)
+    WHERE playtime_2weeks > 0;
+CREATE INDEX IF NOT EXISTS idx_user_game_library_user_last_played ON user_game_library(user_id, last_played DESC, id DESC)
+    WHERE last_played IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_game_stats_owner_count ON game_stats(owner_count DESC, game_id);
+CREATE INDEX IF NOT EXISTS idx_game_stats_total_playtime ON game_stats(total_playtime DESC);
 CREATE INDEX IF NOT EXISTS idx_friendships_requester_status ON friendships(requester_id, status);
 CREATE INDEX IF NOT EXISTS idx_friendships_addressee_status ON friendships(addressee_id, status);
 CREATE INDEX IF NOT EXISTS idx_games_tags ON games USING GIN(tags);
 CREATE INDEX IF NOT EXISTS idx_games_categories ON games USING GIN(categories);
+CREATE INDEX IF NOT EXISTS idx_games_genres ON games USING GIN(genres);
+-- Filtros do catálogo (/api/games/filter): igualdade + ordenação padrão por lançamento, faixas e ordenações
+CREATE INDEX IF NOT EXISTS idx_games_developer_release ON games(developer, release_date DESC NULLS LAST, game_id DESC);
+CREATE INDEX IF NOT EXISTS idx_games_publisher_release ON games(publisher, release_date DESC NULLS LAST, game_id DESC);
+CREATE INDEX IF NOT EXISTS idx_games_release_date ON games(release_date DESC NULLS LAST, game_id DESC);
+CREATE INDEX IF NOT EXISTS idx_games_price_current ON games(price_current, game_id);
+CREATE INDEX IF NOT EXISTS idx_games_name ON games(name, game_id);
+-- Busca por nome (/api/games/search, /api/users/search): vizinhos por trigramas (GiST), full-text e prefixo
+CREATE INDEX IF NOT EXISTS idx_games_name_trgm ON games USING GIST (lower(name) gist_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_games_name_fts ON games USING GIN (to_tsvector('simple', name));
+CREATE INDEX IF NOT EXISTS idx_games_name_prefix ON games(lower(name) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_users_username_trgm ON users USING GIST (lower(username) gist_trgm_ops)
+    WHERE is_active = true;
+CREATE INDEX IF NOT EXISTS idx_users_display_name_trgm ON users USING GIST (lower(display_name) gist_trgm_ops)
+    WHERE is_active = true;
+CREATE INDEX IF NOT EXISTS idx_users_username_prefix ON users(lower(username) text_pattern_ops)
+    WHERE is_active = true;
 CREATE INDEX IF NOT EXISTS idx_users_steam_id ON users(steam_id);
+-- Varredura do agendador de sincronização: keyset por user_id só sobre ativos, sem ler o heap
+CREATE INDEX IF NOT EXISTS idx_users_sync ON users(user_id) INCLUDE (steam_id, last_login, library_synced_at)
+    WHERE is_active = true;
 CREATE INDEX IF NOT EXISTS idx_games_steam_app_id ON games(steam_app_id);
 
+-- Coordenação entre instâncias (ClusterCoordinator): nós vivos e leases de partições e jobs
+CREATE TABLE IF NOT EXISTS cluster_nodes (
+    node_id VARCHAR(100) PRIMARY KEY,
+    heartbeat_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS job_leases (
+    name VARCHAR(100) PRIMARY KEY,
+    owner_node VARCHAR(100) NOT NULL,
+    lease_until TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
 -- Dados de exemplo para desenvolvimento
 INSERT INTO users (steam_id, username, display_name) VALUES
 (76561198000000001, 'testuser1', 'Test User 1'),
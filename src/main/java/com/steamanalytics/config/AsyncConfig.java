@@ -0,0 +1,85 @@
+package com.steamanalytics.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    @Value("${analytics.dashboard.pool-size:8}")
+    private int dashboardPoolSize;
+
+    @Value("${analytics.dashboard.queue-capacity:100}")
+    private int dashboardQueueCapacity;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Pool limitado para montar os componentes do dashboard em paralelo.
+     * Quando a fila enche, a própria thread da requisição executa o componente (back-pressure).
+     * Com virtual threads cada componente ganha a sua; o limite passa a ser o de conexões
+     * do {@link ConnectionLimitingDataSource}.
+     */
+    @Bean(name = "dashboardExecutor")
+    public AsyncTaskExecutor dashboardExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("dashboard-");
+            executor.setVirtualThreads(true);
+            // Equivalente ao waitForTasksToCompleteOnShutdown do pool
+            executor.setTaskTerminationTimeout(5_000);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(dashboardPoolSize);
+        executor.setMaxPoolSize(dashboardPoolSize);
+        executor.setQueueCapacity(dashboardQueueCapacity);
+        executor.setThreadNamePrefix("dashboard-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Recargas em segundo plano dos caches com soft TTL. Com a fila cheia a recarga é descartada
+     * (o valor antigo continua sendo servido e a próxima leitura tenta de novo).
+     */
+    @Bean(name = "cacheRefreshExecutor")
+    public ThreadPoolTaskExecutor cacheRefreshExecutor(
+            @Value("${analytics.cache.loader.refresh-pool-size:4}") int poolSize,
+            @Value("${analytics.cache.loader.refresh-queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Workers da sincronização de bibliotecas com a Steam. O agendador nunca tem mais tarefas em
+     * voo que workers, então a fila só absorve a troca de turno; cada worker usa no máximo uma
+     * conexão por vez, o que mantém a sincronização bem abaixo do pool do Hikari.
+     */
+    @Bean(name = "librarySyncExecutor")
+    public ThreadPoolTaskExecutor librarySyncExecutor(
+            @Value("${analytics.library-sync.scheduler.workers:4}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers);
+        executor.setThreadNamePrefix("library-sync-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
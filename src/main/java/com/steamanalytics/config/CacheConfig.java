@@ -1,15 +1,21 @@
 package com.steamanalytics.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -20,41 +26,87 @@ import java.util.Map;
 @EnableCaching
 public class CacheConfig {
 
+    /**
+     * Codec dos valores no Redis (cache manager e redisTemplate): json, smile ou cbor, com LZ4 acima do limite
+     */
+    @Bean
+    public CacheValueSerializer cacheValueSerializer(
+            @Value("${analytics.cache.codec:smile}") String codec,
+            @Value("${analytics.cache.compression-threshold:1024}") int compressionThreshold) {
+        return new CacheValueSerializer(CacheValueSerializer.Format.parse(codec), compressionThreshold);
+    }
+
     @Bean
     @Primary
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, Environment environment,
+                                     MeterRegistry meterRegistry, CacheValueSerializer cacheValueSerializer) {
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(30))
                 .serializeKeysWith(RedisSerializationContext.SerializationPair
                         .fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair
-                        .fromSerializer(new GenericJackson2JsonRedisSerializer()));
+                        .fromSerializer(cacheValueSerializer));
 
         Map<String, RedisCacheConfiguration> cacheConfigurations = Map.of(
                 "userGames", defaultConfig.entryTtl(Duration.ofHours(1)),
                 "userProfile", defaultConfig.entryTtl(Duration.ofMinutes(15)),
                 "gameInfo", defaultConfig.entryTtl(Duration.ofHours(6)),
-                "friendList", defaultConfig.entryTtl(Duration.ofMinutes(30)),
                 "commonGames", defaultConfig.entryTtl(Duration.ofMinutes(45)),
-                "userStats", defaultConfig.entryTtl(Duration.ofMinutes(20))
+                "userStats", defaultConfig.entryTtl(Duration.ofMinutes(20)),
+                "userStatsSummary", defaultConfig.entryTtl(Duration.ofMinutes(20))
         );
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        if (!environment.getProperty("analytics.near-cache.enabled", Boolean.class, true)) {
+            return redisCacheManager;
+        }
+        return new NearCacheManager(redisCacheManager, name -> localSettings(environment, name),
+                new StringRedisTemplate(connectionFactory), meterRegistry);
+    }
+
+    /**
+     * L1 de cada cache: {@code analytics.near-cache.caches.<nome>.*}, com {@code analytics.near-cache.*} como padrão
+     */
+    private static NearCacheManager.LocalSettings localSettings(Environment environment, String cacheName) {
+        long defaultMaxSize = environment.getProperty("analytics.near-cache.max-size", Long.class, 10_000L);
+        Duration defaultTtl = environment.getProperty("analytics.near-cache.ttl", Duration.class, Duration.ofSeconds(60));
+        String prefix = "analytics.near-cache.caches." + cacheName;
+        return new NearCacheManager.LocalSettings(
+                environment.getProperty(prefix + ".max-size", Long.class, defaultMaxSize),
+                environment.getProperty(prefix + ".ttl", Duration.class, defaultTtl));
+    }
+
+    /**
+     * Recebe as invalidações de L1 publicadas pelas outras instâncias
+     */
+    @Bean
+    @ConditionalOnProperty(name = "analytics.near-cache.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                   CacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (cacheManager instanceof NearCacheManager nearCacheManager) {
+            container.addMessageListener(nearCacheManager, new ChannelTopic(NearCacheManager.INVALIDATION_CHANNEL));
+        }
+        return container;
     }
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       CacheValueSerializer cacheValueSerializer) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
         // Configurar serializers
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
-        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setValueSerializer(cacheValueSerializer);
+        template.setHashValueSerializer(cacheValueSerializer);
 
         // Habilitar transações se necessário
         template.setEnableTransactionSupport(true);
@@ -0,0 +1,135 @@
+package com.steamanalytics.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Serializador dos valores do Redis com formato plugável: JSON, Smile ou CBOR, todos com o mesmo
+ * mapeamento de tipos ({@code @class}) do {@link GenericJackson2JsonRedisSerializer}. Payloads a partir
+ * do limite configurado são comprimidos com LZ4. A leitura reconhece o formato pelo cabeçalho,
+ * então valores gravados em outro formato (inclusive o JSON antigo) continuam legíveis.
+ */
+public class CacheValueSerializer implements RedisSerializer<Object> {
+
+    public enum Format {
+        JSON,
+        SMILE,
+        CBOR;
+
+        public static Format parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    // Nenhum dos formatos começa com 0x00: o byte marca o envelope LZ4 (seguido do tamanho original)
+    private static final byte LZ4_MARKER = 0x00;
+    private static final int LZ4_HEADER_SIZE = 1 + Integer.BYTES;
+
+    private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+    private static final byte[] CBOR_SELF_DESCRIBE = {(byte) 0xD9, (byte) 0xD9, (byte) 0xF7};
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final Format format;
+    private final int compressionThreshold;
+    private final Map<Format, GenericJackson2JsonRedisSerializer> codecs = new EnumMap<>(Format.class);
+
+    /**
+     * @param compressionThreshold tamanho mínimo em bytes para comprimir; 0 desliga a compressão
+     */
+    public CacheValueSerializer(Format format, int compressionThreshold) {
+        this.format = format;
+        this.compressionThreshold = compressionThreshold;
+        codecs.put(Format.JSON, codec(new JsonFactory()));
+        codecs.put(Format.SMILE, codec(new SmileFactory()));
+        codecs.put(Format.CBOR, codec(CBORFactory.builder().enable(CBORGenerator.Feature.WRITE_TYPE_HEADER).build()));
+    }
+
+    private static GenericJackson2JsonRedisSerializer codec(JsonFactory factory) {
+        ObjectMapper mapper = new ObjectMapper(factory).registerModule(new JavaTimeModule());
+        return GenericJackson2JsonRedisSerializer.builder()
+                .objectMapper(mapper)
+                .defaultTyping(true)
+                .registerNullValueSerializer(true)
+                .build();
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] encoded = codecs.get(format).serialize(value);
+        if (compressionThreshold <= 0 || encoded.length < compressionThreshold) {
+            return encoded;
+        }
+
+        byte[] compressed = new byte[LZ4_HEADER_SIZE + COMPRESSOR.maxCompressedLength(encoded.length)];
+        int compressedLength = COMPRESSOR.compress(encoded, 0, encoded.length, compressed, LZ4_HEADER_SIZE);
+        if (LZ4_HEADER_SIZE + compressedLength >= encoded.length) {
+            // Incompressível: gravar sem o envelope
+            return encoded;
+        }
+        ByteBuffer.wrap(compressed).put(LZ4_MARKER).putInt(encoded.length);
+        return Arrays.copyOf(compressed, LZ4_HEADER_SIZE + compressedLength);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        byte[] encoded = bytes[0] == LZ4_MARKER ? decompress(bytes) : bytes;
+        return codecs.get(detect(encoded)).deserialize(encoded);
+    }
+
+    private static byte[] decompress(byte[] bytes) {
+        if (bytes.length < LZ4_HEADER_SIZE) {
+            throw new SerializationException("Truncated LZ4 cache value");
+        }
+        int originalLength = ByteBuffer.wrap(bytes, 1, Integer.BYTES).getInt();
+        byte[] restored = new byte[originalLength];
+        DECOMPRESSOR.decompress(bytes, LZ4_HEADER_SIZE, restored, 0, originalLength);
+        return restored;
+    }
+
+    static Format detect(byte[] encoded) {
+        if (startsWith(encoded, SMILE_HEADER)) {
+            return Format.SMILE;
+        }
+        if (startsWith(encoded, CBOR_SELF_DESCRIBE)) {
+            return Format.CBOR;
+        }
+        return Format.JSON;
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,58 @@
+package com.steamanalytics.config;
+
+import com.steamanalytics.model.entity.PooledSequenceGenerator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+@Configuration
+public class IdGenerationConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGenerationConfig.class);
+
+    @Value("${analytics.ids.block-size:" + PooledSequenceGenerator.DEFAULT_BLOCK_SIZE + "}")
+    private int idBlockSize;
+
+    /**
+     * Repassa o tamanho do bloco de IDs para os geradores {@link PooledSequenceGenerator}
+     */
+    @Bean
+    public HibernatePropertiesCustomizer idBlockSizeCustomizer() {
+        return properties -> properties.put(PooledSequenceGenerator.BLOCK_SIZE_SETTING, idBlockSize);
+    }
+
+    /**
+     * Ajusta o INCREMENT BY das sequences ao tamanho do bloco antes de a aplicação aceitar requisições.
+     * O pooled-lo só é seguro quando o incremento da sequence é igual ao bloco reservado,
+     * e o {@code ddl-auto: update} não altera sequences já existentes.
+     */
+    @Bean
+    public SmartInitializingSingleton pooledSequenceAligner(EntityManagerFactory entityManagerFactory,
+                                                            JdbcTemplate jdbcTemplate) {
+        return () -> {
+            Map<String, Integer> increments = new TreeMap<>();
+            entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                    .getMappingMetamodel()
+                    .forEachEntityDescriptor(persister -> {
+                        if (persister.getGenerator() instanceof PooledSequenceGenerator generator) {
+                            increments.put(generator.getSequenceName(), generator.getBlockSize());
+                        }
+                    });
+
+            increments.forEach((sequenceName, increment) -> {
+                jdbcTemplate.execute("ALTER SEQUENCE IF EXISTS " + sequenceName + " INCREMENT BY " + increment);
+                log.debug("Sequence {} aligned to increment {}", sequenceName, increment);
+            });
+        };
+    }
+}
@@ -0,0 +1,172 @@
+package com.steamanalytics.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache em duas camadas: L1 local (Caffeine, limitado por tamanho e TTL) na frente do cache Redis (L2).
+ * Escritas vão para as duas camadas e são anunciadas às outras instâncias, que descartam a entrada do L1.
+ * Os valores do L1 são as mesmas instâncias para todas as threads e não devem ser alterados por quem lê.
+ */
+public class NearCache implements Cache {
+
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+    private final NearCacheManager.InvalidationPublisher publisher;
+
+    // Incrementado a cada invalidação; uma leitura do L2 só é guardada no L1 se nada foi invalidado no meio
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public NearCache(Cache remote, com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local,
+                     NearCacheManager.InvalidationPublisher publisher) {
+        this.remote = remote;
+        this.local = local;
+        this.publisher = publisher;
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    public com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> getLocalCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        ValueWrapper cached = local.getIfPresent(localKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = invalidations.get();
+        ValueWrapper loaded = remote.get(key);
+        if (loaded != null) {
+            cacheLocally(localKey, loaded, generation);
+        }
+        return loaded;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        ValueWrapper cached = local.getIfPresent(localKey);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        long generation = invalidations.get();
+        T value = remote.get(key, valueLoader);
+        cacheLocally(localKey, new SimpleValueWrapper(value), generation);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        String localKey = localKey(key);
+        invalidateLocal(localKey);
+        local.put(localKey, new SimpleValueWrapper(value));
+        publisher.publishEvict(getName(), localKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        if (existing == null) {
+            String localKey = localKey(key);
+            invalidateLocal(localKey);
+            local.put(localKey, new SimpleValueWrapper(value));
+            publisher.publishEvict(getName(), localKey);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        String localKey = localKey(key);
+        invalidateLocal(localKey);
+        publisher.publishEvict(getName(), localKey);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = remote.evictIfPresent(key);
+        String localKey = localKey(key);
+        invalidateLocal(localKey);
+        publisher.publishEvict(getName(), localKey);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        invalidateLocal();
+        publisher.publishClear(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = remote.invalidate();
+        invalidateLocal();
+        publisher.publishClear(getName());
+        return invalidated;
+    }
+
+    /**
+     * Descarta uma entrada do L1 (invalidação recebida de outra instância ou escrita local)
+     */
+    void invalidateLocal(String localKey) {
+        invalidations.incrementAndGet();
+        local.invalidate(localKey);
+    }
+
+    /**
+     * Descarta todo o L1
+     */
+    void invalidateLocal() {
+        invalidations.incrementAndGet();
+        local.invalidateAll();
+    }
+
+    private void cacheLocally(String localKey, ValueWrapper value, long generation) {
+        if (invalidations.get() == generation) {
+            local.put(localKey, value);
+            // Invalidação concorrente com o put: na dúvida, descartar
+            if (invalidations.get() != generation) {
+                local.invalidate(localKey);
+            }
+        }
+    }
+
+    /**
+     * Chave do L1 e das mensagens de invalidação: a mesma forma textual que o Redis usa na chave
+     */
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
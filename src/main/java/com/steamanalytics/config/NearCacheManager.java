@@ -0,0 +1,133 @@
+package com.steamanalytics.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Decora o cache manager do Redis com um L1 local por cache ({@link NearCache}) e propaga as
+ * invalidações entre instâncias via pub/sub do Redis. Mensagens da própria instância são ignoradas.
+ */
+public class NearCacheManager implements CacheManager, MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(NearCacheManager.class);
+
+    public static final String INVALIDATION_CHANNEL = "cache:invalidation";
+
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+
+    private final CacheManager remoteCacheManager;
+    private final Function<String, LocalSettings> localSettings;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+    private final InvalidationPublisher publisher = new InvalidationPublisher();
+
+    public NearCacheManager(CacheManager remoteCacheManager, Function<String, LocalSettings> localSettings,
+                            StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.localSettings = localSettings;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remote = remoteCacheManager.getCache(name);
+        return remote != null ? caches.computeIfAbsent(name, cacheName -> decorate(remote)) : null;
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private Cache decorate(Cache remote) {
+        LocalSettings settings = localSettings.apply(remote.getName());
+        if (settings.maxSize() <= 0) {
+            return remote;
+        }
+
+        com.github.benmanes.caffeine.cache.Cache<String, Cache.ValueWrapper> local = Caffeine.newBuilder()
+                .maximumSize(settings.maxSize())
+                .expireAfterWrite(settings.ttl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, remote.getName(), "tier", "l1");
+        return new NearCache(remote, local, publisher);
+    }
+
+    /**
+     * Invalidação publicada por outra instância: {@code nó|operação|cache|chave}
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        if (!(caches.get(parts[2]) instanceof NearCache cache)) {
+            return;
+        }
+
+        if (CLEAR.equals(parts[1])) {
+            cache.invalidateLocal();
+        } else if (EVICT.equals(parts[1]) && parts.length == 4) {
+            cache.invalidateLocal(parts[3]);
+        }
+    }
+
+    /**
+     * Tamanho máximo e TTL do L1 de um cache (tamanho 0 desliga o L1)
+     */
+    public record LocalSettings(long maxSize, Duration ttl) {
+    }
+
+    /**
+     * Anuncia às outras instâncias as entradas que mudaram
+     */
+    public class InvalidationPublisher {
+
+        void publishEvict(String cacheName, String key) {
+            publish(nodeId + "|" + EVICT + "|" + cacheName + "|" + key);
+        }
+
+        void publishClear(String cacheName) {
+            publish(nodeId + "|" + CLEAR + "|" + cacheName);
+        }
+
+        private void publish(String message) {
+            try {
+                redisTemplate.convertAndSend(INVALIDATION_CHANNEL, message);
+            } catch (RuntimeException e) {
+                // As outras instâncias ficam com o valor antigo até o TTL do L1
+                log.warn("Cache invalidation broadcast failed: {}", e.getMessage());
+            }
+        }
+    }
+}
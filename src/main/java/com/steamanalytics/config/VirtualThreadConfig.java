@@ -0,0 +1,47 @@
+package com.steamanalytics.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Modo virtual threads ({@code spring.threads.virtual.enabled=true}): o Spring Boot passa a atender
+ * as requisições do Tomcat, o {@code @Async} e o {@code @Scheduled} em virtual threads, e o
+ * {@link AsyncConfig} faz o mesmo com o dashboard. Aqui o acesso ao banco é limitado ao tamanho do
+ * pool do Hikari.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    /**
+     * Envolve o DataSource no {@link ConnectionLimitingDataSource}. As permissões acompanham o
+     * {@code maximum-pool-size} e a espera o {@code connection-timeout} do Hikari.
+     */
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource) {
+                    return bean;
+                }
+                int permits = environment.getProperty("analytics.virtual-threads.db-permits", Integer.class,
+                        environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+                Duration timeout = Duration.ofMillis(
+                        environment.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30_000L));
+                log.info("Virtual threads enabled: DataSource '{}' limited to {} concurrent connections", beanName, permits);
+                return new ConnectionLimitingDataSource(dataSource, permits, timeout);
+            }
+        };
+    }
+}
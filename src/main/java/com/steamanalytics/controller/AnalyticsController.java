@@ -2,6 +2,7 @@ package com.steamanalytics.controller;
 
 import com.steamanalytics.model.dto.*;
 import com.steamanalytics.service.AnalyticsService;
+import com.steamanalytics.service.BulkUserStatsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,10 +15,12 @@ import java.util.List;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final BulkUserStatsService bulkUserStatsService;
 
     @Autowired
-    public AnalyticsController(AnalyticsService analyticsService) {
+    public AnalyticsController(AnalyticsService analyticsService, BulkUserStatsService bulkUserStatsService) {
         this.analyticsService = analyticsService;
+        this.bulkUserStatsService = bulkUserStatsService;
     }
 
     /**
@@ -124,24 +127,14 @@ public class AnalyticsController {
      */
     @PostMapping("/users/bulk-stats")
     public ResponseEntity<List<UserStatsSummary>> getBulkUserStats(@RequestBody BulkStatsRequest request) {
-        List<UserStatsSummary> statsList = request.getUserIds().stream()
-                .map(userId -> {
-                    try {
-                        UserStatistics stats = analyticsService.calculateUserStatistics(userId);
-                        return UserStatsSummary.builder()
-                                .userId(userId)
-                                .totalGames(stats.getTotalGames())
-                                .totalPlaytimeHours(stats.getTotalPlaytimeHours())
-                                .friendCount(stats.getFriendCount())
-                                .build();
-                    } catch (Exception e) {
-                        return null;
-                    }
-                })
-                .filter(java.util.Objects::nonNull)
-                .toList();
-
-        return ResponseEntity.ok(statsList);
+        if (request.getUserIds() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(bulkUserStatsService.summarize(request.getUserIds()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
@@ -209,48 +202,6 @@ public class AnalyticsController {
         }
     }
 
-    public static class UserStatsSummary {
-        private Long userId;
-        private Integer totalGames;
-        private Double totalPlaytimeHours;
-        private Integer friendCount;
-
-        public static UserStatsSummaryBuilder builder() {
-            return new UserStatsSummaryBuilder();
-        }
-
-        // Getters e Setters
-        public Long getUserId() { return userId; }
-        public void setUserId(Long userId) { this.userId = userId; }
-        public Integer getTotalGames() { return totalGames; }
-        public void setTotalGames(Integer totalGames) { this.totalGames = totalGames; }
-        public Double getTotalPlaytimeHours() { return totalPlaytimeHours; }
-        public void setTotalPlaytimeHours(Double totalPlaytimeHours) { this.totalPlaytimeHours = totalPlaytimeHours; }
-        public Integer getFriendCount() { return friendCount; }
-        public void setFriendCount(Integer friendCount) { this.friendCount = friendCount; }
-
-        public static class UserStatsSummaryBuilder {
-            private Long userId;
-            private Integer totalGames;
-            private Double totalPlaytimeHours;
-            private Integer friendCount;
-
-            public UserStatsSummaryBuilder userId(Long userId) { this.userId = userId; return this; }
-            public UserStatsSummaryBuilder totalGames(Integer totalGames) { this.totalGames = totalGames; return this; }
-            public UserStatsSummaryBuilder totalPlaytimeHours(Double totalPlaytimeHours) { this.totalPlaytimeHours = totalPlaytimeHours; return this; }
-            public UserStatsSummaryBuilder friendCount(Integer friendCount) { this.friendCount = friendCount; return this; }
-
-            public UserStatsSummary build() {
-                UserStatsSummary summary = new UserStatsSummary();
-                summary.userId = this.userId;
-                summary.totalGames = this.totalGames;
-                summary.totalPlaytimeHours = this.totalPlaytimeHours;
-                summary.friendCount = this.friendCount;
-                return summary;
-            }
-        }
-    }
-
     public static class UserInsights {
         private Integer totalGames;
         private Double totalPlaytimeHours;
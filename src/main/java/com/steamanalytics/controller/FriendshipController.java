@@ -3,6 +3,8 @@ package com.steamanalytics.controller;
 import com.steamanalytics.model.dto.UserDto;
 import com.steamanalytics.model.entity.Friendship;
 import com.steamanalytics.model.entity.Friendship.FriendshipStatus;
+import com.steamanalytics.model.entity.User;
+import com.steamanalytics.service.FriendSuggestionEngine;
 import com.steamanalytics.service.FriendshipService;
 import com.steamanalytics.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +15,8 @@ import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/friendships")
@@ -197,14 +201,46 @@ public class FriendshipController {
             @PathVariable Long userId1,
             @PathVariable Long userId2) {
         List<Long> mutualFriendIds = friendshipService.findMutualFriendIds(userId1, userId2);
-        List<UserDto> mutualFriends = mutualFriendIds.stream()
-                .map(friendId -> userService.findById(friendId))
-                .filter(optionalUser -> optionalUser.isPresent())
-                .map(optionalUser -> UserDto.from(optionalUser.get()))
+        List<UserDto> mutualFriends = userService.findAllByIds(mutualFriendIds).stream()
+                .map(UserDto::from)
                 .toList();
         return ResponseEntity.ok(mutualFriends);
     }
 
+    /**
+     * Conta amigos mútuos entre um usuário e vários outros (lista limitada; acima do limite, 400)
+     */
+    @PostMapping("/users/{userId}/mutual-counts")
+    public ResponseEntity<Map<Long, Integer>> countMutualFriends(
+            @PathVariable Long userId,
+            @RequestBody List<Long> otherUserIds) {
+        try {
+            return ResponseEntity.ok(friendshipService.countMutualFriends(userId, otherUserIds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Sugestões de amizade ("pessoas que você talvez conheça")
+     */
+    @GetMapping("/users/{userId}/suggestions")
+    public ResponseEntity<List<FriendSuggestionResponse>> getFriendSuggestions(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<FriendSuggestionEngine.Suggestion> suggestions = friendshipService.suggestFriends(userId, Math.min(limit, 100));
+        Map<Long, User> users = userService.findAllByIds(suggestions.stream()
+                        .map(FriendSuggestionEngine.Suggestion::userId)
+                        .toList()).stream()
+                .collect(Collectors.toMap(User::getUserId, Function.identity()));
+
+        List<FriendSuggestionResponse> response = suggestions.stream()
+                .filter(suggestion -> users.containsKey(suggestion.userId()))
+                .map(suggestion -> FriendSuggestionResponse.from(suggestion, users.get(suggestion.userId())))
+                .toList();
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Busca status da amizade entre dois usuários
      */
@@ -384,6 +420,32 @@ public class FriendshipController {
         public void setCanSendRequest(Boolean canSendRequest) { this.canSendRequest = canSendRequest; }
     }
 
+    public static class FriendSuggestionResponse {
+        private UserDto user;
+        private Integer mutualFriends;
+        private Long sharedGames;
+        private Double score;
+
+        public static FriendSuggestionResponse from(FriendSuggestionEngine.Suggestion suggestion, User user) {
+            FriendSuggestionResponse response = new FriendSuggestionResponse();
+            response.user = UserDto.from(user);
+            response.mutualFriends = suggestion.mutualFriends();
+            response.sharedGames = suggestion.sharedGames();
+            response.score = suggestion.score();
+            return response;
+        }
+
+        // Getters e Setters
+        public UserDto getUser() { return user; }
+        public void setUser(UserDto user) { this.user = user; }
+        public Integer getMutualFriends() { return mutualFriends; }
+        public void setMutualFriends(Integer mutualFriends) { this.mutualFriends = mutualFriends; }
+        public Long getSharedGames() { return sharedGames; }
+        public void setSharedGames(Long sharedGames) { this.sharedGames = sharedGames; }
+        public Double getScore() { return score; }
+        public void setScore(Double score) { this.score = score; }
+    }
+
     public static class UserFriendCountDto {
         private Long userId;
         private Long friendCount;
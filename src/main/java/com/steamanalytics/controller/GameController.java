@@ -2,10 +2,12 @@ package com.steamanalytics.controller;
 
 import com.steamanalytics.model.dto.GameDto;
 import com.steamanalytics.model.entity.Game;
+import com.steamanalytics.repository.GameCriteria;
 import com.steamanalytics.service.GameService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -59,16 +61,19 @@ public class GameController {
     }
 
     /**
-     * Busca jogos por nome
+     * Busca jogos por nome (ordenados por relevância, paginados)
      */
     @GetMapping("/search")
-    public ResponseEntity<List<GameDto>> searchGamesByName(@RequestParam String name) {
+    public ResponseEntity<Slice<GameDto>> searchGamesByName(@RequestParam String name, Pageable pageable) {
         if (name.trim().isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
-        List<Game> games = gameService.searchGamesByName(name);
-        List<GameDto> gameDtos = games.stream().map(GameDto::from).toList();
-        return ResponseEntity.ok(gameDtos);
+        try {
+            Slice<Game> games = gameService.searchGamesByName(name, pageable);
+            return ResponseEntity.ok(games.map(GameDto::from));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
@@ -210,27 +215,47 @@ public class GameController {
     }
 
     /**
-     * Busca jogos por critérios múltiplos
+     * Busca jogos por critérios múltiplos, paginada e ordenada no banco
+     * (ex.: {@code ?developer=Valve&tag=FPS&sort=popularity,desc&size=20})
      */
     @GetMapping("/filter")
-    public ResponseEntity<List<GameDto>> getGamesByCriteria(
+    public ResponseEntity<Page<GameDto>> getGamesByCriteria(
             @RequestParam(required = false) String developer,
             @RequestParam(required = false) String publisher,
             @RequestParam(required = false) String minReleaseDate,
-            @RequestParam(required = false) BigDecimal maxPrice) {
-
-        LocalDate releaseDate = null;
-        if (minReleaseDate != null && !minReleaseDate.isEmpty()) {
-            try {
-                releaseDate = LocalDate.parse(minReleaseDate);
-            } catch (Exception e) {
-                return ResponseEntity.badRequest().build();
-            }
+            @RequestParam(required = false) String maxReleaseDate,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(name = "tag", required = false) List<String> tags,
+            @RequestParam(name = "genre", required = false) List<String> genres,
+            Pageable pageable) {
+
+        GameCriteria criteria;
+        try {
+            criteria = GameCriteria.builder()
+                    .developer(developer)
+                    .publisher(publisher)
+                    .releasedAfter(parseDate(minReleaseDate))
+                    .releasedBefore(parseDate(maxReleaseDate))
+                    .minPrice(minPrice)
+                    .maxPrice(maxPrice)
+                    .tags(tags)
+                    .genres(genres)
+                    .build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
         }
 
-        List<Game> games = gameService.findGamesByCriteria(developer, publisher, releaseDate, maxPrice);
-        List<GameDto> gameDtos = games.stream().map(GameDto::from).toList();
-        return ResponseEntity.ok(gameDtos);
+        try {
+            Page<Game> games = gameService.findGamesByCriteria(criteria, pageable);
+            return ResponseEntity.ok(games.map(GameDto::from));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        return value != null && !value.isEmpty() ? LocalDate.parse(value) : null;
     }
 
     /**
@@ -1,6 +1,8 @@
 package com.steamanalytics.controller;
 
+import com.steamanalytics.model.dto.CursorPage;
 import com.steamanalytics.model.dto.GameDto;
+import com.steamanalytics.model.entity.GameSimilarity;
 import com.steamanalytics.model.entity.UserGameLibrary;
 import com.steamanalytics.service.UserGameLibraryService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -126,17 +128,19 @@ public class LibraryController {
     }
 
     /**
-     * Busca top players de um jogo específico
+     * Busca top players de um jogo específico (paginado por cursor)
      */
     @GetMapping("/games/{gameId}/top-players")
-    public ResponseEntity<List<UserGameLibraryResponse>> getTopPlayersByGame(
+    public ResponseEntity<CursorPage<UserGameLibraryResponse>> getTopPlayersByGame(
             @PathVariable Long gameId,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int limit) {
-        List<UserGameLibrary> topPlayers = libraryService.getTopPlayersByGame(gameId, limit);
-        List<UserGameLibraryResponse> responses = topPlayers.stream()
-                .map(UserGameLibraryResponse::from)
-                .toList();
-        return ResponseEntity.ok(responses);
+        try {
+            CursorPage<UserGameLibrary> topPlayers = libraryService.getTopPlayersByGame(gameId, cursor, limit);
+            return ResponseEntity.ok(topPlayers.map(UserGameLibraryResponse::from));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
@@ -183,7 +187,9 @@ public class LibraryController {
     }
 
     /**
-     * Atualiza tempo de jogo
+     * Atualiza tempo de jogo (202 sem corpo quando o buffer de escrita está ligado). O 202 só sai
+     * para jogos na biblioteca (404 como no caminho síncrono); se o jogo sair da biblioteca antes do
+     * flush a atualização é descartada
      */
     @PutMapping("/users/{userId}/games/{gameId}/playtime")
     public ResponseEntity<UserGameLibraryResponse> updatePlaytime(
@@ -191,6 +197,11 @@ public class LibraryController {
             @PathVariable Long gameId,
             @Valid @RequestBody UpdatePlaytimeRequest request) {
         try {
+            // Com o buffer de escrita a atualização é aceita agora e gravada no próximo flush
+            if (libraryService.bufferPlaytime(userId, gameId,
+                    request.getPlaytimeTotal(), request.getPlaytimeTwoWeeks())) {
+                return ResponseEntity.accepted().build();
+            }
             UserGameLibrary userGame = libraryService.updatePlaytime(
                     userId,
                     gameId,
@@ -204,13 +215,16 @@ public class LibraryController {
     }
 
     /**
-     * Atualiza última vez jogado
+     * Atualiza última vez jogado (202 sem corpo quando o buffer de escrita está ligado; ver {@link #updatePlaytime})
      */
     @PutMapping("/users/{userId}/games/{gameId}/last-played")
     public ResponseEntity<UserGameLibraryResponse> updateLastPlayed(
             @PathVariable Long userId,
             @PathVariable Long gameId) {
         try {
+            if (libraryService.bufferLastPlayed(userId, gameId)) {
+                return ResponseEntity.accepted().build();
+            }
             UserGameLibrary userGame = libraryService.updateLastPlayed(userId, gameId);
             return ResponseEntity.ok(UserGameLibraryResponse.from(userGame));
         } catch (RuntimeException e) {
@@ -310,16 +324,12 @@ public class LibraryController {
     }
 
     /**
-     * Busca jogos similares baseado em jogadores comuns
+     * Busca jogos similares (pré-calculados) baseado em jogadores comuns
      */
     @GetMapping("/games/{gameId}/similar")
     public ResponseEntity<List<SimilarGameResponse>> findSimilarGames(@PathVariable Long gameId) {
-        List<Object[]> results = libraryService.findSimilarGames(gameId);
-        List<SimilarGameResponse> similarities = results.stream()
-                .map(result -> new SimilarGameResponse(
-                        (Long) result[0],
-                        ((Number) result[1]).intValue()
-                ))
+        List<SimilarGameResponse> similarities = libraryService.findSimilarGames(gameId).stream()
+                .map(SimilarGameResponse::from)
                 .toList();
         return ResponseEntity.ok(similarities);
     }
@@ -409,10 +419,17 @@ public class LibraryController {
     public static class SimilarGameResponse {
         private Long gameId;
         private Integer commonPlayers;
+        private Double score;
 
-        public SimilarGameResponse(Long gameId, Integer commonPlayers) {
+        public SimilarGameResponse(Long gameId, Integer commonPlayers, Double score) {
             this.gameId = gameId;
             this.commonPlayers = commonPlayers;
+            this.score = score;
+        }
+
+        public static SimilarGameResponse from(GameSimilarity similarity) {
+            return new SimilarGameResponse(similarity.getSimilarGameId(), similarity.getCommonPlayers(),
+                    similarity.getScore());
         }
 
         // Getters e Setters
@@ -420,5 +437,7 @@ public class LibraryController {
         public void setGameId(Long gameId) { this.gameId = gameId; }
         public Integer getCommonPlayers() { return commonPlayers; }
         public void setCommonPlayers(Integer commonPlayers) { this.commonPlayers = commonPlayers; }
+        public Double getScore() { return score; }
+        public void setScore(Double score) { this.score = score; }
     }
 }
\ No newline at end of file
@@ -1,11 +1,13 @@
 package com.steamanalytics.controller;
 
+import com.steamanalytics.model.dto.CursorPage;
 import com.steamanalytics.model.dto.UserDto;
 import com.steamanalytics.model.entity.User;
 import com.steamanalytics.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -96,16 +98,19 @@ public class UserController {
     }
 
     /**
-     * Busca usuários por nome (search)
+     * Busca usuários por nome (search, ordenado por similaridade e paginado)
      */
     @GetMapping("/search")
-    public ResponseEntity<List<UserDto>> searchUsers(@RequestParam String query) {
+    public ResponseEntity<Slice<UserDto>> searchUsers(@RequestParam String query, Pageable pageable) {
         if (query.trim().isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
-        List<User> users = userService.searchUsersByName(query);
-        List<UserDto> userDtos = users.stream().map(UserDto::from).toList();
-        return ResponseEntity.ok(userDtos);
+        try {
+            Slice<User> users = userService.searchUsersByName(query, pageable);
+            return ResponseEntity.ok(users.map(UserDto::from));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
@@ -119,13 +124,15 @@ public class UserController {
     }
 
     /**
-     * Busca usuários que possuem um jogo específico
+     * Busca usuários que possuem um jogo específico (paginado por cursor)
      */
     @GetMapping("/game/{steamAppId}")
-    public ResponseEntity<List<UserDto>> getUsersByGame(@PathVariable Integer steamAppId) {
-        List<User> users = userService.findUsersByGame(steamAppId);
-        List<UserDto> userDtos = users.stream().map(UserDto::from).toList();
-        return ResponseEntity.ok(userDtos);
+    public ResponseEntity<CursorPage<UserDto>> getUsersByGame(
+            @PathVariable Integer steamAppId,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        CursorPage<User> users = userService.findUsersByGame(steamAppId, cursor, limit);
+        return ResponseEntity.ok(users.map(UserDto::from));
     }
 
     /**
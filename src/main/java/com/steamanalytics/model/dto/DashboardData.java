@@ -1,5 +1,7 @@
 package com.steamanalytics.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.List;
 
 public class DashboardData {
@@ -8,6 +10,7 @@ public class DashboardData {
     private List<GameWithPlaytime> recentGames;
     private List<GameRecommendation> recommendations;
     private List<FriendActivity> friendsActivity;
+    private List<String> missingComponents;
 
     public static DashboardDataBuilder builder() {
         return new DashboardDataBuilder();
@@ -24,6 +27,10 @@ public class DashboardData {
     public void setRecommendations(List<GameRecommendation> recommendations) { this.recommendations = recommendations; }
     public List<FriendActivity> getFriendsActivity() { return friendsActivity; }
     public void setFriendsActivity(List<FriendActivity> friendsActivity) { this.friendsActivity = friendsActivity; }
+    public List<String> getMissingComponents() { return missingComponents; }
+    public void setMissingComponents(List<String> missingComponents) { this.missingComponents = missingComponents; }
+    @JsonIgnore
+    public boolean isPartial() { return missingComponents != null && !missingComponents.isEmpty(); }
 
     public static class DashboardDataBuilder {
         private UserStatistics userStatistics;
@@ -31,12 +38,14 @@ public class DashboardData {
         private List<GameWithPlaytime> recentGames;
         private List<GameRecommendation> recommendations;
         private List<FriendActivity> friendsActivity;
+        private List<String> missingComponents;
 
         public DashboardDataBuilder userStatistics(UserStatistics userStatistics) { this.userStatistics = userStatistics; return this; }
         public DashboardDataBuilder topGames(List<GameWithPlaytime> topGames) { this.topGames = topGames; return this; }
         public DashboardDataBuilder recentGames(List<GameWithPlaytime> recentGames) { this.recentGames = recentGames; return this; }
         public DashboardDataBuilder recommendations(List<GameRecommendation> recommendations) { this.recommendations = recommendations; return this; }
         public DashboardDataBuilder friendsActivity(List<FriendActivity> friendsActivity) { this.friendsActivity = friendsActivity; return this; }
+        public DashboardDataBuilder missingComponents(List<String> missingComponents) { this.missingComponents = missingComponents; return this; }
 
         public DashboardData build() {
             DashboardData data = new DashboardData();
@@ -45,6 +54,7 @@ public class DashboardData {
             data.recentGames = this.recentGames;
             data.recommendations = this.recommendations;
             data.friendsActivity = this.friendsActivity;
+            data.missingComponents = this.missingComponents;
             return data;
         }
     }
@@ -0,0 +1,24 @@
+package com.steamanalytics.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Amigo como o ISteamUser/GetFriendList devolve
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SteamFriend {
+    @JsonProperty("steamid")
+    private Long steamId;
+    private String relationship;
+    @JsonProperty("friend_since")
+    private Long friendSinceEpochSecond;
+
+    // Getters e Setters
+    public Long getSteamId() { return steamId; }
+    public void setSteamId(Long steamId) { this.steamId = steamId; }
+    public String getRelationship() { return relationship; }
+    public void setRelationship(String relationship) { this.relationship = relationship; }
+    public Long getFriendSinceEpochSecond() { return friendSinceEpochSecond; }
+    public void setFriendSinceEpochSecond(Long friendSinceEpochSecond) { this.friendSinceEpochSecond = friendSinceEpochSecond; }
+}
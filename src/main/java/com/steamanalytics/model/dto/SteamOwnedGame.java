@@ -0,0 +1,36 @@
+package com.steamanalytics.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Jogo da biblioteca como o IPlayerService/GetOwnedGames devolve (tempos em minutos)
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SteamOwnedGame {
+    @JsonProperty("appid")
+    private Integer appId;
+    private String name;
+    @JsonProperty("playtime_forever")
+    private Integer playtimeForever;
+    @JsonProperty("playtime_2weeks")
+    private Integer playtime2Weeks;
+    @JsonProperty("rtime_last_played")
+    private Long lastPlayedEpochSecond;
+    @JsonProperty("img_icon_url")
+    private String iconHash;
+
+    // Getters e Setters
+    public Integer getAppId() { return appId; }
+    public void setAppId(Integer appId) { this.appId = appId; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public Integer getPlaytimeForever() { return playtimeForever; }
+    public void setPlaytimeForever(Integer playtimeForever) { this.playtimeForever = playtimeForever; }
+    public Integer getPlaytime2Weeks() { return playtime2Weeks; }
+    public void setPlaytime2Weeks(Integer playtime2Weeks) { this.playtime2Weeks = playtime2Weeks; }
+    public Long getLastPlayedEpochSecond() { return lastPlayedEpochSecond; }
+    public void setLastPlayedEpochSecond(Long lastPlayedEpochSecond) { this.lastPlayedEpochSecond = lastPlayedEpochSecond; }
+    public String getIconHash() { return iconHash; }
+    public void setIconHash(String iconHash) { this.iconHash = iconHash; }
+}
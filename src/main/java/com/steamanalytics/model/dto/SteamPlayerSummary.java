@@ -0,0 +1,41 @@
+package com.steamanalytics.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Perfil público como o ISteamUser/GetPlayerSummaries devolve
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SteamPlayerSummary {
+    @JsonProperty("steamid")
+    private Long steamId;
+    @JsonProperty("personaname")
+    private String personaName;
+    @JsonProperty("profileurl")
+    private String profileUrl;
+    @JsonProperty("avatarfull")
+    private String avatarUrl;
+    @JsonProperty("loccountrycode")
+    private String countryCode;
+    @JsonProperty("communityvisibilitystate")
+    private Integer visibilityState;
+    @JsonProperty("lastlogoff")
+    private Long lastLogoffEpochSecond;
+
+    // Getters e Setters
+    public Long getSteamId() { return steamId; }
+    public void setSteamId(Long steamId) { this.steamId = steamId; }
+    public String getPersonaName() { return personaName; }
+    public void setPersonaName(String personaName) { this.personaName = personaName; }
+    public String getProfileUrl() { return profileUrl; }
+    public void setProfileUrl(String profileUrl) { this.profileUrl = profileUrl; }
+    public String getAvatarUrl() { return avatarUrl; }
+    public void setAvatarUrl(String avatarUrl) { this.avatarUrl = avatarUrl; }
+    public String getCountryCode() { return countryCode; }
+    public void setCountryCode(String countryCode) { this.countryCode = countryCode; }
+    public Integer getVisibilityState() { return visibilityState; }
+    public void setVisibilityState(Integer visibilityState) { this.visibilityState = visibilityState; }
+    public Long getLastLogoffEpochSecond() { return lastLogoffEpochSecond; }
+    public void setLastLogoffEpochSecond(Long lastLogoffEpochSecond) { this.lastLogoffEpochSecond = lastLogoffEpochSecond; }
+}
@@ -0,0 +1,43 @@
+package com.steamanalytics.model.dto;
+
+public class UserStatsSummary {
+    private Long userId;
+    private Integer totalGames;
+    private Double totalPlaytimeHours;
+    private Integer friendCount;
+
+    public static UserStatsSummaryBuilder builder() {
+        return new UserStatsSummaryBuilder();
+    }
+
+    // Getters e Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public Integer getTotalGames() { return totalGames; }
+    public void setTotalGames(Integer totalGames) { this.totalGames = totalGames; }
+    public Double getTotalPlaytimeHours() { return totalPlaytimeHours; }
+    public void setTotalPlaytimeHours(Double totalPlaytimeHours) { this.totalPlaytimeHours = totalPlaytimeHours; }
+    public Integer getFriendCount() { return friendCount; }
+    public void setFriendCount(Integer friendCount) { this.friendCount = friendCount; }
+
+    public static class UserStatsSummaryBuilder {
+        private Long userId;
+        private Integer totalGames;
+        private Double totalPlaytimeHours;
+        private Integer friendCount;
+
+        public UserStatsSummaryBuilder userId(Long userId) { this.userId = userId; return this; }
+        public UserStatsSummaryBuilder totalGames(Integer totalGames) { this.totalGames = totalGames; return this; }
+        public UserStatsSummaryBuilder totalPlaytimeHours(Double totalPlaytimeHours) { this.totalPlaytimeHours = totalPlaytimeHours; return this; }
+        public UserStatsSummaryBuilder friendCount(Integer friendCount) { this.friendCount = friendCount; return this; }
+
+        public UserStatsSummary build() {
+            UserStatsSummary summary = new UserStatsSummary();
+            summary.userId = this.userId;
+            summary.totalGames = this.totalGames;
+            summary.totalPlaytimeHours = this.totalPlaytimeHours;
+            summary.friendCount = this.friendCount;
+            return summary;
+        }
+    }
+}
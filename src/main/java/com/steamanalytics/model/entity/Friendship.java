@@ -14,8 +14,7 @@ import java.time.Instant;
 public class Friendship {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "friendship_seq")
-    @SequenceGenerator(name = "friendship_seq", sequenceName = "friendships_id_seq", allocationSize = 1)
+    @PooledSequence(sequenceName = "friendships_id_seq")
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
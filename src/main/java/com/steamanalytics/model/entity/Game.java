@@ -20,8 +20,7 @@ import java.util.Set;
 public class Game {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "game_seq")
-    @SequenceGenerator(name = "game_seq", sequenceName = "games_game_id_seq", allocationSize = 1)
+    @PooledSequence(sequenceName = "games_game_id_seq")
     @Column(name = "game_id")
     private Long gameId;
 
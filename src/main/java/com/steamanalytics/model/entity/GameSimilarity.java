@@ -0,0 +1,139 @@
+package com.steamanalytics.model.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Vizinho pré-calculado de um jogo (coocorrência de donos), escrito pelo
+ * {@code GameSimilarityService}: apenas os K mais similares por jogo.
+ */
+@Entity
+@Table(name = "game_similarity")
+@IdClass(GameSimilarity.Key.class)
+public class GameSimilarity {
+
+    @Id
+    @Column(name = "game_id")
+    private Long gameId;
+
+    @Id
+    @Column(name = "similar_game_id")
+    private Long similarGameId;
+
+    @Column(name = "common_players", nullable = false)
+    private Integer commonPlayers;
+
+    @Column(name = "score", nullable = false)
+    private Double score;
+
+    @Column(name = "computed_at", nullable = false)
+    private Instant computedAt;
+
+    // Construtores
+    public GameSimilarity() {}
+
+    public GameSimilarity(Long gameId, Long similarGameId, Integer commonPlayers, Double score) {
+        this.gameId = gameId;
+        this.similarGameId = similarGameId;
+        this.commonPlayers = commonPlayers;
+        this.score = score;
+        this.computedAt = Instant.now();
+    }
+
+    // Getters e Setters
+    public Long getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(Long gameId) {
+        this.gameId = gameId;
+    }
+
+    public Long getSimilarGameId() {
+        return similarGameId;
+    }
+
+    public void setSimilarGameId(Long similarGameId) {
+        this.similarGameId = similarGameId;
+    }
+
+    public Integer getCommonPlayers() {
+        return commonPlayers;
+    }
+
+    public void setCommonPlayers(Integer commonPlayers) {
+        this.commonPlayers = commonPlayers;
+    }
+
+    public Double getScore() {
+        return score;
+    }
+
+    public void setScore(Double score) {
+        this.score = score;
+    }
+
+    public Instant getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(Instant computedAt) {
+        this.computedAt = computedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GameSimilarity)) return false;
+        GameSimilarity that = (GameSimilarity) o;
+        return gameId != null && gameId.equals(that.gameId)
+                && similarGameId != null && similarGameId.equals(that.similarGameId);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "GameSimilarity{" +
+                "gameId=" + gameId +
+                ", similarGameId=" + similarGameId +
+                ", commonPlayers=" + commonPlayers +
+                ", score=" + score +
+                '}';
+    }
+
+    /**
+     * Chave composta (jogo, jogo similar)
+     */
+    public static class Key implements Serializable {
+
+        private Long gameId;
+        private Long similarGameId;
+
+        public Key() {}
+
+        public Key(Long gameId, Long similarGameId) {
+            this.gameId = gameId;
+            this.similarGameId = similarGameId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(gameId, key.gameId) && Objects.equals(similarGameId, key.similarGameId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(gameId, similarGameId);
+        }
+    }
+}
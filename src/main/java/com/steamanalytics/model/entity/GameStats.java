@@ -0,0 +1,101 @@
+package com.steamanalytics.model.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Agregado por jogo (donos e tempo de jogo somado), mantido incrementalmente
+ * pelas escritas em {@code user_game_library}.
+ */
+@Entity
+@Table(name = "game_stats")
+public class GameStats {
+
+    @Id
+    @Column(name = "game_id")
+    private Long gameId;
+
+    @Column(name = "owner_count", nullable = false)
+    private Long ownerCount = 0L;
+
+    @Column(name = "total_playtime", nullable = false)
+    private Long totalPlaytime = 0L; // em minutos
+
+    @Column(name = "recent_playtime", nullable = false)
+    private Long recentPlaytime = 0L; // em minutos, últimas 2 semanas
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    // Construtores
+    public GameStats() {}
+
+    public GameStats(Long gameId) {
+        this.gameId = gameId;
+    }
+
+    // Getters e Setters
+    public Long getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(Long gameId) {
+        this.gameId = gameId;
+    }
+
+    public Long getOwnerCount() {
+        return ownerCount;
+    }
+
+    public void setOwnerCount(Long ownerCount) {
+        this.ownerCount = ownerCount;
+    }
+
+    public Long getTotalPlaytime() {
+        return totalPlaytime;
+    }
+
+    public void setTotalPlaytime(Long totalPlaytime) {
+        this.totalPlaytime = totalPlaytime;
+    }
+
+    public Long getRecentPlaytime() {
+        return recentPlaytime;
+    }
+
+    public void setRecentPlaytime(Long recentPlaytime) {
+        this.recentPlaytime = recentPlaytime;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GameStats)) return false;
+        GameStats that = (GameStats) o;
+        return gameId != null && gameId.equals(that.gameId);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "GameStats{" +
+                "gameId=" + gameId +
+                ", ownerCount=" + ownerCount +
+                ", totalPlaytime=" + totalPlaytime +
+                ", recentPlaytime=" + recentPlaytime +
+                '}';
+    }
+}
@@ -0,0 +1,23 @@
+package com.steamanalytics.model.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Gera o identificador a partir de uma sequence existente usando o otimizador pooled-lo,
+ * com tamanho de bloco definido por {@code analytics.ids.block-size}.
+ */
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledSequence {
+
+    /**
+     * Nome da sequence no banco
+     */
+    String sequenceName();
+}
@@ -0,0 +1,62 @@
+package com.steamanalytics.model.entity;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.OptimizableGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.lang.reflect.Member;
+import java.util.Properties;
+
+/**
+ * Gerador de sequence com otimizador pooled-lo: cada {@code nextval} reserva um bloco de IDs,
+ * de modo que os inserts não precisam de uma ida ao banco por linha e podem ser agrupados em batch.
+ * Com bloco igual a 1 o comportamento é o mesmo do {@code allocationSize = 1} anterior.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    /**
+     * Propriedade do Hibernate com o tamanho do bloco (preenchida a partir de {@code analytics.ids.block-size})
+     */
+    public static final String BLOCK_SIZE_SETTING = "steamanalytics.id.block_size";
+
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    private final String sequenceName;
+    private int blockSize;
+
+    public PooledSequenceGenerator(PooledSequence config, Member member,
+                                   CustomIdGeneratorCreationContext context) {
+        this.sequenceName = config.sequenceName();
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        blockSize = ConfigurationHelper.getInt(BLOCK_SIZE_SETTING,
+                serviceRegistry.requireService(ConfigurationService.class).getSettings(),
+                DEFAULT_BLOCK_SIZE);
+        if (blockSize < 1) {
+            throw new MappingException("Invalid id block size " + blockSize + " for sequence " + sequenceName);
+        }
+
+        parameters.setProperty(SEQUENCE_PARAM, sequenceName);
+        parameters.setProperty(OptimizableGenerator.INCREMENT_PARAM, String.valueOf(blockSize));
+        parameters.setProperty(OptimizableGenerator.OPT_PARAM, blockSize > 1
+                ? StandardOptimizerDescriptor.POOLED_LO.getExternalName()
+                : StandardOptimizerDescriptor.NONE.getExternalName());
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    public String getSequenceName() {
+        return sequenceName;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+}
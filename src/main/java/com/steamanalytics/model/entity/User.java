@@ -15,8 +15,7 @@ import java.util.Set;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
-    @SequenceGenerator(name = "user_seq", sequenceName = "users_user_id_seq", allocationSize = 1)
+    @PooledSequence(sequenceName = "users_user_id_seq")
     @Column(name = "user_id")
     private Long userId;
 
@@ -51,6 +50,12 @@ public class User {
     @Column(name = "is_active")
     private Boolean isActive = true;
 
+    @Column(name = "library_synced_at")
+    private Instant librarySyncedAt;
+
+    @Column(name = "library_fingerprint")
+    private Long libraryFingerprint;
+
     @Version
     private Long version = 0L;
 
@@ -166,6 +171,22 @@ public class User {
         this.isActive = isActive;
     }
 
+    public Instant getLibrarySyncedAt() {
+        return librarySyncedAt;
+    }
+
+    public void setLibrarySyncedAt(Instant librarySyncedAt) {
+        this.librarySyncedAt = librarySyncedAt;
+    }
+
+    public Long getLibraryFingerprint() {
+        return libraryFingerprint;
+    }
+
+    public void setLibraryFingerprint(Long libraryFingerprint) {
+        this.libraryFingerprint = libraryFingerprint;
+    }
+
     public Long getVersion() {
         return version;
     }
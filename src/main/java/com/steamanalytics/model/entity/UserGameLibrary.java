@@ -10,8 +10,7 @@ import java.time.Instant;
 public class UserGameLibrary {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_game_library_seq")
-    @SequenceGenerator(name = "user_game_library_seq", sequenceName = "user_game_library_id_seq", allocationSize = 1)
+    @PooledSequence(sequenceName = "user_game_library_id_seq")
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,106 @@
+package com.steamanalytics.model.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Rollup por usuário das estatísticas da biblioteca, mantido incrementalmente
+ * pelas escritas em {@code user_game_library}.
+ */
+@Entity
+@Table(name = "user_library_stats")
+public class UserLibraryStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "total_games", nullable = false)
+    private Long totalGames = 0L;
+
+    @Column(name = "played_games", nullable = false)
+    private Long playedGames = 0L;
+
+    @Column(name = "total_playtime", nullable = false)
+    private Long totalPlaytime = 0L; // em minutos
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    // Construtores
+    public UserLibraryStats() {}
+
+    public UserLibraryStats(Long userId) {
+        this.userId = userId;
+    }
+
+    // Getters e Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getTotalGames() {
+        return totalGames;
+    }
+
+    public void setTotalGames(Long totalGames) {
+        this.totalGames = totalGames;
+    }
+
+    public Long getPlayedGames() {
+        return playedGames;
+    }
+
+    public void setPlayedGames(Long playedGames) {
+        this.playedGames = playedGames;
+    }
+
+    public Long getTotalPlaytime() {
+        return totalPlaytime;
+    }
+
+    public void setTotalPlaytime(Long totalPlaytime) {
+        this.totalPlaytime = totalPlaytime;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    // Métodos utilitários
+    public Double getAveragePlaytime() {
+        return totalGames != null && totalGames > 0 ? totalPlaytime.doubleValue() / totalGames : 0.0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UserLibraryStats)) return false;
+        UserLibraryStats that = (UserLibraryStats) o;
+        return userId != null && userId.equals(that.userId);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "UserLibraryStats{" +
+                "userId=" + userId +
+                ", totalGames=" + totalGames +
+                ", playedGames=" + playedGames +
+                ", totalPlaytime=" + totalPlaytime +
+                '}';
+    }
+}
@@ -0,0 +1,39 @@
+package com.steamanalytics.repository;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Carrega entidades por ID preservando a ordem dos IDs (consultas que ordenam e paginam
+ * no SQL e só depois materializam a página)
+ */
+final class EntityLoader {
+
+    private EntityLoader() {
+    }
+
+    static <T> List<T> loadInOrder(EntityManager entityManager, Class<T> type, String idProperty,
+                                   Function<T, Long> idOf, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, T> entities = entityManager
+                .createQuery("SELECT e FROM " + type.getSimpleName() + " e WHERE e." + idProperty + " IN :ids", type)
+                .setParameter("ids", ids)
+                .getResultStream()
+                .collect(Collectors.toMap(idOf, Function.identity()));
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T entity = entities.get(id);
+            if (entity != null) {
+                ordered.add(entity);
+            }
+        }
+        return ordered;
+    }
+}
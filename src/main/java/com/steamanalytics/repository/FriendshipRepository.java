@@ -3,10 +3,12 @@ package com.steamanalytics.repository;
 import com.steamanalytics.model.entity.Friendship;
 import com.steamanalytics.model.entity.Friendship.FriendshipStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -51,6 +53,16 @@ public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
             "AND f.status = 'ACCEPTED'")
     List<Long> findAcceptedFriendIds(@Param("userId") Long userId);
 
+    /**
+     * Busca IDs dos usuários com quem existe relacionamento em qualquer status exceto o informado
+     */
+    @Query("SELECT CASE WHEN f.requester.userId = :userId THEN f.addressee.userId " +
+            "ELSE f.requester.userId END " +
+            "FROM Friendship f WHERE " +
+            "(f.requester.userId = :userId OR f.addressee.userId = :userId) " +
+            "AND f.status <> :status")
+    List<Long> findRelatedUserIdsExcludingStatus(@Param("userId") Long userId, @Param("status") FriendshipStatus status);
+
     /**
      * Busca solicitações de amizade pendentes recebidas por um usuário
      */
@@ -71,6 +83,43 @@ public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
             "AND f.status = 'ACCEPTED'")
     Long countAcceptedFriends(@Param("userId") Long userId);
 
+    /**
+     * Conta amigos aceitos de vários usuários em uma consulta: user_id, friend_count
+     * (usuários sem amigos não aparecem)
+     */
+    @Query(value = "SELECT user_id, COUNT(*) FROM (" +
+            "    SELECT requester_id AS user_id FROM friendships " +
+            "    WHERE status = 'ACCEPTED' AND requester_id IN (:userIds) " +
+            "    UNION ALL " +
+            "    SELECT addressee_id FROM friendships " +
+            "    WHERE status = 'ACCEPTED' AND addressee_id IN (:userIds)" +
+            ") accepted GROUP BY user_id",
+            nativeQuery = true)
+    List<Object[]> countAcceptedFriendsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Conta amigos mútuos entre um usuário e vários outros em uma consulta: user_id, mutual_count
+     * (usuários sem amigos mútuos não aparecem)
+     */
+    @Query(value = "WITH mine AS (" +
+            "    SELECT addressee_id AS friend_id FROM friendships " +
+            "    WHERE status = 'ACCEPTED' AND requester_id = :userId " +
+            "    UNION " +
+            "    SELECT requester_id FROM friendships " +
+            "    WHERE status = 'ACCEPTED' AND addressee_id = :userId" +
+            "), theirs AS (" +
+            "    SELECT requester_id AS user_id, addressee_id AS friend_id FROM friendships " +
+            "    WHERE status = 'ACCEPTED' AND requester_id IN (:otherUserIds) " +
+            "    UNION " +
+            "    SELECT addressee_id, requester_id FROM friendships " +
+            "    WHERE status = 'ACCEPTED' AND addressee_id IN (:otherUserIds)" +
+            ") " +
+            "SELECT theirs.user_id, COUNT(*) FROM theirs JOIN mine ON mine.friend_id = theirs.friend_id " +
+            "GROUP BY theirs.user_id",
+            nativeQuery = true)
+    List<Object[]> countMutualFriendsByUserIds(@Param("userId") Long userId,
+                                               @Param("otherUserIds") Collection<Long> otherUserIds);
+
     /**
      * Conta solicitações pendentes recebidas
      */
@@ -101,17 +150,20 @@ public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
     boolean areUsersFriends(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
 
     /**
-     * Busca amigos mútuos entre dois usuários
+     * Busca amigos mútuos entre dois usuários (amizades aceitas em qualquer direção)
      */
-    @Query("SELECT DISTINCT f1.addressee.userId FROM Friendship f1 " +
-            "JOIN Friendship f2 ON f1.addressee.userId = f2.addressee.userId " +
-            "WHERE f1.requester.userId = :userId1 AND f2.requester.userId = :userId2 " +
-            "AND f1.status = 'ACCEPTED' AND f2.status = 'ACCEPTED' " +
-            "UNION " +
-            "SELECT DISTINCT f1.requester.userId FROM Friendship f1 " +
-            "JOIN Friendship f2 ON f1.requester.userId = f2.requester.userId " +
-            "WHERE f1.addressee.userId = :userId1 AND f2.addressee.userId = :userId2 " +
-            "AND f1.status = 'ACCEPTED' AND f2.status = 'ACCEPTED'")
+    @Query("SELECT CASE WHEN f1.requester.userId = :userId1 THEN f1.addressee.userId " +
+            "ELSE f1.requester.userId END AS friendId " +
+            "FROM Friendship f1 WHERE " +
+            "(f1.requester.userId = :userId1 OR f1.addressee.userId = :userId1) " +
+            "AND f1.status = 'ACCEPTED' " +
+            "AND (CASE WHEN f1.requester.userId = :userId1 THEN f1.addressee.userId ELSE f1.requester.userId END) IN (" +
+            "    SELECT CASE WHEN f2.requester.userId = :userId2 THEN f2.addressee.userId " +
+            "    ELSE f2.requester.userId END " +
+            "    FROM Friendship f2 WHERE " +
+            "    (f2.requester.userId = :userId2 OR f2.addressee.userId = :userId2) " +
+            "    AND f2.status = 'ACCEPTED') " +
+            "ORDER BY friendId")
     List<Long> findMutualFriendIds(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
 
     /**
@@ -126,6 +178,7 @@ public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
     /**
      * Remove amizades bloqueadas ou recusadas antigas
      */
+    @Modifying
     @Query("DELETE FROM Friendship f WHERE f.status IN ('BLOCKED', 'DECLINED') " +
             "AND f.updatedAt < :cutoffDate")
     void deleteOldRejectedFriendships(@Param("cutoffDate") java.time.Instant cutoffDate);
@@ -0,0 +1,80 @@
+package com.steamanalytics.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Filtros do catálogo de jogos; campos nulos ou vazios não restringem a busca.
+ * Tags e gêneros exigem todas as chaves informadas.
+ */
+public class GameCriteria {
+    private String developer;
+    private String publisher;
+    private LocalDate releasedAfter;
+    private LocalDate releasedBefore;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private List<String> tags = List.of();
+    private List<String> genres = List.of();
+
+    public static GameCriteriaBuilder builder() {
+        return new GameCriteriaBuilder();
+    }
+
+    // Getters
+    public String getDeveloper() { return developer; }
+    public String getPublisher() { return publisher; }
+    public LocalDate getReleasedAfter() { return releasedAfter; }
+    public LocalDate getReleasedBefore() { return releasedBefore; }
+    public BigDecimal getMinPrice() { return minPrice; }
+    public BigDecimal getMaxPrice() { return maxPrice; }
+    public List<String> getTags() { return tags; }
+    public List<String> getGenres() { return genres; }
+
+    public static class GameCriteriaBuilder {
+        private String developer;
+        private String publisher;
+        private LocalDate releasedAfter;
+        private LocalDate releasedBefore;
+        private BigDecimal minPrice;
+        private BigDecimal maxPrice;
+        private List<String> tags;
+        private List<String> genres;
+
+        public GameCriteriaBuilder developer(String developer) { this.developer = developer; return this; }
+        public GameCriteriaBuilder publisher(String publisher) { this.publisher = publisher; return this; }
+        /** Lançados estritamente depois da data */
+        public GameCriteriaBuilder releasedAfter(LocalDate releasedAfter) { this.releasedAfter = releasedAfter; return this; }
+        /** Lançados até a data, inclusive */
+        public GameCriteriaBuilder releasedBefore(LocalDate releasedBefore) { this.releasedBefore = releasedBefore; return this; }
+        public GameCriteriaBuilder minPrice(BigDecimal minPrice) { this.minPrice = minPrice; return this; }
+        public GameCriteriaBuilder maxPrice(BigDecimal maxPrice) { this.maxPrice = maxPrice; return this; }
+        public GameCriteriaBuilder tags(List<String> tags) { this.tags = tags; return this; }
+        public GameCriteriaBuilder genres(List<String> genres) { this.genres = genres; return this; }
+
+        public GameCriteria build() {
+            GameCriteria criteria = new GameCriteria();
+            criteria.developer = blankToNull(this.developer);
+            criteria.publisher = blankToNull(this.publisher);
+            criteria.releasedAfter = this.releasedAfter;
+            criteria.releasedBefore = this.releasedBefore;
+            criteria.minPrice = this.minPrice;
+            criteria.maxPrice = this.maxPrice;
+            criteria.tags = keys(this.tags);
+            criteria.genres = keys(this.genres);
+            return criteria;
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value;
+        }
+
+        private static List<String> keys(List<String> values) {
+            return values == null ? List.of() : values.stream()
+                    .filter(value -> value != null && !value.isBlank())
+                    .distinct()
+                    .toList();
+        }
+    }
+}
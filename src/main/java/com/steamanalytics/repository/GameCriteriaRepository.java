@@ -0,0 +1,20 @@
+package com.steamanalytics.repository;
+
+import com.steamanalytics.model.entity.Game;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Busca do catálogo por filtros combináveis, executada inteiramente no banco
+ */
+public interface GameCriteriaRepository {
+
+    /**
+     * Jogos que atendem aos filtros, paginados e ordenados no SQL. Ordenações aceitas:
+     * {@code name}, {@code releaseDate}, {@code priceCurrent}, {@code steamAppId} e {@code popularity}
+     * (donos, do agregado {@code game_stats}); sem ordenação, os lançamentos mais recentes vêm primeiro.
+     *
+     * @throws IllegalArgumentException para propriedades de ordenação desconhecidas
+     */
+    Page<Game> findByCriteria(GameCriteria criteria, Pageable pageable);
+}
@@ -0,0 +1,129 @@
+package com.steamanalytics.repository;
+
+import com.steamanalytics.model.entity.Game;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Monta a busca do catálogo como SQL: cada filtro presente vira um predicado sobre uma coluna
+ * indexada (igualdade em developer/publisher, faixa em release_date/price_current, contenção de
+ * chaves JSONB com {@code ?&} nos índices GIN). A consulta devolve só os IDs da página; as
+ * entidades da página vêm numa segunda consulta por chave primária. A contagem só roda quando
+ * o tamanho da página não basta para deduzir o total.
+ */
+public class GameCriteriaRepositoryImpl implements GameCriteriaRepository {
+
+    // Propriedade de ordenação -> expressão SQL (o resto é recusado)
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "name", "g.name",
+            "releaseDate", "g.release_date",
+            "priceCurrent", "g.price_current",
+            "steamAppId", "g.steam_app_id",
+            "popularity", "COALESCE(s.owner_count, 0)");
+
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.DESC, "releaseDate");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public GameCriteriaRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Page<Game> findByCriteria(GameCriteria criteria, Pageable pageable) {
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : DEFAULT_SORT;
+        String orderBy = orderBy(sort);
+        Predicates where = predicates(criteria);
+
+        StringBuilder sql = new StringBuilder("SELECT g.game_id FROM games g ");
+        if (sort.getOrderFor("popularity") != null) {
+            sql.append("LEFT JOIN game_stats s ON s.game_id = g.game_id ");
+        }
+        sql.append(where.sql()).append(" ORDER BY ").append(orderBy);
+        MapSqlParameterSource parameters = where.parameters();
+        if (pageable.isPaged()) {
+            sql.append(" LIMIT :limit OFFSET :offset");
+            parameters.addValue("limit", pageable.getPageSize());
+            parameters.addValue("offset", pageable.getOffset());
+        }
+
+        List<Long> gameIds = jdbcTemplate.queryForList(sql.toString(), parameters, Long.class);
+        return PageableExecutionUtils.getPage(
+                EntityLoader.loadInOrder(entityManager, Game.class, "gameId", Game::getGameId, gameIds), pageable,
+                () -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM games g " + where.sql(),
+                        where.parameters(), Long.class));
+    }
+
+    static Predicates predicates(GameCriteria criteria) {
+        return new Predicates()
+                .add("g.developer = :developer", "developer", criteria.getDeveloper())
+                .add("g.publisher = :publisher", "publisher", criteria.getPublisher())
+                .add("g.release_date > :releasedAfter", "releasedAfter", criteria.getReleasedAfter())
+                .add("g.release_date <= :releasedBefore", "releasedBefore", criteria.getReleasedBefore())
+                .add("g.price_current >= :minPrice", "minPrice", criteria.getMinPrice())
+                .add("g.price_current <= :maxPrice", "maxPrice", criteria.getMaxPrice())
+                // ??& chega ao PostgreSQL como ?& (o driver usa ? para parâmetros)
+                .add("g.tags ??& CAST(ARRAY[:tags] AS text[])", "tags",
+                        criteria.getTags().isEmpty() ? null : criteria.getTags())
+                .add("g.genres ??& CAST(ARRAY[:genres] AS text[])", "genres",
+                        criteria.getGenres().isEmpty() ? null : criteria.getGenres());
+    }
+
+    /**
+     * Ordenação com game_id como desempate, para páginas estáveis; nulos sempre no fim
+     */
+    static String orderBy(Sort sort) {
+        List<String> terms = new ArrayList<>();
+        Sort.Direction lastDirection = Sort.Direction.ASC;
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+            }
+            terms.add(column + (order.isAscending() ? " ASC" : " DESC") + " NULLS LAST");
+            lastDirection = order.getDirection();
+        }
+        terms.add("g.game_id " + lastDirection.name());
+        return String.join(", ", terms);
+    }
+
+    /**
+     * Conjunção de predicados; filtros ausentes não entram no SQL
+     */
+    static class Predicates {
+
+        private final List<String> clauses = new ArrayList<>();
+        private final MapSqlParameterSource parameters = new MapSqlParameterSource();
+
+        Predicates add(String clause, String parameter, Object value) {
+            if (value != null) {
+                clauses.add(clause);
+                parameters.addValue(parameter, value);
+            }
+            return this;
+        }
+
+        String sql() {
+            return clauses.isEmpty() ? "" : "WHERE " + String.join(" AND ", clauses);
+        }
+
+        MapSqlParameterSource parameters() {
+            return new MapSqlParameterSource(parameters.getValues());
+        }
+    }
+}
@@ -1,17 +1,20 @@
 package com.steamanalytics.repository;
 
 import com.steamanalytics.model.entity.Game;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface GameRepository extends JpaRepository<Game, Long> {
+public interface GameRepository extends JpaRepository<Game, Long>, GameCriteriaRepository,
+        GameSearchRepository {
 
     /**
      * Busca jogo pelo Steam App ID
@@ -23,12 +26,6 @@ public interface GameRepository extends JpaRepository<Game, Long> {
      */
     boolean existsBySteamAppId(Integer steamAppId);
 
-    /**
-     * Busca jogos por nome (case-insensitive)
-     */
-    @Query("SELECT g FROM Game g WHERE LOWER(g.name) LIKE LOWER(CONCAT('%', :name, '%'))")
-    List<Game> findByNameContainingIgnoreCase(@Param("name") String name);
-
     /**
      * Busca jogos por desenvolvedor
      */
@@ -50,11 +47,12 @@ public interface GameRepository extends JpaRepository<Game, Long> {
     List<Game> findByReleaseDateBetween(LocalDate startDate, LocalDate endDate);
 
     /**
-     * Busca jogos mais populares (com mais usuários)
+     * Busca jogos mais populares (com mais usuários) pelo agregado {@code game_stats};
+     * o limite do {@code pageable} vai para o SQL
      */
-    @Query("SELECT g FROM Game g WHERE SIZE(g.userLibraries) > 0 " +
-            "ORDER BY SIZE(g.userLibraries) DESC")
-    List<Game> findMostPopularGames();
+    @Query("SELECT g FROM Game g JOIN GameStats s ON s.gameId = g.gameId WHERE s.ownerCount > 0 " +
+            "ORDER BY s.ownerCount DESC, g.gameId")
+    List<Game> findMostPopularGames(Pageable pageable);
 
     /**
      * Busca jogos comuns entre dois usuários
@@ -76,8 +74,9 @@ public interface GameRepository extends JpaRepository<Game, Long> {
             "    SELECT ugl2.game.gameId FROM UserGameLibrary ugl2 WHERE ugl2.user.userId = :userId" +
             ") " +
             "GROUP BY g.gameId " +
-            "ORDER BY userCount DESC")
-    List<Object[]> findPopularGamesAmongFriends(@Param("friendIds") List<Long> friendIds, @Param("userId") Long userId);
+            "ORDER BY userCount DESC, g.gameId")
+    List<Object[]> findPopularGamesAmongFriends(@Param("friendIds") List<Long> friendIds, @Param("userId") Long userId,
+                                                Pageable pageable);
 
     /**
      * Busca jogos por múltiplos Steam App IDs
@@ -85,10 +84,16 @@ public interface GameRepository extends JpaRepository<Game, Long> {
     List<Game> findBySteamAppIdIn(List<Integer> steamAppIds);
 
     /**
-     * Busca jogos com tempo total jogado pelos usuários maior que um valor
+     * Resolve Steam App IDs para game IDs sem carregar as entidades (retorna [steamAppId, gameId])
+     */
+    @Query("SELECT g.steamAppId, g.gameId FROM Game g WHERE g.steamAppId IN :steamAppIds")
+    List<Object[]> findGameIdsBySteamAppIds(@Param("steamAppIds") Collection<Integer> steamAppIds);
+
+    /**
+     * Busca jogos com tempo total jogado pelos usuários maior que um valor (agregado {@code game_stats})
      */
-    @Query("SELECT g FROM Game g WHERE " +
-            "(SELECT COALESCE(SUM(ugl.playtimeTotal), 0) FROM UserGameLibrary ugl WHERE ugl.game = g) > :minTotalPlaytime")
+    @Query("SELECT g FROM Game g JOIN GameStats s ON s.gameId = g.gameId WHERE s.totalPlaytime > :minTotalPlaytime " +
+            "ORDER BY s.totalPlaytime DESC, g.gameId")
     List<Game> findGamesWithTotalPlaytimeGreaterThan(@Param("minTotalPlaytime") Integer minTotalPlaytime);
 
     /**
@@ -0,0 +1,19 @@
+package com.steamanalytics.repository;
+
+import com.steamanalytics.model.entity.Game;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Busca de jogos por nome com ranking e tolerância a erros de digitação
+ */
+public interface GameSearchRepository {
+
+    /**
+     * Jogos mais relevantes para o texto (trigramas e full-text sobre o nome; empate pelos mais
+     * populares). Textos com menos de 3 caracteres buscam só por prefixo.
+     *
+     * @throws IllegalArgumentException se o texto estiver em branco
+     */
+    Slice<Game> searchByName(String query, Pageable pageable);
+}
@@ -0,0 +1,81 @@
+package com.steamanalytics.repository;
+
+import com.steamanalytics.model.entity.Game;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Candidatos vêm de duas buscas indexadas, cada uma limitada à profundidade da página pedida:
+ * vizinhos mais próximos por similaridade de palavras ({@code <<->} no índice GiST de trigramas,
+ * o que tolera erros de digitação) e correspondências full-text com prefixo (índice GIN do
+ * tsvector). O score soma a similaridade e o ts_rank; os donos do {@code game_stats} desempatam.
+ */
+public class GameSearchRepositoryImpl implements GameSearchRepository {
+
+    private static final String FUZZY_SQL =
+            "WITH fuzzy AS (" +
+            "    SELECT g.game_id, 1 - (:text <<-> lower(g.name)) AS similarity, 0 AS rank FROM games g " +
+            "    WHERE :text <% lower(g.name) " +
+            "    ORDER BY :text <<-> lower(g.name) LIMIT :depth" +
+            "), fulltext AS (" +
+            "    SELECT g.game_id, 0 AS similarity, ts_rank(to_tsvector('simple', g.name), q.query) AS rank " +
+            "    FROM games g, to_tsquery('simple', :tsQuery) q(query) " +
+            "    WHERE to_tsvector('simple', g.name) @@ q.query " +
+            "    ORDER BY rank DESC LIMIT :depth" +
+            "), candidates AS (" +
+            "    SELECT game_id, MAX(similarity) AS similarity, MAX(rank) AS rank " +
+            "    FROM (SELECT * FROM fuzzy UNION ALL SELECT * FROM fulltext) c GROUP BY game_id" +
+            ") " +
+            "SELECT c.game_id FROM candidates c LEFT JOIN game_stats s ON s.game_id = c.game_id " +
+            "ORDER BY c.similarity + c.rank DESC, COALESCE(s.owner_count, 0) DESC, c.game_id " +
+            "LIMIT :limit OFFSET :offset";
+
+    // Prefixo no índice btree de lower(name) (text_pattern_ops)
+    private static final String PREFIX_SQL =
+            "SELECT g.game_id FROM games g LEFT JOIN game_stats s ON s.game_id = g.game_id " +
+            "WHERE lower(g.name) LIKE :prefix " +
+            "ORDER BY (lower(g.name) = :text) DESC, COALESCE(s.owner_count, 0) DESC, g.game_id " +
+            "LIMIT :limit OFFSET :offset";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int maxResults;
+
+    @Autowired
+    public GameSearchRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                    @Value("${analytics.search.max-results:1000}") int maxResults) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxResults = maxResults;
+    }
+
+    @Override
+    public Slice<Game> searchByName(String query, Pageable pageable) {
+        SearchTerms terms = SearchTerms.of(query);
+        return SearchSlices.fetch(pageable, maxResults, (limit, offset) -> {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("text", terms.text())
+                    .addValue("limit", limit)
+                    .addValue("offset", offset);
+            List<Long> gameIds;
+            if (terms.fuzzy()) {
+                parameters.addValue("tsQuery", terms.prefixTsQuery())
+                        .addValue("depth", offset + limit);
+                gameIds = jdbcTemplate.queryForList(FUZZY_SQL, parameters, Long.class);
+            } else {
+                parameters.addValue("prefix", terms.prefixPattern());
+                gameIds = jdbcTemplate.queryForList(PREFIX_SQL, parameters, Long.class);
+            }
+            return EntityLoader.loadInOrder(entityManager, Game.class, "gameId", Game::getGameId, gameIds);
+        });
+    }
+}
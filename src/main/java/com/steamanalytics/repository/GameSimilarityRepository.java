@@ -0,0 +1,16 @@
+package com.steamanalytics.repository;
+
+import com.steamanalytics.model.entity.GameSimilarity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface GameSimilarityRepository extends JpaRepository<GameSimilarity, GameSimilarity.Key> {
+
+    /**
+     * Busca os jogos similares pré-calculados, do mais para o menos similar
+     */
+    List<GameSimilarity> findByGameIdOrderByScoreDescSimilarGameIdAsc(Long gameId);
+}
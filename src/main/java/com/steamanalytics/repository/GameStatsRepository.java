@@ -0,0 +1,56 @@
+package com.steamanalytics.repository;
+
+import com.steamanalytics.model.entity.GameStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GameStatsRepository extends JpaRepository<GameStats, Long> {
+
+    /**
+     * Recalcula o agregado de todos os jogos a partir das linhas atuais da biblioteca;
+     * só as linhas que mudaram são reescritas
+     */
+    @Modifying
+    @Query(value = "INSERT INTO game_stats (game_id, owner_count, total_playtime, recent_playtime, updated_at) " +
+            "SELECT g.game_id, COUNT(ugl.id), COALESCE(SUM(ugl.playtime_total), 0), " +
+            "COALESCE(SUM(ugl.playtime_2weeks), 0), now() " +
+            "FROM games g LEFT JOIN user_game_library ugl ON ugl.game_id = g.game_id " +
+            "GROUP BY g.game_id " +
+            "ON CONFLICT (game_id) DO UPDATE SET " +
+            "owner_count = EXCLUDED.owner_count, " +
+            "total_playtime = EXCLUDED.total_playtime, " +
+            "recent_playtime = EXCLUDED.recent_playtime, " +
+            "updated_at = EXCLUDED.updated_at " +
+            "WHERE (game_stats.owner_count, game_stats.total_playtime, game_stats.recent_playtime) " +
+            "IS DISTINCT FROM (EXCLUDED.owner_count, EXCLUDED.total_playtime, EXCLUDED.recent_playtime)",
+            nativeQuery = true)
+    int rebuildAll();
+
+    /**
+     * Remove agregados de jogos que não existem mais
+     */
+    @Modifying
+    @Query(value = "DELETE FROM game_stats s " +
+            "WHERE NOT EXISTS (SELECT 1 FROM games g WHERE g.game_id = s.game_id)",
+            nativeQuery = true)
+    int deleteOrphans();
+
+    /**
+     * Conta agregados divergentes dos calculados sobre a biblioteca
+     */
+    @Query(value = "SELECT COUNT(*) FROM game_stats s " +
+            "FULL OUTER JOIN (" +
+            "    SELECT ugl.game_id, COUNT(*) AS owner_count, " +
+            "    COALESCE(SUM(ugl.playtime_total), 0) AS total_playtime, " +
+            "    COALESCE(SUM(ugl.playtime_2weeks), 0) AS recent_playtime " +
+            "    FROM user_game_library ugl GROUP BY ugl.game_id" +
+            ") live ON live.game_id = s.game_id " +
+            "WHERE COALESCE(s.owner_count, 0) <> COALESCE(live.owner_count, 0) " +
+            "OR COALESCE(s.total_playtime, 0) <> COALESCE(live.total_playtime, 0) " +
+            "OR COALESCE(s.recent_playtime, 0) <> COALESCE(live.recent_playtime, 0)",
+            nativeQuery = true)
+    long countDriftedStats();
+}
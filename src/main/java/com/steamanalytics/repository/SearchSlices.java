@@ -0,0 +1,35 @@
+package com.steamanalytics.repository;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+/**
+ * Paginação das buscas sem COUNT: lê uma linha a mais para saber se há próxima página e
+ * não passa de {@code maxResults} resultados no total
+ */
+final class SearchSlices {
+
+    private SearchSlices() {
+    }
+
+    interface PageQuery<T> {
+        List<T> fetch(int limit, long offset);
+    }
+
+    static <T> Slice<T> fetch(Pageable pageable, int maxResults, PageQuery<T> query) {
+        Pageable page = pageable.isPaged() ? pageable : PageRequest.of(0, maxResults);
+        long remaining = maxResults - page.getOffset();
+        if (remaining <= 0) {
+            return new SliceImpl<>(List.of(), page, false);
+        }
+
+        int size = (int) Math.min(page.getPageSize(), remaining);
+        List<T> rows = query.fetch(size + 1, page.getOffset());
+        boolean hasNext = rows.size() > size && remaining > size;
+        return new SliceImpl<>(rows.size() > size ? rows.subList(0, size) : rows, page, hasNext);
+    }
+}
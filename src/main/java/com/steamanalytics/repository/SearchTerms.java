@@ -0,0 +1,42 @@
+package com.steamanalytics.repository;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Texto de busca normalizado e as formas que as consultas de busca usam: o texto em minúsculas
+ * (igualdade e similaridade de trigramas), o prefixo LIKE com curingas escapados e a tsquery
+ * com prefixo em cada palavra ({@code counter:* & stri:*}).
+ */
+record SearchTerms(String text, String prefixPattern, String prefixTsQuery) {
+
+    static final int MAX_LENGTH = 100;
+
+    /**
+     * Abaixo disso os trigramas não discriminam: a busca vira só por prefixo
+     */
+    static final int MIN_FUZZY_LENGTH = 3;
+
+    static SearchTerms of(String query) {
+        String text = query == null ? "" : query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("Search query must not be blank");
+        }
+        if (text.length() > MAX_LENGTH) {
+            text = text.substring(0, MAX_LENGTH);
+        }
+
+        String escaped = text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        String tsQuery = Arrays.stream(text.split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+        // Sem palavras (só pontuação) a tsquery fica vazia e não encontra nada
+        return new SearchTerms(text, escaped + "%", tsQuery);
+    }
+
+    boolean fuzzy() {
+        return text.length() >= MIN_FUZZY_LENGTH;
+    }
+}
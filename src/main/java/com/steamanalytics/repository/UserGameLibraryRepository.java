@@ -1,12 +1,14 @@
 package com.steamanalytics.repository;
 
 import com.steamanalytics.model.entity.UserGameLibrary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,24 +30,33 @@ public interface UserGameLibraryRepository extends JpaRepository<UserGameLibrary
      */
     Optional<UserGameLibrary> findByUserUserIdAndGameGameId(Long userId, Long gameId);
 
+    /**
+     * Busca entradas da biblioteca de um usuário para um conjunto de jogos, com o jogo carregado
+     */
+    @Query("SELECT ugl FROM UserGameLibrary ugl JOIN FETCH ugl.game " +
+            "WHERE ugl.user.userId = :userId AND ugl.game.gameId IN :gameIds")
+    List<UserGameLibrary> findByUserAndGameIdsWithGames(@Param("userId") Long userId,
+                                                        @Param("gameIds") Collection<Long> gameIds);
+
     /**
      * Verifica se usuário possui um jogo
      */
     boolean existsByUserUserIdAndGameGameId(Long userId, Long gameId);
 
     /**
-     * Busca jogos mais jogados de um usuário (ordenado por tempo total)
+     * Busca jogos mais jogados de um usuário (ordenado por tempo total), com o jogo carregado;
+     * o limite do {@code pageable} vai para o SQL
      */
-    @Query("SELECT ugl FROM UserGameLibrary ugl WHERE ugl.user.userId = :userId " +
-            "AND ugl.playtimeTotal > 0 ORDER BY ugl.playtimeTotal DESC")
-    List<UserGameLibrary> findMostPlayedGamesByUser(@Param("userId") Long userId);
+    @Query("SELECT ugl FROM UserGameLibrary ugl JOIN FETCH ugl.game WHERE ugl.user.userId = :userId " +
+            "AND ugl.playtimeTotal > 0 ORDER BY ugl.playtimeTotal DESC, ugl.id DESC")
+    List<UserGameLibrary> findMostPlayedGamesByUser(@Param("userId") Long userId, Pageable pageable);
 
     /**
-     * Busca jogos jogados recentemente por um usuário
+     * Busca jogos jogados recentemente por um usuário, com o jogo carregado
      */
-    @Query("SELECT ugl FROM UserGameLibrary ugl WHERE ugl.user.userId = :userId " +
-            "AND ugl.playtimeTwoWeeks > 0 ORDER BY ugl.playtimeTwoWeeks DESC")
-    List<UserGameLibrary> findRecentlyPlayedGamesByUser(@Param("userId") Long userId);
+    @Query("SELECT ugl FROM UserGameLibrary ugl JOIN FETCH ugl.game WHERE ugl.user.userId = :userId " +
+            "AND ugl.playtimeTwoWeeks > 0 ORDER BY ugl.playtimeTwoWeeks DESC, ugl.id DESC")
+    List<UserGameLibrary> findRecentlyPlayedGamesByUser(@Param("userId") Long userId, Pageable pageable);
 
     /**
      * Busca jogos por tempo de jogo mínimo
@@ -64,6 +75,23 @@ public interface UserGameLibraryRepository extends JpaRepository<UserGameLibrary
             "FROM UserGameLibrary ugl WHERE ugl.user.userId = :userId")
     Object[] calculateUserPlaytimeStats(@Param("userId") Long userId);
 
+    /**
+     * Calcula total de jogos, jogos jogados e tempo total de um usuário em uma única consulta
+     */
+    @Query("SELECT COUNT(ugl), " +
+            "COALESCE(SUM(CASE WHEN ugl.playtimeTotal > 0 THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(ugl.playtimeTotal), 0) " +
+            "FROM UserGameLibrary ugl WHERE ugl.user.userId = :userId")
+    List<Object[]> calculateUserLibraryAggregates(@Param("userId") Long userId);
+
+    /**
+     * Total de jogos e tempo total de vários usuários em uma consulta: userId, totalGames, totalPlaytime
+     */
+    @Query("SELECT ugl.user.userId, COUNT(ugl), COALESCE(SUM(ugl.playtimeTotal), 0) " +
+            "FROM UserGameLibrary ugl WHERE ugl.user.userId IN :userIds " +
+            "GROUP BY ugl.user.userId")
+    List<Object[]> calculateLibraryTotalsByUserIds(@Param("userIds") Collection<Long> userIds);
+
     /**
      * Busca biblioteca completa de um usuário com informações do jogo
      */
@@ -88,11 +116,24 @@ public interface UserGameLibraryRepository extends JpaRepository<UserGameLibrary
     Optional<UserGameLibrary> findMostPlayedGameByUser(@Param("userId") Long userId);
 
     /**
-     * Busca usuários que mais jogaram um jogo específico
+     * Primeira página dos usuários que mais jogaram um jogo (ordem: tempo total, depois id, decrescentes)
+     */
+    @Query("SELECT ugl FROM UserGameLibrary ugl JOIN FETCH ugl.game WHERE ugl.game.gameId = :gameId " +
+            "AND ugl.playtimeTotal > 0 ORDER BY ugl.playtimeTotal DESC, ugl.id DESC")
+    List<UserGameLibrary> findTopPlayersByGame(@Param("gameId") Long gameId, Pageable pageable);
+
+    /**
+     * Página seguinte dos top players a partir da última linha vista (keyset sobre
+     * {@code idx_user_game_library_game_playtime}; o custo não cresce com a profundidade)
      */
-    @Query("SELECT ugl FROM UserGameLibrary ugl WHERE ugl.game.gameId = :gameId " +
-            "AND ugl.playtimeTotal > 0 ORDER BY ugl.playtimeTotal DESC")
-    List<UserGameLibrary> findTopPlayersByGame(@Param("gameId") Long gameId);
+    @Query("SELECT ugl FROM UserGameLibrary ugl JOIN FETCH ugl.game WHERE ugl.game.gameId = :gameId " +
+            "AND ugl.playtimeTotal > 0 " +
+            "AND (ugl.playtimeTotal < :afterPlaytime OR (ugl.playtimeTotal = :afterPlaytime AND ugl.id < :afterId)) " +
+            "ORDER BY ugl.playtimeTotal DESC, ugl.id DESC")
+    List<UserGameLibrary> findTopPlayersByGameAfter(@Param("gameId") Long gameId,
+                                                    @Param("afterPlaytime") Integer afterPlaytime,
+                                                    @Param("afterId") Long afterId,
+                                                    Pageable pageable);
 
     /**
      * Conta total de jogos na biblioteca de um usuário
@@ -107,20 +148,61 @@ public interface UserGameLibraryRepository extends JpaRepository<UserGameLibrary
     Long countPlayedGamesByUser(@Param("userId") Long userId);
 
     /**
-     * Busca jogos similares baseado em jogadores comuns
+     * Tempo de jogo de cada jogo da biblioteca do usuário (retorna [gameId, playtimeTotal, playtimeTwoWeeks])
+     */
+    @Query("SELECT ugl.game.gameId, ugl.playtimeTotal, ugl.playtimeTwoWeeks FROM UserGameLibrary ugl " +
+            "WHERE ugl.user.userId = :userId")
+    List<Object[]> findPlaytimesByUserId(@Param("userId") Long userId);
+
+    /**
+     * Busca jogos comuns entre dois usuários com o tempo de jogo de cada um em uma única consulta
+     * (retorna [Game, playtimeUsuario1, playtimeUsuario2] ordenado pelo tempo combinado)
      */
-    @Query("SELECT DISTINCT ugl2.game.gameId, COUNT(DISTINCT ugl2.user.userId) as commonPlayers " +
+    @Query("SELECT g, ugl1.playtimeTotal, ugl2.playtimeTotal " +
             "FROM UserGameLibrary ugl1 " +
-            "JOIN UserGameLibrary ugl2 ON ugl1.user.userId = ugl2.user.userId " +
-            "WHERE ugl1.game.gameId = :gameId AND ugl2.game.gameId != :gameId " +
-            "GROUP BY ugl2.game.gameId " +
-            "ORDER BY commonPlayers DESC")
-    List<Object[]> findSimilarGamesByCommonPlayers(@Param("gameId") Long gameId);
+            "JOIN UserGameLibrary ugl2 ON ugl2.game = ugl1.game " +
+            "JOIN ugl1.game g " +
+            "WHERE ugl1.user.userId = :userId1 AND ugl2.user.userId = :userId2 " +
+            "ORDER BY (COALESCE(ugl1.playtimeTotal, 0) + COALESCE(ugl2.playtimeTotal, 0)) DESC")
+    List<Object[]> findCommonGamesWithPlaytime(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
 
     /**
-     * Busca últimos jogos jogados por um usuário
+     * Busca pares (gameId, playtimeTotal) da biblioteca de um usuário ordenados por gameId
      */
-    @Query("SELECT ugl FROM UserGameLibrary ugl WHERE ugl.user.userId = :userId " +
-            "AND ugl.lastPlayed IS NOT NULL ORDER BY ugl.lastPlayed DESC")
-    List<UserGameLibrary> findLastPlayedGamesByUser(@Param("userId") Long userId);
+    @Query("SELECT ugl.game.gameId, ugl.playtimeTotal FROM UserGameLibrary ugl " +
+            "WHERE ugl.user.userId = :userId ORDER BY ugl.game.gameId")
+    List<Object[]> findGamePlaytimesOrderedByGameId(@Param("userId") Long userId);
+
+    /**
+     * Busca os N jogos mais jogados nas últimas 2 semanas de cada usuário em uma única consulta
+     * (retorna [userId, gameId] ordenado por usuário e posição; empates vão para o jogado por último)
+     */
+    @Query(value = "SELECT ranked.user_id, ranked.game_id FROM (" +
+            "SELECT ugl.user_id, ugl.game_id, " +
+            "ROW_NUMBER() OVER (PARTITION BY ugl.user_id " +
+            "ORDER BY ugl.playtime_2weeks DESC, ugl.last_played DESC NULLS LAST, ugl.id) AS rn " +
+            "FROM user_game_library ugl " +
+            "WHERE ugl.user_id IN (:userIds) AND ugl.playtime_2weeks > 0" +
+            ") ranked " +
+            "WHERE ranked.rn <= :limit " +
+            "ORDER BY ranked.user_id, ranked.rn",
+            nativeQuery = true)
+    List<Object[]> findTopRecentGameIdsByUsers(@Param("userIds") Collection<Long> userIds, @Param("limit") int limit);
+
+    /**
+     * Busca últimos jogos jogados por um usuário, com o jogo carregado
+     */
+    @Query("SELECT ugl FROM UserGameLibrary ugl JOIN FETCH ugl.game WHERE ugl.user.userId = :userId " +
+            "AND ugl.lastPlayed IS NOT NULL ORDER BY ugl.lastPlayed DESC, ugl.id DESC")
+    List<UserGameLibrary> findLastPlayedGamesByUser(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Conta jogos em comum entre um usuário e cada candidato (retorna [userId, sharedGames])
+     */
+    @Query("SELECT other.user.userId, COUNT(other) FROM UserGameLibrary mine " +
+            "JOIN UserGameLibrary other ON other.game = mine.game " +
+            "WHERE mine.user.userId = :userId AND other.user.userId IN :candidateIds " +
+            "GROUP BY other.user.userId")
+    List<Object[]> countSharedGamesWithUsers(@Param("userId") Long userId,
+                                             @Param("candidateIds") Collection<Long> candidateIds);
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.steamanalytics.repository;
+
+import com.steamanalytics.model.entity.UserLibraryStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UserLibraryStatsRepository extends JpaRepository<UserLibraryStats, Long> {
+
+    /**
+     * Aplica um delta ao rollup do usuário (cria a linha se ainda não existir)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_library_stats (user_id, total_games, played_games, total_playtime, updated_at) " +
+            "VALUES (:userId, :gamesDelta, :playedDelta, :playtimeDelta, now()) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "total_games = user_library_stats.total_games + EXCLUDED.total_games, " +
+            "played_games = user_library_stats.played_games + EXCLUDED.played_games, " +
+            "total_playtime = user_library_stats.total_playtime + EXCLUDED.total_playtime, " +
+            "updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int applyDelta(@Param("userId") Long userId,
+                   @Param("gamesDelta") long gamesDelta,
+                   @Param("playedDelta") long playedDelta,
+                   @Param("playtimeDelta") long playtimeDelta);
+
+    /**
+     * Recalcula o rollup de um usuário a partir das linhas atuais da biblioteca
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_library_stats (user_id, total_games, played_games, total_playtime, updated_at) " +
+            "SELECT :userId, COUNT(ugl.id), COUNT(ugl.id) FILTER (WHERE ugl.playtime_total > 0), " +
+            "COALESCE(SUM(ugl.playtime_total), 0), now() " +
+            "FROM user_game_library ugl WHERE ugl.user_id = :userId " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "total_games = EXCLUDED.total_games, " +
+            "played_games = EXCLUDED.played_games, " +
+            "total_playtime = EXCLUDED.total_playtime, " +
+            "updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int rebuildForUser(@Param("userId") Long userId);
+
+    /**
+     * Recalcula todos os rollups a partir das linhas atuais da biblioteca
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_library_stats (user_id, total_games, played_games, total_playtime, updated_at) " +
+            "SELECT u.user_id, COUNT(ugl.id), COUNT(ugl.id) FILTER (WHERE ugl.playtime_total > 0), " +
+            "COALESCE(SUM(ugl.playtime_total), 0), now() " +
+            "FROM users u LEFT JOIN user_game_library ugl ON ugl.user_id = u.user_id " +
+            "GROUP BY u.user_id " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "total_games = EXCLUDED.total_games, " +
+            "played_games = EXCLUDED.played_games, " +
+            "total_playtime = EXCLUDED.total_playtime, " +
+            "updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int rebuildAll();
+
+    /**
+     * Remove rollups de usuários que não existem mais
+     */
+    @Modifying
+    @Query(value = "DELETE FROM user_library_stats s " +
+            "WHERE NOT EXISTS (SELECT 1 FROM users u WHERE u.user_id = s.user_id)",
+            nativeQuery = true)
+    int deleteOrphans();
+
+    /**
+     * Conta rollups divergentes dos agregados calculados sobre a biblioteca
+     */
+    @Query(value = "SELECT COUNT(*) FROM user_library_stats s " +
+            "FULL OUTER JOIN (" +
+            "    SELECT ugl.user_id, COUNT(*) AS total_games, " +
+            "    COUNT(*) FILTER (WHERE ugl.playtime_total > 0) AS played_games, " +
+            "    COALESCE(SUM(ugl.playtime_total), 0) AS total_playtime " +
+            "    FROM user_game_library ugl GROUP BY ugl.user_id" +
+            ") live ON live.user_id = s.user_id " +
+            "WHERE COALESCE(s.total_games, 0) <> COALESCE(live.total_games, 0) " +
+            "OR COALESCE(s.played_games, 0) <> COALESCE(live.played_games, 0) " +
+            "OR COALESCE(s.total_playtime, 0) <> COALESCE(live.total_playtime, 0)",
+            nativeQuery = true)
+    long countDriftedRollups();
+
+    /**
+     * Usuários existentes entre os IDs, com o rollup quando houver:
+     * user_id, total_games, total_playtime (os dois últimos nulos sem rollup)
+     */
+    @Query(value = "SELECT u.user_id, s.total_games, s.total_playtime " +
+            "FROM users u LEFT JOIN user_library_stats s ON s.user_id = u.user_id " +
+            "WHERE u.user_id IN (:userIds)",
+            nativeQuery = true)
+    List<Object[]> findRollupsByUserIds(@Param("userIds") Collection<Long> userIds);
+}
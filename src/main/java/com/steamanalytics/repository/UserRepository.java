@@ -1,17 +1,20 @@
 package com.steamanalytics.repository;
 
 import com.steamanalytics.model.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserSearchRepository {
 
     /**
      * Busca usuário pelo Steam ID
@@ -50,20 +53,64 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findActiveUsersLoggedInSince(@Param("since") Instant since);
 
     /**
-     * Busca usuários para sincronização (ativos que fizeram login recentemente)
+     * Candidatos à sincronização (ativos com login recente e biblioteca desatualizada) das partições
+     * ({@code user_id % partitionCount}) deste nó, uma página por vez em ordem de user_id a partir do cursor
      */
-    @Query("SELECT u FROM User u WHERE u.isActive = true AND " +
-            "(u.lastLogin >= :recentThreshold OR u.lastLogin IS NULL) " +
-            "ORDER BY u.lastLogin DESC NULLS LAST")
-    List<User> findActiveUsersForSync(@Param("recentThreshold") Instant recentThreshold);
+    @Query("SELECT u FROM User u WHERE u.isActive = true AND u.userId > :afterUserId AND " +
+            "(u.lastLogin >= :recentThreshold OR u.lastLogin IS NULL) AND " +
+            "(u.librarySyncedAt IS NULL OR u.librarySyncedAt < :staleBefore) AND " +
+            "MOD(u.userId, :partitionCount) IN :partitions " +
+            "ORDER BY u.userId")
+    List<User> findActiveUsersForSync(@Param("recentThreshold") Instant recentThreshold,
+                                      @Param("staleBefore") Instant staleBefore,
+                                      @Param("afterUserId") Long afterUserId,
+                                      @Param("partitionCount") int partitionCount,
+                                      @Param("partitions") Collection<Integer> partitions,
+                                      Pageable pageable);
 
     /**
-     * Busca usuários por parte do display name
+     * Registra a sincronização da biblioteca com a Steam
      */
-    @Query("SELECT u FROM User u WHERE u.isActive = true AND " +
-            "(LOWER(u.displayName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-            " LOWER(u.username) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
-    List<User> searchActiveUsersByName(@Param("searchTerm") String searchTerm);
+    @Modifying
+    @Query("UPDATE User u SET u.librarySyncedAt = :syncedAt WHERE u.userId = :userId")
+    int markLibrarySynced(@Param("userId") Long userId, @Param("syncedAt") Instant syncedAt);
+
+    /**
+     * Fingerprint gravado da biblioteca, lido direto do banco (o perfil em cache pode estar defasado)
+     */
+    @Query("SELECT u.libraryFingerprint FROM User u WHERE u.userId = :userId")
+    Long findLibraryFingerprint(@Param("userId") Long userId);
+
+    /**
+     * Steam ID de cada usuário (retorna [userId, steamId]), para remover as duas chaves do perfil em cache
+     */
+    @Query("SELECT u.userId, u.steamId FROM User u WHERE u.userId IN :userIds")
+    List<Object[]> findSteamIdsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Grava o fingerprint do payload da última sincronização da biblioteca
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.libraryFingerprint = :fingerprint WHERE u.userId = :userId")
+    int updateLibraryFingerprint(@Param("userId") Long userId, @Param("fingerprint") Long fingerprint);
+
+    /**
+     * Descarta o fingerprint (a próxima sincronização compara linha a linha); não escreve se já é nulo
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.libraryFingerprint = NULL WHERE u.userId IN :userIds AND u.libraryFingerprint IS NOT NULL")
+    int clearLibraryFingerprints(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Busca os amigos aceitos de um usuário, mais ativos primeiro
+     */
+    @Query("SELECT u FROM User u WHERE " +
+            "u.userId IN (SELECT f.addressee.userId FROM Friendship f " +
+            "             WHERE f.requester.userId = :userId AND f.status = 'ACCEPTED') OR " +
+            "u.userId IN (SELECT f.requester.userId FROM Friendship f " +
+            "             WHERE f.addressee.userId = :userId AND f.status = 'ACCEPTED') " +
+            "ORDER BY u.lastLogin DESC NULLS LAST, u.userId")
+    List<User> findAcceptedFriends(@Param("userId") Long userId, Pageable pageable);
 
     /**
      * Conta usuários ativos
@@ -79,10 +126,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findUsersWithMostGames();
 
     /**
-     * Busca usuários que possuem um jogo específico
+     * Usuários que possuem um jogo, em ordem de ID a partir de {@code afterUserId} (keyset;
+     * use 0 para a primeira página)
      */
-    @Query("SELECT DISTINCT ugl.user FROM UserGameLibrary ugl WHERE ugl.game.steamAppId = :steamAppId")
-    List<User> findUsersByGameAppId(@Param("steamAppId") Integer steamAppId);
+    @Query("SELECT ugl.user FROM UserGameLibrary ugl WHERE ugl.game.steamAppId = :steamAppId " +
+            "AND ugl.user.userId > :afterUserId ORDER BY ugl.user.userId")
+    List<User> findUsersByGameAppId(@Param("steamAppId") Integer steamAppId,
+                                    @Param("afterUserId") Long afterUserId,
+                                    Pageable pageable);
 
     /**
      * Busca usuários com tempo total de jogo acima de um limite
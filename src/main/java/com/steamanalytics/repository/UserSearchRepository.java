@@ -0,0 +1,19 @@
+package com.steamanalytics.repository;
+
+import com.steamanalytics.model.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Busca de usuários ativos por username ou display name, tolerante a erros de digitação
+ */
+public interface UserSearchRepository {
+
+    /**
+     * Usuários ativos mais parecidos com o texto (o melhor entre username e display name).
+     * Textos com menos de 3 caracteres buscam só por prefixo do username.
+     *
+     * @throws IllegalArgumentException se o texto estiver em branco
+     */
+    Slice<User> searchActiveByName(String query, Pageable pageable);
+}
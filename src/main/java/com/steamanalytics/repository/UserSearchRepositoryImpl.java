@@ -0,0 +1,75 @@
+package com.steamanalytics.repository;
+
+import com.steamanalytics.model.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Nomes de usuário não são linguagem natural, então não há full-text: cada coluna tem um índice
+ * GiST de trigramas parcial (só ativos) e a busca pega os vizinhos mais próximos de cada um,
+ * limitados à profundidade da página. O usuário fica com a menor distância entre as duas colunas.
+ */
+public class UserSearchRepositoryImpl implements UserSearchRepository {
+
+    private static final String FUZZY_SQL =
+            "WITH by_username AS (" +
+            "    SELECT u.user_id, :text <<-> lower(u.username) AS distance FROM users u " +
+            "    WHERE u.is_active = true AND :text <% lower(u.username) " +
+            "    ORDER BY :text <<-> lower(u.username) LIMIT :depth" +
+            "), by_display_name AS (" +
+            "    SELECT u.user_id, :text <<-> lower(u.display_name) AS distance FROM users u " +
+            "    WHERE u.is_active = true AND :text <% lower(u.display_name) " +
+            "    ORDER BY :text <<-> lower(u.display_name) LIMIT :depth" +
+            ") " +
+            "SELECT user_id FROM (SELECT * FROM by_username UNION ALL SELECT * FROM by_display_name) c " +
+            "GROUP BY user_id ORDER BY MIN(distance), user_id " +
+            "LIMIT :limit OFFSET :offset";
+
+    // Prefixo no índice btree parcial de lower(username) (text_pattern_ops)
+    private static final String PREFIX_SQL =
+            "SELECT u.user_id FROM users u " +
+            "WHERE u.is_active = true AND lower(u.username) LIKE :prefix " +
+            "ORDER BY lower(u.username), u.user_id " +
+            "LIMIT :limit OFFSET :offset";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int maxResults;
+
+    @Autowired
+    public UserSearchRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                    @Value("${analytics.search.max-results:1000}") int maxResults) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxResults = maxResults;
+    }
+
+    @Override
+    public Slice<User> searchActiveByName(String query, Pageable pageable) {
+        SearchTerms terms = SearchTerms.of(query);
+        return SearchSlices.fetch(pageable, maxResults, (limit, offset) -> {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("text", terms.text())
+                    .addValue("limit", limit)
+                    .addValue("offset", offset);
+            List<Long> userIds;
+            if (terms.fuzzy()) {
+                parameters.addValue("depth", offset + limit);
+                userIds = jdbcTemplate.queryForList(FUZZY_SQL, parameters, Long.class);
+            } else {
+                parameters.addValue("prefix", terms.prefixPattern());
+                userIds = jdbcTemplate.queryForList(PREFIX_SQL, parameters, Long.class);
+            }
+            return EntityLoader.loadInOrder(entityManager, User.class, "userId", User::getUserId, userIds);
+        });
+    }
+}
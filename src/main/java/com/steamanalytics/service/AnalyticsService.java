@@ -8,10 +8,14 @@ import com.steamanalytics.repository.FriendshipRepository;
 import com.steamanalytics.repository.GameRepository;
 import com.steamanalytics.repository.UserGameLibraryRepository;
 import com.steamanalytics.repository.UserRepository;
+import com.steamanalytics.service.CacheDependencyRegistry.Dependency;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -20,94 +24,157 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class AnalyticsService {
 
+    private static final int RECOMMENDATION_LIMIT = 10;
+
     private final UserRepository userRepository;
     private final GameRepository gameRepository;
     private final UserGameLibraryRepository userGameLibraryRepository;
     private final FriendshipRepository friendshipRepository;
+    private final FriendGraphIndex friendGraphIndex;
+    private final CommonGamesEngine commonGamesEngine;
+    private final DashboardAssembler dashboardAssembler;
+    private final FriendActivityFeed friendActivityFeed;
+    private final UserLibraryStatsService userLibraryStatsService;
+    private final GameStatsService gameStatsService;
+    private final CacheLoadCoordinator cacheLoadCoordinator;
+    private final CacheDependencyRegistry cacheDependencyRegistry;
+    private final TransactionTemplate readOnlyTransaction;
 
     @Autowired
     public AnalyticsService(UserRepository userRepository,
                             GameRepository gameRepository,
                             UserGameLibraryRepository userGameLibraryRepository,
-                            FriendshipRepository friendshipRepository) {
+                            FriendshipRepository friendshipRepository,
+                            FriendGraphIndex friendGraphIndex,
+                            CommonGamesEngine commonGamesEngine,
+                            DashboardAssembler dashboardAssembler,
+                            FriendActivityFeed friendActivityFeed,
+                            UserLibraryStatsService userLibraryStatsService,
+                            GameStatsService gameStatsService,
+                            CacheLoadCoordinator cacheLoadCoordinator,
+                            CacheDependencyRegistry cacheDependencyRegistry,
+                            PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.gameRepository = gameRepository;
         this.userGameLibraryRepository = userGameLibraryRepository;
         this.friendshipRepository = friendshipRepository;
+        this.friendGraphIndex = friendGraphIndex;
+        this.commonGamesEngine = commonGamesEngine;
+        this.dashboardAssembler = dashboardAssembler;
+        this.friendActivityFeed = friendActivityFeed;
+        this.userLibraryStatsService = userLibraryStatsService;
+        this.gameStatsService = gameStatsService;
+        this.cacheLoadCoordinator = cacheLoadCoordinator;
+        this.cacheDependencyRegistry = cacheDependencyRegistry;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     /**
-     * Busca jogos comuns entre dois usuários
+     * Busca jogos comuns entre dois usuários (carga única por chave; dependências publicadas após a gravação)
      */
-    @Cacheable(value = "commonGames", key = "#userId + '_' + #friendId")
     public CommonGamesResponse findCommonGames(Long userId, Long friendId) {
-        List<Game> commonGames = gameRepository.findCommonGamesBetweenUsers(userId, friendId);
-
-        List<CommonGameDto> gameAnalysis = commonGames.stream()
-                .map(game -> {
-                    UserGameLibrary userGame = findUserGame(userId, game.getGameId());
-                    UserGameLibrary friendGame = findUserGame(friendId, game.getGameId());
-
-                    return CommonGameDto.builder()
-                            .game(GameDto.from(game))
-                            .userPlaytime(userGame != null ? userGame.getPlaytimeTotal() : 0)
-                            .friendPlaytime(friendGame != null ? friendGame.getPlaytimeTotal() : 0)
-                            .totalPlaytime((userGame != null ? userGame.getPlaytimeTotal() : 0) +
-                                    (friendGame != null ? friendGame.getPlaytimeTotal() : 0))
-                            .build();
-                })
-                .sorted((a, b) -> Integer.compare(b.getTotalPlaytime(), a.getTotalPlaytime()))
-                .collect(Collectors.toList());
-
-        return CommonGamesResponse.builder()
-                .commonGames(gameAnalysis)
-                .totalCommonGames(gameAnalysis.size())
-                .build();
+        String key = userId + "_" + friendId;
+        return cacheLoadCoordinator.get("commonGames", key, () -> {
+            cacheDependencyRegistry.register("commonGames", key,
+                    List.of(Dependency.library(userId), Dependency.library(friendId)));
+            List<CommonGameDto> gameAnalysis = commonGamesEngine.findCommonGames(userId, friendId);
+
+            return CommonGamesResponse.builder()
+                    .commonGames(gameAnalysis)
+                    .totalCommonGames(gameAnalysis.size())
+                    .build();
+        });
     }
 
     /**
-     * Gera recomendações de jogos para um usuário
+     * Gera recomendações de jogos para um usuário (carga única por chave; sem transação em acerto de cache)
      */
-    @Cacheable(value = "recommendations", key = "#userId")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<GameRecommendation> generateRecommendations(Long userId) {
+        return cacheLoadCoordinator.get("recommendations", userId,
+                () -> readOnlyTransaction.execute(status -> loadRecommendations(userId)));
+    }
+
+    private List<GameRecommendation> loadRecommendations(Long userId) {
         // Buscar amigos do usuário
-        List<Long> friendIds = friendshipRepository.findAcceptedFriendIds(userId);
+        List<Long> friendIds = findAcceptedFriendIds(userId);
 
         if (friendIds.isEmpty()) {
-            return generatePopularGamesRecommendations();
+            List<GameRecommendation> popular = generatePopularGamesRecommendations();
+            cacheDependencyRegistry.register("recommendations", userId, recommendationDependencies(userId, friendIds, popular));
+            return popular;
         }
 
-        // Algoritmo de recomendação baseado em amigos
-        Map<Long, Integer> gamePopularity = gameRepository
-                .findPopularGamesAmongFriends(friendIds, userId)
-                .stream()
-                .collect(Collectors.toMap(
-                        result -> (Long) result[0],
-                        result -> ((Number) result[1]).intValue()
-                ));
+        // Algoritmo de recomendação baseado em amigos (já ordenado e limitado no banco)
+        Map<Long, Integer> gamePopularity = new LinkedHashMap<>();
+        for (Object[] result : gameRepository.findPopularGamesAmongFriends(friendIds, userId,
+                PageRequest.of(0, RECOMMENDATION_LIMIT))) {
+            gamePopularity.put((Long) result[0], ((Number) result[1]).intValue());
+        }
+        Map<Long, Game> games = gameRepository.findAllById(gamePopularity.keySet()).stream()
+                .collect(Collectors.toMap(Game::getGameId, game -> game));
+        Map<Long, Long> ownerCounts = gameStatsService.getOwnerCounts(gamePopularity.keySet());
 
-        return gamePopularity.entrySet().stream()
-                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
-                .limit(10)
+        List<GameRecommendation> recommendations = gamePopularity.entrySet().stream()
                 .map(entry -> {
-                    Game game = gameRepository.findById(entry.getKey()).orElse(null);
+                    Game game = games.get(entry.getKey());
                     return GameRecommendation.builder()
                             .game(GameDto.from(game))
                             .friendsWhoPlay(entry.getValue())
-                            .score(calculateRecommendationScore(entry.getValue(), game))
+                            .score(calculateRecommendationScore(entry.getValue(), game,
+                                    ownerCounts.getOrDefault(entry.getKey(), 0L)))
                             .reason("Jogado por " + entry.getValue() + " amigo(s)")
                             .build();
                 })
                 .collect(Collectors.toList());
+        cacheDependencyRegistry.register("recommendations", userId,
+                recommendationDependencies(userId, friendIds, recommendations));
+        return recommendations;
     }
 
     /**
-     * Calcula estatísticas completas do usuário
+     * Recomendações mudam com a biblioteca do usuário (jogos já possuídos saem), com os amigos,
+     * com a biblioteca de cada amigo e com os dados dos jogos recomendados
      */
-    @Cacheable(value = "userStats", key = "#userId")
+    private static List<Dependency> recommendationDependencies(Long userId, List<Long> friendIds,
+                                                               List<GameRecommendation> recommendations) {
+        List<Dependency> dependencies = socialDependencies(userId, friendIds);
+        for (GameRecommendation recommendation : recommendations) {
+            if (recommendation.getGame() != null && recommendation.getGame().getGameId() != null) {
+                dependencies.add(Dependency.game(recommendation.getGame().getGameId()));
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * Biblioteca e amigos do usuário, mais a biblioteca de cada amigo
+     */
+    private static List<Dependency> socialDependencies(Long userId, List<Long> friendIds) {
+        List<Dependency> dependencies = new ArrayList<>(friendIds.size() + 12);
+        dependencies.add(Dependency.library(userId));
+        dependencies.add(Dependency.friends(userId));
+        for (Long friendId : friendIds) {
+            dependencies.add(Dependency.library(friendId));
+        }
+        return dependencies;
+    }
+
+    /**
+     * Calcula estatísticas completas do usuário (carga única por chave; sem transação em acerto de cache)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserStatistics calculateUserStatistics(Long userId) {
+        return cacheLoadCoordinator.get("userStats", userId,
+                () -> readOnlyTransaction.execute(status -> loadUserStatistics(userId)));
+    }
+
+    private UserStatistics loadUserStatistics(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        cacheDependencyRegistry.register("userStats", userId,
+                List.of(Dependency.library(userId), Dependency.friends(userId)));
 
         // Estatísticas da biblioteca
         Map<String, Object> libraryStats = calculateLibraryStatistics(userId);
@@ -118,16 +185,13 @@ public class AnalyticsService {
 
         // Jogos jogados recentemente
         List<UserGameLibrary> recentlyPlayed = userGameLibraryRepository
-                .findLastPlayedGamesByUser(userId)
-                .stream()
-                .limit(5)
-                .collect(Collectors.toList());
+                .findLastPlayedGamesByUser(userId, PageRequest.of(0, 5));
 
         // Distribuição por gênero
         Map<String, Integer> genreDistribution = calculateGenreDistribution(userId);
 
         // Contagem de amigos
-        Long friendCount = friendshipRepository.countAcceptedFriends(userId);
+        long friendCount = countAcceptedFriends(userId);
 
         return UserStatistics.builder()
                 .userId(userId)
@@ -144,74 +208,65 @@ public class AnalyticsService {
                         .map(ugl -> GameDto.from(ugl.getGame()))
                         .collect(Collectors.toList()))
                 .genreDistribution(genreDistribution)
-                .friendCount(friendCount.intValue())
+                .friendCount(Math.toIntExact(friendCount))
                 .build();
     }
 
     /**
-     * Constrói dados completos do dashboard
+     * Constrói dados completos do dashboard (componentes em paralelo; parciais não vão para o cache)
      */
-    @Cacheable(value = "dashboard", key = "#userId")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public DashboardData buildDashboard(Long userId) {
-        UserStatistics stats = calculateUserStatistics(userId);
+        return cacheLoadCoordinator.get("dashboard", userId, () -> {
+            // Atividade e recomendações vêm dos amigos: o dashboard depende da biblioteca de cada um
+            cacheDependencyRegistry.register("dashboard", userId,
+                    socialDependencies(userId, findAcceptedFriendIds(userId)));
+            return dashboardAssembler.assemble(userId);
+        }, dashboard -> !dashboard.isPartial());
+    }
 
-        // Top 5 jogos mais jogados
-        List<UserGameLibrary> topGames = userGameLibraryRepository
-                .findMostPlayedGamesByUser(userId)
-                .stream()
-                .limit(5)
-                .collect(Collectors.toList());
+    /**
+     * Amigos aceitos pelo índice em memória; o banco responde enquanto o índice não carregou
+     */
+    private List<Long> findAcceptedFriendIds(Long userId) {
+        if (friendGraphIndex.isReady()) {
+            return Arrays.stream(friendGraphIndex.friendIds(userId)).boxed().toList();
+        }
+        return friendshipRepository.findAcceptedFriendIds(userId);
+    }
+
+    private long countAcceptedFriends(Long userId) {
+        if (friendGraphIndex.isReady()) {
+            return friendGraphIndex.countFriends(userId);
+        }
+        return friendshipRepository.countAcceptedFriends(userId);
+    }
 
-        // Jogos recentes (últimas 2 semanas)
-        List<UserGameLibrary> recentGames = userGameLibraryRepository
-                .findRecentlyPlayedGamesByUser(userId)
+    /**
+     * Top N jogos mais jogados do usuário
+     */
+    public List<GameWithPlaytime> findTopGames(Long userId, int limit) {
+        return userGameLibraryRepository.findMostPlayedGamesByUser(userId, PageRequest.of(0, limit))
                 .stream()
-                .limit(5)
+                .map(this::mapToGameWithPlaytime)
                 .collect(Collectors.toList());
+    }
 
-        // Recomendações
-        List<GameRecommendation> recommendations = generateRecommendations(userId)
+    /**
+     * Jogos recentes (últimas 2 semanas) do usuário
+     */
+    public List<GameWithPlaytime> findRecentGames(Long userId, int limit) {
+        return userGameLibraryRepository.findRecentlyPlayedGamesByUser(userId, PageRequest.of(0, limit))
                 .stream()
-                .limit(3)
+                .map(this::mapToGameWithPlaytime)
                 .collect(Collectors.toList());
-
-        // Atividade dos amigos (se houver)
-        List<FriendActivity> friendsActivity = getFriendsActivity(userId);
-
-        return DashboardData.builder()
-                .userStatistics(stats)
-                .topGames(topGames.stream()
-                        .map(this::mapToGameWithPlaytime)
-                        .collect(Collectors.toList()))
-                .recentGames(recentGames.stream()
-                        .map(this::mapToGameWithPlaytime)
-                        .collect(Collectors.toList()))
-                .recommendations(recommendations)
-                .friendsActivity(friendsActivity)
-                .build();
     }
 
     /**
      * Calcula estatísticas da biblioteca do usuário
      */
     private Map<String, Object> calculateLibraryStatistics(Long userId) {
-        Object[] stats = userGameLibraryRepository.calculateUserPlaytimeStats(userId);
-        Long totalGames = userGameLibraryRepository.countGamesByUser(userId);
-        Long playedGames = userGameLibraryRepository.countPlayedGamesByUser(userId);
-
-        Long totalPlaytime = stats.length > 0 ? ((Number) stats[0]).longValue() : 0L;
-        Double avgPlaytime = stats.length > 1 ? ((Number) stats[1]).doubleValue() : 0.0;
-
-        return Map.of(
-                "totalGames", totalGames,
-                "playedGames", playedGames,
-                "unplayedGames", totalGames - playedGames,
-                "totalPlaytimeMinutes", totalPlaytime,
-                "totalPlaytimeHours", totalPlaytime / 60.0,
-                "averagePlaytimeMinutes", avgPlaytime,
-                "averagePlaytimeHours", avgPlaytime / 60.0,
-                "playedPercentage", totalGames > 0 ? (playedGames.doubleValue() / totalGames) * 100 : 0
-        );
+        return userLibraryStatsService.getLibraryStatistics(userId);
     }
 
     /**
@@ -242,18 +297,10 @@ public class AnalyticsService {
                 ));
     }
 
-    /**
-     * Busca entrada do jogo na biblioteca do usuário
-     */
-    private UserGameLibrary findUserGame(Long userId, Long gameId) {
-        return userGameLibraryRepository.findByUserUserIdAndGameGameId(userId, gameId)
-                .orElse(null);
-    }
-
     /**
      * Calcula score de recomendação
      */
-    private double calculateRecommendationScore(Integer friendsWhoPlay, Game game) {
+    private double calculateRecommendationScore(Integer friendsWhoPlay, Game game, long ownerCount) {
         double baseScore = friendsWhoPlay * 10.0;
 
         // Bonus para jogos gratuitos
@@ -261,9 +308,8 @@ public class AnalyticsService {
             baseScore += 5.0;
         }
 
-        // Bonus para jogos populares
-        int totalPlayers = game.getUserLibraries().size();
-        if (totalPlayers > 1000) {
+        // Bonus para jogos populares (donos vêm do agregado game_stats)
+        if (ownerCount > 1000) {
             baseScore += 5.0;
         }
 
@@ -274,10 +320,7 @@ public class AnalyticsService {
      * Gera recomendações baseadas em jogos populares (fallback)
      */
     private List<GameRecommendation> generatePopularGamesRecommendations() {
-        List<Game> popularGames = gameRepository.findMostPopularGames()
-                .stream()
-                .limit(10)
-                .collect(Collectors.toList());
+        List<Game> popularGames = gameRepository.findMostPopularGames(PageRequest.of(0, RECOMMENDATION_LIMIT));
 
         return popularGames.stream()
                 .map(game -> GameRecommendation.builder()
@@ -292,30 +335,8 @@ public class AnalyticsService {
     /**
      * Busca atividade dos amigos
      */
-    private List<FriendActivity> getFriendsActivity(Long userId) {
-        List<Long> friendIds = friendshipRepository.findAcceptedFriendIds(userId);
-
-        return friendIds.stream()
-                .limit(5)
-                .map(friendId -> {
-                    User friend = userRepository.findById(friendId).orElse(null);
-                    if (friend == null) return null;
-
-                    List<UserGameLibrary> recentGames = userGameLibraryRepository
-                            .findRecentlyPlayedGamesByUser(friendId)
-                            .stream()
-                            .limit(3)
-                            .collect(Collectors.toList());
-
-                    return FriendActivity.builder()
-                            .friend(UserDto.from(friend))
-                            .recentGames(recentGames.stream()
-                                    .map(ugl -> GameDto.from(ugl.getGame()))
-                                    .collect(Collectors.toList()))
-                            .build();
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+    public List<FriendActivity> getFriendsActivity(Long userId) {
+        return friendActivityFeed.getFriendsActivity(userId);
     }
 
     /**
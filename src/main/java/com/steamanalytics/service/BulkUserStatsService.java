@@ -0,0 +1,236 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.dto.UserStatsSummary;
+import com.steamanalytics.repository.FriendshipRepository;
+import com.steamanalytics.repository.UserGameLibraryRepository;
+import com.steamanalytics.repository.UserLibraryStatsRepository;
+import com.steamanalytics.service.CacheDependencyRegistry.Dependency;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Resumo (jogos, horas, amigos) de muitos usuários de uma vez. Os resumos já em cache vêm num único
+ * MGET; só os ausentes são calculados, com consultas agrupadas por lote de IDs: rollup da biblioteca
+ * (com agregado de fallback para quem ainda não tem rollup) e contagem de amigos, que vem do
+ * {@link FriendGraphIndex} quando ele está carregado. Os calculados voltam ao cache num pipeline.
+ *
+ * As entradas ficam em {@code userStatsSummary::<userId>}, a mesma chave do cache de mesmo nome,
+ * e dependem da biblioteca e dos amigos do usuário no {@link CacheDependencyRegistry}. As dependências
+ * só são publicadas depois da gravação, e os resumos invalidados durante o cálculo são removidos.
+ */
+@Service
+public class BulkUserStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkUserStatsService.class);
+
+    static final String CACHE_NAME = "userStatsSummary";
+
+    private final UserLibraryStatsRepository userLibraryStatsRepository;
+    private final UserGameLibraryRepository userGameLibraryRepository;
+    private final FriendshipRepository friendshipRepository;
+    private final FriendGraphIndex friendGraphIndex;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheDependencyRegistry cacheDependencyRegistry;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxUserIds;
+    private final int batchSize;
+    private final Duration ttl;
+
+    @Autowired
+    public BulkUserStatsService(UserLibraryStatsRepository userLibraryStatsRepository,
+                                UserGameLibraryRepository userGameLibraryRepository,
+                                FriendshipRepository friendshipRepository,
+                                FriendGraphIndex friendGraphIndex,
+                                RedisTemplate<String, Object> redisTemplate,
+                                CacheDependencyRegistry cacheDependencyRegistry,
+                                MeterRegistry meterRegistry,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${analytics.bulk-stats.max-user-ids:5000}") int maxUserIds,
+                                @Value("${analytics.bulk-stats.batch-size:1000}") int batchSize,
+                                @Value("${analytics.bulk-stats.ttl:20m}") Duration ttl) {
+        this.userLibraryStatsRepository = userLibraryStatsRepository;
+        this.userGameLibraryRepository = userGameLibraryRepository;
+        this.friendshipRepository = friendshipRepository;
+        this.friendGraphIndex = friendGraphIndex;
+        this.redisTemplate = redisTemplate;
+        this.cacheDependencyRegistry = cacheDependencyRegistry;
+        this.meterRegistry = meterRegistry;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxUserIds = maxUserIds;
+        this.batchSize = batchSize;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Resumos na ordem dos IDs pedidos (sem repetições); usuários inexistentes ficam de fora
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<UserStatsSummary> summarize(List<Long> userIds) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(userIds));
+        distinctIds.removeIf(Objects::isNull);
+        if (distinctIds.size() > maxUserIds) {
+            throw new IllegalArgumentException("At most " + maxUserIds + " user IDs per request");
+        }
+
+        Map<Long, UserStatsSummary> summaries = new HashMap<>(distinctIds.size() * 2);
+        for (int from = 0; from < distinctIds.size(); from += batchSize) {
+            List<Long> batch = distinctIds.subList(from, Math.min(from + batchSize, distinctIds.size()));
+            List<Long> misses = readCached(batch, summaries);
+            if (!misses.isEmpty()) {
+                // Antes da leitura do banco: uma invalidação a partir daqui derruba o resumo gravado
+                CacheDependencyRegistry.BulkLoad bulkLoad = cacheDependencyRegistry.beginBulkLoad(CACHE_NAME);
+                Map<Long, UserStatsSummary> loaded = readOnlyTransaction.execute(status -> load(misses));
+                summaries.putAll(loaded);
+                store(loaded, bulkLoad);
+            }
+        }
+
+        List<UserStatsSummary> result = new ArrayList<>(summaries.size());
+        for (Long userId : distinctIds) {
+            UserStatsSummary summary = summaries.get(userId);
+            if (summary != null) {
+                result.add(summary);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * MGET do lote; devolve os IDs sem resumo em cache (todos, se o Redis falhar)
+     */
+    private List<Long> readCached(List<Long> batch, Map<Long, UserStatsSummary> summaries) {
+        List<Object> cached;
+        try {
+            cached = redisTemplate.opsForValue().multiGet(batch.stream().map(BulkUserStatsService::cacheKey).toList());
+        } catch (DataAccessException e) {
+            meterRegistry.counter("bulk_stats.cache_failures", "operation", "read").increment();
+            log.warn("Bulk stats cache read failed, computing {} summaries: {}", batch.size(), e.getMessage());
+            cached = null;
+        }
+
+        List<Long> misses = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Object value = cached != null && i < cached.size() ? cached.get(i) : null;
+            if (value instanceof UserStatsSummary summary) {
+                summaries.put(batch.get(i), summary);
+            } else {
+                misses.add(batch.get(i));
+            }
+        }
+        meterRegistry.counter("bulk_stats.lookups", "outcome", "hit").increment(batch.size() - misses.size());
+        meterRegistry.counter("bulk_stats.lookups", "outcome", "miss").increment(misses.size());
+        return misses;
+    }
+
+    /**
+     * Calcula os resumos do lote: uma consulta para existência e rollup, uma de fallback para quem
+     * não tem rollup e uma para os amigos (nenhuma com o grafo em memória)
+     */
+    private Map<Long, UserStatsSummary> load(List<Long> userIds) {
+        Map<Long, long[]> totals = new LinkedHashMap<>();
+        List<Long> withoutRollup = new ArrayList<>();
+        for (Object[] row : userLibraryStatsRepository.findRollupsByUserIds(userIds)) {
+            Long userId = ((Number) row[0]).longValue();
+            if (row[1] == null) {
+                withoutRollup.add(userId);
+                totals.put(userId, new long[2]);
+            } else {
+                totals.put(userId, new long[]{((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+            }
+        }
+        if (!withoutRollup.isEmpty()) {
+            for (Object[] row : userGameLibraryRepository.calculateLibraryTotalsByUserIds(withoutRollup)) {
+                totals.put(((Number) row[0]).longValue(),
+                        new long[]{((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+            }
+        }
+
+        Map<Long, Long> friendCounts = countFriends(totals.keySet());
+
+        Map<Long, UserStatsSummary> summaries = new HashMap<>(totals.size() * 2);
+        totals.forEach((userId, total) -> summaries.put(userId, UserStatsSummary.builder()
+                .userId(userId)
+                .totalGames((int) total[0])
+                .totalPlaytimeHours(total[1] / 60.0)
+                .friendCount(friendCounts.getOrDefault(userId, 0L).intValue())
+                .build()));
+        return summaries;
+    }
+
+    private Map<Long, Long> countFriends(Collection<Long> userIds) {
+        Map<Long, Long> counts = new HashMap<>(userIds.size() * 2);
+        if (userIds.isEmpty()) {
+            return counts;
+        }
+        if (friendGraphIndex.isReady()) {
+            for (Long userId : userIds) {
+                counts.put(userId, friendGraphIndex.countFriends(userId));
+            }
+            return counts;
+        }
+        for (Object[] row : friendshipRepository.countAcceptedFriendsByUserIds(userIds)) {
+            counts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Grava os resumos calculados num único pipeline e depois publica as dependências de cada um
+     */
+    private void store(Map<Long, UserStatsSummary> loaded, CacheDependencyRegistry.BulkLoad bulkLoad) {
+        if (loaded.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Dependency>> dependencies = new HashMap<>(loaded.size() * 2);
+        loaded.keySet().forEach(userId -> dependencies.put(userId,
+                List.of(Dependency.library(userId), Dependency.friends(userId))));
+
+        boolean stored = false;
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    loaded.forEach((userId, summary) -> operations.opsForValue().set(cacheKey(userId), summary, ttl));
+                    return null;
+                }
+            });
+            stored = true;
+        } catch (DataAccessException e) {
+            meterRegistry.counter("bulk_stats.cache_failures", "operation", "write").increment();
+            log.warn("Bulk stats cache write of {} summaries failed: {}", loaded.size(), e.getMessage());
+        }
+        cacheDependencyRegistry.completeBulkLoad(bulkLoad, dependencies, stored);
+    }
+
+    /**
+     * Mesmo formato de chave do RedisCache ({@code <cache>::<chave>}), para as remoções por dependência
+     */
+    static String cacheKey(Long userId) {
+        return CACHE_NAME + "::" + userId;
+    }
+}
@@ -0,0 +1,585 @@
+package com.steamanalytics.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invalidação por dependência: cada entrada de cache derivada declara, ao ser carregada, as entidades
+ * de que depende (biblioteca de um usuário, amigos de um usuário, um jogo). Uma escrita invalida só a
+ * entidade alterada e o registro remove exatamente as entradas que a declararam, em qualquer cache.
+ *
+ * O índice reverso (entidade → entradas) fica em sets do Redis, compartilhado entre as instâncias;
+ * a leitura e a remoção de um set são atômicas (script Lua). Com {@code index=local} o índice fica
+ * em memória, o que só serve para uma instância única. As remoções rodam após o commit da transação
+ * corrente, para que uma leitura concorrente não recarregue o valor antigo.
+ *
+ * Uma invalidação que cai entre a leitura do banco e a gravação no cache não encontra a entrada para
+ * remover. Por isso as cargas feitas pelo {@link CacheLoadCoordinator} só publicam as dependências depois
+ * de gravar o valor ({@link #beginLoad}/{@link #completeLoad}): cada invalidação carimba as entidades
+ * drenadas e a entrada é removida na hora se alguma delas foi invalidada depois do início da carga.
+ * Cargas em lote que gravam direto no Redis fazem o mesmo com {@link #beginBulkLoad}/{@link #completeBulkLoad}.
+ */
+@Component
+public class CacheDependencyRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheDependencyRegistry.class);
+
+    private static final String INDEX_PREFIX = "cache:deps:";
+    private static final String DRAINED_PREFIX = "cache:drained:";
+    private static final String MEMBER_SEPARATOR = "::";
+
+    // Devolve os membros de todos os sets, apaga os sets e carimba cada entidade com o relógio do Redis (µs).
+    // KEYS: os sets seguidos das chaves de carimbo; ARGV[1]: TTL do carimbo
+    private static final RedisScript<List> DRAIN_INDEX = new DefaultRedisScript<>(
+            "local now = redis.call('time') " +
+            "local stamp = now[1] .. string.format('%06d', tonumber(now[2])) " +
+            "local sets = #KEYS / 2 " +
+            "local members = {} " +
+            "for i = 1, sets do " +
+            "  for _, member in ipairs(redis.call('smembers', KEYS[i])) do members[#members + 1] = member end " +
+            "  redis.call('del', KEYS[i]) " +
+            "  redis.call('set', KEYS[sets + i], stamp, 'EX', ARGV[1]) " +
+            "end " +
+            "return members",
+            List.class);
+
+    // Publica cada membro nos seus sets e devolve os membros com alguma entidade drenada desde ARGV[1] (µs).
+    // ARGV: início da carga, TTL e, por membro, o membro e a quantidade n de sets;
+    // KEYS: por membro, os n sets seguidos das n chaves de carimbo
+    private static final RedisScript<List> CONFIRM_INDEX = new DefaultRedisScript<>(
+            "local since = tonumber(ARGV[1]) " +
+            "local stale = {} " +
+            "local first = 0 " +
+            "for m = 3, #ARGV, 2 do " +
+            "  local sets = tonumber(ARGV[m + 1]) " +
+            "  local drainedSince = false " +
+            "  for i = first + 1, first + sets do " +
+            "    local drained = redis.call('get', KEYS[sets + i]) " +
+            "    if drained and tonumber(drained) >= since then drainedSince = true end " +
+            "    redis.call('sadd', KEYS[i], ARGV[m]) " +
+            "    redis.call('expire', KEYS[i], ARGV[2]) " +
+            "  end " +
+            "  if drainedSince then stale[#stale + 1] = ARGV[m] end " +
+            "  first = first + 2 * sets " +
+            "end " +
+            "return stale",
+            List.class);
+
+    // Cargas em andamento na thread: os registros delas esperam a gravação no cache
+    private final ThreadLocal<Deque<PendingLoad>> pendingLoads = new ThreadLocal<>();
+
+    private final CacheManager cacheManager;
+    private final Index index;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public CacheDependencyRegistry(CacheManager cacheManager,
+                                   StringRedisTemplate redisTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${analytics.cache.dependencies.index:redis}") String index,
+                                   @Value("${analytics.cache.dependencies.index-ttl:6h}") Duration indexTtl) {
+        this(cacheManager, "local".equalsIgnoreCase(index) ? new LocalIndex() : new RedisIndex(redisTemplate, indexTtl),
+                meterRegistry);
+    }
+
+    CacheDependencyRegistry(CacheManager cacheManager, Index index, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.index = index;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Declara as dependências de uma entrada; chamado pelo carregamento, antes de o valor ir para o cache.
+     * Dentro de uma carga aberta com {@link #beginLoad} para a mesma entrada, fica guardado até {@link #completeLoad}
+     */
+    public void register(String cacheName, Object key, Collection<Dependency> dependencies) {
+        Deque<PendingLoad> loads = pendingLoads.get();
+        if (loads != null) {
+            String member = cacheName + MEMBER_SEPARATOR + key;
+            for (PendingLoad load : loads) {
+                if (load.member.equals(member)) {
+                    dependencies.forEach(dependency -> load.indexKeys.add(dependency.indexKey()));
+                    return;
+                }
+            }
+        }
+        registerAll(cacheName, Map.of(key, dependencies));
+    }
+
+    /**
+     * Abre a carga de uma entrada na thread corrente; precisa ser fechada com {@link #completeLoad}
+     */
+    public PendingLoad beginLoad(Cache cache, Object key) {
+        long since;
+        try {
+            since = index.clock();
+        } catch (RuntimeException e) {
+            // Sem o relógio não há como comparar: os registros da carga vão direto para o índice
+            meterRegistry.counter("cache_dependencies.failures", "operation", "begin").increment();
+            log.warn("Cache dependency clock unavailable for {}::{}: {}", cache.getName(), key, e.getMessage());
+            return null;
+        }
+        PendingLoad load = new PendingLoad(cache, key, cache.getName() + MEMBER_SEPARATOR + key, since);
+        Deque<PendingLoad> loads = pendingLoads.get();
+        if (loads == null) {
+            loads = new ArrayDeque<>();
+            pendingLoads.set(loads);
+        }
+        loads.push(load);
+        return load;
+    }
+
+    /**
+     * Fecha a carga: com o valor gravado ({@code stored}), publica as dependências registradas e remove
+     * a entrada se alguma delas foi invalidada enquanto a carga rodava
+     */
+    public void completeLoad(PendingLoad load, boolean stored) {
+        if (load == null) {
+            return;
+        }
+        Deque<PendingLoad> loads = pendingLoads.get();
+        loads.remove(load);
+        if (loads.isEmpty()) {
+            pendingLoads.remove();
+        }
+        if (!stored || load.indexKeys.isEmpty()) {
+            return;
+        }
+
+        boolean stale;
+        try {
+            stale = !index.confirm(Map.of(load.member, List.copyOf(load.indexKeys)), load.since).isEmpty();
+        } catch (RuntimeException e) {
+            // As entradas ainda expiram pelo TTL do cache
+            meterRegistry.counter("cache_dependencies.failures", "operation", "register").increment();
+            log.warn("Cache dependency registration of {} failed: {}", load.member, e.getMessage());
+            return;
+        }
+        if (stale) {
+            meterRegistry.counter("cache_dependencies.stale_loads", "cache", load.cache.getName()).increment();
+            try {
+                load.cache.evict(load.key);
+            } catch (RuntimeException e) {
+                meterRegistry.counter("cache_dependencies.failures", "operation", "evict").increment();
+                log.warn("Cache eviction of stale {} failed: {}", load.member, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Abre uma carga em lote de entradas do mesmo cache; fechada com {@link #completeBulkLoad}
+     * depois de gravar os valores
+     */
+    public BulkLoad beginBulkLoad(String cacheName) {
+        try {
+            return new BulkLoad(cacheName, index.clock());
+        } catch (RuntimeException e) {
+            meterRegistry.counter("cache_dependencies.failures", "operation", "begin").increment();
+            log.warn("Cache dependency clock unavailable for a {} bulk load: {}", cacheName, e.getMessage());
+            return new BulkLoad(cacheName, null);
+        }
+    }
+
+    /**
+     * Fecha a carga em lote: com os valores gravados ({@code stored}), publica as dependências numa única
+     * ida ao índice e remove as entradas com alguma dependência invalidada enquanto a carga rodava
+     */
+    public void completeBulkLoad(BulkLoad load, Map<?, ? extends Collection<Dependency>> dependenciesByKey,
+                                 boolean stored) {
+        if (!stored) {
+            return;
+        }
+        if (load.since == null) {
+            // Sem o relógio não há como comparar: as dependências vão direto para o índice
+            registerAll(load.cacheName, dependenciesByKey);
+            return;
+        }
+        Map<String, Object> keysByMember = new HashMap<>();
+        Map<String, List<String>> indexKeysByMember = new HashMap<>();
+        dependenciesByKey.forEach((key, dependencies) -> {
+            if (!dependencies.isEmpty()) {
+                String member = load.cacheName + MEMBER_SEPARATOR + key;
+                keysByMember.put(member, key);
+                indexKeysByMember.put(member, dependencies.stream().map(Dependency::indexKey).toList());
+            }
+        });
+        if (indexKeysByMember.isEmpty()) {
+            return;
+        }
+
+        Set<String> stale;
+        try {
+            stale = index.confirm(indexKeysByMember, load.since);
+        } catch (RuntimeException e) {
+            // As entradas ainda expiram pelo TTL do cache
+            meterRegistry.counter("cache_dependencies.failures", "operation", "register").increment();
+            log.warn("Cache dependency registration of {} {} entries failed: {}",
+                    indexKeysByMember.size(), load.cacheName, e.getMessage());
+            return;
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+        meterRegistry.counter("cache_dependencies.stale_loads", "cache", load.cacheName).increment(stale.size());
+        Cache cache = cacheManager.getCache(load.cacheName);
+        if (cache == null) {
+            return;
+        }
+        for (String member : stale) {
+            try {
+                cache.evict(keysByMember.get(member));
+            } catch (RuntimeException e) {
+                meterRegistry.counter("cache_dependencies.failures", "operation", "evict").increment();
+                log.warn("Cache eviction of stale {} failed: {}", member, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Declara as dependências de várias entradas do mesmo cache numa única ida ao índice
+     */
+    public void registerAll(String cacheName, Map<?, ? extends Collection<Dependency>> dependenciesByKey) {
+        Map<String, List<String>> indexKeysByMember = new HashMap<>();
+        dependenciesByKey.forEach((key, dependencies) -> {
+            if (!dependencies.isEmpty()) {
+                indexKeysByMember.put(cacheName + MEMBER_SEPARATOR + key,
+                        dependencies.stream().map(Dependency::indexKey).toList());
+            }
+        });
+        if (indexKeysByMember.isEmpty()) {
+            return;
+        }
+        try {
+            index.add(indexKeysByMember);
+        } catch (RuntimeException e) {
+            // As entradas ainda expiram pelo TTL do cache
+            meterRegistry.counter("cache_dependencies.failures", "operation", "register").increment();
+            log.warn("Cache dependency registration of {} {} entries failed: {}",
+                    indexKeysByMember.size(), cacheName, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove, após o commit da transação corrente, todas as entradas que dependem das entidades informadas
+     */
+    public void invalidate(Dependency... dependencies) {
+        invalidate(List.of(dependencies));
+    }
+
+    /**
+     * Remove, após o commit da transação corrente, todas as entradas que dependem das entidades informadas
+     */
+    public void invalidate(Collection<Dependency> dependencies) {
+        if (dependencies.isEmpty()) {
+            return;
+        }
+        List<String> indexKeys = dependencies.stream().map(Dependency::indexKey).distinct().toList();
+        afterCommit(() -> evictDependents(indexKeys));
+    }
+
+    /**
+     * Remove uma entrada conhecida pela chave, após o commit da transação corrente
+     */
+    public void evict(String cacheName, Object key) {
+        afterCommit(() -> evictMember(cacheName, String.valueOf(key)));
+    }
+
+    private void evictDependents(List<String> indexKeys) {
+        List<String> members;
+        try {
+            members = index.drain(indexKeys);
+        } catch (RuntimeException e) {
+            meterRegistry.counter("cache_dependencies.failures", "operation", "invalidate").increment();
+            log.warn("Cache dependency invalidation of {} failed: {}", indexKeys, e.getMessage());
+            return;
+        }
+
+        // A mesma entrada pode depender de várias das entidades invalidadas
+        for (String member : new HashSet<>(members)) {
+            int separator = member.indexOf(MEMBER_SEPARATOR);
+            if (separator > 0) {
+                evictMember(member.substring(0, separator), member.substring(separator + MEMBER_SEPARATOR.length()));
+            }
+        }
+    }
+
+    /**
+     * As chaves voltam do índice como texto: a mesma forma que o Redis usa na chave da entrada
+     */
+    private void evictMember(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.evict(key);
+            meterRegistry.counter("cache_dependencies.evictions", "cache", cacheName).increment();
+        } catch (RuntimeException e) {
+            meterRegistry.counter("cache_dependencies.failures", "operation", "evict").increment();
+            log.warn("Cache eviction of {}::{} failed: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Carga aberta: entrada, dependências registradas até agora e início pelo relógio do índice
+     */
+    public static final class PendingLoad {
+
+        private final Cache cache;
+        private final Object key;
+        private final String member;
+        private final long since;
+        private final Set<String> indexKeys = new LinkedHashSet<>();
+
+        private PendingLoad(Cache cache, Object key, String member, long since) {
+            this.cache = cache;
+            this.key = key;
+            this.member = member;
+            this.since = since;
+        }
+    }
+
+    /**
+     * Carga em lote aberta: cache e início pelo relógio do índice ({@code null} sem relógio)
+     */
+    public static final class BulkLoad {
+
+        private final String cacheName;
+        private final Long since;
+
+        private BulkLoad(String cacheName, Long since) {
+            this.cacheName = cacheName;
+            this.since = since;
+        }
+    }
+
+    /**
+     * Entidade da qual entradas de cache dependem
+     */
+    public record Dependency(String type, long id) {
+
+        /**
+         * Biblioteca do usuário (jogos e tempo de jogo)
+         */
+        public static Dependency library(long userId) {
+            return new Dependency("library", userId);
+        }
+
+        /**
+         * Amizades aceitas do usuário
+         */
+        public static Dependency friends(long userId) {
+            return new Dependency("friends", userId);
+        }
+
+        /**
+         * Dados do jogo (nome, preço, metadados)
+         */
+        public static Dependency game(long gameId) {
+            return new Dependency("game", gameId);
+        }
+
+        String indexKey() {
+            return INDEX_PREFIX + type + ":" + id;
+        }
+    }
+
+    /**
+     * Chave do carimbo da última drenagem de um set do índice
+     */
+    private static String drainedKey(String indexKey) {
+        return DRAINED_PREFIX + indexKey.substring(INDEX_PREFIX.length());
+    }
+
+    /**
+     * Índice reverso entidade → entradas ({@code cache::chave})
+     */
+    interface Index {
+
+        void add(Map<String, List<String>> indexKeysByMember);
+
+        /**
+         * Esvazia os sets e carimba cada um com o relógio do índice
+         */
+        List<String> drain(List<String> indexKeys);
+
+        /**
+         * Relógio do índice, monotônico entre as instâncias que o compartilham
+         */
+        long clock();
+
+        /**
+         * Adiciona cada membro aos seus sets; devolve os membros com algum set drenado a partir de {@code since}
+         */
+        Set<String> confirm(Map<String, List<String>> indexKeysByMember, long since);
+    }
+
+    /**
+     * Sets no Redis; o TTL do set é renovado a cada registro e deve cobrir o maior TTL dos caches
+     */
+    static class RedisIndex implements Index {
+
+        private final StringRedisTemplate redisTemplate;
+        private final Duration ttl;
+
+        RedisIndex(StringRedisTemplate redisTemplate, Duration ttl) {
+            this.redisTemplate = redisTemplate;
+            this.ttl = ttl;
+        }
+
+        @Override
+        public void add(Map<String, List<String>> indexKeysByMember) {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                indexKeysByMember.forEach((member, indexKeys) -> {
+                    for (String indexKey : indexKeys) {
+                        redis.sAdd(indexKey, member);
+                        redis.expire(indexKey, ttl.toSeconds());
+                    }
+                });
+                return null;
+            });
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<String> drain(List<String> indexKeys) {
+            List<String> members = redisTemplate.execute(DRAIN_INDEX, withDrainedKeys(indexKeys),
+                    String.valueOf(ttl.toSeconds()));
+            return members != null ? members : List.of();
+        }
+
+        @Override
+        public long clock() {
+            Long now = redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.serverCommands().time(TimeUnit.MICROSECONDS));
+            if (now == null) {
+                throw new IllegalStateException("Redis TIME returned no value");
+            }
+            return now;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Set<String> confirm(Map<String, List<String>> indexKeysByMember, long since) {
+            List<String> keys = new ArrayList<>();
+            List<String> args = new ArrayList<>(2 + indexKeysByMember.size() * 2);
+            args.add(String.valueOf(since));
+            args.add(String.valueOf(ttl.toSeconds()));
+            indexKeysByMember.forEach((member, indexKeys) -> {
+                keys.addAll(withDrainedKeys(indexKeys));
+                args.add(member);
+                args.add(String.valueOf(indexKeys.size()));
+            });
+            List<String> stale = redisTemplate.execute(CONFIRM_INDEX, keys, args.toArray());
+            return stale != null ? new HashSet<>(stale) : Set.of();
+        }
+
+        private static List<String> withDrainedKeys(List<String> indexKeys) {
+            List<String> keys = new ArrayList<>(indexKeys.size() * 2);
+            keys.addAll(indexKeys);
+            indexKeys.forEach(indexKey -> keys.add(drainedKey(indexKey)));
+            return keys;
+        }
+    }
+
+    /**
+     * Índice em memória (uma instância só)
+     */
+    static class LocalIndex implements Index {
+
+        // Carimbos mais velhos que isso não interessam a nenhuma carga e podem ser descartados
+        private static final int MAX_DRAINED_STAMPS = 10_000;
+        private static final long DRAINED_STAMP_RETENTION = TimeUnit.MINUTES.toNanos(10);
+
+        private final Map<String, Set<String>> members = new ConcurrentHashMap<>();
+        private final Map<String, Long> drainedAt = new ConcurrentHashMap<>();
+
+        @Override
+        public void add(Map<String, List<String>> indexKeysByMember) {
+            indexKeysByMember.forEach((member, indexKeys) -> {
+                for (String indexKey : indexKeys) {
+                    members.computeIfAbsent(indexKey, key -> ConcurrentHashMap.newKeySet()).add(member);
+                }
+            });
+        }
+
+        @Override
+        public List<String> drain(List<String> indexKeys) {
+            long now = clock();
+            if (drainedAt.size() > MAX_DRAINED_STAMPS) {
+                drainedAt.values().removeIf(stamp -> now - stamp > DRAINED_STAMP_RETENTION);
+            }
+            List<String> drained = new ArrayList<>();
+            for (String indexKey : indexKeys) {
+                // O carimbo vem antes da remoção: um confirm concorrente vê um ou outro
+                drainedAt.put(indexKey, now);
+                Set<String> removed = members.remove(indexKey);
+                if (removed != null) {
+                    drained.addAll(removed);
+                }
+            }
+            return drained;
+        }
+
+        @Override
+        public long clock() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public Set<String> confirm(Map<String, List<String>> indexKeysByMember, long since) {
+            Set<String> stale = new HashSet<>();
+            indexKeysByMember.forEach((member, indexKeys) -> {
+                for (String indexKey : indexKeys) {
+                    members.computeIfAbsent(indexKey, key -> ConcurrentHashMap.newKeySet()).add(member);
+                    Long drained = drainedAt.get(indexKey);
+                    if (drained != null && drained >= since) {
+                        stale.add(member);
+                    }
+                }
+            });
+            return stale;
+        }
+    }
+}
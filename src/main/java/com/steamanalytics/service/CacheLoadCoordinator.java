@@ -0,0 +1,306 @@
+package com.steamanalytics.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Leitura com carga coordenada para caches caros (estatísticas, dashboard, recomendações):
+ * <ul>
+ *   <li>single-flight: numa instância, só uma carga por chave; as outras requisições esperam o resultado</li>
+ *   <li>lock opcional no Redis para coordenar a carga entre instâncias (quem não pega o lock espera o valor no cache)</li>
+ *   <li>soft TTL: passado o soft TTL o valor antigo é devolvido na hora e recarregado em segundo plano;
+ *       o TTL do Redis continua sendo o limite rígido</li>
+ * </ul>
+ * Os valores ficam no cache envelopados em {@link CachedValue} (valor + instante da carga), então as
+ * remoções por chave (inclusive as do {@link CacheDependencyRegistry}) continuam valendo para esses caches.
+ * As dependências registradas durante a carga só são publicadas depois da gravação, e o valor é removido
+ * se alguma delas foi invalidada enquanto ele era carregado.
+ */
+@Component
+public class CacheLoadCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheLoadCoordinator.class);
+
+    private static final String LOCK_PREFIX = "cache:lock:";
+    private static final long LOCK_POLL_MILLIS = 50;
+
+    // Só apaga o lock se ainda for nosso (o TTL pode ter expirado e outro nó ter pegado)
+    private static final RedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final CacheDependencyRegistry dependencyRegistry;
+    private final Executor refreshExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final boolean lockEnabled;
+    private final Duration lockTtl;
+    private final Duration lockWait;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Duration> softTtls = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CacheLoadCoordinator(CacheManager cacheManager,
+                                StringRedisTemplate redisTemplate,
+                                CacheDependencyRegistry dependencyRegistry,
+                                @Qualifier("cacheRefreshExecutor") Executor refreshExecutor,
+                                MeterRegistry meterRegistry,
+                                Environment environment) {
+        this.cacheManager = cacheManager;
+        this.redisTemplate = redisTemplate;
+        this.dependencyRegistry = dependencyRegistry;
+        this.refreshExecutor = refreshExecutor;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+        this.lockEnabled = environment.getProperty("analytics.cache.loader.lock.enabled", Boolean.class, false);
+        this.lockTtl = environment.getProperty("analytics.cache.loader.lock.ttl", Duration.class, Duration.ofSeconds(10));
+        this.lockWait = environment.getProperty("analytics.cache.loader.lock.wait", Duration.class, Duration.ofSeconds(5));
+    }
+
+    /**
+     * Valor do cache, carregado uma única vez por chave quando ausente
+     */
+    public <T> T get(String cacheName, Object key, Supplier<T> loader) {
+        return get(cacheName, key, loader, value -> value != null);
+    }
+
+    /**
+     * Valor do cache; {@code cacheable} decide se o resultado de uma carga pode ser guardado
+     * (resultados rejeitados ainda são entregues a quem esperava pela carga)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String cacheName, Object key, Supplier<T> loader, Predicate<T> cacheable) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return loader.get();
+        }
+
+        CachedValue cached = read(cache, key);
+        if (cached != null) {
+            if (isStale(cacheName, cached)) {
+                meterRegistry.counter("cache_loader.stale_serves", "cache", cacheName).increment();
+                refreshInBackground(cache, key, loader, cacheable);
+            }
+            return (T) cached.value();
+        }
+
+        String flightKey = flightKey(cacheName, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            loads(cacheName, "coalesced").increment();
+            Object value = await(existing);
+            // null: era uma recarga em segundo plano que não chegou a carregar (lock de outro nó, pool cheio)
+            return value != null ? (T) value : get(cacheName, key, loader, cacheable);
+        }
+
+        try {
+            T value = loadOnce(cache, key, loader, cacheable);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    /**
+     * Carga efetiva (já como única da instância): confere o cache de novo, coordena com as outras
+     * instâncias quando o lock está ligado e grava o resultado
+     */
+    private <T> T loadOnce(Cache cache, Object key, Supplier<T> loader, Predicate<T> cacheable) {
+        String cacheName = cache.getName();
+        CachedValue cached = read(cache, key);
+        if (cached != null) {
+            return cast(cached);
+        }
+
+        if (!lockEnabled) {
+            loads(cacheName, "loaded").increment();
+            return loadAndStore(cache, key, loader, cacheable);
+        }
+
+        String lockKey = LOCK_PREFIX + flightKey(cacheName, key);
+        String token = nodeId + ":" + Thread.currentThread().getId();
+        if (!tryLock(lockKey, token)) {
+            CachedValue remote = awaitRemoteLoad(cache, key);
+            if (remote != null) {
+                loads(cacheName, "coalesced_remote").increment();
+                return cast(remote);
+            }
+            // O outro nó não terminou a tempo: carregar aqui mesmo
+        }
+        try {
+            loads(cacheName, "loaded").increment();
+            return loadAndStore(cache, key, loader, cacheable);
+        } finally {
+            unlock(lockKey, token);
+        }
+    }
+
+    private <T> T loadAndStore(Cache cache, Object key, Supplier<T> loader, Predicate<T> cacheable) {
+        CacheDependencyRegistry.PendingLoad pending = dependencyRegistry.beginLoad(cache, key);
+        boolean stored = false;
+        try {
+            T value = loader.get();
+            if (cacheable.test(value)) {
+                cache.put(key, new CachedValue(value, System.currentTimeMillis()));
+                stored = true;
+            }
+            return value;
+        } finally {
+            dependencyRegistry.completeLoad(pending, stored);
+        }
+    }
+
+    /**
+     * Recarga após o soft TTL: no máximo uma por chave, e nenhuma se outra instância já está recarregando
+     */
+    private <T> void refreshInBackground(Cache cache, Object key, Supplier<T> loader, Predicate<T> cacheable) {
+        String flightKey = flightKey(cache.getName(), key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(flightKey, flight) != null) {
+            return;
+        }
+
+        Runnable refresh = () -> {
+            String lockKey = LOCK_PREFIX + flightKey;
+            String token = nodeId + ":" + Thread.currentThread().getId();
+            boolean locked = !lockEnabled || tryLock(lockKey, token);
+            try {
+                if (locked) {
+                    loads(cache.getName(), "refreshed").increment();
+                    flight.complete(loadAndStore(cache, key, loader, cacheable));
+                } else {
+                    flight.complete(null);
+                }
+            } catch (RuntimeException e) {
+                // O valor antigo continua sendo servido até o TTL do Redis
+                meterRegistry.counter("cache_loader.refresh_failures", "cache", cache.getName()).increment();
+                log.warn("Background refresh of {}::{} failed: {}", cache.getName(), key, e.getMessage());
+                flight.completeExceptionally(e);
+            } finally {
+                inFlight.remove(flightKey, flight);
+                if (locked && lockEnabled) {
+                    unlock(lockKey, token);
+                }
+            }
+        };
+
+        try {
+            refreshExecutor.execute(refresh);
+        } catch (RejectedExecutionException e) {
+            // Pool de recarga cheio: fica para a próxima leitura
+            inFlight.remove(flightKey, flight);
+            flight.complete(null);
+        }
+    }
+
+    private CachedValue awaitRemoteLoad(Cache cache, Object key) {
+        long deadline = System.nanoTime() + lockWait.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(LOCK_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            CachedValue cached = read(cache, key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return null;
+    }
+
+    private boolean tryLock(String lockKey, String token) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, token, lockTtl));
+        } catch (RuntimeException e) {
+            // Sem Redis não há coordenação entre instâncias, mas o single-flight local continua
+            log.warn("Cache load lock unavailable, loading without it: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    private void unlock(String lockKey, String token) {
+        try {
+            redisTemplate.execute(RELEASE_LOCK, List.of(lockKey), token);
+        } catch (RuntimeException e) {
+            log.warn("Cache load lock release failed (expires in {} s): {}", lockTtl.toSeconds(), e.getMessage());
+        }
+    }
+
+    /**
+     * Entrada do cache; valores gravados fora do envelope (formato antigo) contam como ausentes
+     */
+    private static CachedValue read(Cache cache, Object key) {
+        Cache.ValueWrapper wrapper = cache.get(key);
+        return wrapper != null && wrapper.get() instanceof CachedValue cached ? cached : null;
+    }
+
+    private boolean isStale(String cacheName, CachedValue cached) {
+        Duration softTtl = softTtls.computeIfAbsent(cacheName, name -> environment.getProperty(
+                "analytics.cache.loader.caches." + name + ".soft-ttl", Duration.class, Duration.ZERO));
+        return !softTtl.isZero() && System.currentTimeMillis() - cached.loadedAt() >= softTtl.toMillis();
+    }
+
+    private Counter loads(String cacheName, String outcome) {
+        return meterRegistry.counter("cache_loader.loads", "cache", cacheName, "outcome", outcome);
+    }
+
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(CachedValue cached) {
+        return (T) cached.value();
+    }
+
+    private static String flightKey(String cacheName, Object key) {
+        return cacheName + "::" + key;
+    }
+
+    /**
+     * Valor em cache com o instante (epoch ms) em que foi carregado
+     */
+    public record CachedValue(Object value, long loadedAt) {
+    }
+}
@@ -0,0 +1,262 @@
+package com.steamanalytics.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Coordena o trabalho agendado entre instâncias por uma tabela de leases no PostgreSQL.
+ *
+ * Os usuários são divididos em {@code partitions} partições ({@code user_id % partitions}). Cada nó
+ * publica um heartbeat em {@code cluster_nodes} e, a cada batida, calcula o dono desejado de cada
+ * partição por rendezvous hashing sobre os nós vivos: a entrada ou saída de um nó só move as
+ * partições dele. O dono desejado renova o lease em {@code job_leases}; quem perdeu a partição
+ * libera o seu. O lease é a garantia de exclusividade: um upsert condicional só o concede a quem já
+ * é dono ou quando o anterior expirou, então duas visões diferentes do cluster nunca processam a
+ * mesma partição ao mesmo tempo. Localmente a posse vale até um pouco antes do lease expirar.
+ *
+ * Jobs únicos (reparos, limpezas) usam o mesmo mecanismo com um lease por nome: quem o obtém
+ * executa e os demais pulam aquele disparo.
+ *
+ * Com {@code analytics.cluster.enabled=false} (instância única) o nó é dono de tudo e não toca nas tabelas.
+ */
+@Component
+public class ClusterCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterCoordinator.class);
+
+    static final String PARTITION_PREFIX = "users:";
+
+    private static final String HEARTBEAT_SQL =
+            "INSERT INTO cluster_nodes (node_id, heartbeat_at) VALUES (?, now()) " +
+            "ON CONFLICT (node_id) DO UPDATE SET heartbeat_at = now()";
+
+    private static final String LIVE_NODES_SQL =
+            "SELECT node_id FROM cluster_nodes WHERE heartbeat_at > now() - ? * interval '1 millisecond'";
+
+    private static final String FORGET_DEAD_NODES_SQL =
+            "DELETE FROM cluster_nodes WHERE heartbeat_at < now() - ? * interval '1 millisecond'";
+
+    // Concede (ou renova) só se o lease é nosso ou já expirou; devolve os nomes obtidos
+    private static final String ACQUIRE_SQL =
+            "INSERT INTO job_leases (name, owner_node, lease_until) " +
+            "SELECT name, ?, now() + ? * interval '1 millisecond' FROM unnest(?::text[]) AS name " +
+            "ON CONFLICT (name) DO UPDATE SET owner_node = EXCLUDED.owner_node, lease_until = EXCLUDED.lease_until " +
+            "WHERE job_leases.owner_node = EXCLUDED.owner_node OR job_leases.lease_until < now() " +
+            "RETURNING name";
+
+    private static final String RELEASE_SQL =
+            "UPDATE job_leases SET lease_until = now() WHERE owner_node = ? AND name = ANY(?::text[])";
+
+    private static final String RELEASE_ALL_SQL =
+            "UPDATE job_leases SET lease_until = now() WHERE owner_node = ? AND lease_until > now()";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final String nodeId;
+    private final int partitions;
+    private final Duration leaseTtl;
+    private final Duration jobLease;
+
+    // Partição -> instante (nanoTime) até o qual a posse local é segura
+    private final Map<Integer, Long> ownedUntil = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ClusterCoordinator(JdbcTemplate jdbcTemplate,
+                              @Value("${analytics.cluster.enabled:false}") boolean enabled,
+                              @Value("${analytics.cluster.node-id:}") String nodeId,
+                              @Value("${analytics.cluster.partitions:64}") int partitions,
+                              @Value("${analytics.cluster.lease-ttl:30s}") Duration leaseTtl,
+                              @Value("${analytics.cluster.job-lease:30m}") Duration jobLease) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.partitions = partitions;
+        this.leaseTtl = leaseTtl;
+        this.jobLease = jobLease;
+    }
+
+    /**
+     * Heartbeat e rebalanceamento; o intervalo precisa ser bem menor que o lease-ttl
+     */
+    @Scheduled(fixedDelayString = "${analytics.cluster.heartbeat-interval:10s}")
+    public void scheduledHeartbeat() {
+        if (enabled) {
+            try {
+                rebalance();
+            } catch (DataAccessException e) {
+                // Sem renovar, a posse local expira sozinha antes do lease
+                log.warn("Cluster heartbeat failed on node {}: {}", nodeId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Publica o heartbeat, libera as partições que passaram a outro nó e obtém as que são deste
+     */
+    synchronized void rebalance() {
+        // Medido antes de falar com o banco: a posse local nunca passa do lease real
+        long validUntil = System.nanoTime() + leaseTtl.toNanos() * 9 / 10;
+
+        jdbcTemplate.update(HEARTBEAT_SQL, nodeId);
+        List<String> liveNodes = jdbcTemplate.queryForList(LIVE_NODES_SQL, String.class, leaseTtl.toMillis());
+        if (!liveNodes.contains(nodeId)) {
+            liveNodes = new ArrayList<>(liveNodes);
+            liveNodes.add(nodeId);
+        }
+
+        List<String> wanted = new ArrayList<>();
+        List<String> released = new ArrayList<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            if (nodeId.equals(ownerOf(partition, liveNodes))) {
+                wanted.add(PARTITION_PREFIX + partition);
+            } else if (ownedUntil.remove(partition) != null) {
+                released.add(PARTITION_PREFIX + partition);
+            }
+        }
+        if (!released.isEmpty()) {
+            jdbcTemplate.update(RELEASE_SQL, nodeId, released.toArray(String[]::new));
+        }
+
+        List<String> acquired = acquire(wanted, leaseTtl);
+        ownedUntil.keySet().retainAll(acquired.stream().map(ClusterCoordinator::partitionNumber).toList());
+        for (String name : acquired) {
+            ownedUntil.put(partitionNumber(name), validUntil);
+        }
+
+        jdbcTemplate.update(FORGET_DEAD_NODES_SQL, leaseTtl.toMillis() * 10);
+        log.debug("Node {} owns {}/{} partitions ({} live nodes)", nodeId, acquired.size(), partitions, liveNodes.size());
+    }
+
+    /**
+     * Tenta obter o lease de um job único; quem recebe {@code true} executa este disparo
+     */
+    public boolean tryAcquire(String job) {
+        if (!enabled) {
+            return true;
+        }
+        try {
+            return !acquire(List.of(job), jobLease).isEmpty();
+        } catch (DataAccessException e) {
+            log.warn("Could not acquire lease for job {}: {}", job, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Partições que este nó pode processar agora
+     */
+    public List<Integer> ownedPartitions() {
+        if (!enabled) {
+            return IntStream.range(0, partitions).boxed().toList();
+        }
+        long now = System.nanoTime();
+        return ownedUntil.entrySet().stream()
+                .filter(entry -> entry.getValue() - now > 0)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+    }
+
+    public boolean ownsUser(long userId) {
+        if (!enabled) {
+            return true;
+        }
+        Long until = ownedUntil.get(partitionOf(userId));
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    public int partitionOf(long userId) {
+        return (int) Math.floorMod(userId, (long) partitions);
+    }
+
+    public int partitionCount() {
+        return partitions;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Saída limpa: libera os leases e some da lista de nós, para os outros assumirem na próxima batida
+     */
+    @PreDestroy
+    public synchronized void leave() {
+        if (!enabled) {
+            return;
+        }
+        ownedUntil.clear();
+        try {
+            jdbcTemplate.update(RELEASE_ALL_SQL, nodeId);
+            jdbcTemplate.update("DELETE FROM cluster_nodes WHERE node_id = ?", nodeId);
+        } catch (DataAccessException e) {
+            log.warn("Node {} could not release its leases: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private List<String> acquire(Collection<String> names, Duration lease) {
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(ACQUIRE_SQL, String.class,
+                nodeId, lease.toMillis(), names.toArray(String[]::new));
+    }
+
+    /**
+     * Rendezvous hashing: o nó com o maior peso para a partição é o dono
+     */
+    static String ownerOf(int partition, Collection<String> nodes) {
+        String owner = null;
+        long best = Long.MIN_VALUE;
+        for (String node : nodes) {
+            long weight = mix(node.hashCode() * 0x9E3779B97F4A7C15L + partition);
+            if (owner == null || weight > best || (weight == best && node.compareTo(owner) < 0)) {
+                owner = node;
+                best = weight;
+            }
+        }
+        return owner;
+    }
+
+    // Finalizador do MurmurHash3 (64 bits)
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static int partitionNumber(String name) {
+        return Integer.parseInt(name.substring(PARTITION_PREFIX.length()));
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,175 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.dto.GameDto;
+import com.steamanalytics.model.entity.Game;
+import com.steamanalytics.repository.GameRepository;
+import com.steamanalytics.repository.UserGameLibraryRepository;
+import com.steamanalytics.service.AnalyticsService.CommonGameDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Motor de jogos comuns entre dois usuários.
+ *
+ * Por padrão resolve tudo em uma única consulta de projeção (jogo + playtime de cada usuário).
+ * Com {@code analytics.common-games.in-memory=true} busca os pares (gameId, playtime) ordenados
+ * de cada usuário e faz a interseção em memória, carregando apenas os jogos em comum.
+ */
+@Component
+public class CommonGamesEngine {
+
+    private final UserGameLibraryRepository userGameLibraryRepository;
+    private final GameRepository gameRepository;
+    private final boolean inMemory;
+
+    @Autowired
+    public CommonGamesEngine(UserGameLibraryRepository userGameLibraryRepository,
+                             GameRepository gameRepository,
+                             @Value("${analytics.common-games.in-memory:false}") boolean inMemory) {
+        this.userGameLibraryRepository = userGameLibraryRepository;
+        this.gameRepository = gameRepository;
+        this.inMemory = inMemory;
+    }
+
+    /**
+     * Busca jogos comuns ordenados pelo tempo de jogo combinado
+     */
+    public List<CommonGameDto> findCommonGames(Long userId, Long friendId) {
+        return inMemory ? findByIntersection(userId, friendId) : findByProjection(userId, friendId);
+    }
+
+    /**
+     * Uma consulta: o banco faz o join e a ordenação
+     */
+    private List<CommonGameDto> findByProjection(Long userId, Long friendId) {
+        List<Object[]> rows = userGameLibraryRepository.findCommonGamesWithPlaytime(userId, friendId);
+        List<CommonGameDto> result = new ArrayList<>(rows.size());
+
+        for (Object[] row : rows) {
+            result.add(toDto(GameDto.from((Game) row[0]), toInt(row[1]), toInt(row[2])));
+        }
+        return result;
+    }
+
+    /**
+     * Interseção em memória dos arrays ordenados de cada usuário
+     */
+    private List<CommonGameDto> findByIntersection(Long userId, Long friendId) {
+        SortedPlaytimes user = SortedPlaytimes.of(userGameLibraryRepository.findGamePlaytimesOrderedByGameId(userId));
+        SortedPlaytimes friend = SortedPlaytimes.of(userGameLibraryRepository.findGamePlaytimesOrderedByGameId(friendId));
+
+        Intersection common = intersect(user, friend);
+        if (common.size == 0) {
+            return List.of();
+        }
+
+        List<Long> commonIds = new ArrayList<>(common.size);
+        for (int i = 0; i < common.size; i++) {
+            commonIds.add(common.gameIds[i]);
+        }
+        Map<Long, Game> games = new HashMap<>(common.size * 2);
+        for (Game game : gameRepository.findAllById(commonIds)) {
+            games.put(game.getGameId(), game);
+        }
+
+        List<CommonGameDto> result = new ArrayList<>(common.size);
+        for (int i = 0; i < common.size; i++) {
+            Game game = games.get(common.gameIds[i]);
+            if (game != null) {
+                result.add(toDto(GameDto.from(game), common.userPlaytimes[i], common.friendPlaytimes[i]));
+            }
+        }
+        result.sort(Comparator.comparingInt(CommonGameDto::getTotalPlaytime).reversed());
+        return result;
+    }
+
+    /**
+     * Merge O(n + m) de dois arrays ordenados por gameId
+     */
+    static Intersection intersect(SortedPlaytimes a, SortedPlaytimes b) {
+        int capacity = Math.min(a.size, b.size);
+        Intersection out = new Intersection(capacity);
+
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            long idA = a.gameIds[i];
+            long idB = b.gameIds[j];
+            if (idA < idB) {
+                i++;
+            } else if (idA > idB) {
+                j++;
+            } else {
+                out.gameIds[out.size] = idA;
+                out.userPlaytimes[out.size] = a.playtimes[i];
+                out.friendPlaytimes[out.size] = b.playtimes[j];
+                out.size++;
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    private static CommonGameDto toDto(GameDto game, int userPlaytime, int friendPlaytime) {
+        return CommonGameDto.builder()
+                .game(game)
+                .userPlaytime(userPlaytime)
+                .friendPlaytime(friendPlaytime)
+                .totalPlaytime(userPlaytime + friendPlaytime)
+                .build();
+    }
+
+    private static int toInt(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+
+    /**
+     * Pares (gameId, playtime) de um usuário em arrays primitivos ordenados por gameId
+     */
+    static final class SortedPlaytimes {
+        final long[] gameIds;
+        final int[] playtimes;
+        final int size;
+
+        SortedPlaytimes(long[] gameIds, int[] playtimes) {
+            this.gameIds = gameIds;
+            this.playtimes = playtimes;
+            this.size = gameIds.length;
+        }
+
+        static SortedPlaytimes of(List<Object[]> rows) {
+            long[] ids = new long[rows.size()];
+            int[] playtimes = new int[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] row = rows.get(i);
+                ids[i] = ((Number) row[0]).longValue();
+                playtimes[i] = toInt(row[1]);
+            }
+            return new SortedPlaytimes(ids, playtimes);
+        }
+    }
+
+    /**
+     * Resultado da interseção (apenas as primeiras {@code size} posições são válidas)
+     */
+    static final class Intersection {
+        final long[] gameIds;
+        final int[] userPlaytimes;
+        final int[] friendPlaytimes;
+        int size;
+
+        Intersection(int capacity) {
+            this.gameIds = new long[capacity];
+            this.userPlaytimes = new int[capacity];
+            this.friendPlaytimes = new int[capacity];
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.dto.DashboardData;
+import com.steamanalytics.model.dto.FriendActivity;
+import com.steamanalytics.model.dto.GameRecommendation;
+import com.steamanalytics.model.dto.GameWithPlaytime;
+import com.steamanalytics.model.dto.UserStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Monta o dashboard disparando cada componente em paralelo no {@code dashboardExecutor}.
+ *
+ * Cada componente chama o {@link AnalyticsService} pelo proxy do Spring, portanto roda na sua
+ * própria transação somente leitura e aproveita o cache. Componentes que estouram o prazo
+ * (ou falham) são omitidos e o dashboard é marcado como parcial; os que estouram são cancelados
+ * com interrupção, para não seguirem ocupando a thread do pool depois da resposta.
+ */
+@Component
+public class DashboardAssembler {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardAssembler.class);
+
+    static final String STATISTICS = "userStatistics";
+    static final String TOP_GAMES = "topGames";
+    static final String RECENT_GAMES = "recentGames";
+    static final String RECOMMENDATIONS = "recommendations";
+    static final String FRIENDS_ACTIVITY = "friendsActivity";
+
+    private final AnalyticsService analyticsService;
+    private final AsyncTaskExecutor executor;
+    private final Duration componentTimeout;
+
+    @Autowired
+    public DashboardAssembler(@Lazy AnalyticsService analyticsService,
+                              @Qualifier("dashboardExecutor") AsyncTaskExecutor executor,
+                              @Value("${analytics.dashboard.component-timeout:2s}") Duration componentTimeout) {
+        this.analyticsService = analyticsService;
+        this.executor = executor;
+        this.componentTimeout = componentTimeout;
+    }
+
+    /**
+     * Monta o dashboard; o tempo total acompanha o componente mais lento, limitado pelo prazo
+     */
+    public DashboardData assemble(Long userId) {
+        long deadline = System.nanoTime() + componentTimeout.toNanos();
+
+        Future<UserStatistics> stats = submit(() -> analyticsService.calculateUserStatistics(userId));
+        Future<List<GameWithPlaytime>> topGames = submit(() -> analyticsService.findTopGames(userId, 5));
+        Future<List<GameWithPlaytime>> recentGames = submit(() -> analyticsService.findRecentGames(userId, 5));
+        Future<List<GameRecommendation>> recommendations = submit(() -> analyticsService.generateRecommendations(userId)
+                .stream()
+                .limit(3)
+                .toList());
+        Future<List<FriendActivity>> friendsActivity = submit(() -> analyticsService.getFriendsActivity(userId));
+
+        List<String> missing = new ArrayList<>();
+
+        // Estatísticas definem se o usuário existe: erros aqui sobem para o controller
+        UserStatistics userStatistics = await(stats, deadline, STATISTICS, missing, true);
+
+        return DashboardData.builder()
+                .userStatistics(userStatistics)
+                .topGames(await(topGames, deadline, TOP_GAMES, missing, false))
+                .recentGames(await(recentGames, deadline, RECENT_GAMES, missing, false))
+                .recommendations(await(recommendations, deadline, RECOMMENDATIONS, missing, false))
+                .friendsActivity(await(friendsActivity, deadline, FRIENDS_ACTIVITY, missing, false))
+                .missingComponents(missing)
+                .build();
+    }
+
+    private <T> Future<T> submit(Callable<T> component) {
+        return executor.submit(component);
+    }
+
+    private <T> T await(Future<T> future, long deadline, String component,
+                        List<String> missing, boolean propagateFailure) {
+        long remaining = deadline - System.nanoTime();
+        try {
+            return future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Dashboard component '{}' exceeded {} ms, returning partial result",
+                    component, componentTimeout.toMillis());
+        } catch (ExecutionException e) {
+            if (propagateFailure && e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            log.warn("Dashboard component '{}' failed: {}", component, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        missing.add(component);
+        return null;
+    }
+}
@@ -0,0 +1,104 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.dto.FriendActivity;
+import com.steamanalytics.model.dto.GameDto;
+import com.steamanalytics.model.dto.UserDto;
+import com.steamanalytics.model.entity.Game;
+import com.steamanalytics.model.entity.User;
+import com.steamanalytics.repository.GameRepository;
+import com.steamanalytics.repository.UserGameLibraryRepository;
+import com.steamanalytics.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Feed de atividade dos amigos montado com um número fixo de consultas:
+ * amigos (1), jogos recentes de todos os amigos via ROW_NUMBER() (1) e jogos em lote (1).
+ */
+@Component
+public class FriendActivityFeed {
+
+    private final UserRepository userRepository;
+    private final UserGameLibraryRepository userGameLibraryRepository;
+    private final GameRepository gameRepository;
+    private final int maxFriends;
+    private final int gamesPerFriend;
+
+    @Autowired
+    public FriendActivityFeed(UserRepository userRepository,
+                              UserGameLibraryRepository userGameLibraryRepository,
+                              GameRepository gameRepository,
+                              @Value("${analytics.friend-activity.max-friends:5}") int maxFriends,
+                              @Value("${analytics.friend-activity.games-per-friend:3}") int gamesPerFriend) {
+        this.userRepository = userRepository;
+        this.userGameLibraryRepository = userGameLibraryRepository;
+        this.gameRepository = gameRepository;
+        this.maxFriends = maxFriends;
+        this.gamesPerFriend = gamesPerFriend;
+    }
+
+    /**
+     * Busca atividade dos amigos com os limites configurados
+     */
+    public List<FriendActivity> getFriendsActivity(Long userId) {
+        return getFriendsActivity(userId, maxFriends, gamesPerFriend);
+    }
+
+    /**
+     * Busca atividade de até {@code friendLimit} amigos, com até {@code gameLimit} jogos recentes cada
+     */
+    public List<FriendActivity> getFriendsActivity(Long userId, int friendLimit, int gameLimit) {
+        if (friendLimit <= 0) {
+            return List.of();
+        }
+
+        List<User> friends = userRepository.findAcceptedFriends(userId, PageRequest.of(0, friendLimit));
+        if (friends.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<Long>> recentGameIdsByFriend = new HashMap<>();
+        Set<Long> gameIds = new HashSet<>();
+        if (gameLimit > 0) {
+            List<Long> friendIds = friends.stream().map(User::getUserId).toList();
+            for (Object[] row : userGameLibraryRepository.findTopRecentGameIdsByUsers(friendIds, gameLimit)) {
+                Long friendId = ((Number) row[0]).longValue();
+                Long gameId = ((Number) row[1]).longValue();
+                recentGameIdsByFriend.computeIfAbsent(friendId, id -> new ArrayList<>()).add(gameId);
+                gameIds.add(gameId);
+            }
+        }
+
+        Map<Long, GameDto> games = new HashMap<>();
+        if (!gameIds.isEmpty()) {
+            for (Game game : gameRepository.findAllById(gameIds)) {
+                games.put(game.getGameId(), GameDto.from(game));
+            }
+        }
+
+        List<FriendActivity> activity = new ArrayList<>(friends.size());
+        for (User friend : friends) {
+            List<GameDto> recentGames = recentGameIdsByFriend.getOrDefault(friend.getUserId(), List.of())
+                    .stream()
+                    .map(games::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+
+            activity.add(FriendActivity.builder()
+                    .friend(UserDto.from(friend))
+                    .recentGames(recentGames)
+                    .build());
+        }
+        return activity;
+    }
+}
@@ -0,0 +1,192 @@
+package com.steamanalytics.service;
+
+import java.util.Arrays;
+
+/**
+ * Grafo de amizades aceitas em layout CSR (compressed sparse row), imutável.
+ * Os usuários ficam ordenados em {@code nodeIds}; a linha de cada nó em {@code neighbors}
+ * guarda índices de nós em ordem crescente, o que equivale a IDs de amigos ordenados.
+ * Cada aresta não direcionada ocupa 2 x 4 bytes, mais 12 bytes por nó.
+ */
+public final class FriendGraph {
+
+    static final FriendGraph EMPTY = new FriendGraph(new long[0], new int[]{0}, new int[0]);
+
+    private final long[] nodeIds;
+    private final int[] offsets;
+    private final int[] neighbors;
+
+    private FriendGraph(long[] nodeIds, int[] offsets, int[] neighbors) {
+        this.nodeIds = nodeIds;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+    }
+
+    /**
+     * Índice do nó do usuário, ou valor negativo se ele não tem amizades no grafo
+     */
+    public int indexOf(long userId) {
+        return Arrays.binarySearch(nodeIds, userId);
+    }
+
+    public long userIdAt(int node) {
+        return nodeIds[node];
+    }
+
+    public int rowStart(int node) {
+        return offsets[node];
+    }
+
+    public int rowEnd(int node) {
+        return offsets[node + 1];
+    }
+
+    public int neighborAt(int position) {
+        return neighbors[position];
+    }
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    /**
+     * Número de amizades (arestas não direcionadas)
+     */
+    public long edgeCount() {
+        return neighbors.length / 2;
+    }
+
+    public int degree(long userId) {
+        int node = indexOf(userId);
+        return node >= 0 ? offsets[node + 1] - offsets[node] : 0;
+    }
+
+    /**
+     * IDs dos amigos em ordem crescente
+     */
+    public long[] neighborIds(long userId) {
+        int node = indexOf(userId);
+        if (node < 0) {
+            return new long[0];
+        }
+
+        int start = offsets[node];
+        long[] ids = new long[offsets[node + 1] - start];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = nodeIds[neighbors[start + i]];
+        }
+        return ids;
+    }
+
+    public boolean containsEdge(long userId1, long userId2) {
+        int node = indexOf(userId1);
+        int other = indexOf(userId2);
+        if (node < 0 || other < 0) {
+            return false;
+        }
+        return Arrays.binarySearch(neighbors, offsets[node], offsets[node + 1], other) >= 0;
+    }
+
+    /**
+     * Bytes ocupados pelos arrays do grafo
+     */
+    public long memoryBytes() {
+        return (long) nodeIds.length * Long.BYTES
+                + (long) offsets.length * Integer.BYTES
+                + (long) neighbors.length * Integer.BYTES;
+    }
+
+    public double bytesPerEdge() {
+        long edges = edgeCount();
+        return edges > 0 ? (double) memoryBytes() / edges : 0.0;
+    }
+
+    /**
+     * Acumula arestas em arrays primitivos e monta o CSR
+     */
+    public static final class Builder {
+
+        private long[] sources;
+        private long[] targets;
+        private int size;
+
+        public Builder(int expectedEdges) {
+            int capacity = Math.max(expectedEdges, 16);
+            this.sources = new long[capacity];
+            this.targets = new long[capacity];
+        }
+
+        public Builder addEdge(long userId1, long userId2) {
+            if (userId1 == userId2) {
+                return this;
+            }
+            if (size == sources.length) {
+                int capacity = sources.length + (sources.length >> 1);
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+            }
+            sources[size] = userId1;
+            targets[size] = userId2;
+            size++;
+            return this;
+        }
+
+        /**
+         * Arestas repetidas (inclusive nas duas direções) são consolidadas
+         */
+        public FriendGraph build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+
+            long[] endpoints = new long[size * 2];
+            System.arraycopy(sources, 0, endpoints, 0, size);
+            System.arraycopy(targets, 0, endpoints, size, size);
+            Arrays.sort(endpoints);
+            int nodeCount = 0;
+            for (int i = 0; i < endpoints.length; i++) {
+                if (i == 0 || endpoints[i] != endpoints[i - 1]) {
+                    endpoints[nodeCount++] = endpoints[i];
+                }
+            }
+            long[] nodeIds = Arrays.copyOf(endpoints, nodeCount);
+
+            int[] offsets = new int[nodeCount + 1];
+            for (int i = 0; i < size; i++) {
+                offsets[Arrays.binarySearch(nodeIds, sources[i]) + 1]++;
+                offsets[Arrays.binarySearch(nodeIds, targets[i]) + 1]++;
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                offsets[node + 1] += offsets[node];
+            }
+
+            int[] neighbors = new int[size * 2];
+            int[] cursor = Arrays.copyOf(offsets, nodeCount);
+            for (int i = 0; i < size; i++) {
+                int source = Arrays.binarySearch(nodeIds, sources[i]);
+                int target = Arrays.binarySearch(nodeIds, targets[i]);
+                neighbors[cursor[source]++] = target;
+                neighbors[cursor[target]++] = source;
+            }
+
+            // Ordenar cada linha e remover duplicatas compactando no próprio array
+            int write = 0;
+            int start = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                int end = offsets[node + 1];
+                Arrays.sort(neighbors, start, end);
+                offsets[node] = write;
+                for (int i = start; i < end; i++) {
+                    if (i == start || neighbors[i] != neighbors[i - 1]) {
+                        neighbors[write++] = neighbors[i];
+                    }
+                }
+                start = end;
+            }
+            offsets[nodeCount] = write;
+
+            return new FriendGraph(nodeIds, offsets,
+                    write == neighbors.length ? neighbors : Arrays.copyOf(neighbors, write));
+        }
+    }
+}
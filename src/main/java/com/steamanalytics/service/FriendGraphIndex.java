@@ -0,0 +1,293 @@
+package com.steamanalytics.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Índice em memória das amizades aceitas. Carregado do banco na inicialização e mantido
+ * atualizado pelas escritas do {@link FriendshipService}: cada alteração confirmada entra num
+ * overlay pequeno, que é incorporado ao CSR quando passa do limite de compactação.
+ * Uma recarga periódica completa traz as alterações feitas por outras instâncias.
+ */
+@Component
+public class FriendGraphIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(FriendGraphIndex.class);
+
+    private static final String LOAD_EDGES_SQL =
+            "SELECT requester_id, addressee_id FROM friendships WHERE status = 'ACCEPTED'";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int compactionThreshold;
+
+    private volatile FriendGraph graph = FriendGraph.EMPTY;
+    private volatile boolean ready;
+
+    // Alterações confirmadas ainda não incorporadas ao CSR, indexadas pelos dois lados da aresta.
+    // Os mapas por usuário são imutáveis e substituídos a cada alteração (leitura sem lock).
+    private final Map<Long, Map<Long, EdgeChange>> overlay = new ConcurrentHashMap<>();
+    private final AtomicLong pendingChanges = new AtomicLong();
+    private final Object recordLock = new Object();
+    // Lock explícito: a recarga segura o lock durante a leitura no banco (synchronized prende a virtual thread)
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private long changeSequence;
+
+    @Autowired
+    public FriendGraphIndex(DataSource dataSource,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${analytics.friend-graph.enabled:true}") boolean enabled,
+                            @Value("${analytics.friend-graph.compaction-threshold:10000}") int compactionThreshold) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(10_000);
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.compactionThreshold = compactionThreshold;
+
+        Gauge.builder("friend_graph.nodes", this, index -> index.graph.nodeCount()).register(meterRegistry);
+        Gauge.builder("friend_graph.edges", this, index -> index.graph.edgeCount()).register(meterRegistry);
+        Gauge.builder("friend_graph.memory", this, index -> index.graph.memoryBytes())
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("friend_graph.bytes_per_edge", this, index -> index.graph.bytesPerEdge()).register(meterRegistry);
+        Gauge.builder("friend_graph.pending_changes", pendingChanges, AtomicLong::get).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.friend-graph.refresh-interval:10m}",
+            initialDelayString = "${analytics.friend-graph.refresh-interval:10m}")
+    public void scheduledReload() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.friend-graph.compaction-check:5s}")
+    public void scheduledCompaction() {
+        if (isReady() && pendingChanges.get() >= compactionThreshold) {
+            compact();
+        }
+    }
+
+    /**
+     * Recarrega o grafo completo do banco. Alterações confirmadas durante a carga continuam no overlay.
+     */
+    public void reload() {
+        rebuildLock.lock();
+        try {
+            long startSequence = currentSequence();
+            long start = System.nanoTime();
+            try {
+                FriendGraph.Builder builder = new FriendGraph.Builder(Math.toIntExact(Math.max(graph.edgeCount(), 1024)));
+                // Dentro de transação para o driver do PostgreSQL usar cursor e respeitar o fetch size
+                transactionTemplate.executeWithoutResult(status -> streamingJdbcTemplate.query(LOAD_EDGES_SQL,
+                        rs -> {
+                            builder.addEdge(rs.getLong(1), rs.getLong(2));
+                        }));
+                install(builder.build(), startSequence);
+            } catch (DataAccessException e) {
+                log.warn("Friend graph load failed, friend queries will use the database: {}", e.getMessage());
+                return;
+            }
+
+            ready = true;
+            log.info("Friend graph loaded in {} ms: {} users, {} edges, {} bytes ({} bytes/edge)",
+                    (System.nanoTime() - start) / 1_000_000, graph.nodeCount(), graph.edgeCount(),
+                    graph.memoryBytes(), String.format("%.1f", graph.bytesPerEdge()));
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Snapshot CSR atual (sem as alterações pendentes no overlay)
+     */
+    public FriendGraph snapshot() {
+        return graph;
+    }
+
+    /**
+     * IDs dos amigos aceitos em ordem crescente
+     */
+    public long[] friendIds(long userId) {
+        long[] base = graph.neighborIds(userId);
+        Map<Long, EdgeChange> changes = overlay.get(userId);
+        if (changes == null || changes.isEmpty()) {
+            return base;
+        }
+
+        long[] merged = new long[base.length + changes.size()];
+        int size = 0;
+        for (long friendId : base) {
+            EdgeChange change = changes.get(friendId);
+            if (change == null || change.present()) {
+                merged[size++] = friendId;
+            }
+        }
+        for (Map.Entry<Long, EdgeChange> entry : changes.entrySet()) {
+            if (entry.getValue().present() && Arrays.binarySearch(base, entry.getKey()) < 0) {
+                merged[size++] = entry.getKey();
+            }
+        }
+        Arrays.sort(merged, 0, size);
+        return size == merged.length ? merged : Arrays.copyOf(merged, size);
+    }
+
+    public boolean areFriends(long userId1, long userId2) {
+        Map<Long, EdgeChange> changes = overlay.get(userId1);
+        EdgeChange change = changes != null ? changes.get(userId2) : null;
+        return change != null ? change.present() : graph.containsEdge(userId1, userId2);
+    }
+
+    public long countFriends(long userId) {
+        Map<Long, EdgeChange> changes = overlay.get(userId);
+        if (changes == null || changes.isEmpty()) {
+            return graph.degree(userId);
+        }
+        return friendIds(userId).length;
+    }
+
+    /**
+     * Registra uma amizade aceita (aplicada após o commit da transação corrente)
+     */
+    public void onFriendshipAccepted(Long userId1, Long userId2) {
+        afterCommit(() -> record(userId1, userId2, true));
+    }
+
+    /**
+     * Registra o fim de uma amizade aceita (aplicada após o commit da transação corrente)
+     */
+    public void onFriendshipRemoved(Long userId1, Long userId2) {
+        afterCommit(() -> record(userId1, userId2, false));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void record(long userId1, long userId2, boolean present) {
+        synchronized (recordLock) {
+            EdgeChange change = new EdgeChange(present, ++changeSequence);
+            overlay.compute(userId1, (id, changes) -> with(changes, userId2, change));
+            overlay.compute(userId2, (id, changes) -> with(changes, userId1, change));
+            pendingChanges.incrementAndGet();
+        }
+    }
+
+    private static Map<Long, EdgeChange> with(Map<Long, EdgeChange> changes, long friendId, EdgeChange change) {
+        Map<Long, EdgeChange> updated = changes != null ? new HashMap<>(changes) : new HashMap<>();
+        updated.put(friendId, change);
+        return Map.copyOf(updated);
+    }
+
+    /**
+     * Sequência da última alteração já visível no overlay
+     */
+    private long currentSequence() {
+        synchronized (recordLock) {
+            return changeSequence;
+        }
+    }
+
+    /**
+     * Incorpora o overlay ao CSR sem ir ao banco
+     */
+    public void compact() {
+        rebuildLock.lock();
+        try {
+            long startSequence = currentSequence();
+            FriendGraph current = graph;
+            FriendGraph.Builder builder = new FriendGraph.Builder(Math.toIntExact(current.edgeCount() + pendingChanges.get()));
+
+            for (int node = 0; node < current.nodeCount(); node++) {
+                long userId = current.userIdAt(node);
+                Map<Long, EdgeChange> changes = overlay.get(userId);
+                for (int i = current.rowStart(node); i < current.rowEnd(node); i++) {
+                    long friendId = current.userIdAt(current.neighborAt(i));
+                    if (userId < friendId) {
+                        EdgeChange change = changes != null ? changes.get(friendId) : null;
+                        if (change == null || change.present()) {
+                            builder.addEdge(userId, friendId);
+                        }
+                    }
+                }
+            }
+            overlay.forEach((userId, changes) -> changes.forEach((friendId, change) -> {
+                if (change.present() && userId < friendId) {
+                    builder.addEdge(userId, friendId);
+                }
+            }));
+
+            install(builder.build(), startSequence);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Publica o novo CSR e descarta do overlay as alterações que ele já contém
+     */
+    private void install(FriendGraph rebuilt, long upToSequence) {
+        graph = rebuilt;
+        synchronized (recordLock) {
+            for (Long userId : overlay.keySet()) {
+                overlay.computeIfPresent(userId, (id, changes) -> {
+                    Map<Long, EdgeChange> remaining = new HashMap<>(changes);
+                    remaining.values().removeIf(change -> change.sequence() <= upToSequence);
+                    return remaining.isEmpty() ? null : Map.copyOf(remaining);
+                });
+            }
+            pendingChanges.set(overlay.values().stream().mapToLong(Map::size).sum() / 2);
+        }
+    }
+
+    /**
+     * Estado de uma aresta após a última alteração confirmada
+     */
+    private record EdgeChange(boolean present, long sequence) {
+    }
+}
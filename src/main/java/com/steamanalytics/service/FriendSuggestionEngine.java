@@ -0,0 +1,159 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.entity.Friendship.FriendshipStatus;
+import com.steamanalytics.repository.FriendshipRepository;
+import com.steamanalytics.repository.UserGameLibraryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+
+/**
+ * Sugestões de amizade ("pessoas que você talvez conheça") por amigos de amigos a dois saltos
+ * no {@link FriendGraphIndex}. O grau explorado por nó é limitado (amostragem uniforme), então
+ * usuários super conectados não explodem o trabalho; para eles a contagem de mútuos é aproximada.
+ * Os candidatos mais fortes por amigos mútuos recebem ainda a contagem de jogos em comum.
+ */
+@Component
+@Transactional(readOnly = true)
+public class FriendSuggestionEngine {
+
+    private final FriendGraphIndex friendGraphIndex;
+    private final FriendshipRepository friendshipRepository;
+    private final UserGameLibraryRepository userGameLibraryRepository;
+    private final int maxFanOut;
+    private final int shortlistSize;
+    private final double mutualFriendWeight;
+    private final double sharedGameWeight;
+
+    @Autowired
+    public FriendSuggestionEngine(FriendGraphIndex friendGraphIndex,
+                                  FriendshipRepository friendshipRepository,
+                                  UserGameLibraryRepository userGameLibraryRepository,
+                                  @Value("${analytics.friend-suggestions.max-fan-out:200}") int maxFanOut,
+                                  @Value("${analytics.friend-suggestions.shortlist-size:100}") int shortlistSize,
+                                  @Value("${analytics.friend-suggestions.mutual-friend-weight:1.0}") double mutualFriendWeight,
+                                  @Value("${analytics.friend-suggestions.shared-game-weight:0.1}") double sharedGameWeight) {
+        this.friendGraphIndex = friendGraphIndex;
+        this.friendshipRepository = friendshipRepository;
+        this.userGameLibraryRepository = userGameLibraryRepository;
+        this.maxFanOut = maxFanOut;
+        this.shortlistSize = shortlistSize;
+        this.mutualFriendWeight = mutualFriendWeight;
+        this.sharedGameWeight = sharedGameWeight;
+    }
+
+    /**
+     * Melhores sugestões para o usuário, da maior para a menor pontuação.
+     * Sem o índice carregado não há sugestões (a travessia não é feita no banco).
+     */
+    public List<Suggestion> suggestFriends(Long userId, int limit) {
+        if (!friendGraphIndex.isReady() || limit <= 0) {
+            return List.of();
+        }
+
+        // Amizades aceitas, pendentes e bloqueios (em qualquer direção) ficam de fora; recusadas podem voltar
+        long[] related = friendshipRepository
+                .findRelatedUserIdsExcludingStatus(userId, FriendshipStatus.DECLINED).stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+
+        TopK.Ranked shortlist = rankByMutualFriends(userId, friendGraphIndex::friendIds,
+                candidate -> Arrays.binarySearch(related, candidate) >= 0,
+                maxFanOut, Math.max(shortlistSize, limit));
+        if (shortlist.size() == 0) {
+            return List.of();
+        }
+
+        Map<Long, Integer> mutualFriends = new HashMap<>();
+        for (int i = 0; i < shortlist.size(); i++) {
+            mutualFriends.put(shortlist.ids[i], (int) shortlist.scores[i]);
+        }
+
+        Map<Long, Long> sharedGames = new HashMap<>();
+        for (Object[] row : userGameLibraryRepository.countSharedGamesWithUsers(userId, shortlist.idList())) {
+            sharedGames.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+
+        TopK top = new TopK(limit);
+        for (int i = 0; i < shortlist.size(); i++) {
+            long candidate = shortlist.ids[i];
+            top.offer(candidate, score(mutualFriends.get(candidate), sharedGames.getOrDefault(candidate, 0L)));
+        }
+
+        TopK.Ranked ranked = top.drainDescending();
+        List<Suggestion> suggestions = new ArrayList<>(ranked.size());
+        for (int i = 0; i < ranked.size(); i++) {
+            long candidate = ranked.ids[i];
+            suggestions.add(new Suggestion(candidate,
+                    mutualFriends.get(candidate),
+                    sharedGames.getOrDefault(candidate, 0L),
+                    ranked.scores[i]));
+        }
+        return suggestions;
+    }
+
+    private double score(int mutualFriends, long sharedGames) {
+        return mutualFriends * mutualFriendWeight + sharedGames * sharedGameWeight;
+    }
+
+    /**
+     * Travessia a dois saltos: conta, para cada amigo de amigo, quantos amigos em comum levaram até ele
+     * e mantém apenas os {@code limit} com mais mútuos (o score retornado é a contagem)
+     */
+    static TopK.Ranked rankByMutualFriends(long userId, LongFunction<long[]> friendsOf, LongPredicate excluded,
+                                          int maxFanOut, int limit) {
+        long[] friends = friendsOf.apply(userId);
+        LongIntCounter mutualCounts = new LongIntCounter(Math.min(friends.length, maxFanOut) * 16);
+
+        for (long friend : sample(friends, maxFanOut)) {
+            for (long candidate : sample(friendsOf.apply(friend), maxFanOut)) {
+                if (candidate != userId
+                        && Arrays.binarySearch(friends, candidate) < 0
+                        && !excluded.test(candidate)) {
+                    mutualCounts.increment(candidate);
+                }
+            }
+        }
+
+        TopK top = new TopK(limit);
+        for (int slot = 0; slot < mutualCounts.capacity(); slot++) {
+            int count = mutualCounts.countAt(slot);
+            if (count > 0) {
+                top.offer(mutualCounts.keyAt(slot), count);
+            }
+        }
+        return top.drainDescending();
+    }
+
+    /**
+     * Amostra uniforme (passo fixo) de no máximo {@code max} elementos, preservando a ordem
+     */
+    static long[] sample(long[] values, int max) {
+        if (values.length <= max) {
+            return values;
+        }
+
+        long[] sampled = new long[max];
+        double step = (double) values.length / max;
+        for (int i = 0; i < max; i++) {
+            sampled[i] = values[(int) (i * step)];
+        }
+        return sampled;
+    }
+
+    /**
+     * Sugestão de amizade
+     */
+    public record Suggestion(long userId, int mutualFriends, long sharedGames, double score) {
+    }
+}
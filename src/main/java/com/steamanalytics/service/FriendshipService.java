@@ -5,17 +5,23 @@ import com.steamanalytics.model.entity.Friendship.FriendshipStatus;
 import com.steamanalytics.model.entity.User;
 import com.steamanalytics.repository.FriendshipRepository;
 import com.steamanalytics.repository.UserRepository;
+import com.steamanalytics.service.CacheDependencyRegistry.Dependency;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -23,17 +29,39 @@ public class FriendshipService {
 
     private final FriendshipRepository friendshipRepository;
     private final UserRepository userRepository;
+    private final FriendGraphIndex friendGraphIndex;
+    private final MutualFriendsEngine mutualFriendsEngine;
+    private final FriendSuggestionEngine friendSuggestionEngine;
+    private final CacheDependencyRegistry cacheDependencyRegistry;
+    private final ClusterCoordinator clusterCoordinator;
+    private final boolean cleanupEnabled;
+    private final int cleanupDaysOld;
+    private final int maxMutualCountUserIds;
 
     @Autowired
-    public FriendshipService(FriendshipRepository friendshipRepository, UserRepository userRepository) {
+    public FriendshipService(FriendshipRepository friendshipRepository, UserRepository userRepository,
+                             FriendGraphIndex friendGraphIndex, MutualFriendsEngine mutualFriendsEngine,
+                             FriendSuggestionEngine friendSuggestionEngine,
+                             CacheDependencyRegistry cacheDependencyRegistry,
+                             ClusterCoordinator clusterCoordinator,
+                             @Value("${analytics.friendships.cleanup.enabled:true}") boolean cleanupEnabled,
+                             @Value("${analytics.friendships.cleanup.days-old:90}") int cleanupDaysOld,
+                             @Value("${analytics.friendships.mutual-counts.max-user-ids:1000}") int maxMutualCountUserIds) {
         this.friendshipRepository = friendshipRepository;
         this.userRepository = userRepository;
+        this.friendGraphIndex = friendGraphIndex;
+        this.mutualFriendsEngine = mutualFriendsEngine;
+        this.friendSuggestionEngine = friendSuggestionEngine;
+        this.cacheDependencyRegistry = cacheDependencyRegistry;
+        this.clusterCoordinator = clusterCoordinator;
+        this.cleanupEnabled = cleanupEnabled;
+        this.cleanupDaysOld = cleanupDaysOld;
+        this.maxMutualCountUserIds = maxMutualCountUserIds;
     }
 
     /**
      * Envia solicitação de amizade
      */
-    @CacheEvict(value = "friendList", allEntries = true)
     public Friendship sendFriendRequest(Long requesterId, Long addresseeId) {
         if (requesterId.equals(addresseeId)) {
             throw new IllegalArgumentException("Cannot send friend request to yourself");
@@ -68,7 +96,6 @@ public class FriendshipService {
     /**
      * Aceita solicitação de amizade
      */
-    @CacheEvict(value = "friendList", allEntries = true)
     public Friendship acceptFriendRequest(Long friendshipId, Long userId) {
         Friendship friendship = friendshipRepository.findById(friendshipId)
                 .orElseThrow(() -> new RuntimeException("Friendship not found"));
@@ -83,13 +110,15 @@ public class FriendshipService {
         }
 
         friendship.accept();
-        return friendshipRepository.save(friendship);
+        Friendship saved = friendshipRepository.save(friendship);
+        friendGraphIndex.onFriendshipAccepted(friendship.getRequester().getUserId(), userId);
+        onAcceptedFriendsChanged(friendship.getRequester().getUserId(), userId);
+        return saved;
     }
 
     /**
      * Rejeita solicitação de amizade
      */
-    @CacheEvict(value = "friendList", allEntries = true)
     public Friendship declineFriendRequest(Long friendshipId, Long userId) {
         Friendship friendship = friendshipRepository.findById(friendshipId)
                 .orElseThrow(() -> new RuntimeException("Friendship not found"));
@@ -110,7 +139,6 @@ public class FriendshipService {
     /**
      * Bloqueia usuário
      */
-    @CacheEvict(value = "friendList", allEntries = true)
     public Friendship blockUser(Long blockerId, Long blockedId) {
         if (blockerId.equals(blockedId)) {
             throw new IllegalArgumentException("Cannot block yourself");
@@ -123,6 +151,10 @@ public class FriendshipService {
         Friendship friendship;
         if (existingFriendship.isPresent()) {
             friendship = existingFriendship.get();
+            if (friendship.getStatus() == FriendshipStatus.ACCEPTED) {
+                friendGraphIndex.onFriendshipRemoved(blockerId, blockedId);
+                onAcceptedFriendsChanged(blockerId, blockedId);
+            }
         } else {
             User blocker = userRepository.findById(blockerId)
                     .orElseThrow(() -> new RuntimeException("Blocker not found"));
@@ -139,12 +171,23 @@ public class FriendshipService {
     /**
      * Remove amizade (desfazer amizade)
      */
-    @CacheEvict(value = "friendList", allEntries = true)
     public void removeFriendship(Long userId1, Long userId2) {
         Friendship friendship = friendshipRepository.findFriendshipBetweenUsers(userId1, userId2)
                 .orElseThrow(() -> new RuntimeException("Friendship not found"));
 
         friendshipRepository.delete(friendship);
+        if (friendship.getStatus() == FriendshipStatus.ACCEPTED) {
+            friendGraphIndex.onFriendshipRemoved(userId1, userId2);
+            onAcceptedFriendsChanged(userId1, userId2);
+        }
+    }
+
+    /**
+     * Só amizades aceitas aparecem em caches (contagem de amigos, recomendações, dashboard);
+     * solicitações pendentes e recusadas não invalidam nada
+     */
+    private void onAcceptedFriendsChanged(Long userId1, Long userId2) {
+        cacheDependencyRegistry.invalidate(Dependency.friends(userId1), Dependency.friends(userId2));
     }
 
     /**
@@ -169,10 +212,12 @@ public class FriendshipService {
     }
 
     /**
-     * Busca IDs dos amigos aceitos
+     * Busca IDs dos amigos aceitos (do índice em memória quando carregado)
      */
-    @Cacheable(value = "friendList", key = "#userId")
     public List<Long> findAcceptedFriendIds(Long userId) {
+        if (friendGraphIndex.isReady()) {
+            return Arrays.stream(friendGraphIndex.friendIds(userId)).boxed().toList();
+        }
         return friendshipRepository.findAcceptedFriendIds(userId);
     }
 
@@ -194,6 +239,9 @@ public class FriendshipService {
      * Conta amigos aceitos
      */
     public Long countAcceptedFriends(Long userId) {
+        if (friendGraphIndex.isReady()) {
+            return friendGraphIndex.countFriends(userId);
+        }
         return friendshipRepository.countAcceptedFriends(userId);
     }
 
@@ -222,6 +270,9 @@ public class FriendshipService {
      * Verifica se dois usuários são amigos
      */
     public boolean areUsersFriends(Long userId1, Long userId2) {
+        if (friendGraphIndex.isReady()) {
+            return friendGraphIndex.areFriends(userId1, userId2);
+        }
         return friendshipRepository.areUsersFriends(userId1, userId2);
     }
 
@@ -229,9 +280,43 @@ public class FriendshipService {
      * Busca amigos mútuos entre dois usuários
      */
     public List<Long> findMutualFriendIds(Long userId1, Long userId2) {
+        if (mutualFriendsEngine.isReady()) {
+            return Arrays.stream(mutualFriendsEngine.mutualFriendIds(userId1, userId2)).boxed().toList();
+        }
         return friendshipRepository.findMutualFriendIds(userId1, userId2);
     }
 
+    /**
+     * Conta amigos mútuos entre um usuário e vários outros em uma única chamada
+     * (no máximo {@code analytics.friendships.mutual-counts.max-user-ids} IDs distintos)
+     */
+    public Map<Long, Integer> countMutualFriends(Long userId, Collection<Long> otherUserIds) {
+        Set<Long> distinctIds = new LinkedHashSet<>(otherUserIds);
+        distinctIds.remove(null);
+        if (distinctIds.size() > maxMutualCountUserIds) {
+            throw new IllegalArgumentException("At most " + maxMutualCountUserIds + " user IDs per request");
+        }
+        if (mutualFriendsEngine.isReady()) {
+            return mutualFriendsEngine.countMutualFriends(userId, distinctIds);
+        }
+
+        Map<Long, Integer> counts = new LinkedHashMap<>();
+        distinctIds.forEach(otherUserId -> counts.put(otherUserId, 0));
+        if (!distinctIds.isEmpty()) {
+            for (Object[] row : friendshipRepository.countMutualFriendsByUserIds(userId, distinctIds)) {
+                counts.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Sugere amizades por amigos de amigos e jogos em comum
+     */
+    public List<FriendSuggestionEngine.Suggestion> suggestFriends(Long userId, int limit) {
+        return friendSuggestionEngine.suggestFriends(userId, limit);
+    }
+
     /**
      * Busca usuários com mais amigos
      */
@@ -277,10 +362,19 @@ public class FriendshipService {
         );
     }
 
+    /**
+     * Limpeza agendada (por padrão diariamente de madrugada), em uma instância só
+     */
+    @Scheduled(cron = "${analytics.friendships.cleanup.cron:0 15 4 * * *}")
+    public void scheduledCleanup() {
+        if (cleanupEnabled && clusterCoordinator.tryAcquire("friendship-cleanup")) {
+            cleanupOldRejectedFriendships(cleanupDaysOld);
+        }
+    }
+
     /**
      * Remove amizades antigas rejeitadas/bloqueadas (limpeza)
      */
-    @CacheEvict(value = "friendList", allEntries = true)
     public void cleanupOldRejectedFriendships(int daysOld) {
         Instant cutoffDate = Instant.now().minus(daysOld, ChronoUnit.DAYS);
         friendshipRepository.deleteOldRejectedFriendships(cutoffDate);
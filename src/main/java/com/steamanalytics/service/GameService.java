@@ -2,12 +2,15 @@ package com.steamanalytics.service;
 
 import com.steamanalytics.model.entity.Game;
 import com.steamanalytics.model.entity.User;
+import com.steamanalytics.repository.GameCriteria;
 import com.steamanalytics.repository.GameRepository;
+import com.steamanalytics.service.CacheDependencyRegistry.Dependency;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,11 +24,15 @@ import java.util.Optional;
 @Transactional
 public class GameService {
 
+    static final int POPULAR_GAMES_LIMIT = 50;
+
     private final GameRepository gameRepository;
+    private final CacheDependencyRegistry cacheDependencyRegistry;
 
     @Autowired
-    public GameService(GameRepository gameRepository) {
+    public GameService(GameRepository gameRepository, CacheDependencyRegistry cacheDependencyRegistry) {
         this.gameRepository = gameRepository;
+        this.cacheDependencyRegistry = cacheDependencyRegistry;
     }
 
     /**
@@ -47,9 +54,11 @@ public class GameService {
     /**
      * Salva ou atualiza jogo
      */
-    @CacheEvict(value = "gameInfo", allEntries = true)
     public Game save(Game game) {
-        return gameRepository.save(game);
+        Game saved = gameRepository.save(game);
+        evictGame(saved);
+        evictGameLists();
+        return saved;
     }
 
     /**
@@ -59,6 +68,8 @@ public class GameService {
         return gameRepository.findBySteamAppId(steamAppId)
                 .orElseGet(() -> {
                     Game newGame = new Game(steamAppId, name, description);
+                    // A busca por Steam App ID pode ter guardado a ausência do jogo
+                    cacheDependencyRegistry.evict("gameInfo", "steam_" + steamAppId);
                     return gameRepository.save(newGame);
                 });
     }
@@ -66,7 +77,6 @@ public class GameService {
     /**
      * Atualiza informações do jogo
      */
-    @CacheEvict(value = "gameInfo", key = "'steam_' + #steamAppId")
     public Game updateGameInfo(Integer steamAppId, String name, String description,
                                String developer, String publisher, LocalDate releaseDate) {
         Game game = gameRepository.findBySteamAppId(steamAppId)
@@ -77,6 +87,8 @@ public class GameService {
         game.setDeveloper(developer);
         game.setPublisher(publisher);
         game.setReleaseDate(releaseDate);
+        evictGame(game);
+        evictGameLists();
 
         return gameRepository.save(game);
     }
@@ -84,13 +96,14 @@ public class GameService {
     /**
      * Atualiza preços do jogo
      */
-    @CacheEvict(value = "gameInfo", key = "'steam_' + #steamAppId")
     public Game updateGamePrices(Integer steamAppId, BigDecimal priceInitial, BigDecimal priceCurrent) {
         Game game = gameRepository.findBySteamAppId(steamAppId)
                 .orElseThrow(() -> new RuntimeException("Game not found"));
 
         game.setPriceInitial(priceInitial);
         game.setPriceCurrent(priceCurrent);
+        evictGame(game);
+        evictGameLists();
 
         return gameRepository.save(game);
     }
@@ -98,7 +111,6 @@ public class GameService {
     /**
      * Atualiza metadados do jogo (tags, categorias, gêneros)
      */
-    @CacheEvict(value = "gameInfo", key = "'steam_' + #steamAppId")
     public Game updateGameMetadata(Integer steamAppId, Map<String, Object> tags,
                                    Map<String, Object> categories, Map<String, Object> genres) {
         Game game = gameRepository.findBySteamAppId(steamAppId)
@@ -107,15 +119,18 @@ public class GameService {
         game.setTags(tags);
         game.setCategories(categories);
         game.setGenres(genres);
+        evictGame(game);
+        evictGameLists();
 
         return gameRepository.save(game);
     }
 
     /**
-     * Busca jogos por nome (busca parcial)
+     * Busca jogos por nome, ordenados por relevância e tolerante a erros de digitação
      */
-    public List<Game> searchGamesByName(String name) {
-        return gameRepository.findByNameContainingIgnoreCase(name);
+    @Transactional(readOnly = true)
+    public Slice<Game> searchGamesByName(String name, Pageable pageable) {
+        return gameRepository.searchByName(name, pageable);
     }
 
     /**
@@ -147,11 +162,11 @@ public class GameService {
     }
 
     /**
-     * Busca jogos mais populares (com mais jogadores)
+     * Busca os {@value #POPULAR_GAMES_LIMIT} jogos mais populares (com mais jogadores)
      */
     @Cacheable(value = "gameInfo", key = "'popular_games'")
     public List<Game> findMostPopularGames() {
-        return gameRepository.findMostPopularGames();
+        return gameRepository.findMostPopularGames(PageRequest.of(0, POPULAR_GAMES_LIMIT));
     }
 
     /**
@@ -164,8 +179,8 @@ public class GameService {
     /**
      * Busca jogos populares entre amigos (para recomendações)
      */
-    public List<Object[]> findPopularGamesAmongFriends(List<Long> friendIds, Long userId) {
-        return gameRepository.findPopularGamesAmongFriends(friendIds, userId);
+    public List<Object[]> findPopularGamesAmongFriends(List<Long> friendIds, Long userId, int limit) {
+        return gameRepository.findPopularGamesAmongFriends(friendIds, userId, PageRequest.of(0, limit));
     }
 
     /**
@@ -228,20 +243,40 @@ public class GameService {
     /**
      * Remove jogo
      */
-    @CacheEvict(value = "gameInfo", allEntries = true)
     public void deleteGame(Long gameId) {
-        if (!gameRepository.existsById(gameId)) {
-            throw new RuntimeException("Game not found");
-        }
-        gameRepository.deleteById(gameId);
+        Game game = gameRepository.findById(gameId)
+                .orElseThrow(() -> new RuntimeException("Game not found"));
+        gameRepository.delete(game);
+        evictGame(game);
+        evictGameLists();
     }
 
     /**
      * Salva múltiplos jogos em lote
      */
-    @CacheEvict(value = "gameInfo", allEntries = true)
     public List<Game> saveAll(List<Game> games) {
-        return gameRepository.saveAll(games);
+        List<Game> saved = gameRepository.saveAll(games);
+        saved.forEach(this::evictGame);
+        evictGameLists();
+        return saved;
+    }
+
+    /**
+     * Remove (após o commit) as entradas do jogo no gameInfo, por ID e por Steam App ID,
+     * e as entradas derivadas que declararam dependência dele
+     */
+    private void evictGame(Game game) {
+        cacheDependencyRegistry.evict("gameInfo", game.getGameId());
+        cacheDependencyRegistry.evict("gameInfo", "steam_" + game.getSteamAppId());
+        cacheDependencyRegistry.invalidate(Dependency.game(game.getGameId()));
+    }
+
+    /**
+     * Listas em cache que podem conter qualquer jogo
+     */
+    private void evictGameLists() {
+        cacheDependencyRegistry.evict("gameInfo", "popular_games");
+        cacheDependencyRegistry.evict("gameInfo", "free_games");
     }
 
     /**
@@ -260,21 +295,10 @@ public class GameService {
     }
 
     /**
-     * Busca jogos por múltiplos critérios
+     * Busca jogos por múltiplos critérios (filtros, ordenação e paginação no banco)
      */
-    public List<Game> findGamesByCriteria(String developer, String publisher, LocalDate minReleaseDate,
-                                          BigDecimal maxPrice) {
-        // Implementação customizada pode ser adicionada aqui
-        // Por enquanto, use os métodos individuais
-        List<Game> games = gameRepository.findAll();
-
-        return games.stream()
-                .filter(game -> developer == null || developer.equals(game.getDeveloper()))
-                .filter(game -> publisher == null || publisher.equals(game.getPublisher()))
-                .filter(game -> minReleaseDate == null ||
-                        (game.getReleaseDate() != null && game.getReleaseDate().isAfter(minReleaseDate)))
-                .filter(game -> maxPrice == null ||
-                        (game.getPriceCurrent() != null && game.getPriceCurrent().compareTo(maxPrice) <= 0))
-                .toList();
+    @Transactional(readOnly = true)
+    public Page<Game> findGamesByCriteria(GameCriteria criteria, Pageable pageable) {
+        return gameRepository.findByCriteria(criteria, pageable);
     }
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+package com.steamanalytics.service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Calcula os K jogos mais similares a cada jogo pela coocorrência de donos na {@link OwnershipMatrix}.
+ * Para cada jogo alvo percorre as bibliotecas dos seus donos acumulando a interseção com os demais
+ * jogos num array denso; os jogos alvo são divididos entre as threads de um {@link ForkJoinPool}.
+ * Jogos com donos demais são amostrados (contagens reescaladas) e bibliotecas gigantes são ignoradas,
+ * o que mantém o custo por jogo limitado mesmo para títulos com milhões de donos.
+ */
+final class GameSimilarityBuilder {
+
+    private static final int LEAF_SIZE = 64;
+
+    enum Metric {
+        COSINE,
+        JACCARD
+    }
+
+    record Settings(Metric metric, int topK, int minCommonPlayers, int maxOwnersPerGame, int maxLibrarySize) {
+    }
+
+    /**
+     * Vizinhos de um jogo em arrays paralelos, do mais para o menos similar
+     */
+    record Neighbors(long gameId, long[] similarGameIds, int[] commonPlayers, double[] scores) {
+
+        int size() {
+            return similarGameIds.length;
+        }
+    }
+
+    private GameSimilarityBuilder() {
+    }
+
+    /**
+     * Vizinhos dos jogos informados (índices na matriz), na mesma ordem
+     */
+    static Neighbors[] compute(OwnershipMatrix matrix, int[] games, Settings settings, ForkJoinPool pool) {
+        Neighbors[] result = new Neighbors[games.length];
+        if (games.length > 0) {
+            pool.invoke(new Slice(matrix, games, settings, result, 0, games.length));
+        }
+        return result;
+    }
+
+    /**
+     * Vizinhos de todos os jogos da matriz
+     */
+    static Neighbors[] computeAll(OwnershipMatrix matrix, Settings settings, ForkJoinPool pool) {
+        int[] games = new int[matrix.gameCount()];
+        for (int game = 0; game < games.length; game++) {
+            games[game] = game;
+        }
+        return compute(matrix, games, settings, pool);
+    }
+
+    static double score(Metric metric, int commonPlayers, int owners, int otherOwners) {
+        return switch (metric) {
+            case COSINE -> commonPlayers / Math.sqrt((double) owners * otherOwners);
+            case JACCARD -> (double) commonPlayers / (owners + otherOwners - commonPlayers);
+        };
+    }
+
+    private static final class Slice extends RecursiveAction {
+
+        private final OwnershipMatrix matrix;
+        private final int[] games;
+        private final Settings settings;
+        private final Neighbors[] result;
+        private final int from;
+        private final int to;
+
+        Slice(OwnershipMatrix matrix, int[] games, Settings settings, Neighbors[] result, int from, int to) {
+            this.matrix = matrix;
+            this.games = games;
+            this.settings = settings;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Slice(matrix, games, settings, result, from, middle),
+                        new Slice(matrix, games, settings, result, middle, to));
+                return;
+            }
+
+            // Contadores reaproveitados entre os jogos da folha; só as posições tocadas são zeradas
+            int[] counts = new int[matrix.gameCount()];
+            int[] touched = new int[matrix.gameCount()];
+            for (int i = from; i < to; i++) {
+                result[i] = neighborsOf(games[i], counts, touched);
+            }
+        }
+
+        private Neighbors neighborsOf(int game, int[] counts, int[] touched) {
+            // Os jogos calculados sempre têm todos os donos carregados, mesmo numa matriz parcial
+            int owners = matrix.loadedOwnerCount(game);
+            int sampled = Math.min(owners, settings.maxOwnersPerGame());
+            double step = (double) owners / sampled;
+            int touchedCount = 0;
+
+            for (int s = 0; s < sampled; s++) {
+                int user = matrix.owners[matrix.gameOffsets[game] + (int) (s * step)];
+                if (matrix.librarySize(user) > settings.maxLibrarySize()) {
+                    continue;
+                }
+                for (int p = matrix.userOffsets[user]; p < matrix.userOffsets[user + 1]; p++) {
+                    int other = matrix.libraries[p];
+                    if (other != game && counts[other]++ == 0) {
+                        touched[touchedCount++] = other;
+                    }
+                }
+            }
+
+            TopK top = new TopK(settings.topK());
+            for (int t = 0; t < touchedCount; t++) {
+                int other = touched[t];
+                int common = estimatedCommon(counts[other], step, other);
+                if (common >= settings.minCommonPlayers()) {
+                    top.offer(other, score(settings.metric(), common, owners, matrix.ownerCount(other)));
+                }
+            }
+
+            TopK.Ranked ranked = top.drainDescending();
+            long[] similarGameIds = new long[ranked.size()];
+            int[] commonPlayers = new int[ranked.size()];
+            for (int r = 0; r < ranked.size(); r++) {
+                int other = (int) ranked.ids[r];
+                similarGameIds[r] = matrix.gameIds[other];
+                commonPlayers[r] = estimatedCommon(counts[other], step, other);
+            }
+            for (int t = 0; t < touchedCount; t++) {
+                counts[touched[t]] = 0;
+            }
+            return new Neighbors(matrix.gameIds[game], similarGameIds, commonPlayers, ranked.scores);
+        }
+
+        /**
+         * Interseção reescalada pela taxa de amostragem dos donos, limitada ao total de donos do outro jogo
+         */
+        private int estimatedCommon(int sampledCount, double step, int other) {
+            return (int) Math.min(Math.round(sampledCount * step), matrix.ownerCount(other));
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.entity.GameSimilarity;
+import com.steamanalytics.repository.GameSimilarityRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Jogos similares pré-calculados. Uma reconstrução completa (noturna, ou na inicialização quando a
+ * tabela está vazia) calcula os K vizinhos de todos os jogos com o {@link GameSimilarityBuilder};
+ * entre elas, os jogos cujos donos mudaram são marcados e apenas eles são recalculados periodicamente,
+ * a partir só das bibliotecas dos seus donos e do total de donos em {@code game_stats}.
+ */
+@Service
+public class GameSimilarityService {
+
+    private static final Logger log = LoggerFactory.getLogger(GameSimilarityService.class);
+
+    private static final String LOAD_OWNERSHIP_SQL = "SELECT game_id, user_id FROM user_game_library";
+
+    // Bibliotecas inteiras dos donos dos jogos marcados: basta para recalcular os vizinhos deles
+    private static final String LOAD_OWNER_LIBRARIES_SQL =
+            "SELECT game_id, user_id FROM user_game_library WHERE user_id IN (" +
+            "SELECT user_id FROM user_game_library WHERE game_id = ANY(?::bigint[]))";
+
+    private static final String LOAD_OWNER_COUNTS_SQL =
+            "SELECT game_id, owner_count FROM game_stats WHERE game_id = ANY(?::bigint[])";
+
+    private static final String DELETE_ALL_SQL = "DELETE FROM game_similarity";
+
+    private static final String DELETE_GAME_SQL = "DELETE FROM game_similarity WHERE game_id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO game_similarity (game_id, similar_game_id, common_players, score, computed_at) " +
+            "VALUES (?, ?, ?, ?, now())";
+
+    private static final int WRITE_BATCH_SIZE = 1_000;
+
+    // Reconstrução completa: uma instância por vez. O refresh dos jogos marcados continua local,
+    // porque cada instância só conhece as escritas que ela mesma fez.
+    private static final String REBUILD_JOB = "game-similarity-rebuild";
+
+    private final GameSimilarityRepository gameSimilarityRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ClusterCoordinator clusterCoordinator;
+    private final boolean enabled;
+    private final GameSimilarityBuilder.Settings settings;
+    private final ForkJoinPool pool;
+
+    // Jogos com donos alterados desde a última escrita dos seus vizinhos
+    private final Set<Long> dirtyGameIds = ConcurrentHashMap.newKeySet();
+    // Segurado durante a carga e a escrita no banco
+    private final ReentrantLock buildLock = new ReentrantLock();
+    private volatile long lastOwnershipRows = 1 << 16;
+
+    @Autowired
+    public GameSimilarityService(GameSimilarityRepository gameSimilarityRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 DataSource dataSource,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 ClusterCoordinator clusterCoordinator,
+                                 @Value("${analytics.game-similarity.enabled:true}") boolean enabled,
+                                 @Value("${analytics.game-similarity.metric:cosine}") String metric,
+                                 @Value("${analytics.game-similarity.top-k:20}") int topK,
+                                 @Value("${analytics.game-similarity.min-common-players:2}") int minCommonPlayers,
+                                 @Value("${analytics.game-similarity.max-owners-per-game:20000}") int maxOwnersPerGame,
+                                 @Value("${analytics.game-similarity.max-library-size:5000}") int maxLibrarySize,
+                                 @Value("${analytics.game-similarity.parallelism:0}") int parallelism) {
+        this.gameSimilarityRepository = gameSimilarityRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(10_000);
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.clusterCoordinator = clusterCoordinator;
+        this.enabled = enabled;
+        this.settings = new GameSimilarityBuilder.Settings(
+                GameSimilarityBuilder.Metric.valueOf(metric.trim().toUpperCase(Locale.ROOT)),
+                topK, minCommonPlayers, maxOwnersPerGame, maxLibrarySize);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+
+        Gauge.builder("game_similarity.dirty_games", dirtyGameIds, Set::size).register(meterRegistry);
+    }
+
+    /**
+     * Na primeira subida a tabela está vazia: calcula tudo em segundo plano sem segurar a inicialização
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            pool.execute(this::rebuildIfEmpty);
+        }
+    }
+
+    private void rebuildIfEmpty() {
+        try {
+            if (gameSimilarityRepository.count() == 0 && clusterCoordinator.tryAcquire(REBUILD_JOB)) {
+                rebuildAll();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Game similarity startup check failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${analytics.game-similarity.rebuild-cron:0 0 4 * * *}")
+    public void scheduledRebuild() {
+        if (enabled && clusterCoordinator.tryAcquire(REBUILD_JOB)) {
+            rebuildAll();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.game-similarity.refresh-interval:15m}",
+            initialDelayString = "${analytics.game-similarity.refresh-interval:15m}")
+    public void scheduledRefresh() {
+        if (enabled && !dirtyGameIds.isEmpty()) {
+            refreshDirty();
+        }
+    }
+
+    /**
+     * Jogos similares pré-calculados, do mais para o menos similar
+     */
+    @Transactional(readOnly = true)
+    public List<GameSimilarity> findSimilarGames(Long gameId) {
+        return gameSimilarityRepository.findByGameIdOrderByScoreDescSimilarGameIdAsc(gameId);
+    }
+
+    /**
+     * Marca jogos cujo conjunto de donos mudou (aplicado após o commit da transação corrente)
+     */
+    public void markDirty(Collection<Long> gameIds) {
+        if (!enabled || gameIds.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dirtyGameIds.addAll(gameIds);
+                }
+            });
+        } else {
+            dirtyGameIds.addAll(gameIds);
+        }
+    }
+
+    /**
+     * Recalcula e reescreve os vizinhos de todos os jogos
+     */
+    public void rebuildAll() {
+        buildLock.lock();
+        try {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            // Marcações feitas durante a carga ficam para o próximo refresh
+            dirtyGameIds.clear();
+            try {
+                OwnershipMatrix matrix = loadOwnership();
+                GameSimilarityBuilder.Neighbors[] neighbors = GameSimilarityBuilder.computeAll(matrix, settings, pool);
+                long rows = transactionTemplate.execute(status -> {
+                    jdbcTemplate.update(DELETE_ALL_SQL);
+                    return insert(neighbors);
+                });
+                log.info("Game similarity rebuilt in {} ms: {} games, {} owners, {} neighbor rows",
+                        stop(sample, "full") / 1_000_000, matrix.gameCount(), matrix.userCount(), rows);
+            } catch (DataAccessException e) {
+                log.warn("Game similarity rebuild failed, keeping previous neighbors: {}", e.getMessage());
+            }
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * Recalcula apenas os jogos marcados desde a última escrita. Os vizinhos gravados em outros jogos
+     * que apontam para os marcados só são corrigidos na próxima reconstrução completa.
+     */
+    public void refreshDirty() {
+        buildLock.lock();
+        try {
+            List<Long> gameIds = new ArrayList<>(dirtyGameIds);
+            if (gameIds.isEmpty()) {
+                return;
+            }
+            gameIds.forEach(dirtyGameIds::remove);
+
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                OwnershipMatrix matrix = loadOwnerLibraries(gameIds);
+                // Jogos que ficaram sem donos apenas perdem os vizinhos
+                int[] games = gameIds.stream()
+                        .mapToInt(matrix::indexOfGame)
+                        .filter(index -> index >= 0)
+                        .toArray();
+                GameSimilarityBuilder.Neighbors[] neighbors = GameSimilarityBuilder.compute(matrix, games, settings, pool);
+                long rows = transactionTemplate.execute(status -> {
+                    jdbcTemplate.batchUpdate(DELETE_GAME_SQL, gameIds, WRITE_BATCH_SIZE,
+                            (ps, gameId) -> ps.setLong(1, gameId));
+                    return insert(neighbors);
+                });
+                log.info("Game similarity refreshed in {} ms: {} games, {} ownership rows loaded, {} neighbor rows",
+                        stop(sample, "incremental") / 1_000_000, gameIds.size(), matrix.rows(), rows);
+            } catch (DataAccessException e) {
+                dirtyGameIds.addAll(gameIds);
+                log.warn("Game similarity refresh failed, will retry: {}", e.getMessage());
+            }
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    private OwnershipMatrix loadOwnership() {
+        OwnershipMatrix.Builder builder = new OwnershipMatrix.Builder(Math.toIntExact(lastOwnershipRows));
+        // Dentro de transação para o driver do PostgreSQL usar cursor e respeitar o fetch size
+        transactionTemplate.executeWithoutResult(status -> streamingJdbcTemplate.query(LOAD_OWNERSHIP_SQL,
+                rs -> {
+                    builder.add(rs.getLong(1), rs.getLong(2));
+                }));
+        OwnershipMatrix matrix = builder.build();
+        lastOwnershipRows = Math.max(matrix.rows(), 1 << 16);
+        return matrix;
+    }
+
+    /**
+     * Matriz parcial com as bibliotecas dos donos dos jogos informados; o total de donos dos demais
+     * jogos vem de {@code game_stats}, lido na mesma transação
+     */
+    private OwnershipMatrix loadOwnerLibraries(List<Long> gameIds) {
+        return transactionTemplate.execute(status -> {
+            OwnershipMatrix.Builder builder = new OwnershipMatrix.Builder(1024);
+            streamingJdbcTemplate.query(LOAD_OWNER_LIBRARIES_SQL, rs -> {
+                builder.add(rs.getLong(1), rs.getLong(2));
+            }, (Object) gameIds.toArray(Long[]::new));
+            OwnershipMatrix partial = builder.build();
+
+            Long[] loadedGameIds = Arrays.stream(partial.gameIds).boxed().toArray(Long[]::new);
+            int[] totals = new int[loadedGameIds.length];
+            streamingJdbcTemplate.query(LOAD_OWNER_COUNTS_SQL, rs -> {
+                int game = partial.indexOfGame(rs.getLong(1));
+                if (game >= 0) {
+                    totals[game] = Math.toIntExact(rs.getLong(2));
+                }
+            }, (Object) loadedGameIds);
+            return partial.withOwnerCounts(totals);
+        });
+    }
+
+    private long insert(GameSimilarityBuilder.Neighbors[] neighbors) {
+        List<Object[]> batch = new ArrayList<>(WRITE_BATCH_SIZE);
+        long rows = 0;
+        for (GameSimilarityBuilder.Neighbors game : neighbors) {
+            for (int i = 0; i < game.size(); i++) {
+                batch.add(new Object[]{game.gameId(), game.similarGameIds()[i], game.commonPlayers()[i], game.scores()[i]});
+                if (batch.size() == WRITE_BATCH_SIZE) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                    rows += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+            rows += batch.size();
+        }
+        return rows;
+    }
+
+    private long stop(Timer.Sample sample, String mode) {
+        return sample.stop(Timer.builder("game_similarity.build").tag("mode", mode).register(meterRegistry));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,67 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.repository.GameStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Confere o agregado {@code game_stats} contra a biblioteca e reescreve as linhas divergentes.
+ * Também cobre jogos ainda sem linha (anteriores ao agregado) e remoções em cascata pelo banco.
+ */
+@Component
+public class GameStatsRepairJob {
+
+    private static final Logger log = LoggerFactory.getLogger(GameStatsRepairJob.class);
+
+    private final GameStatsRepository gameStatsRepository;
+    private final ClusterCoordinator clusterCoordinator;
+    private final boolean enabled;
+
+    @Autowired
+    public GameStatsRepairJob(GameStatsRepository gameStatsRepository,
+                              ClusterCoordinator clusterCoordinator,
+                              @Value("${analytics.game-stats.repair.enabled:true}") boolean enabled) {
+        this.gameStatsRepository = gameStatsRepository;
+        this.clusterCoordinator = clusterCoordinator;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Execução agendada (por padrão diariamente, depois do rollup dos usuários)
+     */
+    @Scheduled(cron = "${analytics.game-stats.repair.cron:0 45 3 * * *}")
+    public void scheduledRepair() {
+        if (enabled && clusterCoordinator.tryAcquire("game-stats-repair")) {
+            repair();
+        }
+    }
+
+    /**
+     * Verifica divergências e reconstrói o agregado; retorna quantos jogos estavam divergentes
+     */
+    @Transactional
+    public long repair() {
+        long drifted = gameStatsRepository.countDriftedStats();
+        if (drifted > 0) {
+            log.warn("Found {} drifted game_stats rows, rebuilding aggregates", drifted);
+            gameStatsRepository.deleteOrphans();
+            int rebuilt = gameStatsRepository.rebuildAll();
+            log.info("Rebuilt {} game_stats rows", rebuilt);
+        }
+        return drifted;
+    }
+
+    /**
+     * Reconstrói o agregado de todos os jogos incondicionalmente
+     */
+    @Transactional
+    public int rebuildAll() {
+        gameStatsRepository.deleteOrphans();
+        return gameStatsRepository.rebuildAll();
+    }
+}
@@ -0,0 +1,198 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.entity.GameStats;
+import com.steamanalytics.repository.GameStatsRepository;
+import com.steamanalytics.repository.UserGameLibraryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Mantém o agregado {@code game_stats} (donos, tempo total e tempo recente por jogo).
+ *
+ * Diferente do rollup por usuário, a linha de um jogo popular é disputada por todas as escritas
+ * de biblioteca. Por isso os deltas se acumulam na transação de quem chama e são gravados uma
+ * única vez, num lote ordenado por jogo, logo antes do commit: cada jogo é bloqueado só até o
+ * commit e sempre na mesma ordem, o que evita deadlocks entre sincronizações concorrentes.
+ */
+@Service
+@Transactional
+public class GameStatsService {
+
+    private static final String APPLY_DELTA_SQL =
+            "INSERT INTO game_stats (game_id, owner_count, total_playtime, recent_playtime, updated_at) " +
+            "VALUES (?, ?, ?, ?, now()) " +
+            "ON CONFLICT (game_id) DO UPDATE SET " +
+            "owner_count = game_stats.owner_count + EXCLUDED.owner_count, " +
+            "total_playtime = game_stats.total_playtime + EXCLUDED.total_playtime, " +
+            "recent_playtime = game_stats.recent_playtime + EXCLUDED.recent_playtime, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private final GameStatsRepository gameStatsRepository;
+    private final UserGameLibraryRepository userGameLibraryRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public GameStatsService(GameStatsRepository gameStatsRepository,
+                            UserGameLibraryRepository userGameLibraryRepository,
+                            JdbcTemplate jdbcTemplate) {
+        this.gameStatsRepository = gameStatsRepository;
+        this.userGameLibraryRepository = userGameLibraryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Registra um jogo novo em uma biblioteca
+     */
+    public void onGameAdded(Long gameId, Integer playtimeTotal, Integer playtimeTwoWeeks) {
+        record(gameId, 1, minutes(playtimeTotal), minutes(playtimeTwoWeeks));
+    }
+
+    /**
+     * Registra a alteração do tempo de jogo de uma entrada existente
+     */
+    public void onPlaytimeChanged(Long gameId, Integer oldPlaytimeTotal, Integer newPlaytimeTotal,
+                                  Integer oldPlaytimeTwoWeeks, Integer newPlaytimeTwoWeeks) {
+        record(gameId, 0,
+                (long) minutes(newPlaytimeTotal) - minutes(oldPlaytimeTotal),
+                (long) minutes(newPlaytimeTwoWeeks) - minutes(oldPlaytimeTwoWeeks));
+    }
+
+    /**
+     * Registra a remoção de um jogo de uma biblioteca
+     */
+    public void onGameRemoved(Long gameId, Integer playtimeTotal, Integer playtimeTwoWeeks) {
+        record(gameId, -1, -minutes(playtimeTotal), -minutes(playtimeTwoWeeks));
+    }
+
+    /**
+     * Tempo de jogo de cada jogo da biblioteca do usuário ({@code gameId -> [total, 2 semanas]});
+     * usado para calcular os deltas de escritas em lote
+     */
+    public Map<Long, int[]> snapshotLibrary(Long userId) {
+        List<Object[]> rows = userGameLibraryRepository.findPlaytimesByUserId(userId);
+        Map<Long, int[]> snapshot = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            snapshot.put((Long) row[0], new int[]{minutes((Integer) row[1]), minutes((Integer) row[2])});
+        }
+        return snapshot;
+    }
+
+    /**
+     * Registra a diferença entre dois snapshots da mesma biblioteca
+     */
+    public void onLibraryChanged(Map<Long, int[]> before, Map<Long, int[]> after) {
+        Set<Long> gameIds = new HashSet<>(before.keySet());
+        gameIds.addAll(after.keySet());
+        for (Long gameId : gameIds) {
+            int[] old = before.get(gameId);
+            int[] current = after.get(gameId);
+            if (old == null) {
+                record(gameId, 1, current[0], current[1]);
+            } else if (current == null) {
+                record(gameId, -1, -old[0], -old[1]);
+            } else {
+                record(gameId, 0, (long) current[0] - old[0], (long) current[1] - old[1]);
+            }
+        }
+    }
+
+    /**
+     * Registra a remoção da biblioteca inteira do usuário (chamar antes de apagar as linhas)
+     */
+    public void onLibraryRemoved(Long userId) {
+        onLibraryChanged(snapshotLibrary(userId), Map.of());
+    }
+
+    /**
+     * Número de donos de cada jogo; jogos sem agregado ficam de fora
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Long> getOwnerCounts(Collection<Long> gameIds) {
+        Map<Long, Long> ownerCounts = new HashMap<>(gameIds.size() * 2);
+        if (gameIds.isEmpty()) {
+            return ownerCounts;
+        }
+        for (GameStats stats : gameStatsRepository.findAllById(gameIds)) {
+            ownerCounts.put(stats.getGameId(), stats.getOwnerCount());
+        }
+        return ownerCounts;
+    }
+
+    private void record(Long gameId, long ownerDelta, long playtimeDelta, long recentDelta) {
+        if (ownerDelta == 0 && playtimeDelta == 0 && recentDelta == 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(Map.of(gameId, new long[]{ownerDelta, playtimeDelta, recentDelta}));
+            return;
+        }
+        pendingDeltas().add(gameId, ownerDelta, playtimeDelta, recentDelta);
+    }
+
+    /**
+     * Deltas da transação corrente; a sincronização é registrada na primeira escrita
+     */
+    private PendingDeltas pendingDeltas() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingDeltas pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        PendingDeltas pending = new PendingDeltas();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private void apply(Map<Long, long[]> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((gameId, delta) -> {
+            if (delta[0] != 0 || delta[1] != 0 || delta[2] != 0) {
+                rows.add(new Object[]{gameId, delta[0], delta[1], delta[2]});
+            }
+        });
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, rows);
+        }
+    }
+
+    private static int minutes(Integer playtime) {
+        return playtime != null ? playtime : 0;
+    }
+
+    /**
+     * Deltas acumulados por jogo, em ordem de ID, gravados antes do commit
+     */
+    private class PendingDeltas implements TransactionSynchronization {
+
+        private final Map<Long, long[]> deltas = new TreeMap<>();
+
+        GameStatsService owner() {
+            return GameStatsService.this;
+        }
+
+        void add(Long gameId, long ownerDelta, long playtimeDelta, long recentDelta) {
+            long[] delta = deltas.computeIfAbsent(gameId, id -> new long[3]);
+            delta[0] += ownerDelta;
+            delta[1] += playtimeDelta;
+            delta[2] += recentDelta;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            apply(deltas);
+        }
+    }
+}
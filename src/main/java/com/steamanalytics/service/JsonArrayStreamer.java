@@ -0,0 +1,154 @@
+package com.steamanalytics.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Decodifica os elementos de um array JSON aninhado (ex.: {@code response.games}) à medida que os
+ * bytes chegam, com o parser não bloqueante do Jackson. Só o elemento em andamento fica em memória,
+ * então o tamanho da resposta não esbarra no {@code maxInMemorySize} do WebClient.
+ */
+final class JsonArrayStreamer<T> {
+
+    private static final String ARRAY = "[]";
+
+    private final ObjectMapper objectMapper;
+    private final Class<T> type;
+    private final List<String> path;
+    private final JsonParser parser;
+
+    // Nome do campo corrente em cada objeto aberto (ARRAY para arrays fora do alvo)
+    private final Deque<String> fields = new ArrayDeque<>();
+    private boolean inTarget;
+    private TokenBuffer element;
+    private int elementDepth;
+
+    private JsonArrayStreamer(ObjectMapper objectMapper, Class<T> type, List<String> path) throws IOException {
+        this.objectMapper = objectMapper;
+        this.type = type;
+        this.path = path;
+        this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+    }
+
+    static <T> Flux<T> stream(Flux<DataBuffer> body, ObjectMapper objectMapper, Class<T> type, String... path) {
+        return Flux.defer(() -> {
+            JsonArrayStreamer<T> streamer;
+            try {
+                streamer = new JsonArrayStreamer<>(objectMapper, type, List.of(path));
+            } catch (IOException e) {
+                return Flux.error(new DecodingException("Could not create JSON parser", e));
+            }
+            return body.concatMapIterable(streamer::feed)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(streamer.finish())));
+        });
+    }
+
+    private List<T> feed(DataBuffer buffer) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        try {
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+            return drain();
+        } catch (IOException e) {
+            throw new DecodingException("Malformed JSON response", e);
+        }
+    }
+
+    private List<T> finish() {
+        try {
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).endOfInput();
+            List<T> rest = drain();
+            if (element != null || !fields.isEmpty()) {
+                throw new DecodingException("Truncated JSON response");
+            }
+            return rest;
+        } catch (IOException e) {
+            throw new DecodingException("Malformed JSON response", e);
+        }
+    }
+
+    private List<T> drain() throws IOException {
+        List<T> decoded = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (element != null || (inTarget && token != JsonToken.END_ARRAY)) {
+                collect(token, decoded);
+            } else {
+                navigate(token);
+            }
+        }
+        return decoded;
+    }
+
+    // Fora de um elemento: acompanha o caminho até achar o array alvo
+    private void navigate(JsonToken token) throws IOException {
+        switch (token) {
+            case FIELD_NAME -> {
+                fields.pop();
+                fields.push(parser.currentName());
+            }
+            case START_OBJECT -> fields.push("");
+            case START_ARRAY -> {
+                if (matchesPath()) {
+                    inTarget = true;
+                }
+                fields.push(ARRAY);
+            }
+            case END_ARRAY -> {
+                fields.pop();
+                inTarget = false;
+            }
+            case END_OBJECT -> fields.pop();
+            default -> {
+            }
+        }
+    }
+
+    private boolean matchesPath() {
+        if (fields.size() != path.size()) {
+            return false;
+        }
+        // O Deque empilha do fim para o começo
+        int index = path.size() - 1;
+        for (String field : fields) {
+            if (!field.equals(path.get(index--))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Dentro do array alvo: copia os tokens do elemento e o decodifica quando ele fecha
+    private void collect(JsonToken token, List<T> decoded) throws IOException {
+        if (element == null) {
+            element = new TokenBuffer(parser);
+            elementDepth = 0;
+        }
+        element.copyCurrentEvent(parser);
+        if (token.isStructStart()) {
+            elementDepth++;
+        } else if (token.isStructEnd()) {
+            elementDepth--;
+        }
+        if (elementDepth == 0) {
+            try (JsonParser elementParser = element.asParser(objectMapper)) {
+                decoded.add(objectMapper.readValue(elementParser, type));
+            }
+            element = null;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.repository.GameRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Pipeline de sincronização em lote da biblioteca:
+ * resolve todos os Steam App IDs de uma vez, insere os jogos que faltam em lote
+ * e grava só a diferença para as linhas atuais da biblioteca, via batching JDBC.
+ *
+ * Os IDs das linhas novas vêm do {@link SequenceBlockAllocator}, um {@code nextval} por bloco.
+ *
+ * O fingerprint é um hash do payload (pares Steam App ID / tempos de jogo em ordem); quando é igual
+ * ao da última sincronização do usuário nada é lido nem escrito na biblioteca. Caso contrário as
+ * linhas atuais são comparadas com o payload e só as inseridas, alteradas ou removidas são escritas.
+ */
+@Component
+@Transactional
+public class LibraryBulkSyncer {
+
+    private static final Logger log = LoggerFactory.getLogger(LibraryBulkSyncer.class);
+
+    private static final String INSERT_MISSING_GAME_SQL =
+            "INSERT INTO games (game_id, steam_app_id, name, created_at, updated_at) " +
+            "VALUES (?, ?, ?, now(), now()) " +
+            "ON CONFLICT (steam_app_id) DO NOTHING";
+
+    // ON CONFLICT cobre uma escrita concorrente entre a leitura das linhas e o insert
+    private static final String UPSERT_LIBRARY_SQL =
+            "INSERT INTO user_game_library (id, user_id, game_id, playtime_total, playtime_2weeks, purchased_at) " +
+            "VALUES (?, ?, ?, ?, ?, now()) " +
+            "ON CONFLICT (user_id, game_id) DO UPDATE SET " +
+            "playtime_total = COALESCE(EXCLUDED.playtime_total, user_game_library.playtime_total), " +
+            "playtime_2weeks = COALESCE(EXCLUDED.playtime_2weeks, user_game_library.playtime_2weeks)";
+
+    private static final String UPDATE_LIBRARY_SQL =
+            "UPDATE user_game_library SET playtime_total = ?, playtime_2weeks = ? WHERE user_id = ? AND game_id = ?";
+
+    private static final String DELETE_LIBRARY_SQL =
+            "DELETE FROM user_game_library WHERE user_id = ? AND game_id = ANY(?::bigint[])";
+
+    private static final String GAME_SEQUENCE = "games_game_id_seq";
+    private static final String LIBRARY_SEQUENCE = "user_game_library_id_seq";
+
+    private static final String LOAD_LIBRARY_SQL =
+            "SELECT game_id, playtime_total, playtime_2weeks FROM user_game_library WHERE user_id = ?";
+
+    private final GameRepository gameRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceBlockAllocator sequenceBlockAllocator;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+
+    @Autowired
+    public LibraryBulkSyncer(GameRepository gameRepository,
+                             JdbcTemplate jdbcTemplate,
+                             SequenceBlockAllocator sequenceBlockAllocator,
+                             MeterRegistry meterRegistry,
+                             @Value("${analytics.library-sync.batch-size:500}") int batchSize) {
+        this.gameRepository = gameRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequenceBlockAllocator = sequenceBlockAllocator;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Aplica o payload sobre a biblioteca sem remover jogos ausentes e sem fingerprint anterior
+     */
+    public SyncResult sync(Long userId, List<Map<String, Object>> gamesData) {
+        return sync(userId, gamesData, null, false);
+    }
+
+    /**
+     * Sincroniza a biblioteca do usuário em lotes. Com {@code replace} o payload é a biblioteca
+     * inteira e os jogos ausentes são removidos; {@code previousFingerprint} é o da última
+     * sincronização (nulo quando a biblioteca foi editada depois dela).
+     */
+    public SyncResult sync(Long userId, List<Map<String, Object>> gamesData, Long previousFingerprint, boolean replace) {
+        long start = System.nanoTime();
+
+        // Deduplicar por Steam App ID (a última ocorrência vence)
+        Map<Integer, SyncEntry> entries = new LinkedHashMap<>();
+        for (Map<String, Object> gameData : gamesData) {
+            SyncEntry entry = SyncEntry.from(gameData);
+            if (entry.steamAppId() != null) {
+                entries.put(entry.steamAppId(), entry);
+            }
+        }
+
+        // Uma biblioteca vazia quase sempre é um perfil privado: não remove nada
+        boolean removeMissing = replace && !entries.isEmpty();
+        long fingerprint = fingerprint(entries.values(), removeMissing);
+
+        List<Integer> steamAppIds = new ArrayList<>(entries.keySet());
+        Map<Integer, Long> gameIds = resolveGameIds(steamAppIds);
+
+        if (previousFingerprint != null && previousFingerprint == fingerprint) {
+            SyncResult result = new SyncResult(List.copyOf(gameIds.values()), List.of(), entries.size(), 0,
+                    fingerprint, System.nanoTime() - start);
+            meterRegistry.counter("library_sync.unchanged").increment();
+            meterRegistry.counter("library_sync.rows", "operation", "skipped").increment(result.skipped());
+            log.debug("Bulk sync for user {}: library unchanged, {} rows skipped", userId, result.skipped());
+            return result;
+        }
+
+        List<SyncEntry> missing = entries.values().stream()
+                .filter(entry -> !gameIds.containsKey(entry.steamAppId()))
+                .toList();
+        if (!missing.isEmpty()) {
+            long[] ids = sequenceBlockAllocator.allocate(GAME_SEQUENCE, missing.size());
+            jdbcTemplate.batchUpdate(INSERT_MISSING_GAME_SQL, indexes(missing.size()), batchSize, (ps, i) -> {
+                ps.setLong(1, ids[i]);
+                ps.setInt(2, missing.get(i).steamAppId());
+                ps.setString(3, missing.get(i).name());
+            });
+            gameIds.putAll(resolveGameIds(missing.stream().map(SyncEntry::steamAppId).toList()));
+        }
+
+        Map<Long, SyncEntry> incoming = new LinkedHashMap<>(entries.size() * 2);
+        for (SyncEntry entry : entries.values()) {
+            Long gameId = gameIds.get(entry.steamAppId());
+            if (gameId != null) {
+                incoming.put(gameId, entry);
+            }
+        }
+        Diff diff = diff(incoming, loadLibrary(userId), removeMissing);
+        write(userId, diff.changes());
+
+        SyncResult result = new SyncResult(List.copyOf(incoming.keySet()), diff.changes(), diff.skipped(),
+                missing.size(), fingerprint, System.nanoTime() - start);
+        meterRegistry.counter("library_sync.rows", "operation", "inserted").increment(result.inserted());
+        meterRegistry.counter("library_sync.rows", "operation", "updated").increment(result.updated());
+        meterRegistry.counter("library_sync.rows", "operation", "deleted").increment(result.deleted());
+        meterRegistry.counter("library_sync.rows", "operation", "skipped").increment(result.skipped());
+        log.debug("Bulk sync for user {}: {} rows ({} inserted, {} updated, {} deleted, {} skipped, {} new games) " +
+                        "in {} ms, {} rows/s",
+                userId, result.rows(), result.inserted(), result.updated(), result.deleted(), result.skipped(),
+                result.gamesCreated(), result.elapsedNanos() / 1_000_000, Math.round(result.rowsPerSecond()));
+        return result;
+    }
+
+    /**
+     * Compara o payload (por game ID) com as linhas atuais. Tempo de jogo nulo no payload mantém o
+     * valor gravado; linhas ausentes só são removidas com {@code removeMissing}.
+     */
+    static Diff diff(Map<Long, SyncEntry> incoming, Map<Long, Playtime> stored, boolean removeMissing) {
+        List<RowChange> changes = new ArrayList<>();
+        int skipped = 0;
+        for (Map.Entry<Long, SyncEntry> entry : incoming.entrySet()) {
+            Playtime before = stored.get(entry.getKey());
+            SyncEntry game = entry.getValue();
+            if (before == null) {
+                changes.add(new RowChange(entry.getKey(), null, new Playtime(game.playtimeTotal(), game.playtimeTwoWeeks())));
+                continue;
+            }
+            Playtime after = new Playtime(
+                    game.playtimeTotal() != null ? game.playtimeTotal() : before.total(),
+                    game.playtimeTwoWeeks() != null ? game.playtimeTwoWeeks() : before.twoWeeks());
+            if (after.equals(before)) {
+                skipped++;
+            } else {
+                changes.add(new RowChange(entry.getKey(), before, after));
+            }
+        }
+        if (removeMissing) {
+            stored.forEach((gameId, before) -> {
+                if (!incoming.containsKey(gameId)) {
+                    changes.add(new RowChange(gameId, before, null));
+                }
+            });
+        }
+        return new Diff(changes, skipped);
+    }
+
+    /**
+     * Hash do payload em ordem de Steam App ID; o nome do jogo não participa
+     */
+    static long fingerprint(Collection<SyncEntry> entries, boolean replace) {
+        long hash = replace ? 1 : 0;
+        for (SyncEntry entry : entries.stream().sorted(Comparator.comparing(SyncEntry::steamAppId)).toList()) {
+            hash = mix(hash * 31 + entry.steamAppId());
+            hash = mix(hash * 31 + (entry.playtimeTotal() != null ? entry.playtimeTotal() : -1));
+            hash = mix(hash * 31 + (entry.playtimeTwoWeeks() != null ? entry.playtimeTwoWeeks() : -1));
+        }
+        return hash;
+    }
+
+    private Map<Long, Playtime> loadLibrary(Long userId) {
+        Map<Long, Playtime> stored = new HashMap<>();
+        jdbcTemplate.query(LOAD_LIBRARY_SQL, rs -> {
+            stored.put(rs.getLong(1), new Playtime(rs.getObject(2, Integer.class), rs.getObject(3, Integer.class)));
+        }, userId);
+        return stored;
+    }
+
+    private void write(Long userId, List<RowChange> changes) {
+        List<RowChange> inserts = changes.stream().filter(RowChange::inserted).toList();
+        List<RowChange> updates = changes.stream().filter(RowChange::updated).toList();
+        Long[] deletes = changes.stream().filter(RowChange::deleted).map(RowChange::gameId).toArray(Long[]::new);
+
+        if (!inserts.isEmpty()) {
+            long[] ids = sequenceBlockAllocator.allocate(LIBRARY_SEQUENCE, inserts.size());
+            jdbcTemplate.batchUpdate(UPSERT_LIBRARY_SQL, indexes(inserts.size()), batchSize, (ps, i) -> {
+                RowChange change = inserts.get(i);
+                ps.setLong(1, ids[i]);
+                ps.setLong(2, userId);
+                ps.setLong(3, change.gameId());
+                setNullableInt(ps, 4, change.after().total());
+                setNullableInt(ps, 5, change.after().twoWeeks());
+            });
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_LIBRARY_SQL, updates, batchSize, (ps, change) -> {
+                setNullableInt(ps, 1, change.after().total());
+                setNullableInt(ps, 2, change.after().twoWeeks());
+                ps.setLong(3, userId);
+                ps.setLong(4, change.gameId());
+            });
+        }
+        if (deletes.length > 0) {
+            jdbcTemplate.update(DELETE_LIBRARY_SQL, userId, deletes);
+        }
+    }
+
+    /**
+     * Uma consulta de projeção por lote de Steam App IDs
+     */
+    private Map<Integer, Long> resolveGameIds(List<Integer> steamAppIds) {
+        Map<Integer, Long> gameIds = new HashMap<>(steamAppIds.size() * 2);
+        for (int from = 0; from < steamAppIds.size(); from += batchSize) {
+            List<Integer> chunk = steamAppIds.subList(from, Math.min(from + batchSize, steamAppIds.size()));
+            for (Object[] row : gameRepository.findGameIdsBySteamAppIds(chunk)) {
+                gameIds.put(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+            }
+        }
+        return gameIds;
+    }
+
+    // Posições das linhas no lote, para casar cada uma com o ID reservado
+    private static List<Integer> indexes(int size) {
+        return IntStream.range(0, size).boxed().toList();
+    }
+
+    // Finalizador do MurmurHash3 (64 bits)
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value != null) {
+            ps.setInt(index, value);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+
+    /**
+     * Entrada recebida no payload de sincronização
+     */
+    record SyncEntry(Integer steamAppId, String name, Integer playtimeTotal, Integer playtimeTwoWeeks) {
+
+        static SyncEntry from(Map<String, Object> gameData) {
+            return new SyncEntry(
+                    toInteger(gameData.get("steamAppId")),
+                    gameData.get("name") != null ? (String) gameData.get("name") : "Unknown Game",
+                    toInteger(gameData.get("playtimeTotal")),
+                    toInteger(gameData.get("playtimeTwoWeeks")));
+        }
+
+        private static Integer toInteger(Object value) {
+            return value != null ? ((Number) value).intValue() : null;
+        }
+    }
+
+    /**
+     * Tempos de jogo de uma linha da biblioteca
+     */
+    public record Playtime(Integer total, Integer twoWeeks) {
+    }
+
+    /**
+     * Linha escrita: sem {@code before} é inserção, sem {@code after} é remoção
+     */
+    public record RowChange(Long gameId, Playtime before, Playtime after) {
+
+        public boolean inserted() {
+            return before == null;
+        }
+
+        public boolean updated() {
+            return before != null && after != null;
+        }
+
+        public boolean deleted() {
+            return after == null;
+        }
+    }
+
+    record Diff(List<RowChange> changes, int skipped) {
+    }
+
+    /**
+     * Resultado da sincronização em lote: os game IDs do payload, as linhas escritas e as que já
+     * estavam iguais ({@code skipped})
+     */
+    public record SyncResult(List<Long> gameIds, List<RowChange> changes, int skipped, int gamesCreated,
+                             long fingerprint, long elapsedNanos) {
+
+        public int rows() {
+            return gameIds.size();
+        }
+
+        public boolean changed() {
+            return !changes.isEmpty();
+        }
+
+        public int inserted() {
+            return (int) changes.stream().filter(RowChange::inserted).count();
+        }
+
+        public int updated() {
+            return (int) changes.stream().filter(RowChange::updated).count();
+        }
+
+        public int deleted() {
+            return (int) changes.stream().filter(RowChange::deleted).count();
+        }
+
+        public double rowsPerSecond() {
+            return elapsedNanos > 0 ? rows() * 1_000_000_000.0 / elapsedNanos : 0.0;
+        }
+    }
+}
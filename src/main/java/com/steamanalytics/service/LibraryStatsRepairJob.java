@@ -0,0 +1,67 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.repository.UserLibraryStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Confere o rollup {@code user_library_stats} contra os agregados da biblioteca
+ * e o reconstrói do zero quando há divergência.
+ */
+@Component
+public class LibraryStatsRepairJob {
+
+    private static final Logger log = LoggerFactory.getLogger(LibraryStatsRepairJob.class);
+
+    private final UserLibraryStatsRepository userLibraryStatsRepository;
+    private final ClusterCoordinator clusterCoordinator;
+    private final boolean enabled;
+
+    @Autowired
+    public LibraryStatsRepairJob(UserLibraryStatsRepository userLibraryStatsRepository,
+                                 ClusterCoordinator clusterCoordinator,
+                                 @Value("${analytics.library-stats.repair.enabled:true}") boolean enabled) {
+        this.userLibraryStatsRepository = userLibraryStatsRepository;
+        this.clusterCoordinator = clusterCoordinator;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Execução agendada (por padrão diariamente de madrugada)
+     */
+    @Scheduled(cron = "${analytics.library-stats.repair.cron:0 30 3 * * *}")
+    public void scheduledRepair() {
+        if (enabled && clusterCoordinator.tryAcquire("library-stats-repair")) {
+            repair();
+        }
+    }
+
+    /**
+     * Verifica divergências e reconstrói os rollups; retorna quantos estavam divergentes
+     */
+    @Transactional
+    public long repair() {
+        long drifted = userLibraryStatsRepository.countDriftedRollups();
+        if (drifted > 0) {
+            log.warn("Found {} drifted user_library_stats rows, rebuilding rollups", drifted);
+            userLibraryStatsRepository.deleteOrphans();
+            int rebuilt = userLibraryStatsRepository.rebuildAll();
+            log.info("Rebuilt {} user_library_stats rows", rebuilt);
+        }
+        return drifted;
+    }
+
+    /**
+     * Reconstrói todos os rollups incondicionalmente
+     */
+    @Transactional
+    public int rebuildAll() {
+        userLibraryStatsRepository.deleteOrphans();
+        return userLibraryStatsRepository.rebuildAll();
+    }
+}
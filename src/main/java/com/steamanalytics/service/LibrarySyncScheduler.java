@@ -0,0 +1,281 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.dto.SteamOwnedGame;
+import com.steamanalytics.model.entity.User;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mantém as bibliotecas sincronizadas com a Steam em segundo plano.
+ *
+ * A cada ciclo a varredura avança um cursor por user_id sobre os candidatos do
+ * {@code findActiveUsersForSync} (no máximo {@code max-scan} linhas por ciclo) e enfileira quem está
+ * vencido. A prioridade é a defasagem dividida pelo intervalo alvo do usuário, que encurta quanto
+ * mais recente o último login; a fila tem capacidade limitada e descarta os menos prioritários, que
+ * voltam na próxima volta da varredura. Um usuário nunca está duas vezes na fila ou em execução, e
+ * falhas o afastam com backoff exponencial.
+ *
+ * Com várias instâncias, cada uma varre só as partições de usuários que o {@link ClusterCoordinator}
+ * lhe concedeu, e confere a posse de novo antes de sincronizar cada usuário.
+ *
+ * O número de tarefas em voo nunca passa de {@code workers}: cada worker segura uma conexão do banco
+ * por vez, e as chamadas à Steam esperam no token bucket global do {@link SteamApiClient}, de modo que
+ * o orçamento diário da API vai para os usuários mais prioritários primeiro.
+ */
+@Component
+public class LibrarySyncScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(LibrarySyncScheduler.class);
+
+    private static final Duration HOT_LOGIN = Duration.ofDays(1);
+    private static final Duration WARM_LOGIN = Duration.ofDays(7);
+
+    private final UserService userService;
+    private final UserGameLibraryService userGameLibraryService;
+    private final SteamApiClient steamApiClient;
+    private final ClusterCoordinator clusterCoordinator;
+    private final Executor executor;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int workers;
+    private final int pageSize;
+    private final int maxScan;
+    private final int queueCapacity;
+    private final Duration activeWindow;
+    private final Duration hotInterval;
+    private final Duration warmInterval;
+    private final Duration coldInterval;
+    private final Duration minBackoff;
+    private final Duration maxBackoff;
+
+    // Mais prioritário primeiro; o último é descartado quando a fila passa da capacidade
+    private final ConcurrentSkipListSet<Candidate> queue = new ConcurrentSkipListSet<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    // Na fila ou em execução
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Backoff> backoffs = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private long cursor;
+
+    @Autowired
+    public LibrarySyncScheduler(UserService userService,
+                                UserGameLibraryService userGameLibraryService,
+                                SteamApiClient steamApiClient,
+                                ClusterCoordinator clusterCoordinator,
+                                @Qualifier("librarySyncExecutor") Executor executor,
+                                MeterRegistry meterRegistry,
+                                @Value("${analytics.library-sync.scheduler.enabled:false}") boolean enabled,
+                                @Value("${analytics.library-sync.scheduler.workers:4}") int workers,
+                                @Value("${analytics.library-sync.scheduler.page-size:1000}") int pageSize,
+                                @Value("${analytics.library-sync.scheduler.max-scan:50000}") int maxScan,
+                                @Value("${analytics.library-sync.scheduler.queue-capacity:10000}") int queueCapacity,
+                                @Value("${analytics.library-sync.scheduler.active-window:30d}") Duration activeWindow,
+                                @Value("${analytics.library-sync.scheduler.hot-interval:1h}") Duration hotInterval,
+                                @Value("${analytics.library-sync.scheduler.warm-interval:6h}") Duration warmInterval,
+                                @Value("${analytics.library-sync.scheduler.cold-interval:24h}") Duration coldInterval,
+                                @Value("${analytics.library-sync.scheduler.min-backoff:5m}") Duration minBackoff,
+                                @Value("${analytics.library-sync.scheduler.max-backoff:12h}") Duration maxBackoff) {
+        this.userService = userService;
+        this.userGameLibraryService = userGameLibraryService;
+        this.steamApiClient = steamApiClient;
+        this.clusterCoordinator = clusterCoordinator;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.workers = workers;
+        this.pageSize = pageSize;
+        this.maxScan = maxScan;
+        this.queueCapacity = queueCapacity;
+        this.activeWindow = activeWindow;
+        this.hotInterval = hotInterval;
+        this.warmInterval = warmInterval;
+        this.coldInterval = coldInterval;
+        this.minBackoff = minBackoff;
+        this.maxBackoff = maxBackoff;
+
+        Gauge.builder("library_sync.queue_depth", queued, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("library_sync.in_flight", inFlight, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("library_sync.backoffs", backoffs, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Ciclo agendado: completa a fila e ocupa os workers livres
+     */
+    @Scheduled(fixedDelayString = "${analytics.library-sync.scheduler.poll-interval:30s}")
+    public void scheduledRun() {
+        if (enabled) {
+            fill(Instant.now());
+            dispatch();
+        }
+    }
+
+    /**
+     * Avança a varredura e enfileira os candidatos vencidos; retorna quantos usuários leu
+     */
+    synchronized int fill(Instant now) {
+        List<Integer> partitions = clusterCoordinator.ownedPartitions();
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+        int scanned = 0;
+        while (scanned < maxScan) {
+            // O intervalo mais curto filtra no banco; o alvo de cada usuário é conferido aqui
+            List<User> page = userService.findUsersForSync(activeWindow, now.minus(hotInterval), cursor,
+                    clusterCoordinator.partitionCount(), partitions, pageSize);
+            if (page.isEmpty()) {
+                cursor = 0;
+                meterRegistry.counter("library_sync.sweeps").increment();
+                break;
+            }
+            scanned += page.size();
+            for (User user : page) {
+                offer(user, now);
+            }
+            if (page.size() < pageSize) {
+                cursor = 0;
+                meterRegistry.counter("library_sync.sweeps").increment();
+                break;
+            }
+            cursor = page.get(page.size() - 1).getUserId();
+        }
+        return scanned;
+    }
+
+    /**
+     * Entrega candidatos aos workers até todos estarem ocupados ou a fila esvaziar
+     */
+    void dispatch() {
+        while (true) {
+            int running = inFlight.get();
+            if (running >= workers) {
+                return;
+            }
+            if (!inFlight.compareAndSet(running, running + 1)) {
+                continue;
+            }
+            Candidate next = queue.pollFirst();
+            if (next == null) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            queued.decrementAndGet();
+            try {
+                executor.execute(() -> sync(next));
+            } catch (RejectedExecutionException e) {
+                inFlight.decrementAndGet();
+                pending.remove(next.userId());
+                return;
+            }
+        }
+    }
+
+    private void offer(User user, Instant now) {
+        Backoff backoff = backoffs.get(user.getUserId());
+        if (backoff != null && now.isBefore(backoff.notBefore())) {
+            return;
+        }
+        double priority = priority(user.getLastLogin(), user.getLibrarySyncedAt(), now);
+        if (priority < 1.0 || !pending.add(user.getUserId())) {
+            return;
+        }
+        queue.add(new Candidate(user.getUserId(), user.getSteamId(), priority));
+        if (queued.incrementAndGet() > queueCapacity) {
+            Candidate lowest = queue.pollLast();
+            if (lowest != null) {
+                queued.decrementAndGet();
+                pending.remove(lowest.userId());
+            }
+        }
+    }
+
+    private void sync(Candidate candidate) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            // A partição pode ter passado a outro nó enquanto o usuário esperava na fila
+            if (clusterCoordinator.ownsUser(candidate.userId())) {
+                List<SteamOwnedGame> ownedGames = steamApiClient.getOwnedGames(candidate.steamId()).collectList().block();
+                userGameLibraryService.syncUserLibraryFromSteam(candidate.userId(),
+                        ownedGames != null ? ownedGames : List.of());
+                backoffs.remove(candidate.userId());
+            } else {
+                outcome = "skipped";
+            }
+        } catch (Exception e) {
+            outcome = "failure";
+            Backoff backoff = backoffs.merge(candidate.userId(), Backoff.first(minBackoff),
+                    (previous, first) -> previous.next(minBackoff, maxBackoff));
+            log.warn("Library sync failed for user {} (attempt {}), retrying after {}: {}",
+                    candidate.userId(), backoff.failures(), backoff.notBefore(), e.toString());
+        } finally {
+            sample.stop(meterRegistry.timer("library_sync.duration", "outcome", outcome));
+            meterRegistry.counter("library_sync.users", "outcome", outcome).increment();
+            pending.remove(candidate.userId());
+            inFlight.decrementAndGet();
+        }
+        dispatch();
+    }
+
+    /**
+     * Defasagem em múltiplos do intervalo alvo (vencido a partir de 1). O alvo é mais curto para
+     * quem entrou há pouco; quem nunca sincronizou conta como defasado pela janela ativa inteira.
+     */
+    double priority(Instant lastLogin, Instant syncedAt, Instant now) {
+        Duration target;
+        if (lastLogin == null) {
+            target = coldInterval;
+        } else if (lastLogin.isAfter(now.minus(HOT_LOGIN))) {
+            target = hotInterval;
+        } else if (lastLogin.isAfter(now.minus(WARM_LOGIN))) {
+            target = warmInterval;
+        } else {
+            target = coldInterval;
+        }
+        Duration staleness = syncedAt == null ? activeWindow : Duration.between(syncedAt, now);
+        return (double) staleness.toMillis() / target.toMillis();
+    }
+
+    int queueDepth() {
+        return queued.get();
+    }
+
+    record Candidate(long userId, long steamId, double priority) implements Comparable<Candidate> {
+
+        @Override
+        public int compareTo(Candidate other) {
+            int byPriority = Double.compare(other.priority, priority);
+            return byPriority != 0 ? byPriority : Long.compare(userId, other.userId);
+        }
+    }
+
+    record Backoff(int failures, Instant notBefore) {
+
+        static Backoff first(Duration minBackoff) {
+            return new Backoff(1, Instant.now().plus(minBackoff));
+        }
+
+        Backoff next(Duration minBackoff, Duration maxBackoff) {
+            Duration delay = minBackoff.multipliedBy(1L << Math.min(failures, 20));
+            return new Backoff(failures + 1, Instant.now().plus(delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay));
+        }
+    }
+}
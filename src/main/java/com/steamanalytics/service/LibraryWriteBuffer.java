@@ -0,0 +1,450 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.service.CacheDependencyRegistry.Dependency;
+import com.steamanalytics.service.UserLibraryStatsService.PlaytimeChange;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Buffer write-behind para as atualizações frequentes de tempo de jogo e last played (heartbeats dos
+ * clientes). Opcional: {@code analytics.library-writes.buffer.enabled}.
+ *
+ * As atualizações de um mesmo (usuário, jogo) se combinam num mapa particionado em stripes: o
+ * último tempo de jogo informado vence e o last played fica com o maior instante. O flush leva tudo
+ * ao banco num único UPDATE sobre {@code unnest} a cada {@code flush-interval}, ou assim que o
+ * buffer chega a {@code flush-size} entradas. Com {@code capacity} entradas o buffer está cheio e
+ * quem chega com uma chave nova faz o flush na própria thread antes de entrar (back-pressure).
+ *
+ * Cada atualização aceita vai antes para o {@link LibraryWriteJournal}; os segmentos só são apagados
+ * depois do commit do flush que os cobre, e os que restarem são reaplicados na partida. Entradas
+ * cujo jogo saiu da biblioteca antes do flush são descartadas.
+ */
+@Component
+public class LibraryWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(LibraryWriteBuffer.class);
+
+    // Trava as linhas em ordem de id antes de atualizar, para ler os valores anteriores (deltas dos rollups)
+    private static final String FLUSH_SQL =
+            "WITH pending AS (" +
+            "    SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::int[], ?::int[], ?::bigint[]) " +
+            "        AS p(user_id, game_id, playtime_total, playtime_2weeks, last_played_ms)" +
+            "), locked AS (" +
+            "    SELECT l.id, l.playtime_total AS old_total, l.playtime_2weeks AS old_two_weeks, " +
+            "           p.playtime_total, p.playtime_2weeks, p.last_played_ms " +
+            "    FROM user_game_library l JOIN pending p ON p.user_id = l.user_id AND p.game_id = l.game_id " +
+            "    ORDER BY l.id FOR UPDATE OF l" +
+            ") " +
+            "UPDATE user_game_library l SET " +
+            "playtime_total = COALESCE(k.playtime_total, l.playtime_total), " +
+            "playtime_2weeks = COALESCE(k.playtime_2weeks, l.playtime_2weeks), " +
+            "last_played = GREATEST(l.last_played, to_timestamp(k.last_played_ms / 1000.0)) " +
+            "FROM locked k WHERE l.id = k.id " +
+            "RETURNING l.user_id, l.game_id, k.old_total, k.old_two_weeks, l.playtime_total, l.playtime_2weeks";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final GameStatsService gameStatsService;
+    private final UserLibraryStatsService userLibraryStatsService;
+    private final UserService userService;
+    private final CacheDependencyRegistry cacheDependencyRegistry;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int flushSize;
+    private final int capacity;
+    private final LibraryWriteJournal journal;
+    // Segmentos anteriores a este são de execuções passadas
+    private final long firstSegment;
+
+    private final Stripe[] stripes;
+    private final AtomicInteger size = new AtomicInteger();
+    // Leitura: aceitar uma atualização (journal + mapa); escrita: esvaziar o mapa e trocar de segmento
+    private final ReentrantReadWriteLock gate = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Autowired
+    public LibraryWriteBuffer(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              GameStatsService gameStatsService,
+                              UserLibraryStatsService userLibraryStatsService,
+                              UserService userService,
+                              CacheDependencyRegistry cacheDependencyRegistry,
+                              MeterRegistry meterRegistry,
+                              @Value("${analytics.library-writes.buffer.enabled:false}") boolean enabled,
+                              @Value("${analytics.library-writes.buffer.flush-size:1000}") int flushSize,
+                              @Value("${analytics.library-writes.buffer.capacity:10000}") int capacity,
+                              @Value("${analytics.library-writes.buffer.stripes:16}") int stripes,
+                              @Value("${analytics.library-writes.buffer.journal.directory:data/library-writes}") String journalDirectory,
+                              @Value("${analytics.library-writes.buffer.journal.fsync:true}") boolean fsync) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.gameStatsService = gameStatsService;
+        this.userLibraryStatsService = userLibraryStatsService;
+        this.userService = userService;
+        this.cacheDependencyRegistry = cacheDependencyRegistry;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.flushSize = flushSize;
+        this.capacity = capacity;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        try {
+            // Aberto já aqui: o servidor aceita requisições antes do ApplicationReadyEvent
+            this.journal = enabled ? new LibraryWriteJournal(Path.of(journalDirectory), fsync) : null;
+            this.firstSegment = enabled ? journal.currentSegment() : 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open library write journal in " + journalDirectory, e);
+        }
+
+        Gauge.builder("library_write_buffer.pending", size, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Reaplica o que ficou no journal de uma execução anterior
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Em ordem de gravação entre si, mas mais antigas que o que já chegou desde a partida
+            Map<Key, Update> recovered = new HashMap<>();
+            journal.replay(firstSegment, (key, update) -> recovered.merge(key, update, Update::merge));
+            if (recovered.isEmpty()) {
+                journal.deleteUpTo(firstSegment - 1);
+                return;
+            }
+            log.info("Replaying {} buffered library updates from the journal", recovered.size());
+            recovered.forEach(this::restore);
+        } catch (IOException e) {
+            log.error("Could not replay library write journal: {}", e.getMessage());
+            return;
+        }
+        flush();
+    }
+
+    /**
+     * Aceita uma atualização de tempo de jogo (campos nulos ficam como estão) e marca o jogo como
+     * jogado agora. Retorna {@code false} quando o buffer está desligado ou não pôde aceitá-la: a
+     * escrita deve ser feita de forma síncrona.
+     */
+    public boolean submit(long userId, long gameId, Integer playtimeTotal, Integer playtimeTwoWeeks) {
+        if (!enabled) {
+            return false;
+        }
+        Key key = new Key(userId, gameId);
+        Update update = new Update(playtimeTotal, playtimeTwoWeeks, Instant.now());
+
+        // Cheio: um flush na própria thread e uma nova tentativa; sem vaga depois disso, escrita síncrona
+        for (int attempt = 0; ; attempt++) {
+            gate.readLock().lock();
+            try {
+                // Com a leitura travada nenhum flush esvazia o buffer: a chave presente continua presente
+                boolean reserved = !contains(key);
+                if (!reserved || tryReserve()) {
+                    try {
+                        journal.append(key, update);
+                    } catch (IOException e) {
+                        if (reserved) {
+                            size.decrementAndGet();
+                        }
+                        log.warn("Could not journal library update for user {} game {}: {}", userId, gameId, e.getMessage());
+                        return false;
+                    }
+                    merge(key, update, false, reserved);
+                    break;
+                }
+            } finally {
+                gate.readLock().unlock();
+            }
+            meterRegistry.counter("library_write_buffer.backpressure").increment();
+            if (attempt > 0 || !flush()) {
+                return false;
+            }
+        }
+        meterRegistry.counter("library_write_buffer.updates").increment();
+
+        // Só um chamador faz o flush por tamanho; os demais seguem
+        if (size.get() >= flushSize && flushLock.tryLock()) {
+            try {
+                flushLocked();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.library-writes.buffer.flush-interval:1s}")
+    public void scheduledFlush() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    /**
+     * Leva ao banco tudo o que está no buffer; em caso de falha as entradas voltam ao buffer
+     */
+    public boolean flush() {
+        if (!enabled) {
+            return true;
+        }
+        flushLock.lock();
+        try {
+            return flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        flush();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Could not close library write journal: {}", e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    int pending() {
+        return size.get();
+    }
+
+    private boolean flushLocked() {
+        Map<Key, Update> batch = new HashMap<>();
+        long sealed;
+        gate.writeLock().lock();
+        try {
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    batch.putAll(stripe.pending);
+                    stripe.pending.clear();
+                }
+            }
+            // O lote em voo segue contando na capacidade até ser aplicado ou devolvido
+            if (batch.isEmpty()) {
+                return true;
+            }
+            sealed = journal.rotate();
+        } catch (IOException e) {
+            batch.forEach(this::requeue);
+            log.warn("Could not rotate library write journal: {}", e.getMessage());
+            return false;
+        } finally {
+            gate.writeLock().unlock();
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            Integer applied = transactionTemplate.execute(status -> apply(batch));
+            meterRegistry.counter("library_write_buffer.rows", "outcome", "applied").increment(applied);
+            meterRegistry.counter("library_write_buffer.rows", "outcome", "dropped").increment(batch.size() - applied);
+        } catch (DataAccessException | TransactionException e) {
+            outcome = "failure";
+            // Ainda no segmento fechado, que só é apagado depois de um flush com sucesso
+            batch.forEach(this::requeue);
+            log.warn("Library write buffer flush of {} entries failed: {}", batch.size(), e.getMessage());
+            return false;
+        } finally {
+            if (!"failure".equals(outcome)) {
+                size.addAndGet(-batch.size());
+            }
+            sample.stop(meterRegistry.timer("library_write_buffer.flush", "outcome", outcome));
+        }
+
+        try {
+            journal.deleteUpTo(sealed);
+        } catch (IOException e) {
+            // Reaplicar um segmento já gravado só repete valores absolutos
+            log.warn("Could not delete applied library write journal segments: {}", e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Um UPDATE para o lote inteiro; os valores anteriores devolvidos alimentam os rollups
+     */
+    private int apply(Map<Key, Update> batch) {
+        int count = batch.size();
+        Long[] userIds = new Long[count];
+        Long[] gameIds = new Long[count];
+        Integer[] playtimeTotals = new Integer[count];
+        Integer[] playtimeTwoWeeks = new Integer[count];
+        Long[] lastPlayed = new Long[count];
+        int i = 0;
+        for (Map.Entry<Key, Update> entry : batch.entrySet()) {
+            userIds[i] = entry.getKey().userId();
+            gameIds[i] = entry.getKey().gameId();
+            playtimeTotals[i] = entry.getValue().playtimeTotal();
+            playtimeTwoWeeks[i] = entry.getValue().playtimeTwoWeeks();
+            lastPlayed[i] = entry.getValue().lastPlayed().toEpochMilli();
+            i++;
+        }
+
+        List<Applied> applied = new ArrayList<>(count);
+        jdbcTemplate.query(FLUSH_SQL, rs -> {
+            applied.add(new Applied(rs.getLong(1), rs.getLong(2),
+                    rs.getObject(3, Integer.class), rs.getObject(4, Integer.class),
+                    rs.getObject(5, Integer.class), rs.getObject(6, Integer.class)));
+        }, userIds, gameIds, playtimeTotals, playtimeTwoWeeks, lastPlayed);
+
+        if (applied.size() < count) {
+            logDropped(batch, applied);
+        }
+
+        Set<Long> touchedUsers = new HashSet<>();
+        Set<Long> changedUsers = new HashSet<>();
+        List<PlaytimeChange> playtimeChanges = new ArrayList<>(applied.size());
+        for (Applied row : applied) {
+            gameStatsService.onPlaytimeChanged(row.gameId(), row.oldTotal(), row.newTotal(),
+                    row.oldTwoWeeks(), row.newTwoWeeks());
+            playtimeChanges.add(new PlaytimeChange(row.userId(), row.oldTotal(), row.newTotal()));
+            touchedUsers.add(row.userId());
+            if (!Objects.equals(row.oldTotal(), row.newTotal()) || !Objects.equals(row.oldTwoWeeks(), row.newTwoWeeks())) {
+                changedUsers.add(row.userId());
+            }
+        }
+        // Um batch por flush, em ordem de usuário: flushes concorrentes não travam os rollups em ordens cruzadas
+        userLibraryStatsService.onPlaytimesChanged(playtimeChanges);
+        cacheDependencyRegistry.invalidate(touchedUsers.stream().map(Dependency::library).toList());
+        userService.clearLibraryFingerprints(changedUsers);
+        return applied.size();
+    }
+
+    /**
+     * Entradas sem linha na biblioteca (jogo removido depois de a atualização ser aceita com 202)
+     */
+    private static void logDropped(Map<Key, Update> batch, List<Applied> applied) {
+        Set<Key> matched = new HashSet<>(applied.size() * 2);
+        applied.forEach(row -> matched.add(new Key(row.userId(), row.gameId())));
+        List<Key> dropped = batch.keySet().stream().filter(key -> !matched.contains(key)).toList();
+        log.warn("Dropped {} buffered library updates with no library row, e.g. {}",
+                dropped.size(), dropped.subList(0, Math.min(5, dropped.size())));
+    }
+
+    private boolean contains(Key key) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            return stripe.pending.containsKey(key);
+        }
+    }
+
+    /**
+     * Devolve ao buffer uma atualização mais antiga que as que já estão lá (flush que falhou, journal)
+     */
+    private void restore(Key key, Update older) {
+        // Não pode ser recusada: pode passar da capacidade até o próximo flush
+        merge(key, older, true, false);
+    }
+
+    /**
+     * Devolve ao buffer uma entrada de um flush que falhou; a vaga dela nunca deixou de ser contada
+     */
+    private void requeue(Key key, Update older) {
+        merge(key, older, true, true);
+    }
+
+    /**
+     * Reserva a vaga de uma chave nova; {@code size} conta entradas e vagas reservadas
+     */
+    private boolean tryReserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * {@code reserved}: a vaga já foi contada; é devolvida se outro chamador inseriu a chave antes
+     */
+    private void merge(Key key, Update update, boolean older, boolean reserved) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            Update current = stripe.pending.get(key);
+            if (current == null) {
+                stripe.pending.put(key, update);
+                if (!reserved) {
+                    size.incrementAndGet();
+                }
+            } else {
+                stripe.pending.put(key, older ? update.merge(current) : current.merge(update));
+                if (reserved) {
+                    size.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    private Stripe stripe(Key key) {
+        return stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    }
+
+    private static final class Stripe {
+        final Map<Key, Update> pending = new HashMap<>();
+    }
+
+    record Key(long userId, long gameId) {
+    }
+
+    /**
+     * Atualização pendente; tempos nulos mantêm o valor gravado
+     */
+    record Update(Integer playtimeTotal, Integer playtimeTwoWeeks, Instant lastPlayed) {
+
+        Update merge(Update newer) {
+            return new Update(
+                    newer.playtimeTotal != null ? newer.playtimeTotal : playtimeTotal,
+                    newer.playtimeTwoWeeks != null ? newer.playtimeTwoWeeks : playtimeTwoWeeks,
+                    newer.lastPlayed.isAfter(lastPlayed) ? newer.lastPlayed : lastPlayed);
+        }
+    }
+
+    private record Applied(long userId, long gameId, Integer oldTotal, Integer oldTwoWeeks,
+                           Integer newTotal, Integer newTwoWeeks) {
+    }
+}
@@ -0,0 +1,278 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.service.LibraryWriteBuffer.Key;
+import com.steamanalytics.service.LibraryWriteBuffer.Update;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal append-only das atualizações aceitas pelo {@link LibraryWriteBuffer}, em segmentos
+ * numerados ({@code library-writes-<n>.journal}). Cada flush fecha o segmento corrente e, depois
+ * do commit, apaga os segmentos até ele; o que sobrar no diretório na partida ainda não chegou ao
+ * banco e é reaplicado.
+ *
+ * Os registros têm tamanho fixo e terminam com um CRC32: um registro truncado ou corrompido (queda
+ * no meio de uma escrita) encerra a leitura do segmento.
+ *
+ * Com {@code fsync} o disco é sincronizado em grupo: as escritas seguem enquanto um {@code force}
+ * roda, e o próximo {@code force} cobre todos os registros que chegaram nesse meio tempo. Cada
+ * {@link #append} só retorna quando um {@code force} iniciado depois da sua escrita terminou.
+ */
+final class LibraryWriteJournal implements Closeable {
+
+    // userId, gameId, tempo total, tempo em 2 semanas, last played (epoch ms), CRC
+    static final int RECORD_SIZE = 8 + 8 + 4 + 4 + 8 + 4;
+
+    private static final int NULL_PLAYTIME = Integer.MIN_VALUE;
+    private static final String PREFIX = "library-writes-";
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final boolean fsync;
+
+    // Escrita: registro, canal e segmento corrente
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private long segment;
+    private long written;
+
+    // Sincronização: no máximo um force (ou troca de segmento) por vez; os demais esperam o resultado
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncDone = syncLock.newCondition();
+    private boolean syncing;
+    private long synced;
+
+    LibraryWriteJournal(Path directory, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        this.segment = segments().stream().mapToLong(Long::longValue).max().orElse(0) + 1;
+        this.channel = open(segment);
+    }
+
+    /**
+     * Grava a atualização no segmento corrente; com {@code fsync} só retorna depois de chegar ao disco
+     */
+    void append(Key key, Update update) throws IOException {
+        long sequence;
+        writeLock.lock();
+        try {
+            record.clear();
+            record.putLong(key.userId())
+                    .putLong(key.gameId())
+                    .putInt(update.playtimeTotal() != null ? update.playtimeTotal() : NULL_PLAYTIME)
+                    .putInt(update.playtimeTwoWeeks() != null ? update.playtimeTwoWeeks() : NULL_PLAYTIME)
+                    .putLong(update.lastPlayed().toEpochMilli());
+            crc.reset();
+            crc.update(record.array(), 0, RECORD_SIZE - 4);
+            record.putInt((int) crc.getValue());
+            record.flip();
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            sequence = ++written;
+        } finally {
+            writeLock.unlock();
+        }
+        if (fsync) {
+            awaitDurable(sequence);
+        }
+    }
+
+    /**
+     * Fecha o segmento corrente e abre o próximo; retorna o número do segmento fechado
+     */
+    long rotate() throws IOException {
+        beginSync();
+        long durable = -1;
+        try {
+            writeLock.lock();
+            try {
+                FileChannel next = open(segment + 1);
+                if (fsync) {
+                    channel.force(false);
+                    durable = written;
+                }
+                channel.close();
+                channel = next;
+                return segment++;
+            } finally {
+                writeLock.unlock();
+            }
+        } finally {
+            endSync(durable);
+        }
+    }
+
+    /**
+     * Apaga os segmentos já aplicados no banco (até {@code last}, inclusive)
+     */
+    void deleteUpTo(long last) throws IOException {
+        for (long number : segments()) {
+            if (number <= last) {
+                Files.deleteIfExists(path(number));
+            }
+        }
+    }
+
+    /**
+     * Lê, em ordem, os registros dos segmentos anteriores a {@code before}
+     */
+    void replay(long before, BiConsumer<Key, Update> consumer) throws IOException {
+        for (long number : segments()) {
+            if (number < before) {
+                read(path(number), consumer);
+            }
+        }
+    }
+
+    long currentSegment() {
+        writeLock.lock();
+        try {
+            return segment;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            channel.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Espera até o registro {@code sequence} estar no disco; quem encontra o disco livre faz o force
+     * para todos os registros escritos até ali
+     */
+    private void awaitDurable(long sequence) throws IOException {
+        syncLock.lock();
+        try {
+            while (synced < sequence) {
+                if (syncing) {
+                    syncDone.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                syncLock.unlock();
+                long durable = -1;
+                try {
+                    FileChannel target;
+                    long upTo;
+                    writeLock.lock();
+                    try {
+                        target = channel;
+                        upTo = written;
+                    } finally {
+                        writeLock.unlock();
+                    }
+                    target.force(false);
+                    durable = upTo;
+                } finally {
+                    syncLock.lock();
+                    finishSync(durable);
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void beginSync() {
+        syncLock.lock();
+        try {
+            while (syncing) {
+                syncDone.awaitUninterruptibly();
+            }
+            syncing = true;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void endSync(long durable) {
+        syncLock.lock();
+        try {
+            finishSync(durable);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Libera o disco e acorda quem espera; {@code durable} negativo: nada novo chegou ao disco
+     */
+    private void finishSync(long durable) {
+        synced = Math.max(synced, durable);
+        syncing = false;
+        syncDone.signalAll();
+    }
+
+    private static void read(Path file, BiConsumer<Key, Update> consumer) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        CRC32 checksum = new CRC32();
+        while (data.remaining() >= RECORD_SIZE) {
+            int start = data.position();
+            checksum.reset();
+            checksum.update(data.array(), start, RECORD_SIZE - 4);
+            if (data.getInt(start + RECORD_SIZE - 4) != (int) checksum.getValue()) {
+                return;
+            }
+            Key key = new Key(data.getLong(), data.getLong());
+            int playtimeTotal = data.getInt();
+            int playtimeTwoWeeks = data.getInt();
+            Instant lastPlayed = Instant.ofEpochMilli(data.getLong());
+            data.getInt();
+            consumer.accept(key, new Update(
+                    playtimeTotal != NULL_PLAYTIME ? playtimeTotal : null,
+                    playtimeTwoWeeks != NULL_PLAYTIME ? playtimeTwoWeeks : null,
+                    lastPlayed));
+        }
+    }
+
+    private FileChannel open(long number) throws IOException {
+        return FileChannel.open(path(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private Path path(long number) {
+        return directory.resolve(PREFIX + String.format("%019d", number) + SUFFIX);
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            numbers.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                        } catch (NumberFormatException e) {
+                            // Arquivo alheio com o mesmo prefixo
+                        }
+                    });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+}
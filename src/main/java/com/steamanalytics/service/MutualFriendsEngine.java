@@ -0,0 +1,161 @@
+package com.steamanalytics.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Amigos mútuos por interseção dos conjuntos ordenados de amigos do {@link FriendGraphIndex}.
+ * Usa merge linear quando os conjuntos têm tamanhos próximos e busca galopante
+ * (exponencial + binária) quando um deles é muito menor que o outro.
+ */
+@Component
+public class MutualFriendsEngine {
+
+    /**
+     * Acima desta razão entre os tamanhos a busca galopante supera o merge linear
+     */
+    static final int GALLOP_RATIO = 8;
+
+    private final FriendGraphIndex friendGraphIndex;
+
+    @Autowired
+    public MutualFriendsEngine(FriendGraphIndex friendGraphIndex) {
+        this.friendGraphIndex = friendGraphIndex;
+    }
+
+    public boolean isReady() {
+        return friendGraphIndex.isReady();
+    }
+
+    /**
+     * IDs dos amigos mútuos em ordem crescente
+     */
+    public long[] mutualFriendIds(long userId1, long userId2) {
+        return intersect(friendGraphIndex.friendIds(userId1), friendGraphIndex.friendIds(userId2));
+    }
+
+    public int countMutualFriends(long userId1, long userId2) {
+        return intersectionSize(friendGraphIndex.friendIds(userId1), friendGraphIndex.friendIds(userId2));
+    }
+
+    /**
+     * Contagem de amigos mútuos entre um usuário e vários outros; os amigos dele são lidos uma única vez
+     */
+    public Map<Long, Integer> countMutualFriends(Long userId, Collection<Long> otherUserIds) {
+        long[] friends = friendGraphIndex.friendIds(userId);
+        Map<Long, Integer> counts = new LinkedHashMap<>();
+        for (Long otherUserId : otherUserIds) {
+            counts.put(otherUserId, intersectionSize(friends, friendGraphIndex.friendIds(otherUserId)));
+        }
+        return counts;
+    }
+
+    /**
+     * Interseção de dois arrays ordenados sem repetição
+     */
+    static long[] intersect(long[] a, long[] b) {
+        long[] small = a.length <= b.length ? a : b;
+        long[] large = small == a ? b : a;
+        long[] result = new long[small.length];
+        int size = 0;
+
+        if (small.length == 0) {
+            return result;
+        }
+        if ((long) small.length * GALLOP_RATIO < large.length) {
+            int from = 0;
+            for (long value : small) {
+                from = gallop(large, from, value);
+                if (from >= large.length) {
+                    break;
+                }
+                if (large[from] == value) {
+                    result[size++] = value;
+                    from++;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < small.length && j < large.length) {
+                if (small[i] < large[j]) {
+                    i++;
+                } else if (small[i] > large[j]) {
+                    j++;
+                } else {
+                    result[size++] = small[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Tamanho da interseção de dois arrays ordenados sem repetição, sem alocar o resultado
+     */
+    static int intersectionSize(long[] a, long[] b) {
+        long[] small = a.length <= b.length ? a : b;
+        long[] large = small == a ? b : a;
+        int count = 0;
+
+        if ((long) small.length * GALLOP_RATIO < large.length) {
+            int from = 0;
+            for (long value : small) {
+                from = gallop(large, from, value);
+                if (from >= large.length) {
+                    break;
+                }
+                if (large[from] == value) {
+                    count++;
+                    from++;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < small.length && j < large.length) {
+                if (small[i] < large[j]) {
+                    i++;
+                } else if (small[i] > large[j]) {
+                    j++;
+                } else {
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Primeira posição a partir de {@code from} com valor >= {@code target}:
+     * passos exponenciais até ultrapassar o alvo e busca binária no último intervalo
+     */
+    static int gallop(long[] values, int from, long target) {
+        if (from >= values.length || values[from] >= target) {
+            return from;
+        }
+
+        int step = 1;
+        int low = from;
+        int high = from + 1;
+        while (high < values.length && values[high] < target) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        high = Math.min(high, values.length);
+
+        // values[low] < target e (high == length ou values[high] >= target)
+        int position = Arrays.binarySearch(values, low + 1, high, target);
+        return position >= 0 ? position : -position - 1;
+    }
+}
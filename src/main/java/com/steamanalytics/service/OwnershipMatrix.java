@@ -0,0 +1,153 @@
+package com.steamanalytics.service;
+
+import java.util.Arrays;
+
+/**
+ * Matriz bipartida jogo x usuário das bibliotecas em CSR nos dois sentidos:
+ * donos de cada jogo e jogos de cada usuário, ambos como índices {@code int}.
+ *
+ * Uma matriz parcial (só as bibliotecas de parte dos usuários) leva o total de donos de cada jogo
+ * à parte, em {@link #withOwnerCounts}, para que as métricas usem o total e não só os donos carregados.
+ */
+final class OwnershipMatrix {
+
+    final long[] gameIds;
+    final int[] gameOffsets;
+    final int[] owners;
+    final int[] userOffsets;
+    final int[] libraries;
+    // Total de donos por jogo quando a matriz é parcial (nulo: os donos carregados são todos)
+    private final int[] totalOwners;
+
+    private OwnershipMatrix(long[] gameIds, int[] gameOffsets, int[] owners, int[] userOffsets, int[] libraries,
+                            int[] totalOwners) {
+        this.gameIds = gameIds;
+        this.gameOffsets = gameOffsets;
+        this.owners = owners;
+        this.userOffsets = userOffsets;
+        this.libraries = libraries;
+        this.totalOwners = totalOwners;
+    }
+
+    /**
+     * A mesma matriz com o total de donos de cada jogo ({@code totals[i]} para {@code gameIds[i]}),
+     * nunca menor que os donos carregados
+     */
+    OwnershipMatrix withOwnerCounts(int[] totals) {
+        if (totals.length != gameIds.length) {
+            throw new IllegalArgumentException("Expected " + gameIds.length + " owner counts, got " + totals.length);
+        }
+        int[] counts = new int[totals.length];
+        for (int game = 0; game < counts.length; game++) {
+            counts[game] = Math.max(totals[game], loadedOwnerCount(game));
+        }
+        return new OwnershipMatrix(gameIds, gameOffsets, owners, userOffsets, libraries, counts);
+    }
+
+    int gameCount() {
+        return gameIds.length;
+    }
+
+    int userCount() {
+        return userOffsets.length - 1;
+    }
+
+    int indexOfGame(long gameId) {
+        return Arrays.binarySearch(gameIds, gameId);
+    }
+
+    /**
+     * Total de donos do jogo
+     */
+    int ownerCount(int game) {
+        return totalOwners != null ? totalOwners[game] : loadedOwnerCount(game);
+    }
+
+    /**
+     * Donos do jogo presentes na matriz
+     */
+    int loadedOwnerCount(int game) {
+        return gameOffsets[game + 1] - gameOffsets[game];
+    }
+
+    int librarySize(int user) {
+        return userOffsets[user + 1] - userOffsets[user];
+    }
+
+    long rows() {
+        return owners.length;
+    }
+
+    /**
+     * Acumula pares (jogo, usuário) em arrays primitivos
+     */
+    static final class Builder {
+
+        private long[] gameIdsByRow;
+        private long[] userIdsByRow;
+        private int size;
+
+        Builder(int expectedRows) {
+            int capacity = Math.max(expectedRows, 16);
+            this.gameIdsByRow = new long[capacity];
+            this.userIdsByRow = new long[capacity];
+        }
+
+        Builder add(long gameId, long userId) {
+            if (size == gameIdsByRow.length) {
+                int capacity = gameIdsByRow.length + (gameIdsByRow.length >> 1);
+                gameIdsByRow = Arrays.copyOf(gameIdsByRow, capacity);
+                userIdsByRow = Arrays.copyOf(userIdsByRow, capacity);
+            }
+            gameIdsByRow[size] = gameId;
+            userIdsByRow[size] = userId;
+            size++;
+            return this;
+        }
+
+        OwnershipMatrix build() {
+            long[] gameIds = sortedUnique(gameIdsByRow, size);
+            long[] userIds = sortedUnique(userIdsByRow, size);
+
+            int[] gameIndexByRow = new int[size];
+            int[] userIndexByRow = new int[size];
+            int[] gameOffsets = new int[gameIds.length + 1];
+            int[] userOffsets = new int[userIds.length + 1];
+            for (int row = 0; row < size; row++) {
+                gameIndexByRow[row] = Arrays.binarySearch(gameIds, gameIdsByRow[row]);
+                userIndexByRow[row] = Arrays.binarySearch(userIds, userIdsByRow[row]);
+                gameOffsets[gameIndexByRow[row] + 1]++;
+                userOffsets[userIndexByRow[row] + 1]++;
+            }
+            for (int game = 0; game < gameIds.length; game++) {
+                gameOffsets[game + 1] += gameOffsets[game];
+            }
+            for (int user = 0; user < userIds.length; user++) {
+                userOffsets[user + 1] += userOffsets[user];
+            }
+
+            int[] owners = new int[size];
+            int[] libraries = new int[size];
+            int[] gameCursor = Arrays.copyOf(gameOffsets, gameIds.length);
+            int[] userCursor = Arrays.copyOf(userOffsets, userIds.length);
+            for (int row = 0; row < size; row++) {
+                owners[gameCursor[gameIndexByRow[row]]++] = userIndexByRow[row];
+                libraries[userCursor[userIndexByRow[row]]++] = gameIndexByRow[row];
+            }
+
+            return new OwnershipMatrix(gameIds, gameOffsets, owners, userOffsets, libraries, null);
+        }
+
+        private static long[] sortedUnique(long[] values, int size) {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int unique = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, unique);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.entity.PooledSequenceGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Reserva IDs para os inserts feitos via JDBC no mesmo formato pooled-lo do
+ * {@link PooledSequenceGenerator}: cada {@code nextval} é o início de um bloco de
+ * {@code analytics.ids.block-size} IDs (o INCREMENT BY da sequence), então {@code n} linhas
+ * custam {@code ceil(n / bloco)} valores da sequence em vez de um por linha.
+ */
+@Component
+public class SequenceBlockAllocator {
+
+    private static final String NEXT_BLOCKS_SQL = "SELECT nextval(?::regclass) FROM generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int blockSize;
+
+    @Autowired
+    public SequenceBlockAllocator(JdbcTemplate jdbcTemplate,
+                                  @Value("${analytics.ids.block-size:" + PooledSequenceGenerator.DEFAULT_BLOCK_SIZE + "}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Reserva {@code count} IDs da sequence em uma consulta
+     */
+    public long[] allocate(String sequenceName, int count) {
+        if (count <= 0) {
+            return new long[0];
+        }
+        int blocks = (count + blockSize - 1) / blockSize;
+        List<Long> starts = jdbcTemplate.queryForList(NEXT_BLOCKS_SQL, Long.class, sequenceName, blocks);
+
+        long[] ids = new long[count];
+        int next = 0;
+        for (Long start : starts) {
+            for (int offset = 0; offset < blockSize && next < count; offset++) {
+                ids[next++] = start + offset;
+            }
+        }
+        if (next < count) {
+            throw new IllegalStateException("Sequence " + sequenceName + " returned " + starts.size()
+                    + " blocks, expected " + blocks);
+        }
+        return ids;
+    }
+}
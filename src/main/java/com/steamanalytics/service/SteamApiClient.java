@@ -0,0 +1,224 @@
+package com.steamanalytics.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.steamanalytics.model.dto.SteamFriend;
+import com.steamanalytics.model.dto.SteamOwnedGame;
+import com.steamanalytics.model.dto.SteamPlayerSummary;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriBuilder;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cliente não bloqueante da Steam Web API sobre o {@code steamWebClient}.
+ *
+ * Cada chamada passa, nesta ordem, pelo token bucket do usuário ({@code steam.api.rate-limit.per-user}),
+ * pelo global ({@code steam.api.rate-limit.global}) e por um limite de chamadas em voo; nenhuma etapa
+ * prende thread, as esperas são timers do Reactor. Falhas transitórias (429, 5xx, timeout, conexão)
+ * são repetidas com backoff exponencial e jitter, desde que nenhum elemento tenha sido entregue. As
+ * respostas são decodificadas elemento a elemento, sem montar o corpo inteiro em memória.
+ */
+@Component
+public class SteamApiClient {
+
+    private static final Logger log = LoggerFactory.getLogger(SteamApiClient.class);
+
+    // Limite do GetPlayerSummaries por chamada
+    static final int MAX_SUMMARIES_PER_CALL = 100;
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final String apiKey;
+    private final TokenBucket globalBucket;
+    private final Cache<Long, TokenBucket> userBuckets;
+    private final long perUserLimit;
+    private final Duration perUserPeriod;
+    private final ConcurrencyLimiter limiter;
+    private final int maxRetries;
+    private final Duration minBackoff;
+    private final Duration timeout;
+
+    @Autowired
+    public SteamApiClient(@Qualifier("steamWebClient") WebClient webClient,
+                          ObjectMapper objectMapper,
+                          @Value("${steam.api.key}") String apiKey,
+                          @Value("${steam.api.rate-limit.global:100000}") long globalLimit,
+                          @Value("${steam.api.rate-limit.global-period:1d}") Duration globalPeriod,
+                          @Value("${steam.api.rate-limit.per-user:1}") long perUserLimit,
+                          @Value("${steam.api.rate-limit.per-user-period:1s}") Duration perUserPeriod,
+                          @Value("${steam.api.max-concurrency:8}") int maxConcurrency,
+                          @Value("${steam.api.retry.max-attempts:3}") int maxRetries,
+                          @Value("${steam.api.retry.min-backoff:500ms}") Duration minBackoff,
+                          @Value("${steam.api.timeout:10s}") Duration timeout) {
+        this.webClient = webClient;
+        this.objectMapper = objectMapper;
+        this.apiKey = apiKey;
+        this.globalBucket = new TokenBucket(globalLimit, globalPeriod);
+        this.perUserLimit = perUserLimit;
+        this.perUserPeriod = perUserPeriod;
+        // Um bucket ocioso por mais de um período já está cheio: descartá-lo não muda nada
+        this.userBuckets = Caffeine.newBuilder()
+                .expireAfterAccess(perUserPeriod.compareTo(Duration.ofMinutes(1)) > 0 ? perUserPeriod : Duration.ofMinutes(1))
+                .maximumSize(100_000)
+                .build();
+        this.limiter = new ConcurrencyLimiter(maxConcurrency);
+        this.maxRetries = maxRetries;
+        this.minBackoff = minBackoff;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Biblioteca do usuário (com nome e tempos de jogo); perfis privados vêm vazios
+     */
+    public Flux<SteamOwnedGame> getOwnedGames(long steamId) {
+        return call(steamId, uri -> uri.path("/IPlayerService/GetOwnedGames/v1/")
+                        .queryParam("steamid", steamId)
+                        .queryParam("include_appinfo", 1)
+                        .queryParam("include_played_free_games", 1),
+                SteamOwnedGame.class, false, "response", "games");
+    }
+
+    /**
+     * Amigos do usuário; perfis privados (401 na Steam) vêm vazios
+     */
+    public Flux<SteamFriend> getFriendList(long steamId) {
+        return call(steamId, uri -> uri.path("/ISteamUser/GetFriendList/v1/")
+                        .queryParam("steamid", steamId)
+                        .queryParam("relationship", "friend"),
+                SteamFriend.class, true, "friendslist", "friends");
+    }
+
+    /**
+     * Perfis públicos, em chamadas de até 100 Steam IDs (só o limite global se aplica)
+     */
+    public Flux<SteamPlayerSummary> getPlayerSummaries(Collection<Long> steamIds) {
+        List<List<Long>> chunks = new ArrayList<>();
+        List<Long> ids = List.copyOf(steamIds);
+        for (int from = 0; from < ids.size(); from += MAX_SUMMARIES_PER_CALL) {
+            chunks.add(ids.subList(from, Math.min(from + MAX_SUMMARIES_PER_CALL, ids.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .flatMap(chunk -> call(null, uri -> uri.path("/ISteamUser/GetPlayerSummaries/v2/")
+                                .queryParam("steamids", chunk.stream().map(String::valueOf).collect(Collectors.joining(","))),
+                        SteamPlayerSummary.class, false, "response", "players"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        limiter.dispose();
+    }
+
+    private <T> Flux<T> call(Long steamId, Function<UriBuilder, UriBuilder> uri, Class<T> type,
+                             boolean emptyWhenPrivate, String... path) {
+        Flux<T> attempt = throttle(steamId).thenMany(limiter.limit(Flux.defer(() -> webClient.get()
+                .uri(builder -> build(uri.apply(builder)))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchangeToFlux(response -> {
+                    if (response.statusCode().is2xxSuccessful()) {
+                        return JsonArrayStreamer.stream(response.bodyToFlux(DataBuffer.class), objectMapper, type, path);
+                    }
+                    if (emptyWhenPrivate && response.statusCode().value() == HttpStatus.UNAUTHORIZED.value()) {
+                        return response.releaseBody().thenMany(Flux.<T>empty());
+                    }
+                    return response.<T>createError().flux();
+                })
+                .timeout(timeout))));
+
+        return Flux.defer(() -> {
+            // Repetir depois de entregar elementos duplicaria a resposta
+            AtomicBoolean emitted = new AtomicBoolean();
+            return attempt.doOnNext(item -> emitted.set(true))
+                    .retryWhen(Retry.backoff(maxRetries, minBackoff)
+                            .maxBackoff(minBackoff.multipliedBy(20))
+                            .jitter(0.5)
+                            .filter(error -> !emitted.get() && isTransient(error))
+                            .doBeforeRetry(signal -> log.debug("Retrying Steam API call (attempt {}): {}",
+                                    signal.totalRetries() + 1, signal.failure().toString()))
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+        });
+    }
+
+    private URI build(UriBuilder builder) {
+        return builder.queryParam("key", apiKey).queryParam("format", "json").build();
+    }
+
+    private Mono<Void> throttle(Long steamId) {
+        Mono<Void> perUser = steamId == null ? Mono.empty() : Mono.defer(() -> delay(
+                userBuckets.get(steamId, id -> new TokenBucket(perUserLimit, perUserPeriod)).reserve()));
+        return perUser.then(Mono.defer(() -> delay(globalBucket.reserve())));
+    }
+
+    private static Mono<Void> delay(Duration wait) {
+        return wait.isZero() ? Mono.empty() : Mono.delay(wait).then();
+    }
+
+    static boolean isTransient(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()
+                    || response.getStatusCode().is5xxServerError();
+        }
+        return error instanceof WebClientRequestException || error instanceof TimeoutException;
+    }
+
+    /**
+     * Limita as chamadas em voo sem bloquear: cada chamada vira uma tarefa numa fila drenada por um
+     * flatMap com concorrência máxima, e os elementos voltam ao chamador por um sink próprio
+     */
+    static final class ConcurrencyLimiter {
+
+        private final Sinks.Many<Mono<Void>> tasks = Sinks.many().unicast().onBackpressureBuffer();
+        private final Disposable drain;
+
+        ConcurrencyLimiter(int maxConcurrency) {
+            this.drain = tasks.asFlux().flatMap(Function.identity(), maxConcurrency).subscribe();
+        }
+
+        <T> Flux<T> limit(Flux<T> source) {
+            return Flux.defer(() -> {
+                Sinks.Many<T> output = Sinks.many().unicast().onBackpressureBuffer();
+                Sinks.One<Boolean> cancelled = Sinks.one();
+                Mono<Void> task = source
+                        .takeUntilOther(cancelled.asMono())
+                        .doOnNext(output::tryEmitNext)
+                        .doOnError(output::tryEmitError)
+                        .doOnComplete(output::tryEmitComplete)
+                        .onErrorResume(error -> Mono.empty())
+                        .then();
+                tasks.emitNext(task, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+                return output.asFlux().doOnCancel(() -> cancelled.tryEmitValue(true));
+            });
+        }
+
+        void dispose() {
+            tasks.tryEmitComplete();
+            drain.dispose();
+        }
+    }
+}
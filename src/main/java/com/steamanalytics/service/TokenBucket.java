@@ -0,0 +1,48 @@
+package com.steamanalytics.service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket com reserva: quem pede uma ficha sempre a recebe, junto com o tempo a esperar até
+ * ela existir. O saldo pode ficar negativo, então pedidos concorrentes formam uma fila implícita
+ * sem que ninguém precise bloquear uma thread.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier clock;
+
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * {@code limit} fichas a cada {@code period}, com rajada de até {@code limit}
+     */
+    TokenBucket(long limit, Duration period) {
+        this(limit, period, System::nanoTime);
+    }
+
+    TokenBucket(long limit, Duration period, LongSupplier clock) {
+        if (limit <= 0 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Rate limit must be positive: " + limit + " per " + period);
+        }
+        this.capacity = limit;
+        this.tokensPerNano = (double) limit / period.toNanos();
+        this.clock = clock;
+        this.tokens = limit;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    /**
+     * Reserva uma ficha; devolve a espera até ela ficar disponível ({@link Duration#ZERO} se já está)
+     */
+    synchronized Duration reserve() {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        tokens -= 1;
+        return tokens >= 0 ? Duration.ZERO : Duration.ofNanos((long) Math.ceil(-tokens / tokensPerNano));
+    }
+}
@@ -0,0 +1,112 @@
+package com.steamanalytics.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Heap mínimo de tamanho fixo sobre arrays primitivos que mantém os K maiores scores
+ * (empate: menor ID primeiro, para resultados determinísticos).
+ */
+final class TopK {
+
+    private final long[] ids;
+    private final double[] scores;
+    private int size;
+
+    TopK(int capacity) {
+        this.ids = new long[capacity];
+        this.scores = new double[capacity];
+    }
+
+    void offer(long id, double score) {
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && ranksAbove(id, score, ids[0], scores[0])) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Esvazia o heap retornando os itens do melhor para o pior
+     */
+    Ranked drainDescending() {
+        long[] rankedIds = new long[size];
+        double[] rankedScores = new double[size];
+        for (int i = size - 1; i >= 0; i--) {
+            rankedIds[i] = ids[0];
+            rankedScores[i] = scores[0];
+            size--;
+            ids[0] = ids[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+        return new Ranked(rankedIds, rankedScores);
+    }
+
+    private static boolean ranksAbove(long id, double score, long otherId, double otherScore) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksAbove(ids[parent], scores[parent], ids[index], scores[index])) {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = index * 2 + 1;
+            if (left >= size) {
+                return;
+            }
+            int right = left + 1;
+            int lowest = right < size && ranksAbove(ids[left], scores[left], ids[right], scores[right])
+                    ? right : left;
+            if (!ranksAbove(ids[index], scores[index], ids[lowest], scores[lowest])) {
+                return;
+            }
+            swap(index, lowest);
+            index = lowest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        double score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+
+    /**
+     * Itens em arrays paralelos, do maior para o menor score
+     */
+    static final class Ranked {
+
+        final long[] ids;
+        final double[] scores;
+
+        Ranked(long[] ids, double[] scores) {
+            this.ids = ids;
+            this.scores = scores;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        List<Long> idList() {
+            return Arrays.stream(ids).boxed().toList();
+        }
+    }
+}
@@ -1,17 +1,27 @@
 package com.steamanalytics.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.steamanalytics.model.dto.CursorPage;
+import com.steamanalytics.model.dto.SteamOwnedGame;
 import com.steamanalytics.model.entity.Game;
+import com.steamanalytics.model.entity.GameSimilarity;
 import com.steamanalytics.model.entity.User;
 import com.steamanalytics.model.entity.UserGameLibrary;
 import com.steamanalytics.repository.UserGameLibraryRepository;
+import com.steamanalytics.service.CacheDependencyRegistry.Dependency;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -20,28 +30,60 @@ import java.util.Optional;
 @Transactional
 public class UserGameLibraryService {
 
+    static final int MAX_PAGE_SIZE = 100;
+
+    // (usuário, jogo) já vistos na biblioteca: os heartbeats repetem o mesmo par e não voltam ao banco
+    private final Cache<LibraryWriteBuffer.Key, Boolean> knownLibraryRows = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .maximumSize(100_000)
+            .build();
+
     private final UserGameLibraryRepository userGameLibraryRepository;
     private final UserService userService;
     private final GameService gameService;
+    private final UserLibraryStatsService userLibraryStatsService;
+    private final GameStatsService gameStatsService;
+    private final LibraryBulkSyncer libraryBulkSyncer;
+    private final GameSimilarityService gameSimilarityService;
+    private final CacheDependencyRegistry cacheDependencyRegistry;
+    private final CacheLoadCoordinator cacheLoadCoordinator;
+    private final LibraryWriteBuffer libraryWriteBuffer;
+    private final boolean bulkSyncEnabled;
 
     @Autowired
     public UserGameLibraryService(UserGameLibraryRepository userGameLibraryRepository,
                                   UserService userService,
-                                  GameService gameService) {
+                                  GameService gameService,
+                                  UserLibraryStatsService userLibraryStatsService,
+                                  GameStatsService gameStatsService,
+                                  LibraryBulkSyncer libraryBulkSyncer,
+                                  GameSimilarityService gameSimilarityService,
+                                  CacheDependencyRegistry cacheDependencyRegistry,
+                                  CacheLoadCoordinator cacheLoadCoordinator,
+                                  LibraryWriteBuffer libraryWriteBuffer,
+                                  @Value("${analytics.library-sync.bulk-enabled:true}") boolean bulkSyncEnabled) {
         this.userGameLibraryRepository = userGameLibraryRepository;
         this.userService = userService;
         this.gameService = gameService;
+        this.userLibraryStatsService = userLibraryStatsService;
+        this.gameStatsService = gameStatsService;
+        this.libraryBulkSyncer = libraryBulkSyncer;
+        this.gameSimilarityService = gameSimilarityService;
+        this.cacheDependencyRegistry = cacheDependencyRegistry;
+        this.cacheLoadCoordinator = cacheLoadCoordinator;
+        this.libraryWriteBuffer = libraryWriteBuffer;
+        this.bulkSyncEnabled = bulkSyncEnabled;
     }
 
     /**
      * Adiciona jogo à biblioteca do usuário
      */
-    @CacheEvict(value = {"userGames", "userStats"}, allEntries = true)
     public UserGameLibrary addGameToLibrary(Long userId, Long gameId, Integer playtimeTotal) {
         User user = userService.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         Game game = gameService.findById(gameId)
                 .orElseThrow(() -> new RuntimeException("Game not found"));
+        onLibraryEdited(userId);
 
         // Verificar se já existe
         Optional<UserGameLibrary> existing = userGameLibraryRepository
@@ -51,6 +93,9 @@ public class UserGameLibraryService {
             // Atualizar existente
             UserGameLibrary userGame = existing.get();
             if (playtimeTotal != null) {
+                userLibraryStatsService.onPlaytimeChanged(userId, userGame.getPlaytimeTotal(), playtimeTotal);
+                gameStatsService.onPlaytimeChanged(gameId, userGame.getPlaytimeTotal(), playtimeTotal,
+                        userGame.getPlaytimeTwoWeeks(), userGame.getPlaytimeTwoWeeks());
                 userGame.setPlaytimeTotal(playtimeTotal);
             }
             return userGameLibraryRepository.save(userGame);
@@ -58,6 +103,9 @@ public class UserGameLibraryService {
             // Criar novo
             UserGameLibrary userGame = new UserGameLibrary(user, game, playtimeTotal);
             userGame.setPurchasedAt(Instant.now());
+            userLibraryStatsService.onGameAdded(userId, playtimeTotal);
+            gameStatsService.onGameAdded(gameId, playtimeTotal, userGame.getPlaytimeTwoWeeks());
+            gameSimilarityService.markDirty(List.of(gameId));
             return userGameLibraryRepository.save(userGame);
         }
     }
@@ -65,7 +113,6 @@ public class UserGameLibraryService {
     /**
      * Adiciona jogo à biblioteca usando Steam App ID
      */
-    @CacheEvict(value = {"userGames", "userStats"}, allEntries = true)
     public UserGameLibrary addGameToLibraryBySteamAppId(Long userId, Integer steamAppId,
                                                         Integer playtimeTotal, Integer playtimeTwoWeeks) {
         User user = userService.findById(userId)
@@ -80,24 +127,47 @@ public class UserGameLibraryService {
     /**
      * Adiciona jogo com detalhes completos
      */
-    @CacheEvict(value = {"userGames", "userStats"}, allEntries = true)
     public UserGameLibrary addGameToLibraryWithDetails(User user, Game game,
                                                        Integer playtimeTotal, Integer playtimeTwoWeeks,
                                                        Instant purchasedAt, Instant lastPlayed) {
+        onLibraryEdited(user.getUserId());
+        return upsertLibraryEntry(user, game, playtimeTotal, playtimeTwoWeeks, purchasedAt, lastPlayed, true);
+    }
+
+    /**
+     * Cria ou atualiza a entrada da biblioteca; {@code updateStats} aplica o delta no rollup
+     */
+    private UserGameLibrary upsertLibraryEntry(User user, Game game,
+                                               Integer playtimeTotal, Integer playtimeTwoWeeks,
+                                               Instant purchasedAt, Instant lastPlayed, boolean updateStats) {
         Optional<UserGameLibrary> existing = userGameLibraryRepository
                 .findByUserUserIdAndGameGameId(user.getUserId(), game.getGameId());
 
         UserGameLibrary userGame;
         if (existing.isPresent()) {
             userGame = existing.get();
-            userGame.setPlaytimeTotal(playtimeTotal != null ? playtimeTotal : userGame.getPlaytimeTotal());
-            userGame.setPlaytimeTwoWeeks(playtimeTwoWeeks != null ? playtimeTwoWeeks : userGame.getPlaytimeTwoWeeks());
+            if (updateStats && playtimeTotal != null) {
+                userLibraryStatsService.onPlaytimeChanged(user.getUserId(), userGame.getPlaytimeTotal(), playtimeTotal);
+            }
+            Integer newPlaytimeTotal = playtimeTotal != null ? playtimeTotal : userGame.getPlaytimeTotal();
+            Integer newPlaytimeTwoWeeks = playtimeTwoWeeks != null ? playtimeTwoWeeks : userGame.getPlaytimeTwoWeeks();
+            if (updateStats) {
+                gameStatsService.onPlaytimeChanged(game.getGameId(), userGame.getPlaytimeTotal(), newPlaytimeTotal,
+                        userGame.getPlaytimeTwoWeeks(), newPlaytimeTwoWeeks);
+            }
+            userGame.setPlaytimeTotal(newPlaytimeTotal);
+            userGame.setPlaytimeTwoWeeks(newPlaytimeTwoWeeks);
             userGame.setLastPlayed(lastPlayed != null ? lastPlayed : userGame.getLastPlayed());
         } else {
             userGame = new UserGameLibrary(user, game, playtimeTotal);
             userGame.setPlaytimeTwoWeeks(playtimeTwoWeeks);
             userGame.setPurchasedAt(purchasedAt != null ? purchasedAt : Instant.now());
             userGame.setLastPlayed(lastPlayed);
+            if (updateStats) {
+                userLibraryStatsService.onGameAdded(user.getUserId(), playtimeTotal);
+                gameStatsService.onGameAdded(game.getGameId(), playtimeTotal, playtimeTwoWeeks);
+            }
+            gameSimilarityService.markDirty(List.of(game.getGameId()));
         }
 
         return userGameLibraryRepository.save(userGame);
@@ -106,56 +176,107 @@ public class UserGameLibraryService {
     /**
      * Remove jogo da biblioteca
      */
-    @CacheEvict(value = {"userGames", "userStats"}, allEntries = true)
     public void removeGameFromLibrary(Long userId, Long gameId) {
         UserGameLibrary userGame = userGameLibraryRepository
                 .findByUserUserIdAndGameGameId(userId, gameId)
                 .orElseThrow(() -> new RuntimeException("Game not found in user's library"));
 
+        userLibraryStatsService.onGameRemoved(userId, userGame.getPlaytimeTotal());
+        gameStatsService.onGameRemoved(gameId, userGame.getPlaytimeTotal(), userGame.getPlaytimeTwoWeeks());
         userGameLibraryRepository.delete(userGame);
+        knownLibraryRows.invalidate(new LibraryWriteBuffer.Key(userId, gameId));
+        onLibraryEdited(userId);
+        gameSimilarityService.markDirty(List.of(gameId));
     }
 
     /**
      * Atualiza tempo de jogo
      */
-    @CacheEvict(value = {"userGames", "userStats"}, key = "#userId")
     public UserGameLibrary updatePlaytime(Long userId, Long gameId,
                                           Integer playtimeTotal, Integer playtimeTwoWeeks) {
         UserGameLibrary userGame = userGameLibraryRepository
                 .findByUserUserIdAndGameGameId(userId, gameId)
                 .orElseThrow(() -> new RuntimeException("Game not found in user's library"));
 
+        gameStatsService.onPlaytimeChanged(gameId,
+                userGame.getPlaytimeTotal(), playtimeTotal != null ? playtimeTotal : userGame.getPlaytimeTotal(),
+                userGame.getPlaytimeTwoWeeks(), playtimeTwoWeeks != null ? playtimeTwoWeeks : userGame.getPlaytimeTwoWeeks());
         if (playtimeTotal != null) {
+            userLibraryStatsService.onPlaytimeChanged(userId, userGame.getPlaytimeTotal(), playtimeTotal);
             userGame.setPlaytimeTotal(playtimeTotal);
         }
         if (playtimeTwoWeeks != null) {
             userGame.setPlaytimeTwoWeeks(playtimeTwoWeeks);
         }
         userGame.setLastPlayed(Instant.now());
+        onLibraryEdited(userId);
 
         return userGameLibraryRepository.save(userGame);
     }
 
     /**
-     * Busca biblioteca completa do usuário
+     * Entrega a atualização de tempo de jogo ao buffer de escrita, aplicada no próximo flush.
+     * Retorna {@code false} quando o buffer está desligado ou cheio: use {@link #updatePlaytime}.
+     * Como no caminho síncrono, um jogo fora da biblioteca é rejeitado antes de entrar no buffer
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean bufferPlaytime(Long userId, Long gameId, Integer playtimeTotal, Integer playtimeTwoWeeks) {
+        if (!libraryWriteBuffer.isEnabled()) {
+            return false;
+        }
+        requireLibraryRow(userId, gameId);
+        return libraryWriteBuffer.submit(userId, gameId, playtimeTotal, playtimeTwoWeeks);
+    }
+
+    /**
+     * Entrega a atualização de última vez jogado ao buffer de escrita (ver {@link #bufferPlaytime})
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean bufferLastPlayed(Long userId, Long gameId) {
+        if (!libraryWriteBuffer.isEnabled()) {
+            return false;
+        }
+        requireLibraryRow(userId, gameId);
+        return libraryWriteBuffer.submit(userId, gameId, null, null);
+    }
+
+    /**
+     * Só os pares encontrados ficam no cache; um jogo removido depois pode ainda ser aceito até a
+     * entrada expirar, e o flush descarta a atualização
+     */
+    private void requireLibraryRow(Long userId, Long gameId) {
+        LibraryWriteBuffer.Key key = new LibraryWriteBuffer.Key(userId, gameId);
+        if (knownLibraryRows.getIfPresent(key) != null) {
+            return;
+        }
+        if (!userGameLibraryRepository.existsByUserUserIdAndGameGameId(userId, gameId)) {
+            throw new RuntimeException("Game not found in user's library");
+        }
+        knownLibraryRows.put(key, Boolean.TRUE);
+    }
+
+    /**
+     * Busca biblioteca completa do usuário (carga única por chave; dependências publicadas após a gravação)
      */
-    @Cacheable(value = "userGames", key = "#userId")
     public List<UserGameLibrary> getUserLibrary(Long userId) {
-        return userGameLibraryRepository.findUserLibraryWithGames(userId);
+        return cacheLoadCoordinator.get("userGames", userId, () -> {
+            cacheDependencyRegistry.register("userGames", userId, List.of(Dependency.library(userId)));
+            return userGameLibraryRepository.findUserLibraryWithGames(userId);
+        });
     }
 
     /**
      * Busca biblioteca do usuário ordenada por tempo de jogo
      */
     public List<UserGameLibrary> getUserLibraryByPlaytime(Long userId) {
-        return userGameLibraryRepository.findMostPlayedGamesByUser(userId);
+        return userGameLibraryRepository.findMostPlayedGamesByUser(userId, Pageable.unpaged());
     }
 
     /**
      * Busca jogos jogados recentemente
      */
     public List<UserGameLibrary> getRecentlyPlayedGames(Long userId) {
-        return userGameLibraryRepository.findRecentlyPlayedGamesByUser(userId);
+        return userGameLibraryRepository.findRecentlyPlayedGamesByUser(userId, Pageable.unpaged());
     }
 
     /**
@@ -176,10 +297,7 @@ public class UserGameLibraryService {
      * Busca últimos jogos jogados
      */
     public List<UserGameLibrary> getLastPlayedGames(Long userId, int limit) {
-        return userGameLibraryRepository.findLastPlayedGamesByUser(userId)
-                .stream()
-                .limit(limit)
-                .toList();
+        return userGameLibraryRepository.findLastPlayedGamesByUser(userId, PageRequest.of(0, pageSize(limit)));
     }
 
     /**
@@ -194,23 +312,7 @@ public class UserGameLibraryService {
      * Calcula estatísticas da biblioteca do usuário
      */
     public Map<String, Object> calculateLibraryStatistics(Long userId) {
-        Object[] stats = userGameLibraryRepository.calculateUserPlaytimeStats(userId);
-        Long totalGames = userGameLibraryRepository.countGamesByUser(userId);
-        Long playedGames = userGameLibraryRepository.countPlayedGamesByUser(userId);
-
-        Long totalPlaytime = stats.length > 0 ? ((Number) stats[0]).longValue() : 0L;
-        Double avgPlaytime = stats.length > 1 ? ((Number) stats[1]).doubleValue() : 0.0;
-
-        return Map.of(
-                "totalGames", totalGames,
-                "playedGames", playedGames,
-                "unplayedGames", totalGames - playedGames,
-                "totalPlaytimeMinutes", totalPlaytime,
-                "totalPlaytimeHours", totalPlaytime / 60.0,
-                "averagePlaytimeMinutes", avgPlaytime,
-                "averagePlaytimeHours", avgPlaytime / 60.0,
-                "playedPercentage", totalGames > 0 ? (playedGames.doubleValue() / totalGames) * 100 : 0
-        );
+        return userLibraryStatsService.getLibraryStatistics(userId);
     }
 
     /**
@@ -236,24 +338,92 @@ public class UserGameLibraryService {
     }
 
     /**
-     * Busca top players de um jogo específico
+     * Busca top players de um jogo específico, uma página por vez; o cursor ({@code <tempo>:<id>})
+     * é a última entrada da página anterior
      */
-    public List<UserGameLibrary> getTopPlayersByGame(Long gameId, int limit) {
-        return userGameLibraryRepository.findTopPlayersByGame(gameId)
-                .stream()
-                .limit(limit)
-                .toList();
+    public CursorPage<UserGameLibrary> getTopPlayersByGame(Long gameId, String cursor, int limit) {
+        int size = pageSize(limit);
+        // Uma linha a mais indica se há próxima página
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<UserGameLibrary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = userGameLibraryRepository.findTopPlayersByGame(gameId, pageable);
+        } else {
+            int separator = cursor.indexOf(':');
+            try {
+                rows = userGameLibraryRepository.findTopPlayersByGameAfter(gameId,
+                        Integer.valueOf(cursor.substring(0, separator)),
+                        Long.valueOf(cursor.substring(separator + 1)),
+                        pageable);
+            } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<UserGameLibrary> page = rows.subList(0, size);
+        UserGameLibrary last = page.get(size - 1);
+        return new CursorPage<>(page, last.getPlaytimeTotal() + ":" + last.getId());
+    }
+
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
     }
 
     /**
      * Sincroniza biblioteca completa do usuário (batch operation)
      */
-    @CacheEvict(value = {"userGames", "userStats"}, allEntries = true)
     public List<UserGameLibrary> syncUserLibrary(Long userId, List<Map<String, Object>> gamesData) {
+        return syncUserLibrary(userId, gamesData, false);
+    }
+
+    /**
+     * Com {@code replace} o payload é a biblioteca inteira e os jogos ausentes saem dela. No modo
+     * em lote só as linhas diferentes são escritas, e sem nenhuma mudança os rollups e os caches
+     * ficam intactos.
+     */
+    private List<UserGameLibrary> syncUserLibrary(Long userId, List<Map<String, Object>> gamesData, boolean replace) {
         User user = userService.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        return gamesData.stream()
+        if (bulkSyncEnabled) {
+            // O perfil vem do cache; o fingerprint precisa ser o gravado nesta transação
+            Long previousFingerprint = userService.findLibraryFingerprint(userId);
+            LibraryBulkSyncer.SyncResult result = libraryBulkSyncer.sync(userId, gamesData,
+                    previousFingerprint, replace);
+            if (result.changed()) {
+                Map<Long, int[]> before = new HashMap<>();
+                Map<Long, int[]> after = new HashMap<>();
+                for (LibraryBulkSyncer.RowChange change : result.changes()) {
+                    if (change.before() != null) {
+                        before.put(change.gameId(), minutes(change.before()));
+                    }
+                    if (change.after() != null) {
+                        after.put(change.gameId(), minutes(change.after()));
+                    }
+                }
+                userLibraryStatsService.rebuildForUser(userId);
+                gameStatsService.onLibraryChanged(before, after);
+                // Só jogos que entraram ou saíram mudam os donos; atualizações de tempo de jogo não
+                gameSimilarityService.markDirty(result.changes().stream()
+                        .filter(change -> !change.updated())
+                        .map(LibraryBulkSyncer.RowChange::gameId)
+                        .toList());
+                cacheDependencyRegistry.invalidate(Dependency.library(userId));
+            }
+            if (!Long.valueOf(result.fingerprint()).equals(previousFingerprint)) {
+                userService.updateLibraryFingerprint(userId, result.fingerprint());
+            }
+            return result.gameIds().isEmpty()
+                    ? List.of()
+                    : userGameLibraryRepository.findByUserAndGameIdsWithGames(userId, result.gameIds());
+        }
+
+        onLibraryEdited(userId);
+        Map<Long, int[]> before = gameStatsService.snapshotLibrary(userId);
+        List<UserGameLibrary> synced = gamesData.stream()
                 .map(gameData -> {
                     Integer steamAppId = (Integer) gameData.get("steamAppId");
                     Integer playtimeTotal = (Integer) gameData.get("playtimeTotal");
@@ -267,17 +437,77 @@ public class UserGameLibraryService {
                         game = gameService.findOrCreateGame(steamAppId, gameName, null);
                     }
 
-                    return addGameToLibraryWithDetails(user, game, playtimeTotal, playtimeTwoWeeks, null, null);
+                    return upsertLibraryEntry(user, game, playtimeTotal, playtimeTwoWeeks, null, null, false);
                 })
                 .toList();
+
+        // Um único recálculo do rollup ao final do lote
+        userLibraryStatsService.rebuildForUser(userId);
+        gameStatsService.onLibraryChanged(before, gameStatsService.snapshotLibrary(userId));
+        return synced;
+    }
+
+    /**
+     * Sincroniza a biblioteca com o que o GetOwnedGames da Steam devolveu (jogos ausentes saem da
+     * biblioteca) e registra a sincronização do usuário, na mesma transação
+     */
+    public List<UserGameLibrary> syncUserLibraryFromSteam(Long userId, List<SteamOwnedGame> ownedGames) {
+        List<Map<String, Object>> gamesData = ownedGames.stream()
+                .filter(ownedGame -> ownedGame.getAppId() != null)
+                .map(ownedGame -> {
+                    Map<String, Object> gameData = new HashMap<>();
+                    gameData.put("steamAppId", ownedGame.getAppId());
+                    gameData.put("name", ownedGame.getName() != null ? ownedGame.getName() : "Unknown Game");
+                    gameData.put("playtimeTotal", ownedGame.getPlaytimeForever());
+                    gameData.put("playtimeTwoWeeks", ownedGame.getPlaytime2Weeks() != null ? ownedGame.getPlaytime2Weeks() : 0);
+                    return gameData;
+                })
+                .toList();
+        List<UserGameLibrary> synced = syncUserLibrary(userId, gamesData, true);
+        userService.markLibrarySynced(userId, Instant.now());
+        return synced;
+    }
+
+    /**
+     * Tempos de jogo no formato dos snapshots do {@link GameStatsService} (nulo conta como zero)
+     */
+    private static int[] minutes(LibraryBulkSyncer.Playtime playtime) {
+        return new int[]{
+                playtime.total() != null ? playtime.total() : 0,
+                playtime.twoWeeks() != null ? playtime.twoWeeks() : 0};
+    }
+
+    /**
+     * Edição fora da sincronização: remove os caches da biblioteca e descarta o fingerprint,
+     * que deixa de descrever as linhas gravadas
+     */
+    private void onLibraryEdited(Long userId) {
+        cacheDependencyRegistry.invalidate(Dependency.library(userId));
+        userService.clearLibraryFingerprints(List.of(userId));
     }
 
     /**
      * Salva múltiplas entradas da biblioteca
      */
-    @CacheEvict(value = {"userGames", "userStats"}, allEntries = true)
     public List<UserGameLibrary> saveAll(List<UserGameLibrary> userGames) {
-        return userGameLibraryRepository.saveAll(userGames);
+        List<Long> userIds = userGames.stream()
+                .map(userGame -> userGame.getUser().getUserId())
+                .distinct()
+                .toList();
+        Map<Long, Map<Long, int[]>> before = new HashMap<>();
+        userIds.forEach(userId -> before.put(userId, gameStatsService.snapshotLibrary(userId)));
+
+        List<UserGameLibrary> saved = userGameLibraryRepository.saveAll(userGames);
+        userIds.forEach(userLibraryStatsService::rebuildForUser);
+        userIds.forEach(userId -> gameStatsService.onLibraryChanged(before.get(userId),
+                gameStatsService.snapshotLibrary(userId)));
+        cacheDependencyRegistry.invalidate(userIds.stream().map(Dependency::library).toList());
+        userService.clearLibraryFingerprints(userIds);
+        gameSimilarityService.markDirty(saved.stream()
+                .map(userGame -> userGame.getGame().getGameId())
+                .distinct()
+                .toList());
+        return saved;
     }
 
     /**
@@ -295,30 +525,32 @@ public class UserGameLibraryService {
     }
 
     /**
-     * Busca jogos similares baseado em jogadores comuns
+     * Busca jogos similares pré-calculados a partir dos jogadores comuns
      */
-    public List<Object[]> findSimilarGames(Long gameId) {
-        return userGameLibraryRepository.findSimilarGamesByCommonPlayers(gameId);
+    public List<GameSimilarity> findSimilarGames(Long gameId) {
+        return gameSimilarityService.findSimilarGames(gameId);
     }
 
     /**
      * Atualiza última vez jogado
      */
-    @CacheEvict(value = {"userGames", "userStats"}, key = "#userId")
     public UserGameLibrary updateLastPlayed(Long userId, Long gameId) {
         UserGameLibrary userGame = userGameLibraryRepository
                 .findByUserUserIdAndGameGameId(userId, gameId)
                 .orElseThrow(() -> new RuntimeException("Game not found in user's library"));
 
         userGame.setLastPlayed(Instant.now());
+        cacheDependencyRegistry.invalidate(Dependency.library(userId));
         return userGameLibraryRepository.save(userGame);
     }
 
     /**
-     * Busca estatísticas resumidas da biblioteca
+     * Busca estatísticas resumidas da biblioteca (chave própria: a chave #userId do userStats é do AnalyticsService)
      */
-    @Cacheable(value = "userStats", key = "#userId")
     public Map<String, Object> getLibrarySummary(Long userId) {
-        return calculateLibraryStatistics(userId);
+        return cacheLoadCoordinator.get("userStats", "summary_" + userId, () -> {
+            cacheDependencyRegistry.register("userStats", "summary_" + userId, List.of(Dependency.library(userId)));
+            return calculateLibraryStatistics(userId);
+        });
     }
 }
\ No newline at end of file
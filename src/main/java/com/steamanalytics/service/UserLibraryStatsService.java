@@ -0,0 +1,166 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.entity.UserLibraryStats;
+import com.steamanalytics.repository.UserGameLibraryRepository;
+import com.steamanalytics.repository.UserLibraryStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mantém o rollup {@code user_library_stats}. Os métodos de escrita participam da transação
+ * de quem chama, de modo que biblioteca e rollup são confirmados juntos.
+ */
+@Service
+@Transactional
+public class UserLibraryStatsService {
+
+    private static final String APPLY_DELTA_SQL =
+            "INSERT INTO user_library_stats (user_id, total_games, played_games, total_playtime, updated_at) " +
+            "VALUES (?, 0, ?, ?, now()) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "played_games = user_library_stats.played_games + EXCLUDED.played_games, " +
+            "total_playtime = user_library_stats.total_playtime + EXCLUDED.total_playtime, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private final UserLibraryStatsRepository userLibraryStatsRepository;
+    private final UserGameLibraryRepository userGameLibraryRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public UserLibraryStatsService(UserLibraryStatsRepository userLibraryStatsRepository,
+                                   UserGameLibraryRepository userGameLibraryRepository,
+                                   JdbcTemplate jdbcTemplate) {
+        this.userLibraryStatsRepository = userLibraryStatsRepository;
+        this.userGameLibraryRepository = userGameLibraryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Registra um jogo novo na biblioteca
+     */
+    public void onGameAdded(Long userId, Integer playtimeTotal) {
+        int playtime = minutes(playtimeTotal);
+        userLibraryStatsRepository.applyDelta(userId, 1, playtime > 0 ? 1 : 0, playtime);
+    }
+
+    /**
+     * Registra a alteração do tempo total de um jogo existente
+     */
+    public void onPlaytimeChanged(Long userId, Integer oldPlaytimeTotal, Integer newPlaytimeTotal) {
+        int oldPlaytime = minutes(oldPlaytimeTotal);
+        int newPlaytime = minutes(newPlaytimeTotal);
+        if (oldPlaytime == newPlaytime) {
+            return;
+        }
+
+        userLibraryStatsRepository.applyDelta(userId, 0, playedDelta(oldPlaytime, newPlaytime),
+                (long) newPlaytime - oldPlaytime);
+    }
+
+    /**
+     * Registra de uma vez as alterações de tempo de jogo de um lote: os deltas são somados por usuário
+     * e gravados num único batch em ordem de ID, a mesma ordem de travamento para lotes concorrentes
+     */
+    public void onPlaytimesChanged(Collection<PlaytimeChange> changes) {
+        // [jogados, tempo total]
+        Map<Long, long[]> deltas = new TreeMap<>();
+        for (PlaytimeChange change : changes) {
+            int oldPlaytime = minutes(change.oldPlaytimeTotal());
+            int newPlaytime = minutes(change.newPlaytimeTotal());
+            if (oldPlaytime != newPlaytime) {
+                long[] delta = deltas.computeIfAbsent(change.userId(), userId -> new long[2]);
+                delta[0] += playedDelta(oldPlaytime, newPlaytime);
+                delta[1] += (long) newPlaytime - oldPlaytime;
+            }
+        }
+
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((userId, delta) -> {
+            if (delta[0] != 0 || delta[1] != 0) {
+                rows.add(new Object[]{userId, delta[0], delta[1]});
+            }
+        });
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, rows);
+        }
+    }
+
+    /**
+     * Registra a remoção de um jogo da biblioteca
+     */
+    public void onGameRemoved(Long userId, Integer playtimeTotal) {
+        int playtime = minutes(playtimeTotal);
+        userLibraryStatsRepository.applyDelta(userId, -1, playtime > 0 ? -1 : 0, -playtime);
+    }
+
+    /**
+     * Recalcula o rollup do usuário (usado após escritas em lote)
+     */
+    public void rebuildForUser(Long userId) {
+        userGameLibraryRepository.flush();
+        userLibraryStatsRepository.rebuildForUser(userId);
+    }
+
+    /**
+     * Estatísticas da biblioteca: leitura por chave primária no rollup,
+     * com fallback para um único agregado quando o rollup ainda não existe
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getLibraryStatistics(Long userId) {
+        long totalGames;
+        long playedGames;
+        long totalPlaytime;
+
+        UserLibraryStats stats = userLibraryStatsRepository.findById(userId).orElse(null);
+        if (stats != null) {
+            totalGames = stats.getTotalGames();
+            playedGames = stats.getPlayedGames();
+            totalPlaytime = stats.getTotalPlaytime();
+        } else {
+            List<Object[]> rows = userGameLibraryRepository.calculateUserLibraryAggregates(userId);
+            Object[] row = rows.isEmpty() ? new Object[0] : rows.get(0);
+            totalGames = longAt(row, 0);
+            playedGames = longAt(row, 1);
+            totalPlaytime = longAt(row, 2);
+        }
+
+        double avgPlaytime = totalGames > 0 ? (double) totalPlaytime / totalGames : 0.0;
+
+        return Map.of(
+                "totalGames", totalGames,
+                "playedGames", playedGames,
+                "unplayedGames", totalGames - playedGames,
+                "totalPlaytimeMinutes", totalPlaytime,
+                "totalPlaytimeHours", totalPlaytime / 60.0,
+                "averagePlaytimeMinutes", avgPlaytime,
+                "averagePlaytimeHours", avgPlaytime / 60.0,
+                "playedPercentage", totalGames > 0 ? ((double) playedGames / totalGames) * 100 : 0
+        );
+    }
+
+    private static int minutes(Integer playtime) {
+        return playtime != null ? playtime : 0;
+    }
+
+    private static int playedDelta(int oldPlaytime, int newPlaytime) {
+        return (newPlaytime > 0 ? 1 : 0) - (oldPlaytime > 0 ? 1 : 0);
+    }
+
+    private static long longAt(Object[] row, int index) {
+        return row.length > index && row[index] != null ? ((Number) row[index]).longValue() : 0L;
+    }
+
+    /**
+     * Tempo total de um jogo antes e depois de uma escrita
+     */
+    public record PlaytimeChange(long userId, Integer oldPlaytimeTotal, Integer newPlaytimeTotal) {
+    }
+}
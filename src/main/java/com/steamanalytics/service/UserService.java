@@ -1,29 +1,45 @@
 package com.steamanalytics.service;
 
+import com.steamanalytics.model.dto.CursorPage;
 import com.steamanalytics.model.entity.User;
 import com.steamanalytics.repository.UserRepository;
+import com.steamanalytics.service.CacheDependencyRegistry.Dependency;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class UserService {
 
+    static final int MAX_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
+    private final GameStatsService gameStatsService;
+    private final CacheDependencyRegistry cacheDependencyRegistry;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, GameStatsService gameStatsService,
+                       CacheDependencyRegistry cacheDependencyRegistry) {
         this.userRepository = userRepository;
+        this.gameStatsService = gameStatsService;
+        this.cacheDependencyRegistry = cacheDependencyRegistry;
     }
 
     /**
@@ -34,6 +50,18 @@ public class UserService {
         return userRepository.findById(userId);
     }
 
+    /**
+     * Busca vários usuários por ID em uma única consulta, na ordem dos IDs informados
+     */
+    public List<User> findAllByIds(List<Long> userIds) {
+        Map<Long, User> usersById = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getUserId, Function.identity()));
+        return userIds.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     /**
      * Busca usuário por Steam ID
      */
@@ -52,19 +80,17 @@ public class UserService {
     /**
      * Cria novo usuário ou retorna existente
      */
-    @CacheEvict(value = "userProfile", allEntries = true)
     public User findOrCreateUser(Long steamId) {
         return userRepository.findBySteamId(steamId)
                 .orElseGet(() -> {
                     User newUser = new User(steamId, "user_" + steamId);
-                    return userRepository.save(newUser);
+                    return evictProfile(userRepository.save(newUser));
                 });
     }
 
     /**
      * Cria novo usuário
      */
-    @CacheEvict(value = "userProfile", allEntries = true)
     public User createUser(Long steamId, String username, String displayName) {
         if (userRepository.existsBySteamId(steamId)) {
             throw new IllegalArgumentException("User with Steam ID already exists: " + steamId);
@@ -75,21 +101,19 @@ public class UserService {
         }
 
         User user = new User(steamId, username, displayName);
-        return userRepository.save(user);
+        return evictProfile(userRepository.save(user));
     }
 
     /**
      * Atualiza perfil do usuário
      */
-    @CacheEvict(value = "userProfile", key = "'steam_' + #user.steamId")
     public User updateUser(User user) {
-        return userRepository.save(user);
+        return evictProfile(userRepository.save(user));
     }
 
     /**
      * Atualiza informações básicas do usuário
      */
-    @CacheEvict(value = "userProfile", key = "'steam_' + #steamId")
     public User updateUserProfile(Long steamId, String displayName, String profileUrl,
                                   String avatarUrl, String countryCode) {
         User user = userRepository.findBySteamId(steamId)
@@ -100,44 +124,41 @@ public class UserService {
         user.setAvatarUrl(avatarUrl);
         user.setCountryCode(countryCode);
 
-        return userRepository.save(user);
+        return evictProfile(userRepository.save(user));
     }
 
     /**
      * Atualiza último login do usuário
      */
-    @CacheEvict(value = "userProfile", key = "'steam_' + #steamId")
     public User updateLastLogin(Long steamId) {
         User user = userRepository.findBySteamId(steamId)
                 .orElseThrow(() -> new RuntimeException("User not found with Steam ID: " + steamId));
 
         user.setLastLogin(Instant.now());
-        return userRepository.save(user);
+        return evictProfile(userRepository.save(user));
     }
 
     /**
      * Desativa usuário
      */
-    @CacheEvict(value = "userProfile", key = "'steam_' + #steamId")
     public User deactivateUser(Long steamId) {
         User user = userRepository.findBySteamId(steamId)
                 .orElseThrow(() -> new RuntimeException("User not found with Steam ID: " + steamId));
 
         user.setIsActive(false);
-        return userRepository.save(user);
+        return evictProfile(userRepository.save(user));
     }
 
     /**
      * Reativa usuário
      */
-    @CacheEvict(value = "userProfile", key = "'steam_' + #steamId")
     public User reactivateUser(Long steamId) {
         User user = userRepository.findBySteamId(steamId)
                 .orElseThrow(() -> new RuntimeException("User not found with Steam ID: " + steamId));
 
         user.setIsActive(true);
         user.setLastLogin(Instant.now());
-        return userRepository.save(user);
+        return evictProfile(userRepository.save(user));
     }
 
     /**
@@ -163,18 +184,59 @@ public class UserService {
     }
 
     /**
-     * Busca usuários para sincronização
+     * Busca uma página de usuários para sincronização: ativos com login em {@code activeWindow},
+     * sem sincronizar desde {@code staleBefore} e nas partições dadas, após o cursor {@code afterUserId}
      */
-    public List<User> findUsersForSync() {
-        Instant recentThreshold = Instant.now().minus(24, ChronoUnit.HOURS);
-        return userRepository.findActiveUsersForSync(recentThreshold);
+    @Transactional(readOnly = true)
+    public List<User> findUsersForSync(Duration activeWindow, Instant staleBefore, Long afterUserId,
+                                       int partitionCount, Collection<Integer> partitions, int limit) {
+        Instant recentThreshold = Instant.now().minus(activeWindow);
+        return userRepository.findActiveUsersForSync(recentThreshold, staleBefore, afterUserId,
+                partitionCount, partitions, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Registra a sincronização da biblioteca do usuário
+     */
+    public void markLibrarySynced(Long userId, Instant syncedAt) {
+        if (userRepository.markLibrarySynced(userId, syncedAt) > 0) {
+            evictProfiles(List.of(userId));
+        }
     }
 
     /**
-     * Busca usuários por nome
+     * Fingerprint da última sincronização, lido do banco e não do perfil em cache
      */
-    public List<User> searchUsersByName(String searchTerm) {
-        return userRepository.searchActiveUsersByName(searchTerm);
+    @Transactional(readOnly = true)
+    public Long findLibraryFingerprint(Long userId) {
+        return userRepository.findLibraryFingerprint(userId);
+    }
+
+    /**
+     * Registra o fingerprint do payload sincronizado
+     */
+    public void updateLibraryFingerprint(Long userId, long fingerprint) {
+        if (userRepository.updateLibraryFingerprint(userId, fingerprint) > 0) {
+            evictProfiles(List.of(userId));
+        }
+    }
+
+    /**
+     * Invalida o fingerprint após uma edição da biblioteca fora da sincronização
+     */
+    public void clearLibraryFingerprints(Collection<Long> userIds) {
+        // Nada muda (nem o perfil em cache) quando os fingerprints já estavam nulos
+        if (!userIds.isEmpty() && userRepository.clearLibraryFingerprints(userIds) > 0) {
+            evictProfiles(userIds);
+        }
+    }
+
+    /**
+     * Busca usuários ativos por username ou display name, tolerante a erros de digitação
+     */
+    @Transactional(readOnly = true)
+    public Slice<User> searchUsersByName(String searchTerm, Pageable pageable) {
+        return userRepository.searchActiveByName(searchTerm, pageable);
     }
 
     /**
@@ -185,10 +247,18 @@ public class UserService {
     }
 
     /**
-     * Busca usuários que possuem um jogo específico
+     * Busca usuários que possuem um jogo específico, em ordem de ID; o cursor é o último ID da
+     * página anterior
      */
-    public List<User> findUsersByGame(Integer steamAppId) {
-        return userRepository.findUsersByGameAppId(steamAppId);
+    public CursorPage<User> findUsersByGame(Integer steamAppId, Long afterUserId, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<User> rows = userRepository.findUsersByGameAppId(steamAppId,
+                afterUserId != null ? afterUserId : 0L, PageRequest.of(0, size + 1));
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<User> page = rows.subList(0, size);
+        return new CursorPage<>(page, String.valueOf(page.get(size - 1).getUserId()));
     }
 
     /**
@@ -229,7 +299,6 @@ public class UserService {
     /**
      * Remove usuário (soft delete - apenas desativa)
      */
-    @CacheEvict(value = "userProfile", key = "'steam_' + #steamId")
     public void deleteUser(Long steamId) {
         deactivateUser(steamId);
     }
@@ -237,32 +306,56 @@ public class UserService {
     /**
      * Remove usuário permanentemente
      */
-    @CacheEvict(value = "userProfile", allEntries = true)
     public void deleteUserPermanently(Long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new RuntimeException("User not found");
-        }
-        userRepository.deleteById(userId);
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        // A biblioteca sai junto com o usuário; os donos de cada jogo caem antes
+        gameStatsService.onLibraryRemoved(userId);
+        userRepository.delete(user);
+        evictProfile(user);
+        cacheDependencyRegistry.invalidate(Dependency.library(userId), Dependency.friends(userId));
     }
 
     /**
      * Salva múltiplos usuários
      */
-    @CacheEvict(value = "userProfile", allEntries = true)
     public List<User> saveAll(List<User> users) {
-        return userRepository.saveAll(users);
+        List<User> saved = userRepository.saveAll(users);
+        saved.forEach(this::evictProfile);
+        return saved;
     }
 
     /**
      * Atualiza visibilidade do perfil
      */
-    @CacheEvict(value = "userProfile", key = "'steam_' + #steamId")
     public User updateProfileVisibility(Long steamId, Integer visibility) {
         User user = userRepository.findBySteamId(steamId)
                 .orElseThrow(() -> new RuntimeException("User not found with Steam ID: " + steamId));
 
         user.setProfileVisibility(visibility);
-        return userRepository.save(user);
+        return evictProfile(userRepository.save(user));
+    }
+
+    /**
+     * Remove (após o commit) as duas entradas do perfil: por ID e por Steam ID
+     */
+    private User evictProfile(User user) {
+        evictProfile(user.getUserId(), user.getSteamId());
+        return user;
+    }
+
+    private void evictProfile(Long userId, Long steamId) {
+        cacheDependencyRegistry.evict("userProfile", userId);
+        cacheDependencyRegistry.evict("userProfile", "steam_" + steamId);
+    }
+
+    /**
+     * Perfis alterados por UPDATE em massa: o Steam ID da segunda chave vem do banco
+     */
+    private void evictProfiles(Collection<Long> userIds) {
+        for (Object[] row : userRepository.findSteamIdsByUserIds(userIds)) {
+            evictProfile((Long) row[0], (Long) row[1]);
+        }
     }
 
     /**
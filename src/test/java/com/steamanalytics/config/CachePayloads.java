@@ -0,0 +1,135 @@
+package com.steamanalytics.config;
+
+import com.steamanalytics.model.dto.DashboardData;
+import com.steamanalytics.model.dto.FriendActivity;
+import com.steamanalytics.model.dto.GameDto;
+import com.steamanalytics.model.dto.GameRecommendation;
+import com.steamanalytics.model.dto.GameWithPlaytime;
+import com.steamanalytics.model.dto.UserDto;
+import com.steamanalytics.model.dto.UserStatistics;
+import com.steamanalytics.model.entity.Game;
+import com.steamanalytics.model.entity.User;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Valores de cache realistas (DTOs do dashboard e das estatísticas) para testes e benchmarks dos codecs
+ */
+final class CachePayloads {
+
+    private static final String[] GENRES = {"Action", "RPG", "Strategy", "Indie", "Simulation", "Sports"};
+    private static final String[] TAGS = {"Multiplayer", "Open World", "Co-op", "Story Rich", "FPS",
+            "Survival", "Sandbox", "Atmospheric", "Pixel Graphics", "Roguelike"};
+
+    private CachePayloads() {
+    }
+
+    static UserStatistics userStatistics() {
+        Map<String, Integer> genreDistribution = new LinkedHashMap<>();
+        for (int i = 0; i < GENRES.length; i++) {
+            genreDistribution.put(GENRES[i], 40 - i * 5);
+        }
+        return UserStatistics.builder()
+                .userId(42L)
+                .totalGames(812)
+                .playedGames(604)
+                .unplayedGames(208)
+                .totalPlaytimeMinutes(412_345L)
+                .totalPlaytimeHours(6_872.4)
+                .averagePlaytimeMinutes(507.8)
+                .averagePlaytimeHours(8.5)
+                .playedPercentage(74.4)
+                .mostPlayedGame(game(0))
+                .recentlyPlayed(games(0, 5))
+                .genreDistribution(genreDistribution)
+                .friendCount(137)
+                .build();
+    }
+
+    static DashboardData dashboard() {
+        List<GameWithPlaytime> topGames = new ArrayList<>();
+        List<GameWithPlaytime> recentGames = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            topGames.add(withPlaytime(i));
+            recentGames.add(withPlaytime(i + 5));
+        }
+
+        List<GameRecommendation> recommendations = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            recommendations.add(GameRecommendation.builder()
+                    .game(game(20 + i))
+                    .friendsWhoPlay(10 - i)
+                    .score(100.0 - i * 7.5)
+                    .reason("Jogado por " + (10 - i) + " amigos")
+                    .build());
+        }
+
+        List<FriendActivity> friendsActivity = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            friendsActivity.add(FriendActivity.builder()
+                    .friend(friend(i))
+                    .recentGames(games(40 + i * 3, 3))
+                    .build());
+        }
+
+        return DashboardData.builder()
+                .userStatistics(userStatistics())
+                .topGames(topGames)
+                .recentGames(recentGames)
+                .recommendations(recommendations)
+                .friendsActivity(friendsActivity)
+                .missingComponents(List.of())
+                .build();
+    }
+
+    private static GameWithPlaytime withPlaytime(int index) {
+        return GameWithPlaytime.builder()
+                .game(game(index))
+                .playtimeMinutes(12_000 - index * 900)
+                .playtimeHours((12_000 - index * 900) / 60.0)
+                .lastPlayed(Instant.parse("2024-05-01T18:30:00Z").minusSeconds(index * 86_400L))
+                .build();
+    }
+
+    private static List<GameDto> games(int first, int count) {
+        List<GameDto> games = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            games.add(game(i));
+        }
+        return games;
+    }
+
+    private static GameDto game(int index) {
+        Game game = new Game(100_000 + index * 10, "Game Title Number " + index,
+                "A fairly typical store description for game " + index + ", long enough to look real.");
+        game.setGameId(1_000L + index);
+        game.setReleaseDate(LocalDate.of(2015 + index % 9, 1 + index % 12, 1 + index % 28));
+        game.setDeveloper("Studio " + index % 7);
+        game.setPublisher("Publisher " + index % 4);
+        game.setPriceCurrent(new BigDecimal("59.99").subtract(BigDecimal.valueOf(index % 6 * 10)));
+
+        Map<String, Object> tags = new LinkedHashMap<>();
+        for (int t = 0; t < TAGS.length; t++) {
+            tags.put(TAGS[(index + t) % TAGS.length], 1_000 - t * 75);
+        }
+        game.setTags(tags);
+        game.setCategories(Map.of("Single-player", true, "Steam Achievements", true, "Full controller support", false));
+        game.setGenres(Map.of("primary", GENRES[index % GENRES.length], "secondary", GENRES[(index + 1) % GENRES.length]));
+        return GameDto.from(game);
+    }
+
+    private static UserDto friend(int index) {
+        User user = new User(76_561_198_000_000_100L + index, "friend_" + index, "Friend Number " + index);
+        user.setUserId(500L + index);
+        user.setAvatarUrl("https://avatars.steamstatic.com/" + "f".repeat(40) + index + "_full.jpg");
+        user.setCountryCode("BR");
+        user.setLastLogin(Instant.parse("2024-05-02T09:00:00Z"));
+        return UserDto.from(user);
+    }
+}
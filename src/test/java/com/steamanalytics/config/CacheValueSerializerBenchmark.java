@@ -0,0 +1,95 @@
+package com.steamanalytics.config;
+
+import com.steamanalytics.config.CacheValueSerializer.Format;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: bytes, ns de encode/decode e alocação (gc.alloc.rate.norm) de cada codec de cache sobre DTOs reais.
+ * A referência "json" é o GenericJackson2JsonRedisSerializer de antes, com o módulo java.time
+ * (sem ele o serializador antigo nem consegue gravar esses DTOs).
+ * Executar com: mvn test -Dtest=CacheValueSerializerBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheValueSerializerBenchmark {
+
+    private static final int COMPRESSION_THRESHOLD = 1024;
+
+    @Param({"json", "smile", "cbor", "json+lz4", "smile+lz4", "cbor+lz4"})
+    public String codec;
+
+    @Param({"dashboard", "userStatistics"})
+    public String payload;
+
+    private CacheValueSerializer serializer;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        serializer = serializer(codec);
+        value = payload(payload);
+        encoded = serializer.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+
+    @Test
+    void run() throws RunnerException {
+        for (String payloadName : new String[]{"dashboard", "userStatistics"}) {
+            for (String codecName : new String[]{"json", "smile", "cbor", "json+lz4", "smile+lz4", "cbor+lz4"}) {
+                System.out.printf("%-15s %-10s %6d bytes%n", payloadName, codecName,
+                        serializer(codecName).serialize(payload(payloadName)).length);
+            }
+        }
+
+        new Runner(new OptionsBuilder()
+                .include(CacheValueSerializerBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    private static CacheValueSerializer serializer(String codec) {
+        String[] parts = codec.split("\\+");
+        return new CacheValueSerializer(Format.parse(parts[0]), parts.length > 1 ? COMPRESSION_THRESHOLD : 0);
+    }
+
+    private static Object payload(String name) {
+        return switch (name) {
+            case "dashboard" -> CachePayloads.dashboard();
+            case "userStatistics" -> CachePayloads.userStatistics();
+            default -> throw new IllegalArgumentException(name);
+        };
+    }
+}
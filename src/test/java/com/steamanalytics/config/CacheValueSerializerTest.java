@@ -0,0 +1,56 @@
+package com.steamanalytics.config;
+
+import com.steamanalytics.config.CacheValueSerializer.Format;
+import com.steamanalytics.model.dto.DashboardData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheValueSerializerTest {
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    void roundTripsDashboardWithTypeInformation(Format format) {
+        CacheValueSerializer serializer = new CacheValueSerializer(format, 0);
+        DashboardData dashboard = CachePayloads.dashboard();
+
+        Object restored = serializer.deserialize(serializer.serialize(dashboard));
+
+        assertThat(restored).isInstanceOf(DashboardData.class)
+                .usingRecursiveComparison().isEqualTo(dashboard);
+    }
+
+    @Test
+    void compressesLargeValuesAndKeepsSmallOnesRaw() {
+        CacheValueSerializer compressing = new CacheValueSerializer(Format.SMILE, 256);
+        CacheValueSerializer plain = new CacheValueSerializer(Format.SMILE, 0);
+        DashboardData dashboard = CachePayloads.dashboard();
+
+        byte[] compressed = compressing.serialize(dashboard);
+        assertThat(compressed.length).isLessThan(plain.serialize(dashboard).length);
+        assertThat(compressing.deserialize(compressed)).usingRecursiveComparison().isEqualTo(dashboard);
+
+        assertThat(compressing.serialize("ok")).isEqualTo(plain.serialize("ok"));
+    }
+
+    @Test
+    void readsValuesWrittenInAnyFormatIncludingLegacyJson() {
+        CacheValueSerializer reader = new CacheValueSerializer(Format.SMILE, 128);
+        Map<String, Object> summary = new HashMap<>(Map.of("totalGames", 10, "recent", List.of("a", "b")));
+
+        byte[] legacyJson = new GenericJackson2JsonRedisSerializer().serialize(summary);
+        assertThat(reader.deserialize(legacyJson)).isEqualTo(summary);
+
+        for (Format format : Format.values()) {
+            byte[] encoded = new CacheValueSerializer(format, 16).serialize(CachePayloads.userStatistics());
+            assertThat(reader.deserialize(encoded)).usingRecursiveComparison().isEqualTo(CachePayloads.userStatistics());
+        }
+    }
+}
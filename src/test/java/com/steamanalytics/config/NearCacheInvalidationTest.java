@@ -0,0 +1,136 @@
+package com.steamanalytics.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Duas instâncias da aplicação (dois contextos) compartilhando o mesmo Redis:
+ * escritas numa delas precisam derrubar o L1 da outra.
+ * Requer Redis em localhost:6379 (docker-compose); sem ele o teste é ignorado.
+ */
+class NearCacheInvalidationTest {
+
+    private static final Duration PROPAGATION = Duration.ofSeconds(5);
+
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+    private Cache cacheA;
+    private Cache cacheB;
+    private String key;
+
+    @BeforeAll
+    static void requireRedis() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", 6379), 500);
+        } catch (IOException e) {
+            assumeTrue(false, "Redis not available on localhost:6379");
+        }
+    }
+
+    @BeforeEach
+    void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+        cacheA = nodeA.getBean(CacheManager.class).getCache("gameInfo");
+        cacheB = nodeB.getBean(CacheManager.class).getCache("gameInfo");
+        key = "near-cache-test-" + UUID.randomUUID();
+    }
+
+    @AfterEach
+    void stopNodes() {
+        if (cacheA != null) {
+            cacheA.evict(key);
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+    }
+
+    @Test
+    void servesRepeatedReadsFromLocalTier() {
+        // Gravado e removido direto no Redis, sem invalidação: depois da primeira leitura B serve do L1
+        StringRedisTemplate redis = nodeA.getBean(StringRedisTemplate.class);
+        redis.opsForValue().set("gameInfo::" + key, "\"v1\"");
+        assertThat(cacheB.get(key, String.class)).isEqualTo("v1");
+
+        redis.delete("gameInfo::" + key);
+        assertThat(cacheB.get(key, String.class)).isEqualTo("v1");
+        assertThat(((NearCache) cacheB).getLocalCache().stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void putOnOneNodeInvalidatesTheOther() {
+        cacheA.put(key, "v1");
+        assertThat(cacheB.get(key, String.class)).isEqualTo("v1");
+
+        cacheA.put(key, "v2");
+
+        await().atMost(PROPAGATION).untilAsserted(() -> assertThat(cacheB.get(key, String.class)).isEqualTo("v2"));
+    }
+
+    @Test
+    void evictOnOneNodeInvalidatesTheOther() {
+        cacheA.put(key, "v1");
+        assertThat(cacheB.get(key, String.class)).isEqualTo("v1");
+
+        cacheA.evict(key);
+
+        await().atMost(PROPAGATION).untilAsserted(() -> assertThat(cacheB.get(key)).isNull());
+    }
+
+    @Test
+    void clearOnOneNodeInvalidatesTheOther() {
+        cacheB.put(key, "v1");
+        assertThat(cacheB.get(key, String.class)).isEqualTo("v1");
+
+        cacheA.clear();
+
+        await().atMost(PROPAGATION).untilAsserted(() -> assertThat(cacheB.get(key)).isNull());
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(CacheOnlyNode.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off", "logging.level.root=WARN")
+                .run();
+    }
+
+    @Configuration
+    @ImportAutoConfiguration(RedisAutoConfiguration.class)
+    @Import(CacheConfig.class)
+    static class CacheOnlyNode {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.steamanalytics.config;
+
+import com.steamanalytics.SteamSocialAnalyticsApplication;
+import com.steamanalytics.model.entity.User;
+import com.steamanalytics.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Vazão dos endpoints de analytics com 2.000 conexões simultâneas, com o Tomcat em platform threads
+ * e em virtual threads. Sobe a aplicação inteira duas vezes contra o PostgreSQL e o Redis configurados.
+ * A carga mistura estatísticas (quase sempre no cache) e jogos em comum de pares aleatórios
+ * (quase sempre no banco).
+ * Executar com: mvn test -Dtest=VirtualThreadLoadBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadLoadBenchmark {
+
+    private static final int CONNECTIONS = 2_000;
+    private static final int USERS = 2_000;
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(30);
+
+    @Test
+    void reportThroughputWithPlatformAndVirtualThreads() throws Exception {
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = start(virtualThreads)) {
+                List<Long> userIds = seedUsers(context);
+                try {
+                    int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                    run(port, userIds, WARMUP);
+                    context.getBean(CacheManager.class).getCache("commonGames").clear();
+                    Result result = run(port, userIds, MEASUREMENT);
+
+                    System.out.printf("%-8s threads: %,.0f req/s, %.2f%% errors, mean %.1f ms%n",
+                            virtualThreads ? "virtual" : "platform", result.throughput(MEASUREMENT),
+                            result.errorRatio() * 100, result.meanLatencyMillis());
+                } finally {
+                    context.getBean(UserRepository.class).deleteAllById(userIds);
+                }
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtualThreads) {
+        return new SpringApplicationBuilder(SteamSocialAnalyticsApplication.class, OpenAnalyticsEndpoints.class)
+                .properties("server.port=0",
+                        "spring.main.banner-mode=off",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "logging.level.com.steamanalytics=WARN",
+                        "analytics.game-similarity.enabled=false",
+                        "spring.threads.virtual.enabled=" + virtualThreads)
+                .run();
+    }
+
+    private static List<Long> seedUsers(ConfigurableApplicationContext context) {
+        long firstSteamId = 95_000_000_000L + ThreadLocalRandom.current().nextLong(1_000_000_000L);
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User(firstSteamId + i, "load_" + (firstSteamId + i)));
+        }
+        return context.getBean(UserRepository.class).saveAll(users).stream()
+                .map(User::getUserId)
+                .toList();
+    }
+
+    private static Result run(int port, List<Long> userIds, Duration duration) throws InterruptedException {
+        Result result = new Result();
+        long end = System.nanoTime() + duration.toNanos();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        // Cada cliente mantém uma conexão aberta e envia a próxima requisição assim que recebe a resposta
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONNECTIONS; i++) {
+                clients.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < end) {
+                        long userId = userIds.get(random.nextInt(userIds.size()));
+                        long friendId = userIds.get(random.nextInt(userIds.size()));
+                        String path = random.nextBoolean()
+                                ? "/api/analytics/users/" + userId + "/statistics"
+                                : "/api/analytics/users/" + userId + "/common-games/" + friendId;
+                        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                                .timeout(Duration.ofSeconds(30))
+                                .build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            result.record(response.statusCode() == 200, System.nanoTime() - start);
+                        } catch (Exception e) {
+                            result.record(false, System.nanoTime() - start);
+                        }
+                    }
+                });
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Libera os endpoints de analytics para o cliente de carga (sem login)
+     */
+    static class OpenAnalyticsEndpoints {
+
+        @Bean
+        @Order(0)
+        SecurityFilterChain openAnalyticsEndpoints(HttpSecurity http) throws Exception {
+            return http.securityMatcher("/api/analytics/**")
+                    .authorizeHttpRequests(authz -> authz.anyRequest().permitAll())
+                    .csrf(csrf -> csrf.disable())
+                    .build();
+        }
+    }
+
+    private static class Result {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicLong latencyNanos = new AtomicLong();
+
+        void record(boolean success, long elapsedNanos) {
+            requests.increment();
+            if (!success) {
+                errors.increment();
+            }
+            latencyNanos.addAndGet(elapsedNanos);
+        }
+
+        double throughput(Duration duration) {
+            return requests.sum() / (duration.toNanos() / 1_000_000_000.0);
+        }
+
+        double errorRatio() {
+            long total = requests.sum();
+            return total == 0 ? 0 : (double) errors.sum() / total;
+        }
+
+        double meanLatencyMillis() {
+            long total = requests.sum();
+            return total == 0 ? 0 : latencyNanos.get() / 1_000_000.0 / total;
+        }
+    }
+}
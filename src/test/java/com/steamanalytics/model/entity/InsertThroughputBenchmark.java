@@ -0,0 +1,84 @@
+package com.steamanalytics.model.entity;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+
+/**
+ * Mede a vazão de inserts (linhas/s) por entidade via Hibernate contra o PostgreSQL configurado.
+ * Comparar antes/depois executando com o bloco de IDs antigo e com o novo:
+ * mvn test -Dtest=InsertThroughputBenchmark -Dbenchmark=true -Danalytics.ids.block-size=1
+ * mvn test -Dtest=InsertThroughputBenchmark -Dbenchmark=true -Danalytics.ids.block-size=50
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class InsertThroughputBenchmark {
+
+    private static final int ROWS = 2_000;
+    private static final int FLUSH_EVERY = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${analytics.ids.block-size}")
+    private int blockSize;
+
+    @Test
+    void reportRowsPerSecondPerEntity() {
+        long base = 80_000_000_000L + ThreadLocalRandom.current().nextLong(1_000_000_000L);
+        int appBase = 6_000_000 + ThreadLocalRandom.current().nextInt(1_000_000);
+
+        List<User> users = measure("User", i -> new User(base + i, "bench_" + (base + i)));
+        List<Game> games = measure("Game", i -> new Game(appBase + i, "Benchmark Game " + i));
+        measure("UserGameLibrary", i -> new UserGameLibrary(users.get(i), games.get(i), i));
+        measure("Friendship", i -> new Friendship(users.get(i), users.get((i + 1) % ROWS)));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> userIds = users.stream().map(User::getUserId).toList();
+            List<Long> gameIds = games.stream().map(Game::getGameId).toList();
+            entityManager.createQuery("DELETE FROM Friendship f WHERE f.requester.userId IN :ids")
+                    .setParameter("ids", userIds).executeUpdate();
+            entityManager.createQuery("DELETE FROM UserGameLibrary ugl WHERE ugl.user.userId IN :ids")
+                    .setParameter("ids", userIds).executeUpdate();
+            entityManager.createQuery("DELETE FROM User u WHERE u.userId IN :ids")
+                    .setParameter("ids", userIds).executeUpdate();
+            entityManager.createQuery("DELETE FROM Game g WHERE g.gameId IN :ids")
+                    .setParameter("ids", gameIds).executeUpdate();
+        });
+    }
+
+    private <T> List<T> measure(String entity, IntFunction<T> factory) {
+        List<T> rows = new ArrayList<>(ROWS);
+        long start = System.nanoTime();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                T row = factory.apply(i);
+                entityManager.persist(row);
+                rows.add(row);
+                if ((i + 1) % FLUSH_EVERY == 0) {
+                    entityManager.flush();
+                }
+            }
+            entityManager.flush();
+        });
+
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-16s block-size %3d: %d rows in %.1f ms, %.0f rows/s%n",
+                entity, blockSize, ROWS, elapsed / 1_000_000.0, ROWS * 1_000_000_000.0 / elapsed);
+        return rows;
+    }
+}
@@ -0,0 +1,93 @@
+package com.steamanalytics.model.entity;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Persiste jogos pelo Hibernate contra o banco local e confere que os IDs saem em blocos de
+ * {@code analytics.ids.block-size}, com um {@code nextval} por bloco
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class PooledSequenceGeneratorTest {
+
+    private static final int BLOCKS = 3;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${analytics.ids.block-size}")
+    private int blockSize;
+
+    private final List<Long> persisted = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        if (!persisted.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> entityManager
+                    .createQuery("DELETE FROM Game g WHERE g.gameId IN :ids")
+                    .setParameter("ids", persisted)
+                    .executeUpdate());
+        }
+    }
+
+    @Test
+    void idsComeInBlocksOfTheConfiguredSize() {
+        int rows = BLOCKS * blockSize;
+        int appBase = 7_000_000 + ThreadLocalRandom.current().nextInt(1_000_000);
+        long sequenceBefore = lastValue();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < rows; i++) {
+                Game game = new Game(appBase + i, "Id Block Game " + i);
+                entityManager.persist(game);
+                persisted.add(game.getGameId());
+            }
+            entityManager.flush();
+        });
+
+        // O bloco em memória pode ter vindo parcialmente usado de outro teste: no máximo uma sequência a mais
+        List<Integer> runs = consecutiveRuns(persisted);
+        assertThat(persisted).doesNotHaveDuplicates();
+        assertThat(runs.size()).isBetween(BLOCKS, BLOCKS + 1);
+        assertThat(runs.subList(1, runs.size() - 1)).allMatch(length -> length == blockSize);
+        assertThat(lastValue() - sequenceBefore).isLessThanOrEqualTo((long) (BLOCKS + 1) * blockSize);
+    }
+
+    private long lastValue() {
+        return jdbcTemplate.queryForObject("SELECT last_value FROM games_game_id_seq", Long.class);
+    }
+
+    private static List<Integer> consecutiveRuns(List<Long> ids) {
+        List<Integer> runs = new ArrayList<>();
+        int length = 1;
+        for (int i = 1; i < ids.size(); i++) {
+            if (ids.get(i) == ids.get(i - 1) + 1) {
+                length++;
+            } else {
+                runs.add(length);
+                length = 1;
+            }
+        }
+        runs.add(length);
+        return runs;
+    }
+}
@@ -0,0 +1,53 @@
+package com.steamanalytics.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GameCriteriaRepositoryImplTest {
+
+    @Test
+    void onlyPresentFiltersBecomePredicates() {
+        GameCriteria criteria = GameCriteria.builder()
+                .developer("Valve")
+                .publisher(" ")
+                .releasedAfter(LocalDate.of(2020, 1, 1))
+                .maxPrice(new BigDecimal("9.99"))
+                .tags(Arrays.asList("FPS", null, "FPS"))
+                .build();
+
+        GameCriteriaRepositoryImpl.Predicates predicates = GameCriteriaRepositoryImpl.predicates(criteria);
+
+        assertThat(predicates.sql()).isEqualTo("WHERE g.developer = :developer " +
+                "AND g.release_date > :releasedAfter " +
+                "AND g.price_current <= :maxPrice " +
+                "AND g.tags ??& CAST(ARRAY[:tags] AS text[])");
+        assertThat(predicates.parameters().getValue("tags")).isEqualTo(List.of("FPS"));
+    }
+
+    @Test
+    void emptyCriteriaHasNoWhereClause() {
+        assertThat(GameCriteriaRepositoryImpl.predicates(GameCriteria.builder().build()).sql()).isEmpty();
+    }
+
+    @Test
+    void sortEndsWithTheGameIdTieBreaker() {
+        Sort sort = Sort.by(Sort.Order.desc("popularity"), Sort.Order.asc("name"));
+
+        assertThat(GameCriteriaRepositoryImpl.orderBy(sort)).isEqualTo(
+                "COALESCE(s.owner_count, 0) DESC NULLS LAST, g.name ASC NULLS LAST, g.game_id ASC");
+    }
+
+    @Test
+    void rejectsUnknownSortProperties() {
+        assertThatThrownBy(() -> GameCriteriaRepositoryImpl.orderBy(Sort.by("description; DROP TABLE games")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,61 @@
+package com.steamanalytics.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchTermsTest {
+
+    @Test
+    void normalizesTextAndBuildsPrefixQueries() {
+        SearchTerms terms = SearchTerms.of("  Counter-Strike   GLOBAL ");
+
+        assertThat(terms.text()).isEqualTo("counter-strike global");
+        assertThat(terms.prefixPattern()).isEqualTo("counter-strike global%");
+        assertThat(terms.prefixTsQuery()).isEqualTo("counter:* & strike:* & global:*");
+        assertThat(terms.fuzzy()).isTrue();
+    }
+
+    @Test
+    void escapesLikeWildcards() {
+        SearchTerms terms = SearchTerms.of("100%_fun\\");
+
+        assertThat(terms.prefixPattern()).isEqualTo("100\\%\\_fun\\\\%");
+        assertThat(terms.prefixTsQuery()).isEqualTo("100:* & fun:*");
+    }
+
+    @Test
+    void shortTextIsPrefixOnlyAndPunctuationHasNoLexemes() {
+        assertThat(SearchTerms.of("cs").fuzzy()).isFalse();
+        assertThat(SearchTerms.of("!!!").prefixTsQuery()).isEmpty();
+    }
+
+    @Test
+    void rejectsBlankText() {
+        assertThatThrownBy(() -> SearchTerms.of("   ")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SearchTerms.of(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void slicesReadOneExtraRowAndStopAtMaxResults() {
+        List<Long> rows = LongStream.range(0, 1_000).boxed().toList();
+        SearchSlices.PageQuery<Long> query = (limit, offset) ->
+                rows.subList((int) Math.min(offset, rows.size()), (int) Math.min(offset + limit, rows.size()));
+
+        Slice<Long> first = SearchSlices.fetch(PageRequest.of(0, 20), 50, query);
+        Slice<Long> last = SearchSlices.fetch(PageRequest.of(2, 20), 50, query);
+        Slice<Long> beyond = SearchSlices.fetch(PageRequest.of(3, 20), 50, query);
+
+        assertThat(first.getContent()).hasSize(20).startsWith(0L);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).hasSize(10).startsWith(40L);
+        assertThat(last.hasNext()).isFalse();
+        assertThat(beyond.getContent()).isEmpty();
+    }
+}
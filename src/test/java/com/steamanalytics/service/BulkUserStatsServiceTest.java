@@ -0,0 +1,158 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.dto.UserStatsSummary;
+import com.steamanalytics.repository.FriendshipRepository;
+import com.steamanalytics.repository.UserGameLibraryRepository;
+import com.steamanalytics.repository.UserLibraryStatsRepository;
+import com.steamanalytics.service.CacheDependencyRegistry.Dependency;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkUserStatsServiceTest {
+
+    private final UserLibraryStatsRepository userLibraryStatsRepository = mock(UserLibraryStatsRepository.class);
+    private final UserGameLibraryRepository userGameLibraryRepository = mock(UserGameLibraryRepository.class);
+    private final FriendshipRepository friendshipRepository = mock(FriendshipRepository.class);
+    private final FriendGraphIndex friendGraphIndex = mock(FriendGraphIndex.class);
+    private final CacheDependencyRegistry cacheDependencyRegistry = mock(CacheDependencyRegistry.class);
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, Object> valueOperations = mock(ValueOperations.class);
+
+    private BulkUserStatsService service;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        service = new BulkUserStatsService(userLibraryStatsRepository, userGameLibraryRepository, friendshipRepository,
+                friendGraphIndex, redisTemplate, cacheDependencyRegistry, new SimpleMeterRegistry(),
+                mock(PlatformTransactionManager.class), 5_000, 1_000, Duration.ofMinutes(20));
+    }
+
+    @Test
+    void thousandMissesTakeAFixedNumberOfQueries() {
+        List<Long> userIds = LongStream.rangeClosed(1, 1_000).boxed().toList();
+        when(valueOperations.multiGet(anyList())).thenReturn(Collections.nCopies(1_000, null));
+        List<Object[]> rollups = new ArrayList<>();
+        for (Long userId : userIds) {
+            // Usuários pares ainda sem rollup
+            rollups.add(userId % 2 == 0 ? new Object[]{userId, null, null} : new Object[]{userId, 10L, 600L});
+        }
+        when(userLibraryStatsRepository.findRollupsByUserIds(userIds)).thenReturn(rollups);
+        when(userGameLibraryRepository.calculateLibraryTotalsByUserIds(anyList()))
+                .thenReturn(List.<Object[]>of(new Object[]{2L, 3L, 120L}));
+        when(friendshipRepository.countAcceptedFriendsByUserIds(any()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 7L}));
+
+        List<UserStatsSummary> summaries = service.summarize(userIds);
+
+        assertThat(summaries).hasSize(1_000);
+        assertThat(summaries.get(0).getTotalGames()).isEqualTo(10);
+        assertThat(summaries.get(0).getTotalPlaytimeHours()).isEqualTo(10.0);
+        assertThat(summaries.get(0).getFriendCount()).isEqualTo(7);
+        assertThat(summaries.get(1).getTotalGames()).isEqualTo(3);
+        assertThat(summaries.get(3).getTotalGames()).isZero();
+
+        verify(valueOperations, times(1)).multiGet(anyList());
+        verify(userLibraryStatsRepository, times(1)).findRollupsByUserIds(any());
+        verify(userGameLibraryRepository, times(1)).calculateLibraryTotalsByUserIds(anyList());
+        verify(friendshipRepository, times(1)).countAcceptedFriendsByUserIds(any());
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+        verify(cacheDependencyRegistry, times(1)).completeBulkLoad(any(), anyMap(), eq(true));
+    }
+
+    @Test
+    void cachedSummariesSkipTheDatabase() {
+        UserStatsSummary cached = UserStatsSummary.builder().userId(1L).totalGames(4).build();
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(cached, null));
+        when(userLibraryStatsRepository.findRollupsByUserIds(List.of(2L))).thenReturn(List.of());
+
+        List<UserStatsSummary> summaries = service.summarize(List.of(1L, 2L, 1L));
+
+        // Usuário 2 não existe
+        assertThat(summaries).containsExactly(cached);
+        verify(userLibraryStatsRepository).findRollupsByUserIds(List.of(2L));
+    }
+
+    @Test
+    void friendCountsComeFromTheGraphWhenLoaded() {
+        when(friendGraphIndex.isReady()).thenReturn(true);
+        when(friendGraphIndex.countFriends(5L)).thenReturn(12L);
+        when(valueOperations.multiGet(anyList())).thenReturn(Collections.singletonList(null));
+        when(userLibraryStatsRepository.findRollupsByUserIds(List.of(5L)))
+                .thenReturn(List.<Object[]>of(new Object[]{5L, 1L, 60L}));
+
+        assertThat(service.summarize(List.of(5L))).singleElement()
+                .extracting(UserStatsSummary::getFriendCount).isEqualTo(12);
+        verify(friendshipRepository, never()).countAcceptedFriendsByUserIds(any());
+    }
+
+    @Test
+    void summaryInvalidatedWhileLoadingIsEvictedAfterTheWrite() {
+        CacheDependencyRegistryTest.TextKeyCacheManager cacheManager = new CacheDependencyRegistryTest.TextKeyCacheManager();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CacheDependencyRegistry registry =
+                new CacheDependencyRegistry(cacheManager, new CacheDependencyRegistry.LocalIndex(), meterRegistry);
+        BulkUserStatsService service = new BulkUserStatsService(userLibraryStatsRepository, userGameLibraryRepository,
+                friendshipRepository, friendGraphIndex, redisTemplate, registry, meterRegistry,
+                mock(PlatformTransactionManager.class), 5_000, 1_000, Duration.ofMinutes(20));
+        Cache cache = cacheManager.getCache("userStatsSummary");
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(null, null));
+        when(userLibraryStatsRepository.findRollupsByUserIds(List.of(1L, 2L))).thenReturn(List.of(
+                new Object[]{1L, 1L, 60L}, new Object[]{2L, 2L, 120L}));
+        // A biblioteca do usuário 1 muda entre a leitura do banco e a gravação no cache
+        when(friendshipRepository.countAcceptedFriendsByUserIds(any())).thenAnswer(invocation -> {
+            registry.invalidate(Dependency.library(1));
+            return List.of();
+        });
+        // O pipeline grava no cache de teste no lugar do Redis
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            cache.put(1L, "summary");
+            cache.put(2L, "summary");
+            return List.of();
+        });
+
+        service.summarize(List.of(1L, 2L));
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isNotNull();
+        assertThat(meterRegistry.get("cache_dependencies.stale_loads").tag("cache", "userStatsSummary").counter().count())
+                .isEqualTo(1);
+        // As dependências do resumo que ficou foram publicadas
+        registry.invalidate(Dependency.friends(2));
+        assertThat(cache.get(2L)).isNull();
+    }
+
+    @Test
+    void rejectsRequestsAboveTheLimit() {
+        List<Long> userIds = LongStream.rangeClosed(1, 5_001).boxed().toList();
+
+        assertThatThrownBy(() -> service.summarize(userIds)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,172 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.service.CacheDependencyRegistry.Dependency;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class CacheDependencyRegistryTest {
+
+    private final ConcurrentMapCacheManager cacheManager = new TextKeyCacheManager();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CacheDependencyRegistry registry =
+            new CacheDependencyRegistry(cacheManager, new CacheDependencyRegistry.LocalIndex(), meterRegistry);
+
+    @Test
+    void libraryWriteEvictsOnlyEntriesThatDependOnIt() {
+        load("userStats", 1L, Dependency.library(1), Dependency.friends(1));
+        load("userStats", 2L, Dependency.library(2), Dependency.friends(2));
+        load("commonGames", "1_2", Dependency.library(1), Dependency.library(2));
+        load("commonGames", "2_3", Dependency.library(2), Dependency.library(3));
+        load("recommendations", 3L, Dependency.library(3), Dependency.friends(3), Dependency.library(1));
+
+        registry.invalidate(Dependency.library(1));
+
+        assertThat(cached("userStats", 1L)).isNull();
+        assertThat(cached("commonGames", "1_2")).isNull();
+        assertThat(cached("recommendations", 3L)).isNull();
+        assertThat(cached("userStats", 2L)).isNotNull();
+        assertThat(cached("commonGames", "2_3")).isNotNull();
+    }
+
+    @Test
+    void friendshipChangeLeavesLibraryOnlyEntriesAlone() {
+        load("userGames", 1L, Dependency.library(1));
+        load("userStats", 1L, Dependency.library(1), Dependency.friends(1));
+
+        registry.invalidate(Dependency.friends(1), Dependency.friends(2));
+
+        assertThat(cached("userGames", 1L)).isNotNull();
+        assertThat(cached("userStats", 1L)).isNull();
+    }
+
+    @Test
+    void evictionWaitsForCommit() {
+        load("userGames", 1L, Dependency.library(1));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registry.invalidate(Dependency.library(1));
+            registry.evict("userProfile", 1L);
+            assertThat(cached("userGames", 1L)).isNotNull();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cached("userGames", 1L)).isNull();
+        assertThat(meterRegistry.get("cache_dependencies.evictions").tag("cache", "userGames").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void redisIndexDrainsAllMembersAtomically() {
+        assumeTrue(redisAvailable(), "Redis not available on localhost:6379");
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        try {
+            CacheDependencyRegistry.RedisIndex index = new CacheDependencyRegistry.RedisIndex(
+                    new StringRedisTemplate(connectionFactory), Duration.ofMinutes(1));
+            String library = Dependency.library(System.nanoTime()).indexKey();
+            String friends = Dependency.friends(System.nanoTime()).indexKey();
+
+            index.add(Map.of("userStats::1", List.of(library, friends), "userGames::1", List.of(library)));
+
+            assertThat(index.drain(List.of(library, friends)))
+                    .containsExactlyInAnyOrder("userStats::1", "userGames::1", "userStats::1");
+            assertThat(index.drain(List.of(library, friends))).isEmpty();
+        } finally {
+            connectionFactory.destroy();
+        }
+    }
+
+    @Test
+    void redisIndexReportsDrainsAfterTheLoadStarted() {
+        assumeTrue(redisAvailable(), "Redis not available on localhost:6379");
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        try {
+            CacheDependencyRegistry.RedisIndex index = new CacheDependencyRegistry.RedisIndex(
+                    new StringRedisTemplate(connectionFactory), Duration.ofMinutes(1));
+            String drainedBefore = Dependency.library(System.nanoTime()).indexKey();
+            String drainedDuring = Dependency.friends(System.nanoTime()).indexKey();
+
+            index.drain(List.of(drainedBefore));
+            long since = index.clock();
+            assertThat(index.confirm(Map.of("userStats::1", List.of(drainedBefore)), since)).isEmpty();
+
+            index.drain(List.of(drainedDuring));
+            assertThat(index.confirm(Map.of(
+                    "userStats::2", List.of(drainedBefore, drainedDuring),
+                    "userStats::3", List.of(drainedBefore)), since)).containsExactly("userStats::2");
+            assertThat(index.drain(List.of(drainedBefore, drainedDuring)))
+                    .containsExactlyInAnyOrder("userStats::1", "userStats::2", "userStats::2", "userStats::3");
+        } finally {
+            connectionFactory.destroy();
+        }
+    }
+
+    private void load(String cacheName, Object key, Dependency... dependencies) {
+        registry.register(cacheName, key, List.of(dependencies));
+        cacheManager.getCache(cacheName).put(key, "value");
+    }
+
+    private Cache.ValueWrapper cached(String cacheName, Object key) {
+        return cacheManager.getCache(cacheName).get(key);
+    }
+
+    private static boolean redisAvailable() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", 6379), 500);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Chaves normalizadas para texto, como no RedisCache ({@code 1L} e {@code "1"} são a mesma entrada)
+     */
+    static class TextKeyCacheManager extends ConcurrentMapCacheManager {
+
+        @Override
+        protected Cache createConcurrentMapCache(String name) {
+            return new ConcurrentMapCache(name) {
+                @Override
+                protected Object lookup(Object key) {
+                    return super.lookup(String.valueOf(key));
+                }
+
+                @Override
+                public void put(Object key, Object value) {
+                    super.put(String.valueOf(key), value);
+                }
+
+                @Override
+                public void evict(Object key) {
+                    super.evict(String.valueOf(key));
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.service.CacheDependencyRegistry.Dependency;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Taxa de acerto dos caches derivados sob uma carga mista de leituras e escritas, comparando a
+ * remoção de todas as entradas a cada escrita (antes) com a remoção por dependência (depois).
+ * Para ser justa, a linha de base limpa todos os caches que a escrita pode afetar.
+ * As dependências declaradas são as mesmas dos serviços (biblioteca, amigos, biblioteca dos amigos).
+ * Executar com: mvn test -Dtest=CacheInvalidationBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CacheInvalidationBenchmark {
+
+    private static final int USERS = 50_000;
+    private static final int FRIENDS_PER_USER = 10;
+    private static final int HOT_USERS = 5_000;
+    private static final int OPERATIONS = 2_000_000;
+    private static final double LIBRARY_WRITE_RATIO = 0.05;
+    private static final double FRIENDSHIP_WRITE_RATIO = 0.005;
+
+    private static final List<String> CACHES = List.of("userGames", "userStats", "dashboard", "recommendations", "commonGames");
+    private static final List<String> LIBRARY_CACHES = CACHES;
+    private static final List<String> FRIENDSHIP_CACHES = List.of("userStats", "dashboard", "recommendations");
+
+    @Test
+    void reportHitRatioBeforeAndAfter() {
+        long[][] friends = friends(new Random(11));
+
+        Result before = run(friends, false);
+        Result after = run(friends, true);
+
+        System.out.printf("%d operations, %d users (%d hot), %.1f%% library writes, %.1f%% friendship writes%n",
+                OPERATIONS, USERS, HOT_USERS, LIBRARY_WRITE_RATIO * 100, FRIENDSHIP_WRITE_RATIO * 100);
+        for (String cacheName : CACHES) {
+            System.out.printf("%-16s allEntries %6.1f%%   dependencies %6.1f%%%n",
+                    cacheName, before.hitRatio(cacheName) * 100, after.hitRatio(cacheName) * 100);
+        }
+        System.out.printf("%-16s allEntries %6.1f%%   dependencies %6.1f%%   (evictions per write: %.1f)%n",
+                "overall", before.overallHitRatio() * 100, after.overallHitRatio() * 100, after.evictionsPerWrite());
+    }
+
+    private static Result run(long[][] friends, boolean byDependency) {
+        CacheManager cacheManager = new CacheDependencyRegistryTest.TextKeyCacheManager();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CacheDependencyRegistry registry =
+                new CacheDependencyRegistry(cacheManager, new CacheDependencyRegistry.LocalIndex(), meterRegistry);
+        Result result = new Result();
+        Random random = new Random(42);
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            long userId = random.nextInt(HOT_USERS);
+            double dice = random.nextDouble();
+
+            if (dice < LIBRARY_WRITE_RATIO) {
+                result.writes++;
+                if (byDependency) {
+                    registry.invalidate(Dependency.library(userId));
+                } else {
+                    LIBRARY_CACHES.forEach(name -> cacheManager.getCache(name).clear());
+                }
+            } else if (dice < LIBRARY_WRITE_RATIO + FRIENDSHIP_WRITE_RATIO) {
+                result.writes++;
+                long friendId = random.nextInt(USERS);
+                if (byDependency) {
+                    registry.invalidate(Dependency.friends(userId), Dependency.friends(friendId));
+                } else {
+                    FRIENDSHIP_CACHES.forEach(name -> cacheManager.getCache(name).clear());
+                }
+            } else {
+                String cacheName = CACHES.get(random.nextInt(CACHES.size()));
+                Object key = cacheName.equals("commonGames")
+                        ? userId + "_" + friends[(int) userId][random.nextInt(FRIENDS_PER_USER)]
+                        : userId;
+                Cache cache = cacheManager.getCache(cacheName);
+                if (cache.get(key) != null) {
+                    result.hit(cacheName);
+                } else {
+                    result.miss(cacheName);
+                    registry.register(cacheName, key, dependencies(cacheName, userId, key, friends));
+                    cache.put(key, Boolean.TRUE);
+                }
+            }
+        }
+        result.evictions = meterRegistry.find("cache_dependencies.evictions").counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+        return result;
+    }
+
+    /**
+     * Mesmas declarações dos serviços: AnalyticsService e UserGameLibraryService
+     */
+    private static List<Dependency> dependencies(String cacheName, long userId, Object key, long[][] friends) {
+        List<Dependency> dependencies = new ArrayList<>();
+        switch (cacheName) {
+            case "userGames" -> dependencies.add(Dependency.library(userId));
+            case "userStats" -> {
+                dependencies.add(Dependency.library(userId));
+                dependencies.add(Dependency.friends(userId));
+            }
+            case "commonGames" -> {
+                dependencies.add(Dependency.library(userId));
+                dependencies.add(Dependency.library(Long.parseLong(key.toString().split("_")[1])));
+            }
+            default -> {
+                dependencies.add(Dependency.library(userId));
+                dependencies.add(Dependency.friends(userId));
+                for (long friendId : friends[(int) userId]) {
+                    dependencies.add(Dependency.library(friendId));
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    private static long[][] friends(Random random) {
+        long[][] friends = new long[USERS][FRIENDS_PER_USER];
+        for (long[] userFriends : friends) {
+            for (int i = 0; i < FRIENDS_PER_USER; i++) {
+                // Metade dos amigos no conjunto quente, como acontece com perfis populares
+                userFriends[i] = random.nextBoolean() ? random.nextInt(HOT_USERS) : random.nextInt(USERS);
+            }
+        }
+        return friends;
+    }
+
+    private static class Result {
+
+        private final Map<String, long[]> counts = new LinkedHashMap<>();
+        private long writes;
+        private double evictions;
+
+        void hit(String cacheName) {
+            counts.computeIfAbsent(cacheName, name -> new long[2])[0]++;
+        }
+
+        void miss(String cacheName) {
+            counts.computeIfAbsent(cacheName, name -> new long[2])[1]++;
+        }
+
+        double hitRatio(String cacheName) {
+            long[] count = counts.getOrDefault(cacheName, new long[2]);
+            return count[0] + count[1] == 0 ? 0 : (double) count[0] / (count[0] + count[1]);
+        }
+
+        double overallHitRatio() {
+            long hits = counts.values().stream().mapToLong(count -> count[0]).sum();
+            long total = counts.values().stream().mapToLong(count -> count[0] + count[1]).sum();
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        double evictionsPerWrite() {
+            return writes == 0 ? 0 : evictions / writes;
+        }
+    }
+}
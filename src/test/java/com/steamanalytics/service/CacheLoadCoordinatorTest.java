@@ -0,0 +1,249 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.config.CacheValueSerializer;
+import com.steamanalytics.model.dto.UserStatistics;
+import com.steamanalytics.service.CacheDependencyRegistry.Dependency;
+import com.steamanalytics.service.CacheLoadCoordinator.CachedValue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class CacheLoadCoordinatorTest {
+
+    private static final int CALLERS = 16;
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Runnable> refreshes = new ArrayList<>();
+    private final CacheDependencyRegistry dependencyRegistry =
+            new CacheDependencyRegistry(cacheManager, new CacheDependencyRegistry.LocalIndex(), meterRegistry);
+
+    private CacheLoadCoordinator coordinator(MockEnvironment environment, StringRedisTemplate redisTemplate) {
+        return new CacheLoadCoordinator(cacheManager, redisTemplate, dependencyRegistry, refreshes::add,
+                meterRegistry, environment);
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        CacheLoadCoordinator coordinator = coordinator(environment(), null);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<CompletableFuture<String>> callers = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        try {
+            for (int i = 0; i < CALLERS; i++) {
+                callers.add(CompletableFuture.supplyAsync(() -> coordinator.get("userStats", 42L, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "stats";
+                }), pool));
+            }
+            waitUntil(() -> coalesced("userStats") == CALLERS - 1);
+            release.countDown();
+
+            for (CompletableFuture<String> caller : callers) {
+                assertThat(caller.get(5, TimeUnit.SECONDS)).isEqualTo("stats");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(cacheManager.getCache("userStats").get(42L).get()).isInstanceOf(CachedValue.class);
+    }
+
+    @Test
+    void servesStaleValueAndRefreshesInBackgroundAfterSoftTtl() {
+        MockEnvironment environment = environment()
+                .withProperty("analytics.cache.loader.caches.dashboard.soft-ttl", "1m");
+        CacheLoadCoordinator coordinator = coordinator(environment, null);
+        Cache cache = cacheManager.getCache("dashboard");
+        cache.put(7L, new CachedValue("old", System.currentTimeMillis() - 120_000));
+
+        assertThat(coordinator.get("dashboard", 7L, () -> "new")).isEqualTo("old");
+        assertThat(coordinator.get("dashboard", 7L, () -> "newer")).isEqualTo("old");
+        assertThat(refreshes).hasSize(1);
+
+        refreshes.get(0).run();
+
+        assertThat(coordinator.get("dashboard", 7L, () -> "unused")).isEqualTo("new");
+        assertThat(meterRegistry.get("cache_loader.stale_serves").tag("cache", "dashboard").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void freshValuesAreServedWithoutRefresh() {
+        MockEnvironment environment = environment()
+                .withProperty("analytics.cache.loader.caches.dashboard.soft-ttl", "1m");
+        CacheLoadCoordinator coordinator = coordinator(environment, null);
+
+        assertThat(coordinator.get("dashboard", 7L, () -> "loaded")).isEqualTo("loaded");
+        assertThat(coordinator.get("dashboard", 7L, () -> "again")).isEqualTo("loaded");
+        assertThat(refreshes).isEmpty();
+    }
+
+    @Test
+    void rejectedResultsAreReturnedButNotCached() {
+        CacheLoadCoordinator coordinator = coordinator(environment(), null);
+
+        assertThat(coordinator.get("dashboard", 1L, () -> "partial", value -> false)).isEqualTo("partial");
+        assertThat(cacheManager.getCache("dashboard").get(1L)).isNull();
+    }
+
+    @Test
+    void failedLoadPropagatesAndNextCallRetries() {
+        CacheLoadCoordinator coordinator = coordinator(environment(), null);
+
+        assertThatThrownBy(() -> coordinator.get("userStats", 9L, () -> {
+            throw new RuntimeException("User not found");
+        })).hasMessage("User not found");
+
+        assertThat(coordinator.get("userStats", 9L, () -> "loaded")).isEqualTo("loaded");
+    }
+
+    @Test
+    void invalidationDuringTheLoadEvictsTheStoredValue() {
+        CacheLoadCoordinator coordinator = coordinator(environment(), null);
+
+        // A escrita confirma entre a leitura do banco e a gravação no cache: não havia o que remover
+        assertThat(coordinator.get("userGames", 1L, () -> {
+            dependencyRegistry.register("userGames", 1L, List.of(Dependency.library(1)));
+            dependencyRegistry.invalidate(Dependency.library(1));
+            return "old library";
+        })).isEqualTo("old library");
+
+        assertThat(cacheManager.getCache("userGames").get(1L)).isNull();
+        assertThat(meterRegistry.get("cache_dependencies.stale_loads").tag("cache", "userGames").counter().count())
+                .isEqualTo(1);
+        assertThat(coordinator.get("userGames", 1L, () -> "new library")).isEqualTo("new library");
+    }
+
+    @Test
+    void dependenciesArePublishedAfterTheValueIsStored() {
+        CacheLoadCoordinator coordinator = coordinator(environment(), null);
+
+        coordinator.get("commonGames", "1_2", () -> {
+            dependencyRegistry.register("commonGames", "1_2", List.of(Dependency.library(1), Dependency.library(2)));
+            return "common";
+        });
+        dependencyRegistry.invalidate(Dependency.library(3));
+        assertThat(cacheManager.getCache("commonGames").get("1_2")).isNotNull();
+
+        dependencyRegistry.invalidate(Dependency.library(2));
+        assertThat(cacheManager.getCache("commonGames").get("1_2")).isNull();
+    }
+
+    @Test
+    void envelopeRoundTripsThroughTheRedisCodec() {
+        CacheValueSerializer serializer = new CacheValueSerializer(CacheValueSerializer.Format.SMILE, 1024);
+        UserStatistics stats = UserStatistics.builder().userId(3L).totalGames(12).genreDistribution(Map.of("RPG", 4)).build();
+        CachedValue envelope = new CachedValue(List.of(stats), 1_700_000_000_000L);
+
+        Object restored = serializer.deserialize(serializer.serialize(envelope));
+
+        assertThat(restored).isInstanceOf(CachedValue.class);
+        assertThat(((CachedValue) restored).loadedAt()).isEqualTo(envelope.loadedAt());
+        assertThat(((CachedValue) restored).value()).asList().singleElement()
+                .usingRecursiveComparison().isEqualTo(stats);
+    }
+
+    @Test
+    void redisLockCoordinatesLoadsAcrossNodes() throws Exception {
+        assumeTrue(redisAvailable(), "Redis not available on localhost:6379");
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        try {
+            StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+            MockEnvironment environment = environment()
+                    .withProperty("analytics.cache.loader.lock.enabled", "true");
+            // Duas instâncias com coordenadores próprios sobre o mesmo cache compartilhado
+            CacheLoadCoordinator nodeA = coordinator(environment, redisTemplate);
+            CacheLoadCoordinator nodeB = coordinator(environment, redisTemplate);
+            long key = System.nanoTime();
+            AtomicInteger loads = new AtomicInteger();
+            CountDownLatch loading = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+
+            CompletableFuture<String> a = CompletableFuture.supplyAsync(() -> nodeA.get("recommendations", key, () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "recs";
+            }));
+            await(loading);
+            CompletableFuture<String> b = CompletableFuture.supplyAsync(() -> nodeB.get("recommendations", key, () -> {
+                loads.incrementAndGet();
+                return "duplicate";
+            }));
+            Thread.sleep(200);
+            release.countDown();
+
+            assertThat(a.get(5, TimeUnit.SECONDS)).isEqualTo("recs");
+            assertThat(b.get(5, TimeUnit.SECONDS)).isEqualTo("recs");
+            assertThat(loads).hasValue(1);
+        } finally {
+            connectionFactory.destroy();
+        }
+    }
+
+    private static MockEnvironment environment() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setConversionService(new ApplicationConversionService());
+        return environment;
+    }
+
+    private double coalesced(String cacheName) {
+        var counter = meterRegistry.find("cache_loader.loads").tags("cache", cacheName, "outcome", "coalesced").counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean redisAvailable() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", 6379), 500);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
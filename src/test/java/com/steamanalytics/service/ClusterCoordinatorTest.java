@@ -0,0 +1,214 @@
+package com.steamanalytics.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Várias instâncias do coordenador no mesmo processo, contra o banco local (tabelas do docker/init.sql)
+ */
+@SpringBootTest
+class ClusterCoordinatorTest {
+
+    private static final int PARTITIONS = 16;
+    private static final String NODE_PREFIX = "cluster-test-";
+    private static final String JOB = "cluster-test-job";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final List<ClusterCoordinator> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void createTables() {
+        new ResourceDatabasePopulator(new FileSystemResource("docker/init.sql")).execute(dataSource);
+        cleanUp();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        nodes.forEach(ClusterCoordinator::leave);
+        nodes.clear();
+        jdbcTemplate.update("DELETE FROM cluster_nodes WHERE node_id LIKE ?", NODE_PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM job_leases WHERE owner_node LIKE ?", NODE_PREFIX + "%");
+    }
+
+    @Test
+    void partitionsAreSplitBetweenLiveNodes() {
+        ClusterCoordinator a = node("a");
+        ClusterCoordinator b = node("b");
+        ClusterCoordinator c = node("c");
+
+        settle();
+
+        assertExclusiveCover(a, b, c);
+        assertThat(a.ownedPartitions()).isNotEmpty();
+        assertThat(b.ownedPartitions()).isNotEmpty();
+        assertThat(c.ownedPartitions()).isNotEmpty();
+    }
+
+    @Test
+    void gracefulLeaveHandsPartitionsToTheRemainingNodes() {
+        ClusterCoordinator a = node("a");
+        ClusterCoordinator b = node("b");
+        ClusterCoordinator c = node("c");
+        settle();
+        List<Integer> keptByA = a.ownedPartitions();
+
+        c.leave();
+        nodes.remove(c);
+        settle();
+
+        assertExclusiveCover(a, b);
+        // Só as partições do nó que saiu mudam de dono
+        assertThat(a.ownedPartitions()).containsAll(keptByA);
+    }
+
+    @Test
+    void crashedNodeLosesItsPartitionsOnceItsLeasesExpire() {
+        ClusterCoordinator a = node("a");
+        ClusterCoordinator b = node("b");
+        ClusterCoordinator c = node("c");
+        settle();
+        List<Integer> ownedByC = c.ownedPartitions();
+
+        // Sem heartbeat nem renovação: equivale a esperar o lease-ttl passar
+        nodes.remove(c);
+        jdbcTemplate.update("UPDATE cluster_nodes SET heartbeat_at = now() - interval '1 hour' WHERE node_id = ?", c.nodeId());
+        settle();
+        assertThat(union(a, b)).doesNotContainAnyElementsOf(ownedByC);
+
+        jdbcTemplate.update("UPDATE job_leases SET lease_until = now() - interval '1 second' WHERE owner_node = ?", c.nodeId());
+        settle();
+        assertExclusiveCover(a, b);
+    }
+
+    @Test
+    void joiningNodeTakesOverOnlyAfterThePreviousOwnerReleases() {
+        ClusterCoordinator a = node("a");
+        ClusterCoordinator b = node("b");
+        settle();
+
+        ClusterCoordinator c = node("c");
+        // c conhece a nova divisão antes de a e b: ainda não obtém nada que seja deles
+        c.rebalance();
+        assertThat(c.ownedPartitions()).isEmpty();
+        assertExclusive(a, b, c);
+
+        settle();
+        assertExclusiveCover(a, b, c);
+        assertThat(c.ownedPartitions()).isNotEmpty();
+    }
+
+    @Test
+    void exactlyOneNodeRunsASingletonJob() throws Exception {
+        List<ClusterCoordinator> contenders = IntStream.range(0, 8).mapToObj(i -> node("job-" + i)).toList();
+        ExecutorService executor = Executors.newFixedThreadPool(contenders.size());
+        try {
+            List<Callable<Boolean>> attempts = contenders.stream()
+                    .<Callable<Boolean>>map(node -> () -> node.tryAcquire(JOB))
+                    .toList();
+            long winners = 0;
+            for (Future<Boolean> result : executor.invokeAll(attempts)) {
+                if (result.get()) {
+                    winners++;
+                }
+            }
+            assertThat(winners).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+            jdbcTemplate.update("DELETE FROM job_leases WHERE name = ?", JOB);
+        }
+    }
+
+    @Test
+    void ownerOfMovesOnlyTheDepartedNodesPartitions() {
+        List<String> before = List.of("n1", "n2", "n3", "n4");
+        List<String> after = List.of("n1", "n2", "n4");
+
+        Map<Integer, String> ownersBefore = owners(before, 1024);
+        Map<Integer, String> ownersAfter = owners(after, 1024);
+
+        ownersBefore.forEach((partition, owner) -> {
+            if (!owner.equals("n3")) {
+                assertThat(ownersAfter.get(partition)).isEqualTo(owner);
+            }
+        });
+        assertThat(ownersBefore.values().stream().collect(Collectors.toSet())).containsExactlyInAnyOrderElementsOf(before);
+    }
+
+    @Test
+    void disabledCoordinatorOwnsEverything() {
+        ClusterCoordinator single = new ClusterCoordinator(null, false, "single", 4,
+                Duration.ofSeconds(30), Duration.ofMinutes(30));
+
+        assertThat(single.ownedPartitions()).containsExactly(0, 1, 2, 3);
+        assertThat(single.ownsUser(42)).isTrue();
+        assertThat(single.tryAcquire(JOB)).isTrue();
+    }
+
+    private ClusterCoordinator node(String name) {
+        ClusterCoordinator node = new ClusterCoordinator(jdbcTemplate, true, NODE_PREFIX + name, PARTITIONS,
+                Duration.ofSeconds(30), Duration.ofMinutes(1));
+        nodes.add(node);
+        return node;
+    }
+
+    // Duas voltas: na primeira quem perdeu partições as libera, na segunda os novos donos as obtêm
+    private void settle() {
+        for (int round = 0; round < 2; round++) {
+            nodes.forEach(ClusterCoordinator::rebalance);
+        }
+    }
+
+    private static void assertExclusiveCover(ClusterCoordinator... nodes) {
+        assertExclusive(nodes);
+        assertThat(union(nodes)).containsExactlyInAnyOrderElementsOf(
+                IntStream.range(0, PARTITIONS).boxed().toList());
+    }
+
+    private static void assertExclusive(ClusterCoordinator... nodes) {
+        int total = 0;
+        for (ClusterCoordinator node : nodes) {
+            total += node.ownedPartitions().size();
+        }
+        assertThat(union(nodes)).hasSize(total);
+    }
+
+    private static Set<Integer> union(ClusterCoordinator... nodes) {
+        Set<Integer> owned = new HashSet<>();
+        for (ClusterCoordinator node : nodes) {
+            owned.addAll(node.ownedPartitions());
+        }
+        return owned;
+    }
+
+    private static Map<Integer, String> owners(List<String> nodes, int partitions) {
+        return IntStream.range(0, partitions).boxed()
+                .collect(Collectors.toMap(partition -> partition, partition -> ClusterCoordinator.ownerOf(partition, nodes)));
+    }
+}
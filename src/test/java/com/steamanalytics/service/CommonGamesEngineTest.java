@@ -0,0 +1,78 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.entity.Game;
+import com.steamanalytics.repository.GameRepository;
+import com.steamanalytics.repository.UserGameLibraryRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class CommonGamesEngineTest {
+
+    private final UserGameLibraryRepository libraryRepository = mock(UserGameLibraryRepository.class);
+    private final GameRepository gameRepository = mock(GameRepository.class);
+
+    @Test
+    void projectionModeIssuesSingleQuery() {
+        when(libraryRepository.findCommonGamesWithPlaytime(1L, 2L)).thenReturn(List.of(
+                new Object[]{game(10L, 730), 600, 300},
+                new Object[]{game(11L, 570), 100, null}
+        ));
+
+        CommonGamesEngine engine = new CommonGamesEngine(libraryRepository, gameRepository, false);
+        List<AnalyticsService.CommonGameDto> result = engine.findCommonGames(1L, 2L);
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getTotalPlaytime()).isEqualTo(900);
+        assertThat(result.get(1).getFriendPlaytime()).isZero();
+
+        verify(libraryRepository, times(1)).findCommonGamesWithPlaytime(1L, 2L);
+        verifyNoMoreInteractions(libraryRepository);
+        verifyNoInteractions(gameRepository);
+    }
+
+    @Test
+    void inMemoryModeIntersectsSortedArraysAndSortsByCombinedPlaytime() {
+        when(libraryRepository.findGamePlaytimesOrderedByGameId(1L)).thenReturn(List.of(
+                new Object[]{1L, 10}, new Object[]{3L, 50}, new Object[]{5L, 5}, new Object[]{7L, 0}
+        ));
+        when(libraryRepository.findGamePlaytimesOrderedByGameId(2L)).thenReturn(List.of(
+                new Object[]{2L, 1}, new Object[]{3L, 1}, new Object[]{5L, 100}, new Object[]{8L, 9}
+        ));
+        when(gameRepository.findAllById(anyList())).thenReturn(List.of(game(3L, 30), game(5L, 50)));
+
+        CommonGamesEngine engine = new CommonGamesEngine(libraryRepository, gameRepository, true);
+        List<AnalyticsService.CommonGameDto> result = engine.findCommonGames(1L, 2L);
+
+        assertThat(result).extracting(dto -> dto.getGame().getGameId()).containsExactly(5L, 3L);
+        assertThat(result).extracting(AnalyticsService.CommonGameDto::getTotalPlaytime).containsExactly(105, 51);
+
+        verify(libraryRepository, times(2)).findGamePlaytimesOrderedByGameId(anyLong());
+        verify(gameRepository, times(1)).findAllById(anyList());
+        verifyNoMoreInteractions(libraryRepository, gameRepository);
+    }
+
+    @Test
+    void intersectHandlesDisjointLibraries() {
+        CommonGamesEngine.SortedPlaytimes a = new CommonGamesEngine.SortedPlaytimes(new long[]{1, 2}, new int[]{1, 1});
+        CommonGamesEngine.SortedPlaytimes b = new CommonGamesEngine.SortedPlaytimes(new long[]{3, 4, 5}, new int[]{1, 1, 1});
+
+        assertThat(CommonGamesEngine.intersect(a, b).size).isZero();
+    }
+
+    private static Game game(Long gameId, Integer steamAppId) {
+        Game game = new Game(steamAppId, "Game " + steamAppId);
+        game.setGameId(gameId);
+        return game;
+    }
+}
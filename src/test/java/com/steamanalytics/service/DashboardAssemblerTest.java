@@ -0,0 +1,89 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.dto.DashboardData;
+import com.steamanalytics.model.dto.UserStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DashboardAssemblerTest {
+
+    private final AnalyticsService analyticsService = mock(AnalyticsService.class);
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    DashboardAssemblerTest() {
+        executor.setCorePoolSize(5);
+        executor.setMaxPoolSize(5);
+        executor.initialize();
+        when(analyticsService.calculateUserStatistics(1L)).thenReturn(new UserStatistics());
+        when(analyticsService.findTopGames(1L, 5)).thenReturn(List.of());
+        when(analyticsService.findRecentGames(1L, 5)).thenReturn(List.of());
+        when(analyticsService.generateRecommendations(1L)).thenReturn(List.of());
+        when(analyticsService.getFriendsActivity(1L)).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void slowComponentIsOmittedAndItsWorkerInterrupted() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(analyticsService.generateRecommendations(1L)).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return List.of();
+        });
+        DashboardAssembler assembler = new DashboardAssembler(analyticsService, executor, Duration.ofMillis(200));
+
+        long start = System.nanoTime();
+        DashboardData dashboard = assembler.assemble(1L);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        assertThat(dashboard.isPartial()).isTrue();
+        assertThat(dashboard.getMissingComponents()).containsExactly(DashboardAssembler.RECOMMENDATIONS);
+        assertThat(dashboard.getUserStatistics()).isNotNull();
+        assertThat(dashboard.getTopGames()).isEmpty();
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void failedComponentIsOmitted() {
+        when(analyticsService.getFriendsActivity(1L)).thenThrow(new IllegalStateException("boom"));
+        DashboardAssembler assembler = new DashboardAssembler(analyticsService, executor, Duration.ofSeconds(2));
+
+        DashboardData dashboard = assembler.assemble(1L);
+
+        assertThat(dashboard.getMissingComponents()).containsExactly(DashboardAssembler.FRIENDS_ACTIVITY);
+        assertThat(dashboard.getRecommendations()).isEmpty();
+    }
+
+    @Test
+    void statisticsFailureReachesTheCaller() {
+        when(analyticsService.calculateUserStatistics(1L)).thenThrow(new IllegalArgumentException("User not found"));
+        DashboardAssembler assembler = new DashboardAssembler(analyticsService, executor, Duration.ofSeconds(2));
+
+        assertThatThrownBy(() -> assembler.assemble(1L)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void completeDashboardIsNotPartial() {
+        DashboardAssembler assembler = new DashboardAssembler(analyticsService, executor, Duration.ofSeconds(2));
+
+        assertThat(assembler.assemble(1L).isPartial()).isFalse();
+    }
+}
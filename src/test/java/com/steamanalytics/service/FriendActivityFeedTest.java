@@ -0,0 +1,71 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.dto.FriendActivity;
+import com.steamanalytics.model.entity.Game;
+import com.steamanalytics.model.entity.User;
+import com.steamanalytics.repository.GameRepository;
+import com.steamanalytics.repository.UserGameLibraryRepository;
+import com.steamanalytics.repository.UserRepository;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class FriendActivityFeedTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserGameLibraryRepository libraryRepository = mock(UserGameLibraryRepository.class);
+    private final GameRepository gameRepository = mock(GameRepository.class);
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 50})
+    void queryCountDoesNotGrowWithTheNumberOfFriends(int friendCount) {
+        List<User> friends = LongStream.rangeClosed(1, friendCount).mapToObj(FriendActivityFeedTest::user).toList();
+        List<Object[]> recentGames = new ArrayList<>();
+        List<Game> games = new ArrayList<>();
+        for (User friend : friends) {
+            long gameId = 100 + friend.getUserId();
+            recentGames.add(new Object[]{friend.getUserId(), gameId});
+            games.add(game(gameId));
+        }
+        when(userRepository.findAcceptedFriends(eq(1L), any(Pageable.class))).thenReturn(friends);
+        when(libraryRepository.findTopRecentGameIdsByUsers(anyCollection(), anyInt())).thenReturn(recentGames);
+        when(gameRepository.findAllById(anyCollection())).thenReturn(games);
+
+        FriendActivityFeed feed = new FriendActivityFeed(userRepository, libraryRepository, gameRepository, 100, 3);
+        List<FriendActivity> activity = feed.getFriendsActivity(1L);
+
+        assertThat(activity).hasSize(friendCount);
+        assertThat(activity).allSatisfy(entry -> assertThat(entry.getRecentGames()).hasSize(1));
+        verify(userRepository, times(1)).findAcceptedFriends(eq(1L), any(Pageable.class));
+        verify(libraryRepository, times(1)).findTopRecentGameIdsByUsers(anyCollection(), eq(3));
+        verify(gameRepository, times(1)).findAllById(anyCollection());
+        verifyNoMoreInteractions(userRepository, libraryRepository, gameRepository);
+    }
+
+    private static User user(long userId) {
+        User user = new User(76561198000000000L + userId, "friend" + userId);
+        user.setUserId(userId);
+        return user;
+    }
+
+    private static Game game(long gameId) {
+        Game game = new Game((int) gameId, "Game " + gameId);
+        game.setGameId(gameId);
+        return game;
+    }
+}
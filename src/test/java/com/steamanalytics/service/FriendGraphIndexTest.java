@@ -0,0 +1,155 @@
+package com.steamanalytics.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FriendGraphIndexTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Arestas devolvidas pela próxima carga e ação executada no meio dela (simula um commit concorrente)
+    private final List<long[]> storedEdges = new ArrayList<>();
+    private Runnable duringLoad = () -> { };
+
+    private final FriendGraphIndex index;
+
+    FriendGraphIndexTest() throws Exception {
+        index = new FriendGraphIndex(dataSource(), new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                meterRegistry, true, 10_000);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void changesAreVisibleThroughTheOverlayBeforeCompaction() {
+        load(edge(1, 2), edge(1, 3));
+
+        index.onFriendshipAccepted(1L, 4L);
+        index.onFriendshipRemoved(2L, 1L);
+
+        assertThat(index.friendIds(1)).containsExactly(3L, 4L);
+        assertThat(index.friendIds(4)).containsExactly(1L);
+        assertThat(index.friendIds(2)).isEmpty();
+        assertThat(index.areFriends(4, 1)).isTrue();
+        assertThat(index.areFriends(1, 2)).isFalse();
+        assertThat(index.countFriends(1)).isEqualTo(2);
+        assertThat(index.snapshot().containsEdge(1, 2)).isTrue();
+        assertThat(pendingChanges()).isEqualTo(2);
+    }
+
+    @Test
+    void changesWaitForTheCommit() {
+        load(edge(1, 2));
+        TransactionSynchronizationManager.initSynchronization();
+
+        index.onFriendshipAccepted(1L, 5L);
+        assertThat(index.areFriends(1, 5)).isFalse();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(index.areFriends(1, 5)).isTrue();
+    }
+
+    @Test
+    void compactionFoldsTheOverlayIntoTheGraph() {
+        load(edge(1, 2), edge(1, 3), edge(2, 3));
+        index.onFriendshipAccepted(1L, 4L);
+        index.onFriendshipRemoved(1L, 2L);
+
+        index.compact();
+
+        assertThat(pendingChanges()).isZero();
+        assertThat(index.snapshot().neighborIds(1)).containsExactly(3L, 4L);
+        assertThat(index.snapshot().neighborIds(2)).containsExactly(3L);
+        assertThat(index.snapshot().edgeCount()).isEqualTo(3);
+        assertThat(index.friendIds(1)).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void reloadKeepsChangesCommittedWhileTheGraphWasLoading() {
+        load(edge(1, 2), edge(1, 3));
+        // Já confirmada antes da recarga: a carga traz a aresta e o overlay pode esquecê-la
+        index.onFriendshipAccepted(1L, 6L);
+
+        storedEdges.add(edge(1, 6));
+        // Confirmadas depois de a leitura começar: o snapshot do banco não as contém
+        duringLoad = () -> {
+            index.onFriendshipAccepted(1L, 5L);
+            index.onFriendshipRemoved(1L, 3L);
+        };
+        index.reload();
+
+        assertThat(index.snapshot().neighborIds(1)).containsExactly(2L, 3L, 6L);
+        assertThat(index.friendIds(1)).containsExactly(2L, 5L, 6L);
+        assertThat(index.areFriends(3, 1)).isFalse();
+        assertThat(pendingChanges()).isEqualTo(2);
+
+        duringLoad = () -> { };
+        storedEdges.removeIf(edge -> edge[1] == 3);
+        storedEdges.add(edge(1, 5));
+        index.reload();
+
+        assertThat(index.friendIds(1)).containsExactly(2L, 5L, 6L);
+        assertThat(pendingChanges()).isZero();
+    }
+
+    private void load(long[]... edges) {
+        storedEdges.clear();
+        storedEdges.addAll(List.of(edges));
+        index.reload();
+        assertThat(index.isReady()).isTrue();
+    }
+
+    private double pendingChanges() {
+        return meterRegistry.get("friend_graph.pending_changes").gauge().value();
+    }
+
+    private static long[] edge(long requesterId, long addresseeId) {
+        return new long[]{requesterId, addresseeId};
+    }
+
+    private DataSource dataSource() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> connection);
+        when(connection.createStatement()).thenAnswer(invocation -> statement);
+        when(statement.executeQuery(anyString())).thenAnswer(invocation -> resultSet());
+        return dataSource;
+    }
+
+    private ResultSet resultSet() throws Exception {
+        List<long[]> rows = List.copyOf(storedEdges);
+        int[] position = {-1};
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenAnswer(invocation -> {
+            if (position[0] == -1) {
+                duringLoad.run();
+            }
+            return ++position[0] < rows.size();
+        });
+        when(resultSet.getLong(1)).thenAnswer(invocation -> rows.get(position[0])[0]);
+        when(resultSet.getLong(2)).thenAnswer(invocation -> rows.get(position[0])[1]);
+        return resultSet;
+    }
+}
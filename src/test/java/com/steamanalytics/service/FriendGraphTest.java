@@ -0,0 +1,53 @@
+package com.steamanalytics.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FriendGraphTest {
+
+    @Test
+    void buildsSortedSymmetricRowsAndDropsDuplicates() {
+        FriendGraph graph = new FriendGraph.Builder(4)
+                .addEdge(30L, 10L)
+                .addEdge(10L, 20L)
+                .addEdge(20L, 10L)
+                .addEdge(40L, 40L)
+                .addEdge(10L, 50L)
+                .build();
+
+        assertThat(graph.nodeCount()).isEqualTo(4);
+        assertThat(graph.edgeCount()).isEqualTo(3);
+        assertThat(graph.neighborIds(10L)).containsExactly(20L, 30L, 50L);
+        assertThat(graph.neighborIds(20L)).containsExactly(10L);
+        assertThat(graph.neighborIds(40L)).isEmpty();
+        assertThat(graph.degree(10L)).isEqualTo(3);
+    }
+
+    @Test
+    void answersEdgeQueriesInBothDirections() {
+        FriendGraph graph = new FriendGraph.Builder(2)
+                .addEdge(1L, 2L)
+                .addEdge(2L, 3L)
+                .build();
+
+        assertThat(graph.containsEdge(1L, 2L)).isTrue();
+        assertThat(graph.containsEdge(2L, 1L)).isTrue();
+        assertThat(graph.containsEdge(1L, 3L)).isFalse();
+        assertThat(graph.containsEdge(1L, 99L)).isFalse();
+    }
+
+    @Test
+    void staysUnderSixteenBytesPerEdge() {
+        FriendGraph.Builder builder = new FriendGraph.Builder(40_000);
+        for (long user = 0; user < 10_000; user++) {
+            for (long step = 1; step <= 4; step++) {
+                builder.addEdge(user, (user + step * 37) % 10_000);
+            }
+        }
+        FriendGraph graph = builder.build();
+
+        assertThat(graph.edgeCount()).isEqualTo(40_000);
+        assertThat(graph.bytesPerEdge()).isLessThan(16.0);
+    }
+}
@@ -0,0 +1,99 @@
+package com.steamanalytics.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+/**
+ * Latência da travessia de amigos de amigos sobre um grafo sintético com distribuição de grau
+ * em lei de potência (Barabási–Albert), com e sem limite de fan-out.
+ * Executar com: mvn test -Dtest=FriendSuggestionBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FriendSuggestionBenchmark {
+
+    private static final int USERS = 200_000;
+    private static final int EDGES_PER_USER = 5;
+    private static final int SAMPLED_USERS = 2_000;
+    private static final int HUBS = 20;
+    private static final int LIMIT = 100;
+
+    @Test
+    void reportLatencyOnPowerLawGraph() {
+        Random random = new Random(7);
+        FriendGraph graph = powerLawGraph(random);
+        System.out.printf("graph: %d users, %d edges, %.1f bytes/edge%n",
+                graph.nodeCount(), graph.edgeCount(), graph.bytesPerEdge());
+
+        long[] sampled = new long[SAMPLED_USERS];
+        for (int i = 0; i < sampled.length; i++) {
+            sampled[i] = random.nextInt(USERS);
+        }
+        long[] hubs = hubs(graph);
+        System.out.printf("largest hub degree: %d%n", graph.degree(hubs[0]));
+
+        for (int fanOut : new int[]{Integer.MAX_VALUE, 500, 200, 50}) {
+            // Aquecimento do JIT
+            run(graph, sampled, fanOut);
+            report("random users", fanOut, run(graph, sampled, fanOut));
+            report("hub users", fanOut, run(graph, hubs, fanOut));
+        }
+    }
+
+    private static FriendGraph powerLawGraph(Random random) {
+        FriendGraph.Builder builder = new FriendGraph.Builder(USERS * EDGES_PER_USER);
+        // Cada ponta de aresta aparece uma vez por grau: sortear uma ponta é sortear proporcional ao grau
+        long[] endpoints = new long[USERS * EDGES_PER_USER * 2];
+        int size = 0;
+
+        for (int user = 0; user <= EDGES_PER_USER; user++) {
+            for (int other = 0; other < user; other++) {
+                builder.addEdge(user, other);
+                endpoints[size++] = user;
+                endpoints[size++] = other;
+            }
+        }
+        for (int user = EDGES_PER_USER + 1; user < USERS; user++) {
+            for (int edge = 0; edge < EDGES_PER_USER; edge++) {
+                long target = endpoints[random.nextInt(size)];
+                builder.addEdge(user, target);
+                if (size + 2 <= endpoints.length) {
+                    endpoints[size++] = user;
+                    endpoints[size++] = target;
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private static long[] hubs(FriendGraph graph) {
+        return LongStream.range(0, USERS)
+                .boxed()
+                .sorted((a, b) -> Integer.compare(graph.degree(b), graph.degree(a)))
+                .limit(HUBS)
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    private static long[] run(FriendGraph graph, long[] userIds, int fanOut) {
+        long[] nanos = new long[userIds.length];
+        for (int i = 0; i < userIds.length; i++) {
+            long start = System.nanoTime();
+            FriendSuggestionEngine.rankByMutualFriends(userIds[i], graph::neighborIds, candidate -> false, fanOut, LIMIT);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static void report(String label, int fanOut, long[] sortedNanos) {
+        System.out.printf("%-12s fan-out %-10s p50 %8.1f us, p99 %8.1f us, max %8.1f us%n",
+                label, fanOut == Integer.MAX_VALUE ? "unbounded" : String.valueOf(fanOut),
+                sortedNanos[sortedNanos.length / 2] / 1_000.0,
+                sortedNanos[(int) (sortedNanos.length * 0.99)] / 1_000.0,
+                sortedNanos[sortedNanos.length - 1] / 1_000.0);
+    }
+}
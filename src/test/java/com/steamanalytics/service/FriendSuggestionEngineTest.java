@@ -0,0 +1,63 @@
+package com.steamanalytics.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FriendSuggestionEngineTest {
+
+    /**
+     * 1 é amigo de 2, 3 e 4; 5 é amigo de 2, 3 e 4; 6 é amigo de 2; 7 é amigo de 3 e 4
+     */
+    private final FriendGraph graph = new FriendGraph.Builder(16)
+            .addEdge(1, 2).addEdge(1, 3).addEdge(1, 4)
+            .addEdge(5, 2).addEdge(5, 3).addEdge(5, 4)
+            .addEdge(6, 2)
+            .addEdge(7, 3).addEdge(7, 4)
+            .build();
+
+    @Test
+    void ranksFriendsOfFriendsByMutualCountAndSkipsExistingFriends() {
+        TopK.Ranked candidates = FriendSuggestionEngine.rankByMutualFriends(
+                1L, graph::neighborIds, candidate -> false, 100, 10);
+
+        assertThat(candidates.ids).containsExactly(5L, 7L, 6L);
+        assertThat(candidates.scores).containsExactly(3.0, 2.0, 1.0);
+    }
+
+    @Test
+    void excludesPendingAndBlockedRelationships() {
+        Set<Long> related = Set.of(5L);
+
+        TopK.Ranked candidates = FriendSuggestionEngine.rankByMutualFriends(
+                1L, graph::neighborIds, related::contains, 100, 10);
+
+        assertThat(candidates.ids).containsExactly(7L, 6L);
+    }
+
+    @Test
+    void keepsOnlyTopKWithDeterministicTies() {
+        TopK top = new TopK(3);
+        double[] scores = {5, 1, 9, 5, 7, 3};
+        for (int i = 0; i < scores.length; i++) {
+            top.offer(100 + i, scores[i]);
+        }
+
+        TopK.Ranked ranked = top.drainDescending();
+        assertThat(ranked.ids).containsExactly(102L, 104L, 100L);
+        assertThat(ranked.scores).containsExactly(9.0, 7.0, 5.0);
+    }
+
+    @Test
+    void capsFanOutWithUniformSample() {
+        long[] values = new long[1_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+
+        long[] sampled = FriendSuggestionEngine.sample(values, 10);
+        assertThat(sampled).hasSize(10).startsWith(0L, 100L).endsWith(900L);
+    }
+}
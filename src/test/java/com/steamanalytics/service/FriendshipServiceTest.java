@@ -0,0 +1,51 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.repository.FriendshipRepository;
+import com.steamanalytics.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class FriendshipServiceTest {
+
+    private final FriendshipRepository friendshipRepository = mock(FriendshipRepository.class);
+    private final MutualFriendsEngine mutualFriendsEngine = mock(MutualFriendsEngine.class);
+    private final FriendshipService friendshipService = new FriendshipService(friendshipRepository,
+            mock(UserRepository.class), mock(FriendGraphIndex.class), mutualFriendsEngine,
+            mock(FriendSuggestionEngine.class), mock(CacheDependencyRegistry.class), mock(ClusterCoordinator.class),
+            true, 90, 3);
+
+    @Test
+    void databaseFallbackCountsMutualFriendsInOneQuery() {
+        when(friendshipRepository.countMutualFriendsByUserIds(eq(1L), anyCollection()))
+                .thenReturn(List.<Object[]>of(new Object[]{3L, 2L}));
+
+        Map<Long, Integer> counts = friendshipService.countMutualFriends(1L, List.of(2L, 3L, 2L, 4L));
+
+        assertThat(counts).containsExactly(Map.entry(2L, 0), Map.entry(3L, 2), Map.entry(4L, 0));
+        verify(friendshipRepository, times(1)).countMutualFriendsByUserIds(eq(1L), anyCollection());
+        verifyNoMoreInteractions(friendshipRepository);
+    }
+
+    @Test
+    void tooManyUserIdsAreRejected() {
+        List<Long> otherUserIds = LongStream.rangeClosed(2, 5).boxed().toList();
+
+        assertThatThrownBy(() -> friendshipService.countMutualFriends(1L, otherUserIds))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(friendshipRepository);
+    }
+}
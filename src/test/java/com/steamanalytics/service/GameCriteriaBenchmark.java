@@ -0,0 +1,165 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.entity.Game;
+import com.steamanalytics.repository.GameCriteria;
+import com.steamanalytics.repository.GameRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Compara a busca por critérios no SQL com o filtro em memória sobre {@code findAll()}
+ * num catálogo de 150 mil jogos, com o conjunto de índices do docker/init.sql.
+ * Executar com: mvn test -Dtest=GameCriteriaBenchmark -Dbenchmark=true
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class GameCriteriaBenchmark {
+
+    private static final int CATALOG_SIZE = 150_000;
+    private static final int FIRST_APP_ID = 8_000_000;
+    private static final int RUNS = 20;
+    private static final String[] TAGS = {"Indie", "Action", "FPS", "RPG", "Strategy", "Co-op", "Puzzle", "Horror"};
+    private static final String[] GENRES = {"Action", "Adventure", "RPG", "Simulation", "Sports", "Racing"};
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void reportLatencyPerFilterCombination() {
+        new ResourceDatabasePopulator(new FileSystemResource("docker/init.sql")).execute(dataSource);
+        seedCatalog();
+        jdbcTemplate.execute("ANALYZE games");
+
+        Map<String, GameCriteria> combinations = new LinkedHashMap<>();
+        combinations.put("developer", GameCriteria.builder().developer("Studio 42").build());
+        combinations.put("developer + released after", GameCriteria.builder()
+                .developer("Studio 42").releasedAfter(LocalDate.of(2018, 1, 1)).build());
+        combinations.put("publisher + max price", GameCriteria.builder()
+                .publisher("Publisher 7").maxPrice(new BigDecimal("9.99")).build());
+        combinations.put("price range", GameCriteria.builder()
+                .minPrice(new BigDecimal("5.00")).maxPrice(new BigDecimal("10.00")).build());
+        combinations.put("tags", GameCriteria.builder().tags(List.of("Indie", "Horror")).build());
+        combinations.put("genre + released after", GameCriteria.builder()
+                .genres(List.of("Racing")).releasedAfter(LocalDate.of(2020, 1, 1)).build());
+
+        PageRequest page = PageRequest.of(0, 20);
+        try {
+            for (Map.Entry<String, GameCriteria> combination : combinations.entrySet()) {
+                GameCriteria criteria = combination.getValue();
+                double sqlMillis = median(() -> transactionTemplate.execute(
+                        status -> gameRepository.findByCriteria(criteria, page)));
+                double sortedMillis = median(() -> transactionTemplate.execute(
+                        status -> gameRepository.findByCriteria(criteria,
+                                PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "name")))));
+                Page<Game> result = transactionTemplate.execute(status -> gameRepository.findByCriteria(criteria, page));
+
+                long start = System.nanoTime();
+                int inMemory = transactionTemplate.execute(status -> filterInMemory(criteria).size());
+                double inMemoryMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+                System.out.printf("%-28s %,7d matches | sql %7.2f ms (by name %7.2f ms) | findAll+filter %,9.1f ms%n",
+                        combination.getKey(), result.getTotalElements(), sqlMillis, sortedMillis, inMemoryMillis);
+                if (inMemory != result.getTotalElements()) {
+                    System.out.printf("  mismatch: in-memory found %d%n", inMemory);
+                }
+            }
+        } finally {
+            jdbcTemplate.update("DELETE FROM games WHERE steam_app_id BETWEEN ? AND ?",
+                    FIRST_APP_ID, FIRST_APP_ID + CATALOG_SIZE - 1);
+        }
+    }
+
+    private void seedCatalog() {
+        List<Object[]> rows = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            rows.add(new Object[]{
+                    FIRST_APP_ID + i,
+                    "Benchmark Catalog Game " + i,
+                    "Studio " + (i % 5_000),
+                    "Publisher " + (i % 1_000),
+                    i % 20 == 0 ? null : Date.valueOf(LocalDate.of(2005, 1, 1).plusDays(i % 7_000)),
+                    new BigDecimal(i % 6_000).movePointLeft(2),
+                    keys(TAGS, i, 3),
+                    keys(GENRES, i, 2)});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO games (game_id, steam_app_id, name, developer, publisher, release_date, price_current, " +
+                "tags, genres, created_at, updated_at) " +
+                "VALUES (nextval('games_game_id_seq'), ?, ?, ?, ?, ?, ?, CAST(? AS jsonb), CAST(? AS jsonb), now(), now()) " +
+                "ON CONFLICT (steam_app_id) DO NOTHING",
+                rows);
+    }
+
+    // Objeto JSON com algumas chaves do vocabulário, escolhidas de forma determinística
+    private static String keys(String[] vocabulary, int seed, int count) {
+        StringBuilder json = new StringBuilder("{");
+        for (int k = 0; k < count; k++) {
+            if (k > 0) {
+                json.append(',');
+            }
+            json.append('"').append(vocabulary[(seed * 31 + k * 7) % vocabulary.length]).append("\":").append(k + 1);
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * O algoritmo anterior: catálogo inteiro carregado e filtrado em Java
+     */
+    private List<Game> filterInMemory(GameCriteria criteria) {
+        return gameRepository.findAll().stream()
+                .filter(game -> criteria.getDeveloper() == null || criteria.getDeveloper().equals(game.getDeveloper()))
+                .filter(game -> criteria.getPublisher() == null || criteria.getPublisher().equals(game.getPublisher()))
+                .filter(game -> criteria.getReleasedAfter() == null ||
+                        (game.getReleaseDate() != null && game.getReleaseDate().isAfter(criteria.getReleasedAfter())))
+                .filter(game -> criteria.getMinPrice() == null ||
+                        (game.getPriceCurrent() != null && game.getPriceCurrent().compareTo(criteria.getMinPrice()) >= 0))
+                .filter(game -> criteria.getMaxPrice() == null ||
+                        (game.getPriceCurrent() != null && game.getPriceCurrent().compareTo(criteria.getMaxPrice()) <= 0))
+                .filter(game -> criteria.getTags().stream()
+                        .allMatch(tag -> game.getTags() != null && game.getTags().containsKey(tag)))
+                .filter(game -> criteria.getGenres().stream()
+                        .allMatch(genre -> game.getGenres() != null && game.getGenres().containsKey(genre)))
+                .toList();
+    }
+
+    private static double median(Supplier<?> query) {
+        query.get();
+        double[] millis = new double[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            query.get();
+            millis[run] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(millis);
+        return millis[RUNS / 2];
+    }
+}
@@ -0,0 +1,132 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.service.GameSimilarityBuilder.Metric;
+import com.steamanalytics.service.GameSimilarityBuilder.Neighbors;
+import com.steamanalytics.service.GameSimilarityBuilder.Settings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class GameSimilarityBuilderTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    /**
+     * Jogo 10 tem os donos 1-4; jogo 20 os donos 1-3; jogo 30 os donos 3-4; jogo 40 apenas o dono 5
+     */
+    private final OwnershipMatrix matrix = new OwnershipMatrix.Builder(16)
+            .add(10, 1).add(10, 2).add(10, 3).add(10, 4)
+            .add(20, 1).add(20, 2).add(20, 3)
+            .add(30, 3).add(30, 4)
+            .add(40, 5)
+            .build();
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void buildsBothDirectionsOfTheOwnershipMatrix() {
+        assertThat(matrix.gameCount()).isEqualTo(4);
+        assertThat(matrix.userCount()).isEqualTo(5);
+        assertThat(matrix.rows()).isEqualTo(10);
+        assertThat(matrix.ownerCount(matrix.indexOfGame(10))).isEqualTo(4);
+        assertThat(matrix.librarySize(2)).isEqualTo(3);
+    }
+
+    @Test
+    void ranksNeighborsByCosineOverOwnerSets() {
+        Neighbors game10 = neighborsOf(10, new Settings(Metric.COSINE, 10, 1, 1_000, 1_000));
+
+        assertThat(game10.similarGameIds()).containsExactly(20L, 30L);
+        assertThat(game10.commonPlayers()).containsExactly(3, 2);
+        assertThat(game10.scores()[0]).isCloseTo(3 / Math.sqrt(12), within(1e-9));
+        assertThat(game10.scores()[1]).isCloseTo(2 / Math.sqrt(8), within(1e-9));
+    }
+
+    @Test
+    void ranksNeighborsByJaccardOverOwnerSets() {
+        Neighbors game30 = neighborsOf(30, new Settings(Metric.JACCARD, 10, 1, 1_000, 1_000));
+
+        assertThat(game30.similarGameIds()).containsExactly(10L, 20L);
+        assertThat(game30.scores()).containsExactly(2.0 / 4, 1.0 / 4);
+    }
+
+    @Test
+    void appliesTopKAndMinimumCommonPlayers() {
+        assertThat(neighborsOf(10, new Settings(Metric.COSINE, 1, 1, 1_000, 1_000)).similarGameIds())
+                .containsExactly(20L);
+        assertThat(neighborsOf(30, new Settings(Metric.COSINE, 10, 2, 1_000, 1_000)).similarGameIds())
+                .containsExactly(10L);
+        assertThat(neighborsOf(40, new Settings(Metric.COSINE, 10, 1, 1_000, 1_000)).size()).isZero();
+    }
+
+    @Test
+    void skipsOversizedLibraries() {
+        // Apenas o dono 3 tem mais de 2 jogos
+        Neighbors game10 = neighborsOf(10, new Settings(Metric.COSINE, 10, 1, 1_000, 2));
+
+        assertThat(game10.similarGameIds()).containsExactly(20L, 30L);
+        assertThat(game10.commonPlayers()).containsExactly(2, 1);
+    }
+
+    @Test
+    void computesEveryGameAcrossForkJoinSlices() {
+        OwnershipMatrix.Builder builder = new OwnershipMatrix.Builder(16);
+        // Cada usuário possui o jogo (u % 500) e o seguinte: todo jogo tem exatamente dois vizinhos
+        for (int user = 0; user < 5_000; user++) {
+            builder.add(user % 500, user).add((user + 1) % 500, user);
+        }
+        OwnershipMatrix ring = builder.build();
+
+        Neighbors[] all = GameSimilarityBuilder.computeAll(ring, new Settings(Metric.JACCARD, 5, 1, 1_000, 1_000), pool);
+
+        assertThat(all).hasSize(500).allSatisfy(neighbors -> assertThat(neighbors.size()).isEqualTo(2));
+        assertThat(all[0].similarGameIds()).containsExactly(1L, 499L);
+    }
+
+    @Test
+    void scalesCountsWhenOwnersAreSampled() {
+        OwnershipMatrix.Builder builder = new OwnershipMatrix.Builder(16);
+        for (int user = 0; user < 1_000; user++) {
+            builder.add(1, user);
+            if (user % 2 == 0) {
+                builder.add(2, user);
+            }
+        }
+
+        Neighbors game1 = GameSimilarityBuilder.compute(builder.build(), new int[]{0},
+                new Settings(Metric.COSINE, 10, 1, 100, 1_000), pool)[0];
+
+        assertThat(game1.commonPlayers()).containsExactly(500);
+    }
+
+    @Test
+    void partialMatrixWithOwnerTotalsMatchesTheFullMatrix() {
+        // Só as bibliotecas dos donos do jogo 20 (usuários 1-3); o dono 4 do jogo 10 e do 30 fica de fora
+        OwnershipMatrix partial = new OwnershipMatrix.Builder(16)
+                .add(10, 1).add(10, 2).add(10, 3)
+                .add(20, 1).add(20, 2).add(20, 3)
+                .add(30, 3)
+                .build()
+                .withOwnerCounts(new int[]{4, 3, 2});
+        Settings settings = new Settings(Metric.COSINE, 10, 1, 1_000, 1_000);
+
+        Neighbors expected = neighborsOf(20, settings);
+        Neighbors game20 = GameSimilarityBuilder.compute(partial, new int[]{partial.indexOfGame(20)}, settings, pool)[0];
+
+        assertThat(partial.ownerCount(partial.indexOfGame(10))).isEqualTo(4);
+        assertThat(game20.similarGameIds()).containsExactly(expected.similarGameIds());
+        assertThat(game20.commonPlayers()).containsExactly(expected.commonPlayers());
+        assertThat(game20.scores()).containsExactly(expected.scores());
+    }
+
+    private Neighbors neighborsOf(long gameId, Settings settings) {
+        return GameSimilarityBuilder.compute(matrix, new int[]{matrix.indexOfGame(gameId)}, settings, pool)[0];
+    }
+}
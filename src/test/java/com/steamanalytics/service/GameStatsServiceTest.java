@@ -0,0 +1,83 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.repository.GameStatsRepository;
+import com.steamanalytics.repository.UserGameLibraryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class GameStatsServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final GameStatsService service = new GameStatsService(mock(GameStatsRepository.class),
+            mock(UserGameLibraryRepository.class), jdbcTemplate);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deltasOfATransactionAreWrittenOnceInGameOrderBeforeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.onGameAdded(30L, 120, 10);
+        service.onGameAdded(10L, null, null);
+        service.onPlaytimeChanged(30L, 120, 180, 10, 0);
+        service.onGameRemoved(20L, 60, 0);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertThat(synchronizations).hasSize(1);
+        synchronizations.get(0).beforeCommit(false);
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture());
+        assertThat(rows.getValue()).containsExactly(
+                new Object[]{10L, 1L, 0L, 0L},
+                new Object[]{20L, -1L, -60L, 0L},
+                new Object[]{30L, 1L, 180L, 0L});
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void libraryDiffCountsOnlyChangedGames() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.onLibraryChanged(
+                Map.of(1L, new int[]{100, 0}, 2L, new int[]{50, 5}, 3L, new int[]{10, 0}),
+                Map.of(1L, new int[]{100, 0}, 2L, new int[]{80, 0}, 4L, new int[]{0, 0}));
+        TransactionSynchronizationManager.getSynchronizations().get(0).beforeCommit(false);
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertThat(rows.getValue()).containsExactly(
+                new Object[]{2L, 0L, 30L, -5L},
+                new Object[]{3L, -1L, -10L, 0L},
+                new Object[]{4L, 1L, 0L, 0L});
+    }
+
+    @Test
+    void unchangedPlaytimeWritesNothing() {
+        service.onPlaytimeChanged(5L, 60, 60, null, 0);
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+}
@@ -0,0 +1,69 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.entity.User;
+import com.steamanalytics.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mede a vazão (linhas/s) da sincronização em lote contra o PostgreSQL configurado.
+ * Executar com: mvn test -Dtest=LibraryBulkSyncBenchmark -Dbenchmark=true
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LibraryBulkSyncBenchmark {
+
+    private static final int LIBRARY_SIZE = 3_000;
+    private static final int RUNS = 5;
+
+    @Autowired
+    private LibraryBulkSyncer libraryBulkSyncer;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void reportRowsPerSecond() {
+        long steamId = 90_000_000_000L + ThreadLocalRandom.current().nextLong(1_000_000_000L);
+        User user = userRepository.save(new User(steamId, "bench_" + steamId));
+
+        try {
+            for (int run = 0; run < RUNS; run++) {
+                List<Map<String, Object>> gamesData = library(run);
+                LibraryBulkSyncer.SyncResult result = transactionTemplate.execute(
+                        status -> libraryBulkSyncer.sync(user.getUserId(), gamesData));
+
+                System.out.printf("run %d (%s): %d rows (%d written, %d skipped), %d new games, %.1f ms, %.0f rows/s%n",
+                        run, run == 0 ? "insert" : "update", result.rows(), result.changes().size(), result.skipped(),
+                        result.gamesCreated(), result.elapsedNanos() / 1_000_000.0, result.rowsPerSecond());
+            }
+        } finally {
+            userRepository.deleteById(user.getUserId());
+        }
+    }
+
+    private static List<Map<String, Object>> library(int run) {
+        List<Map<String, Object>> gamesData = new ArrayList<>(LIBRARY_SIZE);
+        for (int i = 0; i < LIBRARY_SIZE; i++) {
+            Map<String, Object> game = new HashMap<>();
+            game.put("steamAppId", 5_000_000 + i);
+            game.put("name", "Benchmark Game " + i);
+            game.put("playtimeTotal", i * 10 + run);
+            game.put("playtimeTwoWeeks", i % 7 == 0 ? run : 0);
+            gamesData.add(game);
+        }
+        return gamesData;
+    }
+}
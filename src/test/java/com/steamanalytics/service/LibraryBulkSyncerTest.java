@@ -0,0 +1,109 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.repository.GameRepository;
+import com.steamanalytics.service.LibraryBulkSyncer.Diff;
+import com.steamanalytics.service.LibraryBulkSyncer.Playtime;
+import com.steamanalytics.service.LibraryBulkSyncer.RowChange;
+import com.steamanalytics.service.LibraryBulkSyncer.SyncEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class LibraryBulkSyncerTest {
+
+    @Test
+    void fingerprintIgnoresOrderButNotPlaytime() {
+        List<SyncEntry> library = List.of(entry(730, 100, 5), entry(570, 20, 0));
+
+        long fingerprint = LibraryBulkSyncer.fingerprint(library, true);
+
+        assertThat(LibraryBulkSyncer.fingerprint(List.of(entry(570, 20, 0), entry(730, 100, 5)), true))
+                .isEqualTo(fingerprint);
+        assertThat(LibraryBulkSyncer.fingerprint(List.of(entry(730, 101, 5), entry(570, 20, 0)), true))
+                .isNotEqualTo(fingerprint);
+        assertThat(LibraryBulkSyncer.fingerprint(List.of(entry(730, 100, null), entry(570, 20, 0)), true))
+                .isNotEqualTo(fingerprint);
+        assertThat(LibraryBulkSyncer.fingerprint(library, false)).isNotEqualTo(fingerprint);
+    }
+
+    @Test
+    void diffWritesOnlyChangedRows() {
+        Map<Long, SyncEntry> incoming = new LinkedHashMap<>();
+        incoming.put(1L, entry(10, 100, 5));   // igual
+        incoming.put(2L, entry(20, 250, 30));  // tempo de jogo mudou
+        incoming.put(3L, entry(30, 0, 0));     // novo
+        Map<Long, Playtime> stored = Map.of(
+                1L, new Playtime(100, 5),
+                2L, new Playtime(200, 0),
+                4L, new Playtime(60, 0));      // saiu da biblioteca
+
+        Diff diff = LibraryBulkSyncer.diff(incoming, stored, true);
+
+        assertThat(diff.skipped()).isEqualTo(1);
+        assertThat(diff.changes()).containsExactlyInAnyOrder(
+                new RowChange(2L, new Playtime(200, 0), new Playtime(250, 30)),
+                new RowChange(3L, null, new Playtime(0, 0)),
+                new RowChange(4L, new Playtime(60, 0), null));
+    }
+
+    @Test
+    void missingPlaytimeKeepsTheStoredValue() {
+        Map<Long, SyncEntry> incoming = Map.of(1L, entry(10, null, 7));
+
+        Diff diff = LibraryBulkSyncer.diff(incoming, Map.of(1L, new Playtime(100, 7)), false);
+
+        assertThat(diff.changes()).isEmpty();
+        assertThat(diff.skipped()).isEqualTo(1);
+    }
+
+    @Test
+    void rowsMissingFromThePayloadStayUnlessReplacing() {
+        Diff diff = LibraryBulkSyncer.diff(Map.of(), Map.of(4L, new Playtime(60, 0)), false);
+
+        assertThat(diff.changes()).isEmpty();
+    }
+
+    @Test
+    void unchangedFingerprintSkipsTheLibrary() {
+        GameRepository gameRepository = mock(GameRepository.class);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        when(gameRepository.findGameIdsBySteamAppIds(anyList()))
+                .thenReturn(List.<Object[]>of(new Object[]{730, 1L}, new Object[]{570, 2L}));
+        LibraryBulkSyncer syncer = new LibraryBulkSyncer(gameRepository, jdbcTemplate,
+                mock(SequenceBlockAllocator.class), meterRegistry, 500);
+        long fingerprint = LibraryBulkSyncer.fingerprint(List.of(entry(730, 100, 5), entry(570, 20, 0)), true);
+
+        LibraryBulkSyncer.SyncResult result = syncer.sync(7L,
+                List.of(gameData(730, 100, 5), gameData(570, 20, 0)), fingerprint, true);
+
+        assertThat(result.changed()).isFalse();
+        assertThat(result.skipped()).isEqualTo(2);
+        assertThat(result.gameIds()).containsExactlyInAnyOrder(1L, 2L);
+        verifyNoInteractions(jdbcTemplate);
+        assertThat(meterRegistry.counter("library_sync.rows", "operation", "skipped").count()).isEqualTo(2);
+    }
+
+    private static SyncEntry entry(int steamAppId, Integer playtimeTotal, Integer playtimeTwoWeeks) {
+        return new SyncEntry(steamAppId, "Game " + steamAppId, playtimeTotal, playtimeTwoWeeks);
+    }
+
+    private static Map<String, Object> gameData(int steamAppId, int playtimeTotal, int playtimeTwoWeeks) {
+        Map<String, Object> gameData = new HashMap<>();
+        gameData.put("steamAppId", steamAppId);
+        gameData.put("playtimeTotal", playtimeTotal);
+        gameData.put("playtimeTwoWeeks", playtimeTwoWeeks);
+        return gameData;
+    }
+}
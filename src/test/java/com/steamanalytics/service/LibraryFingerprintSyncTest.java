@@ -0,0 +1,74 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.entity.User;
+import com.steamanalytics.model.entity.UserGameLibrary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sincronização em lote contra o banco local: uma edição fora da sincronização descarta o fingerprint,
+ * mesmo com o perfil do usuário em cache, e o payload idêntico seguinte volta a escrever as linhas
+ */
+@SpringBootTest
+class LibraryFingerprintSyncTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserGameLibraryService userGameLibraryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+    private final List<Long> gameIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        if (userId != null) {
+            jdbcTemplate.update("DELETE FROM users WHERE user_id = ?", userId);
+        }
+        gameIds.forEach(gameId -> jdbcTemplate.update("DELETE FROM games WHERE game_id = ?", gameId));
+    }
+
+    @Test
+    void identicalPayloadAfterAnEditRewritesTheRows() {
+        long steamId = 76_500_000_000_000_000L + ThreadLocalRandom.current().nextLong(1_000_000_000L);
+        int steamAppId = 8_000_000 + ThreadLocalRandom.current().nextInt(1_000_000);
+        userId = userService.createUser(steamId, "fingerprint" + steamId, "Fingerprint Test").getUserId();
+        List<Map<String, Object>> payload = List.of(Map.of(
+                "steamAppId", steamAppId, "name", "Fingerprint Game", "playtimeTotal", 120, "playtimeTwoWeeks", 30));
+
+        List<UserGameLibrary> synced = userGameLibraryService.syncUserLibrary(userId, payload);
+        Long gameId = synced.get(0).getGame().getGameId();
+        gameIds.add(gameId);
+        // Perfil em cache já com o fingerprint da sincronização
+        assertThat(userService.findById(userId)).map(User::getLibraryFingerprint).isPresent();
+
+        userGameLibraryService.addGameToLibrary(userId, gameId, 500);
+        assertThat(fingerprint()).isNull();
+        assertThat(userService.findById(userId).orElseThrow().getLibraryFingerprint()).isNull();
+
+        userGameLibraryService.syncUserLibrary(userId, payload);
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT playtime_total FROM user_game_library WHERE user_id = ? AND game_id = ?",
+                Integer.class, userId, gameId)).isEqualTo(120);
+        assertThat(fingerprint()).isNotNull();
+    }
+
+    private Long fingerprint() {
+        return jdbcTemplate.queryForObject("SELECT library_fingerprint FROM users WHERE user_id = ?", Long.class, userId);
+    }
+}
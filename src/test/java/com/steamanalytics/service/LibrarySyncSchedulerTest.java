@@ -0,0 +1,140 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.dto.SteamOwnedGame;
+import com.steamanalytics.model.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LibrarySyncSchedulerTest {
+
+    private final Instant now = Instant.now();
+    private final UserService userService = mock(UserService.class);
+    private final UserGameLibraryService userGameLibraryService = mock(UserGameLibraryService.class);
+    private final SteamApiClient steamApiClient = mock(SteamApiClient.class);
+    private final ClusterCoordinator singleNode = new ClusterCoordinator(null, false, "test", 4,
+            Duration.ofSeconds(30), Duration.ofMinutes(30));
+    private final List<Runnable> submitted = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void priorityGrowsWithStalenessAndLoginRecency() {
+        LibrarySyncScheduler scheduler = scheduler(2, 100);
+
+        // Login hoje: alvo de 1h
+        assertThat(scheduler.priority(now.minus(Duration.ofHours(2)), now.minus(Duration.ofHours(2)), now))
+                .isCloseTo(2.0, within(1e-9));
+        // Login há 3 dias: alvo de 6h
+        assertThat(scheduler.priority(now.minus(Duration.ofDays(3)), now.minus(Duration.ofHours(2)), now))
+                .isCloseTo(1.0 / 3, within(1e-9));
+        // Nunca sincronizado e sem login: a janela ativa inteira sobre o alvo de 24h
+        assertThat(scheduler.priority(null, null, now)).isCloseTo(30.0, within(1e-9));
+    }
+
+    @Test
+    void dispatchesTheMostOverdueUsersFirstWithinTheWorkerLimit() {
+        LibrarySyncScheduler scheduler = scheduler(2, 100);
+        when(steamApiClient.getOwnedGames(anyLong())).thenReturn(Flux.just(new SteamOwnedGame()));
+        page(user(1, now.minus(Duration.ofDays(3)), now.minus(Duration.ofHours(7))),   // 7h / 6h
+                user(2, now.minus(Duration.ofHours(1)), now.minus(Duration.ofHours(5))),  // 5h / 1h
+                user(3, now.minus(Duration.ofHours(1)), now.minus(Duration.ofMinutes(30))), // em dia
+                user(4, now.minus(Duration.ofHours(2)), null));                            // nunca
+
+        assertThat(scheduler.fill(now)).isEqualTo(4);
+        scheduler.dispatch();
+
+        assertThat(submitted).hasSize(2);
+        assertThat(scheduler.queueDepth()).isEqualTo(1);
+        new ArrayList<>(submitted).forEach(Runnable::run);
+
+        InOrder order = inOrder(steamApiClient);
+        order.verify(steamApiClient).getOwnedGames(1004L);
+        order.verify(steamApiClient).getOwnedGames(1002L);
+        verify(steamApiClient, never()).getOwnedGames(1003L);
+        verify(userGameLibraryService).syncUserLibraryFromSteam(eq(4L), anyList());
+        assertThat(meterRegistry.counter("library_sync.users", "outcome", "success").count()).isEqualTo(2);
+    }
+
+    @Test
+    void queuedUsersAreNotQueuedAgain() {
+        LibrarySyncScheduler scheduler = scheduler(1, 100);
+        page(user(1, null, null), user(2, null, null));
+
+        scheduler.fill(now);
+        scheduler.fill(now);
+
+        assertThat(scheduler.queueDepth()).isEqualTo(2);
+    }
+
+    @Test
+    void failedUsersBackOffUntilTheirNextAttempt() {
+        LibrarySyncScheduler scheduler = scheduler(1, 100);
+        when(steamApiClient.getOwnedGames(anyLong())).thenReturn(Flux.error(new IllegalStateException("steam down")));
+        page(user(1, null, null));
+
+        scheduler.fill(now);
+        scheduler.dispatch();
+        new ArrayList<>(submitted).forEach(Runnable::run);
+        scheduler.fill(now);
+
+        assertThat(scheduler.queueDepth()).isZero();
+        verify(userGameLibraryService, never()).syncUserLibraryFromSteam(any(), anyList());
+        assertThat(meterRegistry.counter("library_sync.users", "outcome", "failure").count()).isEqualTo(1);
+    }
+
+    @Test
+    void fullQueueDropsTheLeastOverdueCandidate() {
+        LibrarySyncScheduler scheduler = scheduler(1, 2);
+        page(user(1, now.minus(Duration.ofHours(1)), now.minus(Duration.ofHours(3))),
+                user(2, now.minus(Duration.ofHours(1)), now.minus(Duration.ofHours(2))),
+                user(3, now.minus(Duration.ofHours(1)), now.minus(Duration.ofHours(9))));
+
+        scheduler.fill(now);
+        scheduler.dispatch();
+        scheduler.dispatch();
+
+        assertThat(scheduler.queueDepth()).isEqualTo(1);
+        new ArrayList<>(submitted).forEach(Runnable::run);
+        verify(steamApiClient).getOwnedGames(1003L);
+        verify(steamApiClient, never()).getOwnedGames(1002L);
+    }
+
+    private LibrarySyncScheduler scheduler(int workers, int queueCapacity) {
+        return new LibrarySyncScheduler(userService, userGameLibraryService, steamApiClient, singleNode,
+                submitted::add, meterRegistry, true, workers, 100, 1000, queueCapacity, Duration.ofDays(30),
+                Duration.ofHours(1), Duration.ofHours(6), Duration.ofHours(24),
+                Duration.ofMinutes(5), Duration.ofHours(12));
+    }
+
+    private void page(User... users) {
+        when(userService.findUsersForSync(any(), any(), anyLong(), anyInt(), anyList(), anyInt()))
+                .thenReturn(List.of(users));
+    }
+
+    private static User user(long userId, Instant lastLogin, Instant syncedAt) {
+        User user = new User(1000L + userId, "user" + userId);
+        user.setUserId(userId);
+        user.setLastLogin(lastLogin);
+        user.setLibrarySyncedAt(syncedAt);
+        return user;
+    }
+}
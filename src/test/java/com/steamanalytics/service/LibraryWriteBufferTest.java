@@ -0,0 +1,198 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.service.UserLibraryStatsService.PlaytimeChange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LibraryWriteBufferTest {
+
+    @TempDir
+    Path journalDirectory;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final GameStatsService gameStatsService = mock(GameStatsService.class);
+    private final UserLibraryStatsService userLibraryStatsService = mock(UserLibraryStatsService.class);
+    private final UserService userService = mock(UserService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Argumentos de cada flush: user IDs, game IDs, tempos totais, tempos em 2 semanas, last played
+    private final List<Object[]> flushes = new ArrayList<>();
+
+    LibraryWriteBufferTest() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void updatesToTheSameGameAreCoalesced() throws Exception {
+        LibraryWriteBuffer buffer = buffer(100, 1000);
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong(1)).thenReturn(1L);
+        when(row.getLong(2)).thenReturn(10L);
+        when(row.getObject(3, Integer.class)).thenReturn(90);
+        when(row.getObject(4, Integer.class)).thenReturn(0);
+        when(row.getObject(5, Integer.class)).thenReturn(120);
+        when(row.getObject(6, Integer.class)).thenReturn(5);
+        recordFlushes(row);
+
+        assertThat(buffer.submit(1, 10, 100, null)).isTrue();
+        assertThat(buffer.submit(1, 10, null, 5)).isTrue();
+        assertThat(buffer.submit(1, 10, 120, null)).isTrue();
+        assertThat(buffer.pending()).isEqualTo(1);
+
+        assertThat(buffer.flush()).isTrue();
+
+        assertThat(flushes).hasSize(1);
+        assertThat((Long[]) flushes.get(0)[2]).containsExactly(1L);
+        assertThat((Long[]) flushes.get(0)[3]).containsExactly(10L);
+        assertThat((Integer[]) flushes.get(0)[4]).containsExactly(120);
+        assertThat((Integer[]) flushes.get(0)[5]).containsExactly(5);
+        assertThat(buffer.pending()).isZero();
+        verify(userLibraryStatsService).onPlaytimesChanged(List.of(new PlaytimeChange(1L, 90, 120)));
+        verify(gameStatsService).onPlaytimeChanged(10L, 90, 120, 0, 5);
+        verify(userService).clearLibraryFingerprints(Set.of(1L));
+    }
+
+    @Test
+    void failedFlushIsReplayedFromTheJournalAfterARestart() throws Exception {
+        LibraryWriteBuffer crashed = buffer(100, 1000);
+        doThrow(new QueryTimeoutException("database down")).when(jdbcTemplate)
+                .query(anyString(), any(RowCallbackHandler.class), any(), any(), any(), any(), any());
+
+        crashed.submit(1, 10, 100, 3);
+        crashed.submit(2, 20, 50, null);
+        assertThat(crashed.flush()).isFalse();
+        assertThat(crashed.pending()).isEqualTo(2);
+
+        recordFlushes(null);
+        LibraryWriteBuffer restarted = buffer(100, 1000);
+        restarted.recover();
+
+        assertThat(flushes).hasSize(1);
+        assertThat((Long[]) flushes.get(0)[2]).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(restarted.pending()).isZero();
+
+        // Depois de aplicado, o journal não tem mais nada a reaplicar
+        flushes.clear();
+        buffer(100, 1000).recover();
+        assertThat(flushes).isEmpty();
+    }
+
+    @Test
+    void fullBufferFlushesOnTheCallerThread() throws Exception {
+        LibraryWriteBuffer buffer = buffer(2, 1000);
+        recordFlushes(null);
+
+        buffer.submit(1, 10, 100, 0);
+        buffer.submit(1, 11, 100, 0);
+        // Mesma chave: só combina, não precisa de espaço
+        buffer.submit(1, 11, 110, 0);
+        assertThat(flushes).isEmpty();
+
+        buffer.submit(1, 12, 100, 0);
+
+        assertThat(flushes).hasSize(1);
+        assertThat((Long[]) flushes.get(0)[3]).containsExactlyInAnyOrder(10L, 11L);
+        assertThat(buffer.pending()).isEqualTo(1);
+        assertThat(meterRegistry.counter("library_write_buffer.backpressure").count()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentSubmittersNeverExceedTheCapacity() throws Exception {
+        LibraryWriteBuffer buffer = buffer(50, 1000);
+        // Banco fora: o flush de back-pressure não libera espaço
+        doThrow(new QueryTimeoutException("database down")).when(jdbcTemplate)
+                .query(anyString(), any(RowCallbackHandler.class), any(), any(), any(), any(), any());
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> submitters = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long userId = t;
+                submitters.add(executor.submit(() -> {
+                    start.await();
+                    for (long gameId = 0; gameId < 100; gameId++) {
+                        if (buffer.submit(userId, gameId, 100, 0)) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> submitter : submitters) {
+                submitter.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(buffer.pending()).isEqualTo(50).isEqualTo(accepted.get());
+    }
+
+    @Test
+    void updatesWithoutALibraryRowAreCountedAsDropped() throws Exception {
+        LibraryWriteBuffer buffer = buffer(100, 1000);
+        recordFlushes(null);
+
+        buffer.submit(1, 10, 100, 0);
+        assertThat(buffer.flush()).isTrue();
+
+        assertThat(meterRegistry.counter("library_write_buffer.rows", "outcome", "dropped").count()).isEqualTo(1);
+        assertThat(buffer.pending()).isZero();
+    }
+
+    @Test
+    void disabledBufferLeavesWritesToTheCaller() {
+        LibraryWriteBuffer buffer = new LibraryWriteBuffer(jdbcTemplate, transactionTemplate, gameStatsService,
+                userLibraryStatsService, userService, mock(CacheDependencyRegistry.class), meterRegistry,
+                false, 1000, 10000, 4, journalDirectory.toString(), false);
+
+        assertThat(buffer.submit(1, 10, 100, 0)).isFalse();
+    }
+
+    private LibraryWriteBuffer buffer(int capacity, int flushSize) {
+        return new LibraryWriteBuffer(jdbcTemplate, transactionTemplate, gameStatsService,
+                userLibraryStatsService, userService, mock(CacheDependencyRegistry.class), meterRegistry,
+                true, flushSize, capacity, 4, journalDirectory.toString(), false);
+    }
+
+    private void recordFlushes(ResultSet row) throws Exception {
+        doAnswer(invocation -> {
+            flushes.add(invocation.getArguments());
+            if (row != null) {
+                invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(), any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,117 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.service.LibraryWriteBuffer.Key;
+import com.steamanalytics.service.LibraryWriteBuffer.Update;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LibraryWriteJournalTest {
+
+    private static final Instant PLAYED = Instant.parse("2026-01-10T12:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysRecordsOfPreviousRunsInOrder() throws IOException {
+        try (LibraryWriteJournal journal = new LibraryWriteJournal(directory, false)) {
+            journal.append(new Key(1, 10), new Update(100, null, PLAYED));
+            journal.append(new Key(1, 10), new Update(120, 5, PLAYED.plusSeconds(60)));
+        }
+
+        try (LibraryWriteJournal restarted = new LibraryWriteJournal(directory, false)) {
+            assertThat(replay(restarted)).containsExactly(
+                    "1/10 100 null " + PLAYED,
+                    "1/10 120 5 " + PLAYED.plusSeconds(60));
+        }
+    }
+
+    @Test
+    void appliedSegmentsAreDeleted() throws IOException {
+        try (LibraryWriteJournal journal = new LibraryWriteJournal(directory, false)) {
+            journal.append(new Key(1, 10), new Update(100, 0, PLAYED));
+            long sealed = journal.rotate();
+            journal.append(new Key(2, 20), new Update(50, 0, PLAYED));
+
+            journal.deleteUpTo(sealed);
+        }
+
+        try (LibraryWriteJournal restarted = new LibraryWriteJournal(directory, false)) {
+            assertThat(replay(restarted)).containsExactly("2/20 50 0 " + PLAYED);
+        }
+    }
+
+    @Test
+    void truncatedRecordEndsTheSegment() throws IOException {
+        try (LibraryWriteJournal journal = new LibraryWriteJournal(directory, true)) {
+            journal.append(new Key(1, 10), new Update(100, 0, PLAYED));
+            journal.append(new Key(2, 20), new Update(50, 0, PLAYED));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        // Queda no meio do segundo registro
+        byte[] data = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOf(data, LibraryWriteJournal.RECORD_SIZE + 10));
+
+        try (LibraryWriteJournal restarted = new LibraryWriteJournal(directory, false)) {
+            assertThat(replay(restarted)).containsExactly("1/10 100 0 " + PLAYED);
+        }
+    }
+
+    @Test
+    void concurrentSyncedAppendsAreAllJournaled() throws Exception {
+        int threads = 8;
+        int perThread = 50;
+        try (LibraryWriteJournal journal = new LibraryWriteJournal(directory, true)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> writers = new ArrayList<>();
+                for (int thread = 0; thread < threads; thread++) {
+                    long userId = thread;
+                    writers.add(pool.submit(() -> {
+                        for (int game = 0; game < perThread; game++) {
+                            journal.append(new Key(userId, game), new Update(game, 0, PLAYED));
+                            if (userId == 0 && game % 10 == 0) {
+                                journal.rotate();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> writer : writers) {
+                    writer.get(10, TimeUnit.SECONDS);
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        try (LibraryWriteJournal restarted = new LibraryWriteJournal(directory, false)) {
+            assertThat(replay(restarted)).hasSize(threads * perThread).doesNotHaveDuplicates();
+        }
+    }
+
+    private static List<String> replay(LibraryWriteJournal journal) throws IOException {
+        List<String> records = new ArrayList<>();
+        journal.replay(journal.currentSegment(), (key, update) -> records.add(key.userId() + "/" + key.gameId() + " "
+                + update.playtimeTotal() + " " + update.playtimeTwoWeeks() + " " + update.lastPlayed()));
+        return records;
+    }
+}
@@ -0,0 +1,51 @@
+package com.steamanalytics.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MutualFriendsEngineTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void matchesNaiveIntersectionForSimilarAndSkewedSizes() {
+        int[][] sizes = {{0, 10}, {50, 60}, {5_000, 5_000}, {10, 5_000}, {3, 100_000}};
+        for (int[] size : sizes) {
+            long[] a = sortedUnique(size[0], 200_000);
+            long[] b = sortedUnique(size[1], 200_000);
+
+            long[] expected = naive(a, b);
+            assertThat(MutualFriendsEngine.intersect(a, b)).containsExactly(expected);
+            assertThat(MutualFriendsEngine.intersect(b, a)).containsExactly(expected);
+            assertThat(MutualFriendsEngine.intersectionSize(a, b)).isEqualTo(expected.length);
+        }
+    }
+
+    @Test
+    void gallopFindsFirstPositionNotLessThanTarget() {
+        long[] values = {2, 4, 6, 8, 10, 12, 14, 16, 18, 20};
+
+        assertThat(MutualFriendsEngine.gallop(values, 0, 1)).isEqualTo(0);
+        assertThat(MutualFriendsEngine.gallop(values, 0, 9)).isEqualTo(4);
+        assertThat(MutualFriendsEngine.gallop(values, 3, 20)).isEqualTo(9);
+        assertThat(MutualFriendsEngine.gallop(values, 0, 21)).isEqualTo(values.length);
+    }
+
+    private long[] sortedUnique(int size, int bound) {
+        Set<Long> values = new TreeSet<>();
+        while (values.size() < size) {
+            values.add((long) random.nextInt(bound));
+        }
+        return values.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long[] naive(long[] a, long[] b) {
+        return Arrays.stream(a).filter(value -> Arrays.binarySearch(b, value) >= 0).toArray();
+    }
+}
@@ -0,0 +1,136 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.repository.GameRepository;
+import com.steamanalytics.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Latência da busca por nome num catálogo sintético de 150 mil jogos e 5 milhões de usuários,
+ * com os índices de trigramas e full-text do docker/init.sql. Reporta o p95 de buscas exatas,
+ * por prefixo e com erro de digitação contra as metas.
+ * Executar com: mvn test -Dtest=SearchBenchmark -Dbenchmark=true [-Dbenchmark.users=5000000]
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SearchBenchmark {
+
+    private static final int CATALOG_SIZE = 150_000;
+    private static final int FIRST_APP_ID = 9_000_000;
+    private static final long FIRST_STEAM_ID = 76_561_199_500_000_000L;
+    private static final int RUNS = 200;
+    private static final double GAME_TARGET_P95_MILLIS = 50;
+    private static final double USER_TARGET_P95_MILLIS = 80;
+
+    // Nomes sintéticos: três sílabas + uma palavra (jogos) ou um sufixo numérico (usuários)
+    private static final String SYLLABLES =
+            "ARRAY['ka','ro','mi','zen','tor','vel','dra','shi','lun','qua','bex','sol','nar','fyr','gal','ost','rim','tek','vor','ula']";
+    private static final String WORDS =
+            "ARRAY['Legends','Arena','Tactics','Odyssey','Frontier','Chronicles','Siege','Drift','Empire','Quest','Protocol','Harvest']";
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void reportSearchLatencyPercentiles() {
+        long userCount = Long.getLong("benchmark.users", 5_000_000L);
+        new ResourceDatabasePopulator(new FileSystemResource("docker/init.sql")).execute(dataSource);
+        seed(userCount);
+        jdbcTemplate.execute("ANALYZE games");
+        jdbcTemplate.execute("ANALYZE users");
+
+        Map<String, String> gameQueries = new LinkedHashMap<>();
+        gameQueries.put("exact", "Karomi Legends");
+        gameQueries.put("prefix (2 chars)", "ka");
+        gameQueries.put("prefix word", "zentor");
+        gameQueries.put("typo", "Karmoi Legnds");
+
+        Map<String, String> userQueries = new LinkedHashMap<>();
+        userQueries.put("exact", "karomi_120");
+        userQueries.put("prefix (2 chars)", "ve");
+        userQueries.put("partial", "dravel");
+        userQueries.put("typo", "drvaelshi");
+
+        PageRequest page = PageRequest.of(0, 20);
+        try {
+            for (Map.Entry<String, String> query : gameQueries.entrySet()) {
+                report("games / " + query.getKey(), GAME_TARGET_P95_MILLIS, () -> transactionTemplate.execute(
+                        status -> gameRepository.searchByName(query.getValue(), page)));
+            }
+            for (Map.Entry<String, String> query : userQueries.entrySet()) {
+                report("users / " + query.getKey(), USER_TARGET_P95_MILLIS, () -> transactionTemplate.execute(
+                        status -> userRepository.searchActiveByName(query.getValue(), page)));
+            }
+            report("games / typo, page 10", GAME_TARGET_P95_MILLIS, () -> transactionTemplate.execute(
+                    status -> gameRepository.searchByName("Karmoi Legnds", PageRequest.of(9, 20))));
+        } finally {
+            jdbcTemplate.update("DELETE FROM games WHERE steam_app_id BETWEEN ? AND ?",
+                    FIRST_APP_ID, FIRST_APP_ID + CATALOG_SIZE - 1);
+            jdbcTemplate.update("DELETE FROM users WHERE steam_id BETWEEN ? AND ?",
+                    FIRST_STEAM_ID, FIRST_STEAM_ID + userCount - 1);
+        }
+    }
+
+    // Gerado no próprio banco: 5 milhões de linhas não cabem num batch vindo da JVM em tempo razoável
+    private void seed(long userCount) {
+        jdbcTemplate.update(
+                "INSERT INTO games (game_id, steam_app_id, name, created_at, updated_at) " +
+                "SELECT nextval('games_game_id_seq'), ? + i, " +
+                "       initcap(s[1 + i % 20] || s[1 + (i / 20) % 20] || s[1 + (i / 400) % 20]) || ' ' || " +
+                "       w[1 + (i / 8000) % 12] || CASE WHEN i >= 96000 THEN ' ' || (i / 96000 + 1) ELSE '' END, " +
+                "       now(), now() " +
+                "FROM generate_series(0, ? - 1) i, (SELECT " + SYLLABLES + " s, " + WORDS + " w) v " +
+                "ON CONFLICT (steam_app_id) DO NOTHING",
+                FIRST_APP_ID, CATALOG_SIZE);
+        jdbcTemplate.update(
+                "INSERT INTO users (user_id, steam_id, username, display_name, is_active) " +
+                "SELECT nextval('users_user_id_seq'), ? + i, " +
+                "       s[1 + i % 20] || s[1 + (i / 20) % 20] || s[1 + (i / 400) % 20] || '_' || (i / 8000), " +
+                "       initcap(s[1 + (i / 7) % 20] || s[1 + (i / 3) % 20]) || ' ' || initcap(s[1 + (i / 11) % 20]), " +
+                "       i % 10 <> 0 " +
+                "FROM generate_series(0, ? - 1) i, (SELECT " + SYLLABLES + " s) v " +
+                "ON CONFLICT (steam_id) DO NOTHING",
+                FIRST_STEAM_ID, userCount);
+    }
+
+    private static void report(String label, double targetMillis, Supplier<?> query) {
+        for (int warmup = 0; warmup < 10; warmup++) {
+            query.get();
+        }
+        double[] millis = new double[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            query.get();
+            millis[run] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(millis);
+        double p95 = millis[(int) Math.ceil(RUNS * 0.95) - 1];
+        System.out.printf("%-28s p50 %7.2f ms | p95 %7.2f ms | target %5.0f ms %s%n",
+                label, millis[RUNS / 2], p95, targetMillis, p95 <= targetMillis ? "ok" : "MISSED");
+    }
+}
@@ -0,0 +1,57 @@
+package com.steamanalytics.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class SequenceBlockAllocatorTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    void onlyOneSequenceValuePerBlockIsConsumed() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("games_game_id_seq"), eq(3)))
+                .thenReturn(List.of(1L, 51L, 101L));
+        SequenceBlockAllocator allocator = new SequenceBlockAllocator(jdbcTemplate, 50);
+
+        long[] ids = allocator.allocate("games_game_id_seq", 120);
+
+        assertThat(ids).hasSize(120).doesNotHaveDuplicates();
+        assertThat(ids[0]).isEqualTo(1L);
+        assertThat(ids[49]).isEqualTo(50L);
+        assertThat(ids[50]).isEqualTo(51L);
+        assertThat(ids[119]).isEqualTo(120L);
+        verify(jdbcTemplate).queryForList(anyString(), eq(Long.class), eq("games_game_id_seq"), eq(3));
+    }
+
+    @Test
+    void blockSizeOfOneUsesOneValuePerRow() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("seq"), eq(2))).thenReturn(List.of(7L, 8L));
+
+        assertThat(new SequenceBlockAllocator(jdbcTemplate, 1).allocate("seq", 2)).containsExactly(7L, 8L);
+    }
+
+    @Test
+    void nothingToAllocateSkipsTheDatabase() {
+        assertThat(new SequenceBlockAllocator(jdbcTemplate, 50).allocate("seq", 0)).isEmpty();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void shortAnswerFromTheSequenceIsAnError() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("seq"), eq(2))).thenReturn(List.of(1L));
+
+        assertThatThrownBy(() -> new SequenceBlockAllocator(jdbcTemplate, 50).allocate("seq", 60))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
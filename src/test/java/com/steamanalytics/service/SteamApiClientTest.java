@@ -0,0 +1,211 @@
+package com.steamanalytics.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.steamanalytics.model.dto.SteamFriend;
+import com.steamanalytics.model.dto.SteamOwnedGame;
+import com.steamanalytics.model.dto.SteamPlayerSummary;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * SteamApiClient contra um servidor HTTP local (com.sun.net.httpserver) que imita a Steam Web API
+ */
+class SteamApiClientTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final Queue<String> requests = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void streamsOwnedGamesLargerThanTheInMemoryBuffer() {
+        int games = 40_000;
+        server.createContext("/IPlayerService/GetOwnedGames/v1/", exchange -> {
+            requests.add(exchange.getRequestURI().getQuery());
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write("{\"response\":{\"game_count\":40000,\"games\":[".getBytes(StandardCharsets.UTF_8));
+                for (int i = 0; i < games; i++) {
+                    String game = (i > 0 ? "," : "") + "{\"appid\":" + i + ",\"name\":\"Game " + i +
+                            "\",\"playtime_forever\":" + (i * 3) + ",\"img_icon_url\":\"0123456789abcdef0123456789abcdef\"," +
+                            "\"has_community_visible_stats\":true,\"rtime_last_played\":1700000000}";
+                    body.write(game.getBytes(StandardCharsets.UTF_8));
+                }
+                body.write("]}}".getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        // Buffer padrão do WebClient (256 KB); a resposta tem mais de 5 MB
+        SteamApiClient client = client(WebClient.builder().baseUrl(baseUrl()).build(), 4, 100);
+
+        List<SteamOwnedGame> owned = client.getOwnedGames(76561198000000001L).collectList().block(TIMEOUT);
+
+        assertThat(owned).hasSize(games);
+        assertThat(owned.get(games - 1).getAppId()).isEqualTo(games - 1);
+        assertThat(owned.get(games - 1).getPlaytimeForever()).isEqualTo((games - 1) * 3);
+        assertThat(owned.get(0).getLastPlayedEpochSecond()).isEqualTo(1_700_000_000L);
+        assertThat(requests.peek()).contains("steamid=76561198000000001", "key=test-key", "include_appinfo=1");
+    }
+
+    @Test
+    void retriesTransientFailures() {
+        AtomicInteger calls = new AtomicInteger();
+        server.createContext("/ISteamUser/GetFriendList/v1/", exchange -> {
+            if (calls.incrementAndGet() <= 2) {
+                respond(exchange, 503, "");
+            } else {
+                respond(exchange, 200, "{\"friendslist\":{\"friends\":[" +
+                        "{\"steamid\":\"76561198000000002\",\"relationship\":\"friend\",\"friend_since\":1600000000}]}}");
+            }
+        });
+
+        List<SteamFriend> friends = client(4, 100).getFriendList(76561198000000001L).collectList().block(TIMEOUT);
+
+        assertThat(calls).hasValue(3);
+        assertThat(friends).singleElement().satisfies(friend -> {
+            assertThat(friend.getSteamId()).isEqualTo(76561198000000002L);
+            assertThat(friend.getFriendSinceEpochSecond()).isEqualTo(1_600_000_000L);
+        });
+    }
+
+    @Test
+    void privateFriendListIsEmptyAndClientErrorsAreNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+        server.createContext("/ISteamUser/GetFriendList/v1/", exchange -> {
+            calls.incrementAndGet();
+            respond(exchange, 401, "<html>Unauthorized</html>");
+        });
+        server.createContext("/IPlayerService/GetOwnedGames/v1/", exchange -> {
+            calls.incrementAndGet();
+            respond(exchange, 400, "");
+        });
+        SteamApiClient client = client(4, 100);
+
+        assertThat(client.getFriendList(1L).collectList().block(TIMEOUT)).isEmpty();
+        assertThatThrownBy(() -> client.getOwnedGames(1L).blockLast(TIMEOUT))
+                .isInstanceOf(WebClientResponseException.BadRequest.class);
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void boundsRequestsInFlight() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        server.createContext("/IPlayerService/GetOwnedGames/v1/", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            respond(exchange, 200, "{\"response\":{\"games\":[{\"appid\":10}]}}");
+        });
+        SteamApiClient client = client(2, 100);
+
+        Long games = Flux.range(1, 6)
+                .flatMap(user -> client.getOwnedGames(user))
+                .count()
+                .block(TIMEOUT);
+
+        assertThat(games).isEqualTo(6);
+        assertThat(maxInFlight.get()).isEqualTo(2);
+    }
+
+    @Test
+    void spacesCallsForTheSameUserByThePerUserLimit() {
+        Queue<Long> arrivals = new ConcurrentLinkedQueue<>();
+        server.createContext("/IPlayerService/GetOwnedGames/v1/", exchange -> {
+            arrivals.add(System.nanoTime());
+            respond(exchange, 200, "{\"response\":{}}");
+        });
+        SteamApiClient client = client(4, 200);
+
+        Flux.merge(client.getOwnedGames(7L), client.getOwnedGames(7L), client.getOwnedGames(7L)).blockLast(TIMEOUT);
+
+        List<Long> times = arrivals.stream().sorted().toList();
+        assertThat(times).hasSize(3);
+        assertThat(Duration.ofNanos(times.get(2) - times.get(0))).isGreaterThanOrEqualTo(Duration.ofMillis(350));
+    }
+
+    @Test
+    void splitsPlayerSummariesIntoCallsOfOneHundredIds() {
+        server.createContext("/ISteamUser/GetPlayerSummaries/v2/", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            requests.add(query);
+            String ids = query.replaceAll(".*steamids=([0-9,]+).*", "$1");
+            StringBuilder players = new StringBuilder("{\"response\":{\"players\":[");
+            String[] split = ids.split(",");
+            for (int i = 0; i < split.length; i++) {
+                players.append(i > 0 ? "," : "")
+                        .append("{\"steamid\":\"").append(split[i]).append("\",\"personaname\":\"p").append(i).append("\"}");
+            }
+            respond(exchange, 200, players.append("]}}").toString());
+        });
+
+        List<Long> steamIds = LongStream.rangeClosed(1, 150).boxed().toList();
+        List<SteamPlayerSummary> summaries = client(4, 100).getPlayerSummaries(steamIds).collectList().block(TIMEOUT);
+
+        assertThat(summaries).extracting(SteamPlayerSummary::getSteamId).containsExactlyInAnyOrderElementsOf(steamIds);
+        assertThat(requests).hasSize(2);
+    }
+
+    private SteamApiClient client(int maxConcurrency, long perUserPeriodMillis) {
+        return client(WebClient.builder().baseUrl(baseUrl()).build(), maxConcurrency, perUserPeriodMillis);
+    }
+
+    private SteamApiClient client(WebClient webClient, int maxConcurrency, long perUserPeriodMillis) {
+        return new SteamApiClient(webClient, new ObjectMapper(), "test-key",
+                100_000, Duration.ofDays(1), 1, Duration.ofMillis(perUserPeriodMillis),
+                maxConcurrency, 3, Duration.ofMillis(10), Duration.ofSeconds(5));
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.steamanalytics.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void burstUpToTheLimitThenQueuesReservations() {
+        TokenBucket bucket = new TokenBucket(2, Duration.ofSeconds(1), now::get);
+
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isEqualTo(Duration.ofMillis(500));
+        assertThat(bucket.reserve()).isEqualTo(Duration.ofMillis(1000));
+    }
+
+    @Test
+    void refillsOverTimeButNeverAboveCapacity() {
+        TokenBucket bucket = new TokenBucket(2, Duration.ofSeconds(1), now::get);
+        bucket.reserve();
+        bucket.reserve();
+
+        now.addAndGet(Duration.ofMillis(500).toNanos());
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isEqualTo(Duration.ofMillis(500));
+
+        now.addAndGet(Duration.ofMinutes(10).toNanos());
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isPositive();
+    }
+
+    @Test
+    void rejectsNonPositiveLimits() {
+        assertThatThrownBy(() -> new TokenBucket(0, Duration.ofSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
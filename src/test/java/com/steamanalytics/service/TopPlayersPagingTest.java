@@ -0,0 +1,71 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.model.dto.CursorPage;
+import com.steamanalytics.model.entity.UserGameLibrary;
+import com.steamanalytics.repository.UserGameLibraryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TopPlayersPagingTest {
+
+    private final UserGameLibraryRepository repository = mock(UserGameLibraryRepository.class);
+    private final UserGameLibraryService service = new UserGameLibraryService(repository, mock(UserService.class),
+            mock(GameService.class), mock(UserLibraryStatsService.class), mock(GameStatsService.class),
+            mock(LibraryBulkSyncer.class), mock(GameSimilarityService.class), mock(CacheDependencyRegistry.class),
+            mock(CacheLoadCoordinator.class), mock(LibraryWriteBuffer.class), true);
+
+    @Test
+    void fetchesOneExtraRowToDetectTheNextPage() {
+        when(repository.findTopPlayersByGame(7L, PageRequest.of(0, 4))).thenReturn(entries(4));
+
+        CursorPage<UserGameLibrary> page = service.getTopPlayersByGame(7L, null, 3);
+
+        assertThat(page.getItems()).extracting(UserGameLibrary::getId).containsExactly(4L, 3L, 2L);
+        assertThat(page.getNextCursor()).isEqualTo("200:2");
+    }
+
+    @Test
+    void continuesAfterTheCursorRow() {
+        when(repository.findTopPlayersByGameAfter(7L, 200, 2L, PageRequest.of(0, 4))).thenReturn(entries(1));
+
+        CursorPage<UserGameLibrary> page = service.getTopPlayersByGame(7L, "200:2", 3);
+
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void capsThePageSize() {
+        when(repository.findTopPlayersByGame(any(), any())).thenReturn(List.of());
+
+        service.getTopPlayersByGame(7L, "", 10_000);
+
+        verify(repository).findTopPlayersByGame(7L, PageRequest.of(0, UserGameLibraryService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThatThrownBy(() -> service.getTopPlayersByGame(7L, "abc", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Entradas com IDs n..1 e tempo de jogo 100 * id, na ordem da consulta
+    private static List<UserGameLibrary> entries(int count) {
+        return LongStream.iterate(count, id -> id - 1).limit(count).mapToObj(id -> {
+            UserGameLibrary entry = new UserGameLibrary();
+            entry.setId(id);
+            entry.setPlaytimeTotal((int) id * 100);
+            return entry;
+        }).toList();
+    }
+}
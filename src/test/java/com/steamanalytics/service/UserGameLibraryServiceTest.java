@@ -0,0 +1,56 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.repository.UserGameLibraryRepository;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UserGameLibraryServiceTest {
+
+    private final UserGameLibraryRepository repository = mock(UserGameLibraryRepository.class);
+    private final LibraryWriteBuffer libraryWriteBuffer = mock(LibraryWriteBuffer.class);
+    private final UserGameLibraryService service = new UserGameLibraryService(repository, mock(UserService.class),
+            mock(GameService.class), mock(UserLibraryStatsService.class), mock(GameStatsService.class),
+            mock(LibraryBulkSyncer.class), mock(GameSimilarityService.class), mock(CacheDependencyRegistry.class),
+            mock(CacheLoadCoordinator.class), libraryWriteBuffer, true);
+
+    @Test
+    void bufferedUpdateOfAGameOutsideTheLibraryIsRejected() {
+        when(libraryWriteBuffer.isEnabled()).thenReturn(true);
+
+        assertThatThrownBy(() -> service.bufferPlaytime(1L, 10L, 100, 0))
+                .hasMessage("Game not found in user's library");
+        assertThatThrownBy(() -> service.bufferLastPlayed(1L, 10L))
+                .hasMessage("Game not found in user's library");
+        verify(libraryWriteBuffer, never()).submit(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void knownLibraryRowsAreCheckedOnce() {
+        when(libraryWriteBuffer.isEnabled()).thenReturn(true);
+        when(repository.existsByUserUserIdAndGameGameId(1L, 10L)).thenReturn(true);
+        when(libraryWriteBuffer.submit(1L, 10L, 100, 0)).thenReturn(true);
+        when(libraryWriteBuffer.submit(1L, 10L, null, null)).thenReturn(true);
+
+        assertThat(service.bufferPlaytime(1L, 10L, 100, 0)).isTrue();
+        assertThat(service.bufferLastPlayed(1L, 10L)).isTrue();
+
+        verify(repository, times(1)).existsByUserUserIdAndGameGameId(1L, 10L);
+    }
+
+    @Test
+    void disabledBufferSkipsTheLookup() {
+        assertThat(service.bufferPlaytime(1L, 10L, 100, 0)).isFalse();
+
+        verifyNoInteractions(repository);
+    }
+}
@@ -0,0 +1,51 @@
+package com.steamanalytics.service;
+
+import com.steamanalytics.repository.UserGameLibraryRepository;
+import com.steamanalytics.repository.UserLibraryStatsRepository;
+import com.steamanalytics.service.UserLibraryStatsService.PlaytimeChange;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class UserLibraryStatsServiceTest {
+
+    private final UserLibraryStatsRepository userLibraryStatsRepository = mock(UserLibraryStatsRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final UserLibraryStatsService service = new UserLibraryStatsService(userLibraryStatsRepository,
+            mock(UserGameLibraryRepository.class), jdbcTemplate);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchSumsDeltasPerUserInUserIdOrder() {
+        service.onPlaytimesChanged(List.of(
+                new PlaytimeChange(7L, 0, 30),
+                new PlaytimeChange(3L, 100, 160),
+                new PlaytimeChange(7L, 50, 50),
+                new PlaytimeChange(3L, null, 20),
+                new PlaytimeChange(5L, 40, 0),
+                new PlaytimeChange(5L, 0, 40)));
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        // Usuário 5 se anula e fica de fora
+        assertThat(rows.getValue()).containsExactly(
+                new Object[]{3L, 1L, 80L},
+                new Object[]{7L, 1L, 30L});
+        verifyNoInteractions(userLibraryStatsRepository);
+    }
+
+    @Test
+    void unchangedPlaytimesWriteNothing() {
+        service.onPlaytimesChanged(List.of(new PlaytimeChange(1L, 90, 90), new PlaytimeChange(2L, null, 0)));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}